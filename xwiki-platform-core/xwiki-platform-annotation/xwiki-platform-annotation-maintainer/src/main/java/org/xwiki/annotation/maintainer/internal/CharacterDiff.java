@@ -0,0 +1,443 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.annotation.maintainer.internal;
+
+import java.nio.CharBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Computes the character level differences between two texts without boxing the characters.
+ * <p>
+ * The common prefix and suffix are stripped first, then the remaining lines are compared and only the modified lines
+ * are compared character by character. Both comparisons use the linear space variant of the Myers difference
+ * algorithm.
+ *
+ * @version $Id$
+ * @since 12.0RC1
+ */
+final class CharacterDiff
+{
+    /**
+     * The maximum number of differences searched for in a single region before giving up and considering the whole
+     * region as modified. It bounds the quadratic cost of comparing completely rewritten texts.
+     */
+    private static final int MAX_DIFFERENCES = 1000;
+
+    /**
+     * A modified region: the previous text between {@link #previousStart} and {@link #previousEnd} was replaced with
+     * the current text between {@link #currentStart} and {@link #currentEnd} (end indexes are exclusive).
+     *
+     * @version $Id$
+     */
+    static final class Chunk
+    {
+        private int previousStart;
+
+        private int previousEnd;
+
+        private int currentStart;
+
+        private int currentEnd;
+
+        Chunk(int previousStart, int previousEnd, int currentStart, int currentEnd)
+        {
+            this.previousStart = previousStart;
+            this.previousEnd = previousEnd;
+            this.currentStart = currentStart;
+            this.currentEnd = currentEnd;
+        }
+
+        int getPreviousStart()
+        {
+            return this.previousStart;
+        }
+
+        int getPreviousEnd()
+        {
+            return this.previousEnd;
+        }
+
+        int getCurrentStart()
+        {
+            return this.currentStart;
+        }
+
+        int getCurrentEnd()
+        {
+            return this.currentEnd;
+        }
+
+        @Override
+        public String toString()
+        {
+            return String.format("[%d, %d[ -> [%d, %d[", this.previousStart, this.previousEnd, this.currentStart,
+                this.currentEnd);
+        }
+    }
+
+    private final CharSequence previous;
+
+    private final CharSequence current;
+
+    private final List<Chunk> chunks = new ArrayList<>();
+
+    private CharacterDiff(CharSequence previous, CharSequence current)
+    {
+        this.previous = previous;
+        this.current = current;
+    }
+
+    /**
+     * @param previous the previous text
+     * @param current the current text
+     * @return the modified regions, in order
+     */
+    static List<Chunk> diff(CharSequence previous, CharSequence current)
+    {
+        CharacterDiff diff = new CharacterDiff(previous, current);
+
+        diff.diffLines();
+
+        return diff.chunks;
+    }
+
+    private void diffLines()
+    {
+        int previousEnd = this.previous.length();
+        int currentEnd = this.current.length();
+
+        // Strip the common prefix and suffix
+        int start = 0;
+        while (start < previousEnd && start < currentEnd && this.previous.charAt(start) == this.current.charAt(start)) {
+            ++start;
+        }
+        while (previousEnd > start && currentEnd > start
+            && this.previous.charAt(previousEnd - 1) == this.current.charAt(currentEnd - 1)) {
+            --previousEnd;
+            --currentEnd;
+        }
+
+        if (start == previousEnd || start == currentEnd) {
+            addChunk(start, previousEnd, start, currentEnd);
+
+            return;
+        }
+
+        // Compare the lines (starting with the line containing the first difference so that the changes are not split
+        // around the line separators)
+        int lineStart = start;
+        while (lineStart > 0 && this.previous.charAt(lineStart - 1) != '\n') {
+            --lineStart;
+        }
+        int[] previousLines = getLineEnds(this.previous, lineStart, previousEnd);
+        int[] currentLines = getLineEnds(this.current, lineStart, currentEnd);
+
+        Map<CharBuffer, Integer> lineIds = new HashMap<>();
+        int[] previousIds = getLineIds(this.previous, lineStart, previousLines, lineIds);
+        int[] currentIds = getLineIds(this.current, lineStart, currentLines, lineIds);
+
+        List<Chunk> lineChunks = new ArrayList<>();
+        new Myers(previousIds, currentIds, lineChunks).diff(0, previousIds.length, 0, currentIds.length);
+
+        // Compare the characters of the modified lines
+        for (Chunk lineChunk : lineChunks) {
+            int lineCount = lineChunk.previousEnd - lineChunk.previousStart;
+            if (lineCount == lineChunk.currentEnd - lineChunk.currentStart) {
+                // Most probably the same lines were modified so compare them one by one
+                for (int i = 0; i < lineCount; ++i) {
+                    int previousLine = lineChunk.previousStart + i;
+                    int currentLine = lineChunk.currentStart + i;
+                    diffCharacters(lineStart, previousLines, previousLine, previousLine + 1, currentLines,
+                        currentLine, currentLine + 1);
+                }
+            } else {
+                diffCharacters(lineStart, previousLines, lineChunk.previousStart, lineChunk.previousEnd, currentLines,
+                    lineChunk.currentStart, lineChunk.currentEnd);
+            }
+        }
+    }
+
+    private void diffCharacters(int start, int[] previousLines, int previousStartLine, int previousEndLine,
+        int[] currentLines, int currentStartLine, int currentEndLine)
+    {
+        int previousStart = getOffset(start, previousLines, previousStartLine);
+        int previousEnd = getOffset(start, previousLines, previousEndLine);
+        int currentStart = getOffset(start, currentLines, currentStartLine);
+        int currentEnd = getOffset(start, currentLines, currentEndLine);
+
+        if (previousStart == previousEnd || currentStart == currentEnd) {
+            addChunk(previousStart, previousEnd, currentStart, currentEnd);
+        } else {
+            diffCharacters(previousStart, previousEnd, currentStart, currentEnd);
+        }
+    }
+
+    private void diffCharacters(int previousStart, int previousEnd, int currentStart, int currentEnd)
+    {
+        List<Chunk> characterChunks = new ArrayList<>();
+        new Myers(toArray(this.previous, previousStart, previousEnd), toArray(this.current, currentStart, currentEnd),
+            characterChunks).diff(0, previousEnd - previousStart, 0, currentEnd - currentStart);
+
+        for (Chunk chunk : characterChunks) {
+            addChunk(previousStart + chunk.previousStart, previousStart + chunk.previousEnd,
+                currentStart + chunk.currentStart, currentStart + chunk.currentEnd);
+        }
+    }
+
+    private void addChunk(int previousStart, int previousEnd, int currentStart, int currentEnd)
+    {
+        addChunk(this.chunks, previousStart, previousEnd, currentStart, currentEnd);
+    }
+
+    private static void addChunk(List<Chunk> chunks, int previousStart, int previousEnd, int currentStart,
+        int currentEnd)
+    {
+        if (previousStart == previousEnd && currentStart == currentEnd) {
+            return;
+        }
+
+        // Merge contiguous modifications
+        if (!chunks.isEmpty()) {
+            Chunk last = chunks.get(chunks.size() - 1);
+            if (last.previousEnd == previousStart && last.currentEnd == currentStart) {
+                last.previousEnd = previousEnd;
+                last.currentEnd = currentEnd;
+
+                return;
+            }
+        }
+
+        chunks.add(new Chunk(previousStart, previousEnd, currentStart, currentEnd));
+    }
+
+    /**
+     * @return the (exclusive) end offset of each line, the line separator being part of the line
+     */
+    private static int[] getLineEnds(CharSequence text, int start, int end)
+    {
+        int[] ends = new int[16];
+        int count = 0;
+
+        for (int i = start; i < end;) {
+            char c = text.charAt(i++);
+            if (c == '\n' || i == end) {
+                if (count == ends.length) {
+                    ends = Arrays.copyOf(ends, count * 2);
+                }
+                ends[count++] = i;
+            }
+        }
+
+        return Arrays.copyOf(ends, count);
+    }
+
+    private static int[] getLineIds(CharSequence text, int start, int[] lineEnds, Map<CharBuffer, Integer> lineIds)
+    {
+        int[] ids = new int[lineEnds.length];
+
+        int lineStart = start;
+        for (int i = 0; i < lineEnds.length; ++i) {
+            // Wrapping does not copy the characters
+            CharBuffer line = CharBuffer.wrap(text, lineStart, lineEnds[i]);
+            Integer id = lineIds.get(line);
+            if (id == null) {
+                id = lineIds.size();
+                lineIds.put(line, id);
+            }
+            ids[i] = id;
+
+            lineStart = lineEnds[i];
+        }
+
+        return ids;
+    }
+
+    private static int getOffset(int start, int[] lineEnds, int line)
+    {
+        return line > 0 ? lineEnds[line - 1] : start;
+    }
+
+    private static int[] toArray(CharSequence text, int start, int end)
+    {
+        int[] array = new int[end - start];
+        for (int i = 0; i < array.length; ++i) {
+            array[i] = text.charAt(start + i);
+        }
+
+        return array;
+    }
+
+    /**
+     * Linear space Myers difference algorithm: the middle snake of the edit graph is searched from both ends at the
+     * same time and the parts before and after it are compared recursively.
+     *
+     * @version $Id$
+     */
+    private static final class Myers
+    {
+        private final int[] a;
+
+        private final int[] b;
+
+        private final List<Chunk> chunks;
+
+        Myers(int[] a, int[] b, List<Chunk> chunks)
+        {
+            this.a = a;
+            this.b = b;
+            this.chunks = chunks;
+        }
+
+        void diff(int aStart, int aEnd, int bStart, int bEnd)
+        {
+            int aLow = aStart;
+            int aHigh = aEnd;
+            int bLow = bStart;
+            int bHigh = bEnd;
+
+            // Skip the common prefix and suffix
+            while (aLow < aHigh && bLow < bHigh && this.a[aLow] == this.b[bLow]) {
+                ++aLow;
+                ++bLow;
+            }
+            while (aLow < aHigh && bLow < bHigh && this.a[aHigh - 1] == this.b[bHigh - 1]) {
+                --aHigh;
+                --bHigh;
+            }
+
+            if (aLow == aHigh || bLow == bHigh) {
+                addChunk(this.chunks, aLow, aHigh, bLow, bHigh);
+            } else {
+                bisect(aLow, aHigh, bLow, bHigh);
+            }
+        }
+
+        private void bisect(int aStart, int aEnd, int bStart, int bEnd)
+        {
+            int aLength = aEnd - aStart;
+            int bLength = bEnd - bStart;
+            int maxD = Math.min((aLength + bLength + 1) / 2, MAX_DIFFERENCES);
+            int offset = maxD;
+            int length = 2 * maxD + 2;
+
+            int[] forward = new int[length];
+            int[] backward = new int[length];
+            Arrays.fill(forward, -1);
+            Arrays.fill(backward, -1);
+            forward[offset + 1] = 0;
+            backward[offset + 1] = 0;
+
+            int delta = aLength - bLength;
+            // If the total number of characters is odd, then the front path will collide with the reverse path
+            boolean front = delta % 2 != 0;
+
+            // Offsets for start and end of k loop, prevent mapping of space beyond the grid
+            int k1start = 0;
+            int k1end = 0;
+            int k2start = 0;
+            int k2end = 0;
+
+            for (int d = 0; d < maxD; ++d) {
+                // Walk the front path one step
+                for (int k1 = -d + k1start; k1 <= d - k1end; k1 += 2) {
+                    int k1Offset = offset + k1;
+                    int x1;
+                    if (k1 == -d || (k1 != d && forward[k1Offset - 1] < forward[k1Offset + 1])) {
+                        x1 = forward[k1Offset + 1];
+                    } else {
+                        x1 = forward[k1Offset - 1] + 1;
+                    }
+                    int y1 = x1 - k1;
+                    while (x1 < aLength && y1 < bLength && this.a[aStart + x1] == this.b[bStart + y1]) {
+                        ++x1;
+                        ++y1;
+                    }
+                    forward[k1Offset] = x1;
+                    if (x1 > aLength) {
+                        // Ran off the right of the graph
+                        k1end += 2;
+                    } else if (y1 > bLength) {
+                        // Ran off the bottom of the graph
+                        k1start += 2;
+                    } else if (front) {
+                        int k2Offset = offset + delta - k1;
+                        if (k2Offset >= 0 && k2Offset < length && backward[k2Offset] != -1
+                            && x1 >= aLength - backward[k2Offset]) {
+                            // Overlap detected
+                            split(aStart, aEnd, bStart, bEnd, x1, y1);
+
+                            return;
+                        }
+                    }
+                }
+
+                // Walk the reverse path one step
+                for (int k2 = -d + k2start; k2 <= d - k2end; k2 += 2) {
+                    int k2Offset = offset + k2;
+                    int x2;
+                    if (k2 == -d || (k2 != d && backward[k2Offset - 1] < backward[k2Offset + 1])) {
+                        x2 = backward[k2Offset + 1];
+                    } else {
+                        x2 = backward[k2Offset - 1] + 1;
+                    }
+                    int y2 = x2 - k2;
+                    while (x2 < aLength && y2 < bLength
+                        && this.a[aEnd - x2 - 1] == this.b[bEnd - y2 - 1]) {
+                        ++x2;
+                        ++y2;
+                    }
+                    backward[k2Offset] = x2;
+                    if (x2 > aLength) {
+                        // Ran off the left of the graph
+                        k2end += 2;
+                    } else if (y2 > bLength) {
+                        // Ran off the top of the graph
+                        k2start += 2;
+                    } else if (!front) {
+                        int k1Offset = offset + delta - k2;
+                        if (k1Offset >= 0 && k1Offset < length && forward[k1Offset] != -1) {
+                            int x1 = forward[k1Offset];
+                            int y1 = offset + x1 - k1Offset;
+                            if (x1 >= aLength - x2) {
+                                // Overlap detected
+                                split(aStart, aEnd, bStart, bEnd, x1, y1);
+
+                                return;
+                            }
+                        }
+                    }
+                }
+            }
+
+            // No commonality at all (or too many differences to bother)
+            addChunk(this.chunks, aStart, aEnd, bStart, bEnd);
+        }
+
+        private void split(int aStart, int aEnd, int bStart, int bEnd, int x, int y)
+        {
+            diff(aStart, aStart + x, bStart, bStart + y);
+            diff(aStart + x, aEnd, bStart + y, bEnd);
+        }
+    }
+}
@@ -26,10 +26,9 @@
 
 import javax.inject.Singleton;
 
-import org.incava.util.diff.Diff;
-import org.incava.util.diff.Difference;
 import org.xwiki.annotation.maintainer.DiffService;
 import org.xwiki.annotation.maintainer.XDelta;
+import org.xwiki.annotation.maintainer.internal.CharacterDiff.Chunk;
 import org.xwiki.component.annotation.Component;
 
 /**
@@ -46,24 +45,14 @@ public class CharacterDiffService implements DiffService
     public Collection<XDelta> getDifferences(String previous, String current)
     {
         // get differences at character level
-        // FIXME: do we want at character level or we'd better get word level, to have it working faster
-        Collection<XDelta> deltas = new ArrayList<XDelta>();
-        List<Character> previousContent = new ArrayList<Character>();
-        for (int i = 0; i < previous.length(); ++i) {
-            previousContent.add(previous.charAt(i));
-        }
-        List<Character> currentContent = new ArrayList<Character>();
-        for (int i = 0; i < current.length(); ++i) {
-            currentContent.add(current.charAt(i));
-        }
-        Diff<Character> diff = new Diff<Character>(previousContent, currentContent);
+        List<Chunk> chunks = CharacterDiff.diff(previous, current);
+
         // prepare the XDeltas for all diffs
-        for (Difference it : diff.diff()) {
-            XDelta delta = getDelta(previous, current, it);
-            if (delta != null) {
-                deltas.add(delta);
-            }
+        Collection<XDelta> deltas = new ArrayList<>(chunks.size());
+        for (Chunk chunk : chunks) {
+            deltas.add(getDelta(previous, current, chunk));
         }
+
         return deltas;
     }
 
@@ -72,35 +61,15 @@ public Collection<XDelta> getDifferences(String previous, String current)
      *
      * @param previous the previous content
      * @param current the current content
-     * @param diff the difference to prepare the XDelta object for
-     * @return an {@link XDelta} object corresponding to {@code diff}
+     * @param chunk the difference to prepare the XDelta object for
+     * @return an {@link XDelta} object corresponding to {@code chunk}
      */
-    private XDelta getDelta(String previous, String current, Difference diff)
+    private XDelta getDelta(String previous, String current, Chunk chunk)
     {
-        int position;
-        String original = "";
-        String modified = "";
-
         // deleted is from previous, added is in current
+        String original = previous.substring(chunk.getPreviousStart(), chunk.getPreviousEnd());
+        String modified = current.substring(chunk.getCurrentStart(), chunk.getCurrentEnd());
 
-        if (diff.getDeletedStart() == Difference.NONE || diff.getAddedStart() == Difference.NONE) {
-            // this diff doesn't make sense, ignore it
-            return null;
-        }
-
-        position = diff.getDeletedStart();
-
-        // the content that was deleted
-        if (diff.getDeletedEnd() != Difference.NONE) {
-            original = previous.substring(diff.getDeletedStart(), diff.getDeletedEnd() + 1);
-        }
-
-        // the content that was added
-        if (diff.getAddedEnd() != Difference.NONE) {
-            modified = current.substring(diff.getAddedStart(), diff.getAddedEnd() + 1);
-        }
-
-        // else return the built chunk
-        return new ChunksXDelta(position, original, modified);
+        return new ChunksXDelta(chunk.getPreviousStart(), original, modified);
     }
 }
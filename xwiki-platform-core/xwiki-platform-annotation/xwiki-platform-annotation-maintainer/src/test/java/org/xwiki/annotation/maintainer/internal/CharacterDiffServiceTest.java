@@ -0,0 +1,110 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.annotation.maintainer.internal;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.xwiki.annotation.maintainer.XDelta;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for {@link CharacterDiffService}.
+ *
+ * @version $Id$
+ */
+public class CharacterDiffServiceTest
+{
+    private CharacterDiffService diffService = new CharacterDiffService();
+
+    private List<String> diff(String previous, String current)
+    {
+        Collection<XDelta> deltas = this.diffService.getDifferences(previous, current);
+
+        List<String> result = new ArrayList<>(deltas.size());
+        StringBuilder patched = new StringBuilder();
+        int offset = 0;
+        for (XDelta delta : deltas) {
+            result.add(delta.getOffset() + ":" + delta.getOriginal() + ">" + delta.getChanged());
+
+            patched.append(previous, offset, delta.getOffset()).append(delta.getChanged());
+            offset = delta.getOffset() + delta.getOriginal().length();
+        }
+        patched.append(previous, offset, previous.length());
+
+        // The differences should always transform the previous content into the current one
+        assertEquals(current, patched.toString());
+
+        return result;
+    }
+
+    @Test
+    public void getDifferencesWhenEqual()
+    {
+        assertTrue(diff("", "").isEmpty());
+        assertTrue(diff("same content", "same content").isEmpty());
+    }
+
+    @Test
+    public void getDifferencesAtCharacterLevel()
+    {
+        assertEquals(Arrays.asList("0:>abc"), diff("", "abc"));
+        assertEquals(Arrays.asList("0:abc>"), diff("abc", ""));
+        assertEquals(Arrays.asList("2:>d"), diff("abc", "abdc"));
+        assertEquals(Arrays.asList("1:b>"), diff("abc", "ac"));
+        assertEquals(Arrays.asList("1:b>x"), diff("abc", "axc"));
+        assertEquals(Arrays.asList("0:a>", "4:>e"), diff("abcd", "bcde"));
+        assertEquals(Arrays.asList("0:abc>xyz"), diff("abc", "xyz"));
+    }
+
+    @Test
+    public void getDifferencesOnSeveralLines()
+    {
+        String previous = "first line\nsecond line\nthird line\nfourth line\n";
+
+        assertEquals(Arrays.asList("13:co>ve", "16:d>th"),
+            diff(previous, "first line\nseventh line\nthird line\nfourth line\n"));
+        assertEquals(Arrays.asList("0:f>F", "23:t>T", "40:> line\nlast"),
+            diff(previous, "First line\nsecond line\nThird line\nfourth line\nlast line\n"));
+        assertEquals(Arrays.asList("11:second line\n>"),
+            diff(previous, "first line\nthird line\nfourth line\n"));
+        assertEquals(Arrays.asList("11:>new line\nnew line\n", "25:ir>"),
+            diff(previous, "first line\nnew line\nnew line\nsecond line\nthd line\nfourth line\n"));
+    }
+
+    @Test
+    public void getDifferencesOnLargeContent()
+    {
+        StringBuilder previous = new StringBuilder();
+        StringBuilder current = new StringBuilder();
+        for (int i = 0; i < 10000; ++i) {
+            previous.append("Line ").append(i).append(" with some **bold** content\n");
+            current.append("Line ").append(i).append(i % 100 == 0 ? " with some //italic// content\n"
+                : " with some **bold** content\n");
+        }
+
+        assertEquals(200, diff(previous.toString(), current.toString()).size());
+    }
+}
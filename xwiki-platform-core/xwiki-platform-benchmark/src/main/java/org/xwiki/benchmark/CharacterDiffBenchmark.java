@@ -0,0 +1,126 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.benchmark;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.incava.util.diff.Diff;
+import org.incava.util.diff.Difference;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.xwiki.annotation.maintainer.DiffService;
+import org.xwiki.annotation.maintainer.XDelta;
+import org.xwiki.annotation.maintainer.internal.CharacterDiffService;
+
+/**
+ * Compare the character diff used to update the annotations of a modified page with the previous implementation,
+ * which boxed each character of both versions before running a generic diff on them. One line out of a hundred is
+ * modified between the two versions of the page.
+ *
+ * @version $Id$
+ * @since 12.0RC1
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CharacterDiffBenchmark
+{
+    private static final int MODIFIED_LINE_INTERVAL = 100;
+
+    /**
+     * The size of the page, in KB.
+     */
+    @Param({ "20", "200" })
+    public int size;
+
+    private final DiffService diffService = new CharacterDiffService();
+
+    private String previous;
+
+    private String current;
+
+    /**
+     * Generate the two versions of the page.
+     */
+    @Setup
+    public void setUp()
+    {
+        int length = this.size * 1024;
+
+        StringBuilder previousBuilder = new StringBuilder(length);
+        StringBuilder currentBuilder = new StringBuilder(length);
+        for (int line = 0; previousBuilder.length() < length; ++line) {
+            String content =
+                "Line " + line + " of the page, with a [[link>>Space.Page" + line + "]] and **bold** text.\n";
+
+            previousBuilder.append(content);
+            if (line % MODIFIED_LINE_INTERVAL == 0) {
+                currentBuilder.append(content.replace("bold", "italic"));
+            } else {
+                currentBuilder.append(content);
+            }
+        }
+
+        this.previous = previousBuilder.toString();
+        this.current = currentBuilder.toString();
+    }
+
+    /**
+     * @return the differences computed by {@link CharacterDiffService}
+     */
+    @Benchmark
+    public Collection<XDelta> characterDiff()
+    {
+        return this.diffService.getDifferences(this.previous, this.current);
+    }
+
+    /**
+     * @return the differences computed like {@link CharacterDiffService} used to do before 12.0RC1
+     */
+    @Benchmark
+    public List<Difference> boxedDiff()
+    {
+        List<Character> previousContent = new ArrayList<>(this.previous.length());
+        for (int i = 0; i < this.previous.length(); ++i) {
+            previousContent.add(this.previous.charAt(i));
+        }
+        List<Character> currentContent = new ArrayList<>(this.current.length());
+        for (int i = 0; i < this.current.length(); ++i) {
+            currentContent.add(this.current.charAt(i));
+        }
+
+        return new Diff<>(previousContent, currentContent).diff();
+    }
+}
@@ -0,0 +1,145 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.benchmark;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.xwiki.model.EntityType;
+import org.xwiki.model.reference.DocumentReference;
+import org.xwiki.model.reference.EntityReference;
+import org.xwiki.model.reference.ObjectPropertyReference;
+import org.xwiki.model.reference.ObjectReference;
+
+/**
+ * Measure the creation and the comparison of {@link EntityReference}s, which are manipulated on almost every request.
+ *
+ * @version $Id$
+ * @since 12.0RC1
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EntityReferenceBenchmark
+{
+    private static final String WIKI = "xwiki";
+
+    private static final String PAGE = "WebHome";
+
+    private final List<String> spaces = Arrays.asList("Space", "Nested", "Deeper");
+
+    private DocumentReference reference;
+
+    private DocumentReference equalReference;
+
+    private DocumentReference otherReference;
+
+    private ObjectPropertyReference propertyReference;
+
+    /**
+     * Create the references to compare.
+     */
+    @Setup
+    public void setUp()
+    {
+        this.reference = new DocumentReference(WIKI, this.spaces, PAGE);
+        this.equalReference = new DocumentReference(WIKI, this.spaces, PAGE);
+        this.otherReference = new DocumentReference(WIKI, this.spaces, "Other");
+        this.propertyReference =
+            new ObjectPropertyReference("property", new ObjectReference("XWiki.TagClass[0]", this.reference));
+    }
+
+    /**
+     * @return a new document reference
+     */
+    @Benchmark
+    public DocumentReference createDocumentReference()
+    {
+        return new DocumentReference(WIKI, this.spaces, PAGE);
+    }
+
+    /**
+     * @return the result of the comparison of two distinct but equal references
+     */
+    @Benchmark
+    public boolean equalsEqual()
+    {
+        return this.reference.equals(this.equalReference);
+    }
+
+    /**
+     * @return the result of the comparison of two references which only differ by their name
+     */
+    @Benchmark
+    public boolean equalsDifferent()
+    {
+        return this.reference.equals(this.otherReference);
+    }
+
+    /**
+     * @return the hash code of a reference
+     */
+    @Benchmark
+    public int hashCodeReference()
+    {
+        return this.equalReference.hashCode();
+    }
+
+    /**
+     * @return the order of two references
+     */
+    @Benchmark
+    public int compareTo()
+    {
+        return this.reference.compareTo(this.otherReference);
+    }
+
+    /**
+     * @return the document of a property reference
+     */
+    @Benchmark
+    public EntityReference extractReference()
+    {
+        return this.propertyReference.extractReference(EntityType.DOCUMENT);
+    }
+
+    /**
+     * @return the reversed chain of a nested document reference
+     */
+    @Benchmark
+    public List<EntityReference> getReversedReferenceChain()
+    {
+        return this.reference.getReversedReferenceChain();
+    }
+}
@@ -0,0 +1,188 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.xwiki.cache.CacheManager;
+import org.xwiki.cache.config.CacheConfiguration;
+import org.xwiki.configuration.ConfigurationSource;
+import org.xwiki.configuration.internal.MemoryConfigurationSource;
+import org.xwiki.metrics.internal.DefaultMetricsRegistry;
+import org.xwiki.model.internal.reference.DefaultStringEntityReferenceSerializer;
+import org.xwiki.model.internal.reference.DefaultSymbolScheme;
+import org.xwiki.model.reference.DocumentReference;
+import org.xwiki.model.reference.EntityReference;
+import org.xwiki.model.reference.WikiReference;
+import org.xwiki.security.DefaultSecurityReferenceFactory;
+import org.xwiki.security.SecurityReference;
+import org.xwiki.security.SecurityReferenceFactory;
+import org.xwiki.security.UserSecurityReference;
+import org.xwiki.security.authorization.SecurityAccessEntry;
+import org.xwiki.security.authorization.SecurityRuleEntry;
+import org.xwiki.security.authorization.cache.internal.DefaultSecurityCache;
+import org.xwiki.security.authorization.cache.internal.SecurityCache;
+import org.xwiki.security.internal.XWikiBridge;
+import org.xwiki.test.annotation.ComponentList;
+import org.xwiki.test.mockito.MockitoComponentManager;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Measure the lookups in the security cache, done for each right check, with and without the metrics enabled.
+ *
+ * @version $Id$
+ * @since 12.0RC1
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+@ComponentList({ DefaultSymbolScheme.class, DefaultStringEntityReferenceSerializer.class,
+    DefaultSecurityReferenceFactory.class, DefaultSecurityCache.class, DefaultMetricsRegistry.class })
+public class SecurityCacheBenchmark
+{
+    private static final WikiReference WIKI_REFERENCE = new WikiReference("xwiki");
+
+    /**
+     * Indicate if the cache hits and misses are counted.
+     */
+    @Param({ "false", "true" })
+    public boolean metricsEnabled;
+
+    private MockitoComponentManager componentManager;
+
+    private SecurityCache cache;
+
+    private UserSecurityReference user;
+
+    private SecurityReference document;
+
+    private SecurityReference missingDocument;
+
+    /**
+     * Fill the cache with the entries of a document and of a user.
+     *
+     * @throws Exception when failing to initialize the cache
+     */
+    @Setup
+    public void setUp() throws Exception
+    {
+        this.componentManager = new MockitoComponentManager();
+        this.componentManager.initializeTest(this);
+
+        MemoryConfigurationSource configuration = this.componentManager.registerMemoryConfigurationSource();
+        configuration.setProperty("metrics.enabled", this.metricsEnabled);
+        this.componentManager.registerComponent(ConfigurationSource.class, "xwikiproperties", configuration);
+
+        XWikiBridge bridge = this.componentManager.registerMockComponent(XWikiBridge.class);
+        when(bridge.getMainWikiReference()).thenReturn(WIKI_REFERENCE);
+        when(bridge.toCompatibleEntityReference(any(EntityReference.class)))
+            .thenAnswer(invocation -> invocation.getArgument(0));
+
+        CacheManager cacheManager = this.componentManager.registerMockComponent(CacheManager.class);
+        when(cacheManager.createNewCache(any(CacheConfiguration.class))).thenReturn(new MapCache<>());
+
+        SecurityReferenceFactory factory = this.componentManager.getInstance(SecurityReferenceFactory.class);
+        // The internal interface is not a role, the cache is registered under the public one
+        this.cache = this.componentManager.getInstance(org.xwiki.security.authorization.cache.SecurityCache.class);
+
+        DocumentReference documentReference = new DocumentReference("xwiki", "Space", "Page");
+        DocumentReference userReference = new DocumentReference("xwiki", "XWiki", "User");
+
+        SecurityReference wiki = factory.newEntityReference(WIKI_REFERENCE);
+        this.document = factory.newEntityReference(documentReference);
+        this.user = factory.newUserReference(userReference);
+        this.missingDocument = factory.newEntityReference(new DocumentReference("xwiki", "Space", "Missing"));
+
+        this.cache.add(ruleEntry(wiki));
+        this.cache.add(ruleEntry(this.document.getParentSecurityReference()));
+        this.cache.add(ruleEntry(this.document));
+        this.cache.add(ruleEntry(this.user.getParentSecurityReference()));
+        this.cache.add(ruleEntry(this.user), null);
+
+        SecurityAccessEntry accessEntry = mock(SecurityAccessEntry.class);
+        when(accessEntry.getReference()).thenReturn(this.document);
+        when(accessEntry.getUserReference()).thenReturn(this.user);
+        this.cache.add(accessEntry);
+    }
+
+    private SecurityRuleEntry ruleEntry(SecurityReference reference)
+    {
+        SecurityRuleEntry entry = mock(SecurityRuleEntry.class);
+        when(entry.getReference()).thenReturn(reference);
+
+        return entry;
+    }
+
+    /**
+     * Release the components.
+     */
+    @TearDown
+    public void tearDown()
+    {
+        this.componentManager.dispose();
+    }
+
+    /**
+     * @return the cached access of the user on the document
+     */
+    @Benchmark
+    public SecurityAccessEntry getAccess()
+    {
+        return this.cache.get(this.user, this.document);
+    }
+
+    /**
+     * @return the cached rules of the document
+     */
+    @Benchmark
+    public SecurityRuleEntry getRules()
+    {
+        return this.cache.get(this.document);
+    }
+
+    /**
+     * @return nothing since the document is not in the cache
+     */
+    @Benchmark
+    public SecurityRuleEntry getMissing()
+    {
+        return this.cache.get(this.missingDocument);
+    }
+}
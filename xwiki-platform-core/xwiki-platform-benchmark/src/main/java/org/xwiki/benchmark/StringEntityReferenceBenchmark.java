@@ -0,0 +1,147 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.xwiki.component.util.DefaultParameterizedType;
+import org.xwiki.model.EntityType;
+import org.xwiki.model.internal.reference.DefaultStringEntityReferenceResolver;
+import org.xwiki.model.internal.reference.DefaultStringEntityReferenceSerializer;
+import org.xwiki.model.internal.reference.DefaultSymbolScheme;
+import org.xwiki.model.reference.DocumentReference;
+import org.xwiki.model.reference.EntityReference;
+import org.xwiki.model.reference.EntityReferenceProvider;
+import org.xwiki.model.reference.EntityReferenceResolver;
+import org.xwiki.model.reference.EntityReferenceSerializer;
+import org.xwiki.test.annotation.ComponentList;
+import org.xwiki.test.mockito.MockitoComponentManager;
+
+/**
+ * Measure the default string resolver and serializer of entity references. The resolver is measured both with a
+ * reference it already resolved and with more distinct references than its cache can hold.
+ *
+ * @version $Id$
+ * @since 12.0RC1
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@ComponentList({ DefaultSymbolScheme.class, DefaultStringEntityReferenceResolver.class,
+    DefaultStringEntityReferenceSerializer.class })
+public class StringEntityReferenceBenchmark
+{
+    /**
+     * Bigger than the capacity of the resolver cache so that the distinct references are always parsed.
+     */
+    private static final int DISTINCT_COUNT = 4096;
+
+    private static final String REFERENCE = "wiki:Space.Nested\\.Space.Page";
+
+    private MockitoComponentManager componentManager;
+
+    private EntityReferenceResolver<String> resolver;
+
+    private EntityReferenceSerializer<String> serializer;
+
+    private String[] distinctReferences;
+
+    private int index;
+
+    private DocumentReference documentReference;
+
+    /**
+     * Initialize the resolver and the serializer.
+     *
+     * @throws Exception when failing to initialize the components
+     */
+    @Setup
+    public void setUp() throws Exception
+    {
+        this.componentManager = new MockitoComponentManager();
+        this.componentManager.initializeTest(this);
+        this.componentManager.registerComponent(EntityReferenceProvider.class,
+            (EntityReferenceProvider) type -> new EntityReference(type.getLowerCase(), type));
+
+        this.resolver = this.componentManager
+            .getInstance(new DefaultParameterizedType(null, EntityReferenceResolver.class, String.class));
+        this.serializer = this.componentManager
+            .getInstance(new DefaultParameterizedType(null, EntityReferenceSerializer.class, String.class));
+
+        this.distinctReferences = new String[DISTINCT_COUNT];
+        for (int i = 0; i < DISTINCT_COUNT; ++i) {
+            this.distinctReferences[i] = "wiki:Space" + (i % 16) + ".Page" + i;
+        }
+
+        this.documentReference = new DocumentReference(this.resolver.resolve(REFERENCE, EntityType.DOCUMENT));
+    }
+
+    /**
+     * Release the components.
+     */
+    @TearDown
+    public void tearDown()
+    {
+        this.componentManager.dispose();
+    }
+
+    /**
+     * @return the resolved reference, always the same one
+     */
+    @Benchmark
+    public EntityReference resolveSame()
+    {
+        return this.resolver.resolve(REFERENCE, EntityType.DOCUMENT);
+    }
+
+    /**
+     * @return the resolved reference, never found in the resolver cache
+     */
+    @Benchmark
+    public EntityReference resolveDistinct()
+    {
+        this.index = (this.index + 1) % DISTINCT_COUNT;
+
+        return this.resolver.resolve(this.distinctReferences[this.index], EntityType.DOCUMENT);
+    }
+
+    /**
+     * @return the serialized document reference
+     */
+    @Benchmark
+    public String serialize()
+    {
+        return this.serializer.serialize(this.documentReference);
+    }
+}
@@ -0,0 +1,159 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.benchmark;
+
+import java.net.URL;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import javax.inject.Provider;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.xwiki.model.reference.DocumentReference;
+import org.xwiki.test.annotation.ComponentList;
+import org.xwiki.test.mockito.MockitoComponentManager;
+
+import com.xpn.xwiki.XWikiContext;
+import com.xpn.xwiki.doc.XWikiDocument;
+import com.xpn.xwiki.internal.DefaultXWikiStubContextProvider;
+import com.xpn.xwiki.test.MockitoOldcore;
+import com.xpn.xwiki.test.reference.ReferenceComponentList;
+import com.xpn.xwiki.util.XWikiStubContextProvider;
+import com.xpn.xwiki.web.XWikiServletRequest;
+import com.xpn.xwiki.web.XWikiServletRequestStub;
+import com.xpn.xwiki.web.XWikiServletResponse;
+import com.xpn.xwiki.web.XWikiServletResponseStub;
+import com.xpn.xwiki.web.XWikiServletURLFactory;
+import com.xpn.xwiki.web.XWikiURLFactoryService;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Measure the creation of the stub {@link XWikiContext}s used by the background threads (indexing, mails,
+ * asynchronous rendering, etc.), compared to a plain copy of the initial context and request.
+ *
+ * @version $Id$
+ * @since 12.0RC1
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+@ReferenceComponentList
+@ComponentList(DefaultXWikiStubContextProvider.class)
+public class StubContextBenchmark
+{
+    private MockitoOldcore oldcore;
+
+    private XWikiStubContextProvider provider;
+
+    private XWikiContext initialContext;
+
+    private Provider<DocumentReference> defaultDocumentReferenceProvider;
+
+    /**
+     * Initialize the stub context provider with a context similar to the one of a first request.
+     *
+     * @throws Exception when failing to initialize the in-memory oldcore environment
+     */
+    @Setup
+    public void setUp() throws Exception
+    {
+        MockitoComponentManager componentManager = new MockitoComponentManager();
+        this.oldcore = new MockitoOldcore(componentManager);
+        componentManager.initializeTest(this);
+        this.oldcore.before(getClass());
+
+        XWikiURLFactoryService urlFactoryService = mock(XWikiURLFactoryService.class);
+        when(urlFactoryService.createURLFactory(anyInt(), any(XWikiContext.class)))
+            .thenAnswer(invocation -> new XWikiServletURLFactory());
+        doReturn(urlFactoryService).when(this.oldcore.getSpyXWiki()).getURLFactoryService();
+
+        XWikiServletRequestStub request =
+            new XWikiServletRequestStub(new URL("http://localhost:8080/xwiki/bin/view/Main/"), "/xwiki",
+                Collections.singletonMap("param", new String[] { "value" }));
+        for (int i = 0; i < 10; ++i) {
+            request.put("param" + i, "value" + i);
+        }
+
+        this.initialContext = this.oldcore.getXWikiContext();
+        this.initialContext.setRequest(new XWikiServletRequest(request));
+        this.initialContext.setResponse(new XWikiServletResponseStub());
+
+        this.defaultDocumentReferenceProvider = componentManager.getInstance(DocumentReference.TYPE_PROVIDER);
+        this.provider = componentManager.getInstance(XWikiStubContextProvider.class);
+        this.provider.initialize(this.initialContext);
+    }
+
+    /**
+     * Clean the in-memory oldcore environment.
+     *
+     * @throws Exception when failing to clean the environment
+     */
+    @TearDown
+    public void tearDown() throws Exception
+    {
+        this.oldcore.after();
+    }
+
+    /**
+     * @return a new stub context
+     */
+    @Benchmark
+    public XWikiContext createStubContext()
+    {
+        return this.provider.createStubContext();
+    }
+
+    /**
+     * @return a new context created the way the stub contexts used to be: by cloning the shared initial context and
+     *         copying its whole request
+     */
+    @Benchmark
+    public XWikiContext copyInitialContext()
+    {
+        XWikiContext context = this.initialContext.clone();
+        context.setRequest(new XWikiServletRequest(new XWikiServletRequestStub(this.initialContext.getRequest())));
+        context.setURLFactory(
+            context.getWiki().getURLFactoryService().createURLFactory(XWikiContext.MODE_SERVLET, context));
+        context.setResponse(new XWikiServletResponse(new XWikiServletResponseStub()));
+        context.setDoc(new XWikiDocument(this.defaultDocumentReferenceProvider.get()));
+
+        return context;
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.xwiki.bridge.DocumentAccessBridge;
+import org.xwiki.query.xwql.internal.hql.XWQLtoHQLTranslator;
+
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Measure the translation of XWQL queries to HQL, done each time an XWQL query is executed.
+ *
+ * @version $Id$
+ * @since 12.0RC1
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class XWQLTranslatorBenchmark
+{
+    private static final String SHORT_QUERY = "where doc.space = :space order by doc.date desc";
+
+    private static final String OBJECT_QUERY = "from doc.object(XWiki.XWikiUsers) as user "
+        + "where user.email like :email and doc.hidden <> true order by user.last_name, user.first_name";
+
+    private static final String FULL_QUERY = "select doc.fullName, obj.title from Document as doc, "
+        + "doc.object('Blog.BlogPostClass') as obj, doc.object(XWiki.TagClass) as tag "
+        + "where obj.published = '1' and :tag member of tag.tags and doc.space like :space "
+        + "order by obj.publishDate desc";
+
+    private XWQLtoHQLTranslator translator;
+
+    /**
+     * Create the translator.
+     */
+    @Setup
+    public void setUp()
+    {
+        DocumentAccessBridge bridge = mock(DocumentAccessBridge.class);
+        when(bridge.getPropertyType(anyString(), anyString())).thenReturn("StringProperty");
+        when(bridge.getPropertyType("XWiki.TagClass", "tags")).thenReturn("DBStringListProperty");
+
+        this.translator = new XWQLtoHQLTranslator()
+        {
+            @Override
+            public DocumentAccessBridge getDocumentAccessBridge()
+            {
+                return bridge;
+            }
+        };
+    }
+
+    /**
+     * @return the translated short form query
+     * @throws Exception when failing to translate the query
+     */
+    @Benchmark
+    public String translateShort() throws Exception
+    {
+        return this.translator.translate(SHORT_QUERY);
+    }
+
+    /**
+     * @return the translated query on an object
+     * @throws Exception when failing to translate the query
+     */
+    @Benchmark
+    public String translateObject() throws Exception
+    {
+        return this.translator.translate(OBJECT_QUERY);
+    }
+
+    /**
+     * @return the translated query on several objects
+     * @throws Exception when failing to translate the query
+     */
+    @Benchmark
+    public String translateFull() throws Exception
+    {
+        return this.translator.translate(FULL_QUERY);
+    }
+}
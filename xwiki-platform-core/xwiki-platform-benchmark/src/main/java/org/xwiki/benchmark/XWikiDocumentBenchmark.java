@@ -0,0 +1,167 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.xwiki.model.reference.DocumentReference;
+import org.xwiki.rendering.syntax.Syntax;
+import org.xwiki.test.mockito.MockitoComponentManager;
+
+import com.xpn.xwiki.XWikiContext;
+import com.xpn.xwiki.doc.XWikiDocument;
+import com.xpn.xwiki.objects.BaseObject;
+import com.xpn.xwiki.objects.BaseProperty;
+import com.xpn.xwiki.objects.classes.BaseClass;
+import com.xpn.xwiki.test.MockitoOldcore;
+import com.xpn.xwiki.test.reference.ReferenceComponentList;
+
+/**
+ * Measure the copy of a {@link XWikiDocument} holding a class and several objects (done each time a document is
+ * taken from the cache to be modified) and the access to the properties of an object.
+ *
+ * @version $Id$
+ * @since 12.0RC1
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@ReferenceComponentList
+public class XWikiDocumentBenchmark
+{
+    private static final int OBJECT_COUNT = 20;
+
+    private static final String STRING = "string";
+
+    private static final String AREA = "area";
+
+    private static final String INT = "int";
+
+    private static final DocumentReference DOCUMENT_REFERENCE =
+        new DocumentReference("xwiki", "Space", "Page");
+
+    private MockitoOldcore oldcore;
+
+    private XWikiDocument document;
+
+    private BaseObject object;
+
+    /**
+     * Create the document to copy.
+     *
+     * @throws Exception when failing to initialize the in-memory oldcore environment
+     */
+    @Setup
+    public void setUp() throws Exception
+    {
+        MockitoComponentManager componentManager = new MockitoComponentManager();
+        this.oldcore = new MockitoOldcore(componentManager);
+        componentManager.initializeTest(this);
+        this.oldcore.before(getClass());
+        this.oldcore.registerMockEnvironment();
+
+        XWikiContext xcontext = this.oldcore.getXWikiContext();
+
+        this.document = new XWikiDocument(DOCUMENT_REFERENCE);
+        this.document.setSyntax(Syntax.XWIKI_2_1);
+        this.document.setContent("= Title =\n\nSome **content** with a [[link>>Space.Other]].");
+
+        BaseClass xclass = this.document.getXClass();
+        xclass.addTextField(STRING, "String", 30);
+        xclass.addTextAreaField(AREA, "Area", 10, 10);
+        xclass.addNumberField(INT, "Int", 10, "integer");
+        xclass.addBooleanField("boolean", "Boolean", "yesno");
+        xclass.addStaticListField("list", "List", 1, true, "value1|value2|value3");
+
+        this.oldcore.getSpyXWiki().saveDocument(this.document, xcontext);
+        this.document = this.oldcore.getSpyXWiki().getDocument(DOCUMENT_REFERENCE, xcontext);
+
+        for (int i = 0; i < OBJECT_COUNT; ++i) {
+            BaseObject xobject = this.document.newXObject(DOCUMENT_REFERENCE, xcontext);
+            xobject.setStringValue(STRING, "value" + i);
+            xobject.setLargeStringValue(AREA, "Some longer content for the object " + i);
+            xobject.setIntValue(INT, i);
+            xobject.setIntValue("boolean", i % 2);
+        }
+
+        this.object = this.document.getXObject(DOCUMENT_REFERENCE, OBJECT_COUNT / 2);
+    }
+
+    /**
+     * Clean the in-memory oldcore environment.
+     *
+     * @throws Exception when failing to clean the environment
+     */
+    @TearDown
+    public void tearDown() throws Exception
+    {
+        this.oldcore.after();
+    }
+
+    /**
+     * @return the copy of the document
+     */
+    @Benchmark
+    public XWikiDocument cloneDocument()
+    {
+        return this.document.clone();
+    }
+
+    /**
+     * @return the value of a string property
+     */
+    @Benchmark
+    public String getStringValue()
+    {
+        return this.object.getStringValue(STRING);
+    }
+
+    /**
+     * @return the value of an integer property
+     */
+    @Benchmark
+    public int getIntValue()
+    {
+        return this.object.getIntValue(INT);
+    }
+
+    /**
+     * @return a property of the object
+     */
+    @Benchmark
+    public BaseProperty safeget()
+    {
+        return (BaseProperty) this.object.safeget(AREA);
+    }
+}
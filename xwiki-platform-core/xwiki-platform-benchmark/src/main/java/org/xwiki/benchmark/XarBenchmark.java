@@ -0,0 +1,170 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream;
+import org.apache.commons.io.IOUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.xwiki.filter.input.BeanInputFilterStreamFactory;
+import org.xwiki.filter.input.DefaultInputStreamInputSource;
+import org.xwiki.filter.input.InputFilterStream;
+import org.xwiki.filter.input.InputFilterStreamFactory;
+import org.xwiki.filter.type.FilterStreamType;
+import org.xwiki.filter.xar.input.XARInputProperties;
+import org.xwiki.model.reference.LocalDocumentReference;
+import org.xwiki.test.annotation.AllComponents;
+import org.xwiki.test.mockito.MockitoComponentManager;
+import org.xwiki.xar.XarException;
+import org.xwiki.xar.XarPackage;
+
+/**
+ * Measure the parsing of a XAR package generated in memory: the indexing of its entries done by {@link XarPackage} and
+ * the complete parsing of its documents done by the XAR input filter stream during an import.
+ *
+ * @version $Id$
+ * @since 12.0RC1
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@AllComponents
+public class XarBenchmark
+{
+    private static final String SPACE = "Space";
+
+    /**
+     * The number of documents in the package.
+     */
+    @Param({ "10", "100" })
+    public int documentCount;
+
+    private MockitoComponentManager componentManager;
+
+    private BeanInputFilterStreamFactory<XARInputProperties> factory;
+
+    private byte[] xar;
+
+    /**
+     * Generate the package and initialize the XAR input filter stream.
+     *
+     * @throws Exception when failing to generate the package or to initialize the components
+     */
+    @Setup
+    public void setUp() throws Exception
+    {
+        this.componentManager = new MockitoComponentManager();
+        this.componentManager.initializeTest(this);
+        this.componentManager.registerMemoryConfigurationSource();
+
+        this.factory = this.componentManager.getInstance(InputFilterStreamFactory.class,
+            FilterStreamType.XWIKI_XAR_CURRENT.serialize());
+
+        this.xar = createXAR();
+    }
+
+    private byte[] createXAR() throws IOException, XarException
+    {
+        String template;
+        try (InputStream stream = getClass().getResourceAsStream("/benchmark/document.xml")) {
+            template = IOUtils.toString(stream, StandardCharsets.UTF_8);
+        }
+
+        XarPackage xarPackage = new XarPackage();
+        xarPackage.setPackageName("benchmark");
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ZipArchiveOutputStream zip = new ZipArchiveOutputStream(bytes)) {
+            for (int i = 0; i < this.documentCount; ++i) {
+                String name = "Page" + i;
+                String entryName = SPACE + '/' + name + ".xml";
+
+                zip.putArchiveEntry(new ZipArchiveEntry(entryName));
+                zip.write(template.replace("${space}", SPACE).replace("${name}", name)
+                    .getBytes(StandardCharsets.UTF_8));
+                zip.closeArchiveEntry();
+
+                xarPackage.addEntry(new LocalDocumentReference(SPACE, name), entryName);
+            }
+
+            xarPackage.write(zip, StandardCharsets.UTF_8.name());
+        }
+
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Release the components.
+     */
+    @TearDown
+    public void tearDown()
+    {
+        this.componentManager.dispose();
+    }
+
+    /**
+     * @return the indexed package
+     * @throws Exception when failing to read the package
+     */
+    @Benchmark
+    public XarPackage readPackage() throws Exception
+    {
+        return new XarPackage(new ByteArrayInputStream(this.xar));
+    }
+
+    /**
+     * @return the parsed package
+     * @throws Exception when failing to parse the package
+     */
+    @Benchmark
+    public XARInputProperties parsePackage() throws Exception
+    {
+        XARInputProperties properties = new XARInputProperties();
+        properties.setSource(new DefaultInputStreamInputSource(new ByteArrayInputStream(this.xar)));
+
+        try (InputFilterStream stream = this.factory.createInputFilterStream(properties)) {
+            // The events are not needed, only the parsing is measured
+            stream.read(new Object());
+        }
+
+        return properties;
+    }
+}
@@ -21,6 +21,7 @@
 
 import org.xwiki.properties.annotation.PropertyDescription;
 import org.xwiki.properties.annotation.PropertyName;
+import org.xwiki.stability.Unstable;
 
 /**
  * @version $Id$
@@ -73,6 +74,11 @@ public class DocumentInstanceInputProperties extends InstanceInputProperties
      */
     private boolean withWikiDocumentContentHTML;
 
+    /**
+     * @see #isStreaming()
+     */
+    private boolean streaming;
+
     /**
      * @return Indicates if events should be generated for history
      */
@@ -242,4 +248,29 @@ public void setWithWikiDocumentContentHTML(boolean withWikiDocumentContentHTML)
     {
         this.withWikiDocumentContentHTML = withWikiDocumentContentHTML;
     }
+
+    /**
+     * @return Indicate if documents should be loaded directly from the store and released as soon as they have been
+     *         written, so that memory usage does not depend on the number of documents
+     * @since 12.0RC1
+     */
+    @PropertyName("Streaming")
+    @PropertyDescription("Indicate if documents should be loaded directly from the store and released as soon as they"
+        + " have been written, so that memory usage does not depend on the number of documents")
+    @Unstable
+    public boolean isStreaming()
+    {
+        return this.streaming;
+    }
+
+    /**
+     * @param streaming Indicate if documents should be loaded directly from the store and released as soon as they
+     *            have been written, so that memory usage does not depend on the number of documents
+     * @since 12.0RC1
+     */
+    @Unstable
+    public void setStreaming(boolean streaming)
+    {
+        this.streaming = streaming;
+    }
 }
@@ -24,6 +24,7 @@
 import org.xwiki.properties.annotation.PropertyDescription;
 import org.xwiki.properties.annotation.PropertyName;
 import org.xwiki.rendering.syntax.Syntax;
+import org.xwiki.stability.Unstable;
 
 /**
  * @version $Id$
@@ -76,6 +77,11 @@ public class DocumentInstanceOutputProperties extends InstanceOutputProperties
      */
     private boolean stoppedWhenSaveFail = true;
 
+    /**
+     * @see #getSaveThreads()
+     */
+    private int saveThreads = 1;
+
     /**
      * @return The base reference to use to resolve reference from events
      */
@@ -237,4 +243,29 @@ public void setStoppedWhenSaveFail(boolean stoppedWhenSaveFail)
     {
         this.stoppedWhenSaveFail = stoppedWhenSaveFail;
     }
+
+    /**
+     * @return The number of threads used to save the documents. When greater than 1, documents are merged and saved in
+     *         background while the next ones are being read. Classes are always saved before the documents using them
+     *         and the locales and revisions of a given document are always saved in order.
+     * @since 12.0RC1
+     */
+    @PropertyName("Save threads")
+    @PropertyDescription("The number of threads used to save the documents."
+        + " When greater than 1, documents are merged and saved in background while the next ones are being read.")
+    @Unstable
+    public int getSaveThreads()
+    {
+        return this.saveThreads;
+    }
+
+    /**
+     * @param saveThreads The number of threads used to save the documents
+     * @since 12.0RC1
+     */
+    @Unstable
+    public void setSaveThreads(int saveThreads)
+    {
+        this.saveThreads = saveThreads;
+    }
 }
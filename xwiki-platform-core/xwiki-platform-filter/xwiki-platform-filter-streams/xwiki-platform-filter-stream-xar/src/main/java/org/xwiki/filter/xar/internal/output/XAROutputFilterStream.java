@@ -31,6 +31,7 @@
 import javax.inject.Named;
 
 import org.apache.commons.codec.binary.Base64;
+import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.ArrayUtils;
 import org.xwiki.component.annotation.Component;
 import org.xwiki.component.annotation.InstantiationStrategy;
@@ -553,7 +554,9 @@ private void writeContent(InputSource content) throws FilterException
             int readSize;
             do {
                 try {
-                    readSize = stream.read(buffer, 0, ATTACHMENT_BUFFER_CHUNK_SIZE);
+                    // Make sure to fill the whole buffer (the stream might be returning partial reads when coming
+                    // directly from the store) so that only the last chunk can produce base64 padding
+                    readSize = IOUtils.read(stream, buffer, 0, ATTACHMENT_BUFFER_CHUNK_SIZE);
                 } catch (IOException e) {
                     throw new FilterException("Failed to read content stream", e);
                 }
@@ -103,6 +103,9 @@ public class DocumentTreeNode extends AbstractDocumentTreeNode implements Initia
     @Named("documentReferenceResolver/nestedPages")
     private QueryFilter documentReferenceResolverFilter;
 
+    @Inject
+    private NestedPagesChildCountCache childCountCache;
+
     /**
      * We use a {@link LinkedHashMap} because the order of the key is important.
      */
@@ -256,10 +259,46 @@ protected int getChildDocumentsCount(DocumentReference documentReference) throws
             return 0;
         }
 
-        int count = getChildSpacesCount(documentReference);
+        int count = getCachedChildSpacesCount(documentReference);
         if (areTerminalDocumentsShown()) {
-            count += getChildTerminalPagesCount(documentReference);
+            count += getCachedChildTerminalPagesCount(documentReference);
+        }
+        return count;
+    }
+
+    private int getCachedChildSpacesCount(DocumentReference documentReference) throws QueryException
+    {
+        // The cached counts don't take into account the exclusions
+        if (!getExcludedSpaces(documentReference.getParent()).isEmpty()) {
+            return getChildSpacesCount(documentReference);
+        }
+
+        Map<String, Integer> counts = this.childCountCache.getChildCounts(documentReference.getParent());
+        String countType = NestedPagesChildCountCache.COUNT_SPACES + areHiddenEntitiesShown();
+        Integer count = counts.get(countType);
+        if (count == null) {
+            count = getChildSpacesCount(documentReference);
+            counts.put(countType, count);
         }
+
+        return count;
+    }
+
+    private int getCachedChildTerminalPagesCount(DocumentReference documentReference) throws QueryException
+    {
+        // The cached counts don't take into account the exclusions
+        if (!getExcludedDocuments(documentReference.getParent()).isEmpty()) {
+            return getChildTerminalPagesCount(documentReference);
+        }
+
+        Map<String, Integer> counts = this.childCountCache.getChildCounts(documentReference.getParent());
+        String countType = NestedPagesChildCountCache.COUNT_TERMINAL_PAGES + areHiddenEntitiesShown();
+        Integer count = counts.get(countType);
+        if (count == null) {
+            count = getChildTerminalPagesCount(documentReference);
+            counts.put(countType, count);
+        }
+
         return count;
     }
 
@@ -0,0 +1,123 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.index.tree.internal.nestedpages;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import org.xwiki.cache.Cache;
+import org.xwiki.cache.CacheException;
+import org.xwiki.cache.CacheManager;
+import org.xwiki.cache.config.LRUCacheConfiguration;
+import org.xwiki.component.annotation.Component;
+import org.xwiki.component.manager.ComponentLifecycleException;
+import org.xwiki.component.phase.Disposable;
+import org.xwiki.component.phase.Initializable;
+import org.xwiki.component.phase.InitializationException;
+import org.xwiki.model.EntityType;
+import org.xwiki.model.reference.EntityReference;
+import org.xwiki.model.reference.EntityReferenceSerializer;
+
+/**
+ * Keep the number of child pages of the nested pages hierarchy nodes (wikis and spaces) so that they don't have to be
+ * counted each time a node is displayed. The counts are invalidated by {@link NestedPagesChildCountCacheListener} when
+ * a document is created, deleted or hidden.
+ * 
+ * @version $Id$
+ * @since 12.0RC1
+ */
+@Component(roles = NestedPagesChildCountCache.class)
+@Singleton
+public class NestedPagesChildCountCache implements Initializable, Disposable
+{
+    /**
+     * The prefix of the count type of the child spaces (the suffix indicates if the hidden spaces are counted).
+     */
+    public static final String COUNT_SPACES = "spaces/";
+
+    /**
+     * The prefix of the count type of the child terminal pages (the suffix indicates if the hidden pages are counted).
+     */
+    public static final String COUNT_TERMINAL_PAGES = "terminalPages/";
+
+    private static final int CACHE_CAPACITY = 10000;
+
+    @Inject
+    private CacheManager cacheManager;
+
+    @Inject
+    private EntityReferenceSerializer<String> serializer;
+
+    private Cache<Map<String, Integer>> cache;
+
+    @Override
+    public void initialize() throws InitializationException
+    {
+        try {
+            this.cache = this.cacheManager
+                .createNewCache(new LRUCacheConfiguration("index.tree.nestedpages.childcount", CACHE_CAPACITY));
+        } catch (CacheException e) {
+            throw new InitializationException("Failed to create the nested pages child count cache", e);
+        }
+    }
+
+    @Override
+    public void dispose() throws ComponentLifecycleException
+    {
+        this.cache.dispose();
+    }
+
+    /**
+     * The returned map is associated with the given parent until the next invalidation so the caller is free to store
+     * the counts it computes in it. A count put in a map which has been invalidated meanwhile is simply lost.
+     * 
+     * @param parentReference the reference of the wiki or space
+     * @return the known child counts of the given parent, indexed by count type
+     */
+    public Map<String, Integer> getChildCounts(EntityReference parentReference)
+    {
+        String key = this.serializer.serialize(parentReference);
+
+        Map<String, Integer> counts = this.cache.get(key);
+        if (counts == null) {
+            counts = new ConcurrentHashMap<>();
+            this.cache.set(key, counts);
+        }
+
+        return counts;
+    }
+
+    /**
+     * Forget the counts of the given entity and all its ancestors.
+     * 
+     * @param reference the reference of the entity whose children changed
+     */
+    public void invalidate(EntityReference reference)
+    {
+        for (EntityReference parent = reference; parent != null; parent = parent.getParent()) {
+            if (parent.getType() == EntityType.SPACE || parent.getType() == EntityType.WIKI) {
+                this.cache.remove(this.serializer.serialize(parent));
+            }
+        }
+    }
+}
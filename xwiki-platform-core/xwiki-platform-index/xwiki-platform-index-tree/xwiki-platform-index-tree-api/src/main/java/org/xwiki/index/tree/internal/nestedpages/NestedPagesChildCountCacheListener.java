@@ -0,0 +1,83 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.index.tree.internal.nestedpages;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import org.xwiki.bridge.event.DocumentCreatedEvent;
+import org.xwiki.bridge.event.DocumentDeletedEvent;
+import org.xwiki.bridge.event.DocumentUpdatedEvent;
+import org.xwiki.component.annotation.Component;
+import org.xwiki.observation.AbstractEventListener;
+import org.xwiki.observation.event.Event;
+
+import com.xpn.xwiki.doc.XWikiDocument;
+
+/**
+ * Invalidate the nested pages child counts when the hierarchy is modified.
+ * 
+ * @version $Id$
+ * @since 12.0RC1
+ */
+@Component
+@Named(NestedPagesChildCountCacheListener.NAME)
+@Singleton
+public class NestedPagesChildCountCacheListener extends AbstractEventListener
+{
+    /**
+     * The name of this event listener.
+     */
+    public static final String NAME = "NestedPagesChildCountCacheListener";
+
+    @Inject
+    private NestedPagesChildCountCache cache;
+
+    /**
+     * Default constructor.
+     */
+    public NestedPagesChildCountCacheListener()
+    {
+        super(NAME, Arrays.asList(new DocumentCreatedEvent(), new DocumentDeletedEvent(), new DocumentUpdatedEvent()));
+    }
+
+    @Override
+    public void onEvent(Event event, Object source, Object data)
+    {
+        XWikiDocument document = (XWikiDocument) source;
+
+        // Translations are not part of the hierarchy
+        if (document.getTranslation() == 1) {
+            return;
+        }
+
+        // Only the hidden flag of an existing document has an impact on the counts
+        if (event instanceof DocumentUpdatedEvent && document.getOriginalDocument() != null
+            && Objects.equals(document.isHidden(), document.getOriginalDocument().isHidden())) {
+            return;
+        }
+
+        this.cache.invalidate(document.getDocumentReference().getParent());
+    }
+}
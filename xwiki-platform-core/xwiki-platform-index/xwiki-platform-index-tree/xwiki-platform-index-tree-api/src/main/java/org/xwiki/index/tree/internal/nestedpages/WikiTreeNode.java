@@ -21,6 +21,7 @@
 
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import javax.inject.Inject;
@@ -70,6 +71,9 @@ public class WikiTreeNode extends AbstractEntityTreeNode
     @Named("documentReferenceResolver/nestedPages")
     private QueryFilter documentReferenceResolverFilter;
 
+    @Inject
+    private NestedPagesChildCountCache childCountCache;
+
     @Override
     public List<String> getChildren(String nodeId, int offset, int limit)
     {
@@ -135,7 +139,20 @@ public int getChildCount(String nodeId)
 
     protected int getChildCount(WikiReference wikiReference) throws QueryException
     {
-        return getChildSpacesCount(wikiReference);
+        // The cached counts don't take into account the exclusions
+        if (!getExcludedSpaces(wikiReference).isEmpty()) {
+            return getChildSpacesCount(wikiReference);
+        }
+
+        Map<String, Integer> counts = this.childCountCache.getChildCounts(wikiReference);
+        String countType = NestedPagesChildCountCache.COUNT_SPACES + areHiddenEntitiesShown();
+        Integer count = counts.get(countType);
+        if (count == null) {
+            count = getChildSpacesCount(wikiReference);
+            counts.put(countType, count);
+        }
+
+        return count;
     }
 
     @Override
@@ -0,0 +1,89 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.index.tree.internal.nestedpages;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+import org.junit.jupiter.api.Test;
+import org.xwiki.bridge.event.DocumentCreatedEvent;
+import org.xwiki.bridge.event.DocumentUpdatedEvent;
+import org.xwiki.model.reference.DocumentReference;
+import org.xwiki.test.junit5.mockito.ComponentTest;
+import org.xwiki.test.junit5.mockito.InjectMockComponents;
+import org.xwiki.test.junit5.mockito.MockComponent;
+
+import com.xpn.xwiki.doc.XWikiDocument;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Unit tests for {@link NestedPagesChildCountCacheListener}.
+ * 
+ * @version $Id$
+ */
+@ComponentTest
+public class NestedPagesChildCountCacheListenerTest
+{
+    @InjectMockComponents
+    private NestedPagesChildCountCacheListener listener;
+
+    @MockComponent
+    private NestedPagesChildCountCache cache;
+
+    private DocumentReference documentReference = new DocumentReference("wiki", Arrays.asList("Path", "To"), "Page");
+
+    @Test
+    public void onDocumentCreated()
+    {
+        this.listener.onEvent(new DocumentCreatedEvent(), new XWikiDocument(this.documentReference), null);
+
+        verify(this.cache).invalidate(this.documentReference.getParent());
+    }
+
+    @Test
+    public void onTranslationCreated()
+    {
+        this.listener.onEvent(new DocumentCreatedEvent(), new XWikiDocument(this.documentReference, Locale.FRENCH),
+            null);
+
+        verify(this.cache, never()).invalidate(any());
+    }
+
+    @Test
+    public void onDocumentUpdated()
+    {
+        XWikiDocument originalDocument = new XWikiDocument(this.documentReference);
+        XWikiDocument document = originalDocument.clone();
+        document.setOriginalDocument(originalDocument);
+
+        this.listener.onEvent(new DocumentUpdatedEvent(), document, null);
+
+        verify(this.cache, never()).invalidate(any());
+
+        document.setHidden(true);
+
+        this.listener.onEvent(new DocumentUpdatedEvent(), document, null);
+
+        verify(this.cache).invalidate(this.documentReference.getParent());
+    }
+}
@@ -22,6 +22,7 @@
 import java.util.List;
 import java.util.Map;
 
+import javax.inject.Provider;
 import javax.mail.Message;
 import javax.mail.MessagingException;
 import javax.mail.internet.InternetAddress;
@@ -37,6 +38,8 @@
 import org.xwiki.mail.internal.factory.AbstractMessageIterator;
 import org.xwiki.model.reference.DocumentReference;
 
+import com.xpn.xwiki.XWikiContext;
+
 /**
  *  Generate messages from a user references.
  *
@@ -49,8 +52,15 @@ public class UsersMimeMessageIterator extends AbstractMessageIterator
 {
     private static final Logger LOGGER = LoggerFactory.getLogger(UsersMimeMessageIterator.class);
 
+    /**
+     * The number of user profiles to load at once.
+     */
+    private static final int PREFETCH_SIZE = 100;
+
     private DocumentAccessBridge documentAccessBridge;
 
+    private Provider<XWikiContext> xcontextProvider;
+
     private final List<DocumentReference> users;
 
     private ComponentManager componentManager;
@@ -72,6 +82,38 @@ public UsersMimeMessageIterator(List<DocumentReference> userReferences,
         this.users = userReferences;
         this.componentManager = componentManager;
         this.documentAccessBridge = getAccessBridge();
+        this.xcontextProvider = getXWikiContextProvider();
+    }
+
+    private Provider<XWikiContext> getXWikiContextProvider()
+    {
+        try {
+            return this.componentManager.getInstance(XWikiContext.TYPE_PROVIDER);
+        } catch (ComponentLookupException e) {
+            // Profiles will be loaded one by one
+            LOGGER.debug("Failed to find the XWiki context provider", e);
+
+            return null;
+        }
+    }
+
+    /**
+     * Load the next user profiles in one go so that they are found in the document cache when creating the messages.
+     */
+    private void prefetchUsers()
+    {
+        if (this.xcontextProvider != null) {
+            XWikiContext xcontext = this.xcontextProvider.get();
+            if (xcontext != null && xcontext.getWiki() != null) {
+                List<DocumentReference> nextUsers =
+                    this.users.subList(this.position, Math.min(this.position + PREFETCH_SIZE, this.users.size()));
+                try {
+                    xcontext.getWiki().getDocuments(nextUsers, xcontext);
+                } catch (Exception e) {
+                    LOGGER.debug("Failed to prefetch user profiles [{}]", nextUsers, e);
+                }
+            }
+        }
     }
 
     private DocumentAccessBridge getAccessBridge() throws MessagingException
@@ -90,6 +132,10 @@ protected ExtendedMimeMessage createMessageInternal() throws MessagingException
     {
         ExtendedMimeMessage mimeMessage;
 
+        if (this.position % PREFETCH_SIZE == 0) {
+            prefetchUsers();
+        }
+
         DocumentReference userReference = users.get(this.position);
 
         // If the user has no email address then return a null Mime Message so that it's skipped
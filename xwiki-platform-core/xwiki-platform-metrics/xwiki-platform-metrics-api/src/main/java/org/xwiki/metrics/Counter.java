@@ -0,0 +1,92 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.metrics;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.xwiki.stability.Unstable;
+
+/**
+ * A monotonic counter which can be incremented concurrently from many threads with very little contention.
+ *
+ * @version $Id$
+ * @since 12.0RC1
+ */
+@Unstable
+public class Counter implements Metric
+{
+    /**
+     * The counter returned when the metrics are disabled: it ignores the increments.
+     */
+    public static final Counter NOOP = new Counter(false);
+
+    private final boolean enabled;
+
+    private final LongAdder count = new LongAdder();
+
+    /**
+     * Create an enabled counter.
+     */
+    public Counter()
+    {
+        this(true);
+    }
+
+    private Counter(boolean enabled)
+    {
+        this.enabled = enabled;
+    }
+
+    /**
+     * Increment the counter by one.
+     */
+    public void increment()
+    {
+        if (this.enabled) {
+            this.count.increment();
+        }
+    }
+
+    /**
+     * @param value the value to add to the counter
+     */
+    public void add(long value)
+    {
+        if (this.enabled) {
+            this.count.add(value);
+        }
+    }
+
+    /**
+     * @return the current value of the counter
+     */
+    public long getCount()
+    {
+        return this.count.sum();
+    }
+
+    @Override
+    public Map<String, Number> getValues()
+    {
+        return Collections.singletonMap("count", getCount());
+    }
+}
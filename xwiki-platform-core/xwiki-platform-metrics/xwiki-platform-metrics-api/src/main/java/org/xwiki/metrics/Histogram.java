@@ -0,0 +1,156 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.metrics;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.xwiki.stability.Unstable;
+
+/**
+ * A fixed buckets histogram which can be updated concurrently without locking.
+ * <p>
+ * Each bucket counts the values lower or equal to its upper bound (and greater than the upper bound of the previous
+ * bucket). The values greater than the last bound are counted in an overflow bucket.
+ * 
+ * @version $Id$
+ * @since 12.0RC1
+ */
+@Unstable
+public class Histogram implements Metric
+{
+    /**
+     * The histogram returned when the metrics are disabled: it ignores the recorded values.
+     */
+    public static final Histogram NOOP = new Histogram(false, new long[0]);
+
+    private final boolean enabled;
+
+    private final long[] bounds;
+
+    private final AtomicLongArray counts;
+
+    private final AtomicLong count = new AtomicLong();
+
+    private final AtomicLong sum = new AtomicLong();
+
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * @param bounds the upper bounds of the buckets, in ascending order
+     */
+    public Histogram(long... bounds)
+    {
+        this(true, bounds);
+    }
+
+    private Histogram(boolean enabled, long[] bounds)
+    {
+        this.enabled = enabled;
+        this.bounds = bounds.clone();
+        this.counts = new AtomicLongArray(bounds.length + 1);
+    }
+
+    /**
+     * @param value the value to record
+     */
+    public void update(long value)
+    {
+        if (!this.enabled) {
+            return;
+        }
+
+        int index = 0;
+        while (index < this.bounds.length && value > this.bounds[index]) {
+            ++index;
+        }
+
+        this.counts.incrementAndGet(index);
+        this.count.incrementAndGet();
+        this.sum.addAndGet(value);
+        this.max.accumulateAndGet(value, Math::max);
+    }
+
+    /**
+     * @return the number of recorded values
+     */
+    public long getCount()
+    {
+        return this.count.get();
+    }
+
+    /**
+     * @return the sum of the recorded values
+     */
+    public long getSum()
+    {
+        return this.sum.get();
+    }
+
+    /**
+     * @return the greatest recorded value
+     */
+    public long getMax()
+    {
+        return this.max.get();
+    }
+
+    /**
+     * @return the average of the recorded values, 0 if no value was recorded
+     */
+    public double getMean()
+    {
+        long currentCount = getCount();
+
+        return currentCount > 0 ? (double) getSum() / currentCount : 0;
+    }
+
+    /**
+     * @return the number of recorded values for each bucket, indexed by the bucket upper bound ({@link Long#MAX_VALUE}
+     *         for the overflow bucket)
+     */
+    public Map<Long, Long> getBuckets()
+    {
+        Map<Long, Long> buckets = new LinkedHashMap<>(this.counts.length());
+        for (int i = 0; i < this.counts.length(); ++i) {
+            buckets.put(i < this.bounds.length ? this.bounds[i] : Long.MAX_VALUE, this.counts.get(i));
+        }
+
+        return Collections.unmodifiableMap(buckets);
+    }
+
+    @Override
+    public Map<String, Number> getValues()
+    {
+        Map<String, Number> values = new LinkedHashMap<>();
+        values.put("count", getCount());
+        values.put("sum", getSum());
+        values.put("max", getMax());
+        values.put("mean", getMean());
+        for (int i = 0; i < this.counts.length(); ++i) {
+            values.put(i < this.bounds.length ? "le_" + this.bounds[i] : "le_inf", this.counts.get(i));
+        }
+
+        return values;
+    }
+}
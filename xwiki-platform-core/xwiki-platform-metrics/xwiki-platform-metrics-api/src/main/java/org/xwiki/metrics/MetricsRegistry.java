@@ -0,0 +1,89 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.metrics;
+
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+import org.xwiki.component.annotation.Role;
+import org.xwiki.stability.Unstable;
+
+/**
+ * The place where the hot paths of the platform (request handling, caches, rendering, storage, indexing) publish their
+ * measures. The metrics are disabled by default (see the {@code metrics.enabled} configuration property) in which case
+ * the registry only returns no-op metrics so that the instrumented code pays nothing more than a field read.
+ * <p>
+ * The metrics are meant to be retrieved once (typically when the instrumented component is initialized) and kept in a
+ * field, not looked up by name on each call.
+ *
+ * @version $Id$
+ * @since 12.0RC1
+ */
+@Role
+@Unstable
+public interface MetricsRegistry
+{
+    /**
+     * @return {@code true} if the metrics are collected
+     */
+    boolean isEnabled();
+
+    /**
+     * @param name the name of the counter
+     * @return the counter with the passed name, created if needed, or {@link Counter#NOOP} if the metrics are disabled
+     */
+    Counter getCounter(String name);
+
+    /**
+     * @param name the name of the timer
+     * @return the timer with the passed name, created if needed, or {@link Timer#NOOP} if the metrics are disabled
+     */
+    Timer getTimer(String name);
+
+    /**
+     * @param name the name of the histogram
+     * @param bounds the upper bounds of the buckets, in ascending order, used only when the histogram is created
+     * @return the histogram with the passed name, created if needed, or {@link Histogram#NOOP} if the metrics are
+     *         disabled
+     */
+    Histogram getHistogram(String name, long... bounds);
+
+    /**
+     * Publish a histogram owned by the caller. Does nothing if the metrics are disabled.
+     *
+     * @param name the name of the histogram
+     * @param histogram the histogram, replacing any metric previously registered with the same name
+     */
+    void register(String name, Histogram histogram);
+
+    /**
+     * Publish a value computed on demand (e.g. the size of a queue). Does nothing if the metrics are disabled.
+     *
+     * @param name the name of the gauge
+     * @param gauge called each time the metrics are read, replacing any metric previously registered with the same
+     *            name
+     */
+    void registerGauge(String name, LongSupplier gauge);
+
+    /**
+     * @return the current values of all the registered metrics, indexed by metric name
+     */
+    Map<String, Map<String, Number>> getValues();
+}
@@ -0,0 +1,108 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.metrics;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.xwiki.stability.Unstable;
+
+/**
+ * Measure the duration of an operation, in milliseconds.
+ * <p>
+ * Usage:
+ *
+ * <pre>
+ * long start = timer.start();
+ * try {
+ *     ...
+ * } finally {
+ *     timer.stop(start);
+ * }
+ * </pre>
+ *
+ * Neither {@link #start()} nor {@link #stop(long)} allocate anything.
+ *
+ * @version $Id$
+ * @since 12.0RC1
+ */
+@Unstable
+public class Timer implements Metric
+{
+    /**
+     * The timer returned when the metrics are disabled: it doesn't even read the clock.
+     */
+    public static final Timer NOOP = new Timer(Histogram.NOOP, false);
+
+    /**
+     * The default upper bounds of the buckets, in milliseconds.
+     */
+    private static final long[] DEFAULT_BOUNDS = {1, 5, 10, 25, 50, 100, 250, 500, 1000, 2500, 5000, 10000};
+
+    private final Histogram histogram;
+
+    private final boolean enabled;
+
+    /**
+     * Create a timer with the default buckets.
+     */
+    public Timer()
+    {
+        this(new Histogram(DEFAULT_BOUNDS), true);
+    }
+
+    private Timer(Histogram histogram, boolean enabled)
+    {
+        this.histogram = histogram;
+        this.enabled = enabled;
+    }
+
+    /**
+     * @return the start of the measure, to pass to {@link #stop(long)}
+     */
+    public long start()
+    {
+        return this.enabled ? System.nanoTime() : 0;
+    }
+
+    /**
+     * @param start the value returned by {@link #start()}
+     */
+    public void stop(long start)
+    {
+        if (this.enabled) {
+            this.histogram.update(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        }
+    }
+
+    /**
+     * @return the recorded durations, in milliseconds
+     */
+    public Histogram getHistogram()
+    {
+        return this.histogram;
+    }
+
+    @Override
+    public Map<String, Number> getValues()
+    {
+        return this.histogram.getValues();
+    }
+}
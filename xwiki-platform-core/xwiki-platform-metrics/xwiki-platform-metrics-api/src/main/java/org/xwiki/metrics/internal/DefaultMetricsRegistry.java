@@ -0,0 +1,201 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.metrics.internal;
+
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.slf4j.Logger;
+import org.xwiki.component.annotation.Component;
+import org.xwiki.component.manager.ComponentLifecycleException;
+import org.xwiki.component.phase.Disposable;
+import org.xwiki.component.phase.Initializable;
+import org.xwiki.configuration.ConfigurationSource;
+import org.xwiki.metrics.Counter;
+import org.xwiki.metrics.Histogram;
+import org.xwiki.metrics.Metric;
+import org.xwiki.metrics.MetricsRegistry;
+import org.xwiki.metrics.Timer;
+
+/**
+ * Default implementation of {@link MetricsRegistry}, publishing each metric as a JMX MBean named
+ * {@code org.xwiki:type=Metrics,name="<metric name>"}.
+ *
+ * @version $Id$
+ * @since 12.0RC1
+ */
+@Component
+@Singleton
+public class DefaultMetricsRegistry implements MetricsRegistry, Initializable, Disposable
+{
+    private static final String JMX_PREFIX = "org.xwiki:type=Metrics,name=";
+
+    @Inject
+    @Named("xwikiproperties")
+    private ConfigurationSource configuration;
+
+    @Inject
+    private Logger logger;
+
+    private final ConcurrentMap<String, Metric> metrics = new ConcurrentHashMap<>();
+
+    private boolean enabled;
+
+    private MBeanServer mbeanServer;
+
+    @Override
+    public void initialize()
+    {
+        this.enabled = this.configuration.getProperty("metrics.enabled", false);
+
+        if (this.enabled) {
+            this.mbeanServer = ManagementFactory.getPlatformMBeanServer();
+        }
+    }
+
+    @Override
+    public void dispose() throws ComponentLifecycleException
+    {
+        for (String name : this.metrics.keySet()) {
+            unregisterMBean(name);
+        }
+        this.metrics.clear();
+    }
+
+    @Override
+    public boolean isEnabled()
+    {
+        return this.enabled;
+    }
+
+    @Override
+    public Counter getCounter(String name)
+    {
+        return this.enabled ? get(name, Counter.class, key -> new Counter()) : Counter.NOOP;
+    }
+
+    @Override
+    public Timer getTimer(String name)
+    {
+        return this.enabled ? get(name, Timer.class, key -> new Timer()) : Timer.NOOP;
+    }
+
+    @Override
+    public Histogram getHistogram(String name, long... bounds)
+    {
+        return this.enabled ? get(name, Histogram.class, key -> new Histogram(bounds)) : Histogram.NOOP;
+    }
+
+    @Override
+    public void register(String name, Histogram histogram)
+    {
+        if (this.enabled) {
+            put(name, histogram);
+        }
+    }
+
+    @Override
+    public void registerGauge(String name, LongSupplier gauge)
+    {
+        if (this.enabled) {
+            put(name, new GaugeMetric(gauge));
+        }
+    }
+
+    @Override
+    public Map<String, Map<String, Number>> getValues()
+    {
+        Map<String, Map<String, Number>> values = new TreeMap<>();
+        for (Map.Entry<String, Metric> entry : this.metrics.entrySet()) {
+            values.put(entry.getKey(), entry.getValue().getValues());
+        }
+
+        return values;
+    }
+
+    private <M extends Metric> M get(String name, Class<M> type, Function<String, M> factory)
+    {
+        Metric metric = this.metrics.get(name);
+
+        if (metric == null) {
+            metric = this.metrics.computeIfAbsent(name, key -> {
+                M newMetric = factory.apply(key);
+                registerMBean(key, newMetric);
+                return newMetric;
+            });
+        }
+
+        if (!type.isInstance(metric)) {
+            throw new IllegalArgumentException(String.format("The metric [%s] is a [%s], not a [%s]", name,
+                metric.getClass().getName(), type.getName()));
+        }
+
+        return type.cast(metric);
+    }
+
+    private void put(String name, Metric metric)
+    {
+        this.metrics.compute(name, (key, previous) -> {
+            if (previous != null) {
+                unregisterMBean(key);
+            }
+            registerMBean(key, metric);
+            return metric;
+        });
+    }
+
+    private void registerMBean(String name, Metric metric)
+    {
+        try {
+            this.mbeanServer.registerMBean(new MetricMBean(name, metric), getObjectName(name));
+        } catch (JMException e) {
+            this.logger.warn("Failed to register the JMX MBean of metric [{}]: {}", name, e.getMessage());
+        }
+    }
+
+    private void unregisterMBean(String name)
+    {
+        try {
+            ObjectName objectName = getObjectName(name);
+            if (this.mbeanServer.isRegistered(objectName)) {
+                this.mbeanServer.unregisterMBean(objectName);
+            }
+        } catch (JMException e) {
+            this.logger.warn("Failed to unregister the JMX MBean of metric [{}]: {}", name, e.getMessage());
+        }
+    }
+
+    private ObjectName getObjectName(String name) throws JMException
+    {
+        return new ObjectName(JMX_PREFIX + ObjectName.quote(name));
+    }
+}
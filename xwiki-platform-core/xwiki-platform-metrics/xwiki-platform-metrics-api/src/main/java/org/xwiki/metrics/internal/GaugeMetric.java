@@ -0,0 +1,51 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.metrics.internal;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+import org.xwiki.metrics.Metric;
+
+/**
+ * A {@link Metric} whose value is computed when it's read.
+ *
+ * @version $Id$
+ * @since 12.0RC1
+ */
+public class GaugeMetric implements Metric
+{
+    private final LongSupplier gauge;
+
+    /**
+     * @param gauge called each time the value is read
+     */
+    public GaugeMetric(LongSupplier gauge)
+    {
+        this.gauge = gauge;
+    }
+
+    @Override
+    public Map<String, Number> getValues()
+    {
+        return Collections.singletonMap("value", this.gauge.getAsLong());
+    }
+}
@@ -0,0 +1,63 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.metrics;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Validate {@link Histogram}.
+ * 
+ * @version $Id$
+ */
+public class HistogramTest
+{
+    @Test
+    public void update()
+    {
+        Histogram histogram = new Histogram(10, 100);
+
+        histogram.update(1);
+        histogram.update(10);
+        histogram.update(50);
+        histogram.update(1000);
+
+        assertEquals(4, histogram.getCount());
+        assertEquals(1061, histogram.getSum());
+        assertEquals(1000, histogram.getMax());
+        assertEquals(265.25, histogram.getMean());
+        assertEquals(Arrays.asList(10L, 100L, Long.MAX_VALUE), new ArrayList<>(histogram.getBuckets().keySet()));
+        assertEquals(Arrays.asList(2L, 1L, 1L), new ArrayList<>(histogram.getBuckets().values()));
+    }
+
+    @Test
+    public void empty()
+    {
+        Histogram histogram = new Histogram();
+
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getMean());
+        assertEquals(1, histogram.getBuckets().size());
+    }
+}
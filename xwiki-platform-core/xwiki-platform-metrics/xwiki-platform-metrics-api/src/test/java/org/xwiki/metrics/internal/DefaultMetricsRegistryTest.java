@@ -0,0 +1,142 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.metrics.internal;
+
+import java.lang.management.ManagementFactory;
+
+import javax.inject.Named;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.xwiki.configuration.ConfigurationSource;
+import org.xwiki.metrics.Counter;
+import org.xwiki.metrics.Histogram;
+import org.xwiki.metrics.Timer;
+import org.xwiki.test.junit5.mockito.ComponentTest;
+import org.xwiki.test.junit5.mockito.InjectMockComponents;
+import org.xwiki.test.junit5.mockito.MockComponent;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.when;
+
+/**
+ * Validate {@link DefaultMetricsRegistry}.
+ *
+ * @version $Id$
+ */
+@ComponentTest
+public class DefaultMetricsRegistryTest
+{
+    @InjectMockComponents
+    private DefaultMetricsRegistry registry;
+
+    @MockComponent
+    @Named("xwikiproperties")
+    private ConfigurationSource configuration;
+
+    @AfterEach
+    public void afterEach() throws Exception
+    {
+        this.registry.dispose();
+    }
+
+    private void enable() throws Exception
+    {
+        when(this.configuration.getProperty("metrics.enabled", false)).thenReturn(true);
+
+        this.registry.initialize();
+    }
+
+    @Test
+    public void disabled()
+    {
+        assertFalse(this.registry.isEnabled());
+
+        assertSame(Counter.NOOP, this.registry.getCounter("counter"));
+        assertSame(Timer.NOOP, this.registry.getTimer("timer"));
+        assertSame(Histogram.NOOP, this.registry.getHistogram("histogram", 10));
+
+        this.registry.registerGauge("gauge", () -> 42);
+        this.registry.getCounter("counter").increment();
+
+        assertEquals(0, Counter.NOOP.getCount());
+        assertTrue(this.registry.getValues().isEmpty());
+    }
+
+    @Test
+    public void noopTimer()
+    {
+        long start = Timer.NOOP.start();
+        Timer.NOOP.stop(start);
+
+        assertEquals(0, start);
+        assertEquals(0, Timer.NOOP.getHistogram().getCount());
+    }
+
+    @Test
+    public void enabled() throws Exception
+    {
+        enable();
+
+        assertTrue(this.registry.isEnabled());
+
+        Counter counter = this.registry.getCounter("test.counter");
+        assertSame(counter, this.registry.getCounter("test.counter"));
+        counter.increment();
+        counter.add(2);
+
+        Timer timer = this.registry.getTimer("test.timer");
+        timer.stop(timer.start());
+
+        this.registry.register("test.histogram", new Histogram(10));
+        this.registry.getHistogram("test.histogram").update(5);
+
+        this.registry.registerGauge("test.gauge", () -> 42);
+
+        assertEquals(3L, this.registry.getValues().get("test.counter").get("count"));
+        assertEquals(1L, this.registry.getValues().get("test.timer").get("count"));
+        assertEquals(1L, this.registry.getValues().get("test.histogram").get("le_10"));
+        assertEquals(42L, this.registry.getValues().get("test.gauge").get("value"));
+
+        MBeanServer mbeanServer = ManagementFactory.getPlatformMBeanServer();
+        ObjectName objectName = new ObjectName("org.xwiki:type=Metrics,name=" + ObjectName.quote("test.counter"));
+        assertEquals(3L, mbeanServer.getAttribute(objectName, "count"));
+
+        this.registry.dispose();
+
+        assertFalse(mbeanServer.isRegistered(objectName));
+    }
+
+    @Test
+    public void wrongType() throws Exception
+    {
+        enable();
+
+        this.registry.getCounter("test.metric");
+
+        assertThrows(IllegalArgumentException.class, () -> this.registry.getTimer("test.metric"));
+    }
+}
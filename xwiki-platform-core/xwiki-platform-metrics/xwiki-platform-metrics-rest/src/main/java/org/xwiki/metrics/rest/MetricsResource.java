@@ -0,0 +1,46 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.metrics.rest;
+
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.core.Response;
+
+import org.xwiki.stability.Unstable;
+
+/**
+ * Retrieve the current values of the metrics published to the {@link org.xwiki.metrics.MetricsRegistry}.
+ *
+ * @version $Id$
+ * @since 12.0RC1
+ */
+@Path("/metrics")
+@Unstable
+public interface MetricsResource
+{
+    /**
+     * Get the values of all the metrics, indexed by metric name. Requires programming right.
+     *
+     * @return the metrics
+     * @throws Exception if an error occurs
+     */
+    @GET
+    Response getMetrics() throws Exception;
+}
@@ -0,0 +1,64 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.metrics.rest.internal;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.ws.rs.core.CacheControl;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.Response.Status;
+
+import org.xwiki.component.annotation.Component;
+import org.xwiki.metrics.MetricsRegistry;
+import org.xwiki.metrics.rest.MetricsResource;
+import org.xwiki.rest.XWikiResource;
+import org.xwiki.security.authorization.ContextualAuthorizationManager;
+import org.xwiki.security.authorization.Right;
+
+/**
+ * Default implementation of {@link MetricsResource}.
+ *
+ * @version $Id$
+ * @since 12.0RC1
+ */
+@Component
+@Named("org.xwiki.metrics.rest.internal.DefaultMetricsResource")
+public class DefaultMetricsResource extends XWikiResource implements MetricsResource
+{
+    @Inject
+    private MetricsRegistry metrics;
+
+    @Inject
+    private ContextualAuthorizationManager authorization;
+
+    @Override
+    public Response getMetrics() throws Exception
+    {
+        // The metrics expose details about the internals of the instance
+        if (!this.authorization.hasAccess(Right.PROGRAM)) {
+            return Response.status(Status.UNAUTHORIZED).build();
+        }
+
+        CacheControl cacheControl = new CacheControl();
+        cacheControl.setNoCache(true);
+
+        return Response.ok(this.metrics.getValues()).cacheControl(cacheControl).build();
+    }
+}
@@ -20,12 +20,17 @@
 package org.xwiki.model.internal.reference;
 
 import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.EnumMap;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 
 import javax.inject.Inject;
 
+import org.apache.commons.collections4.map.LRUMap;
 import org.apache.commons.lang3.StringUtils;
 import org.xwiki.component.phase.Initializable;
 import org.xwiki.model.EntityType;
@@ -44,6 +49,50 @@
 public abstract class AbstractStringEntityReferenceResolver extends AbstractEntityReferenceResolver
     implements EntityReferenceResolver<String>, Initializable
 {
+    /**
+     * The maximum number of resolved references kept in cache for each entity type.
+     */
+    private static final int CACHE_CAPACITY = 1000;
+
+    /**
+     * A default reference which was needed to resolve a string reference.
+     *
+     * @version $Id$
+     */
+    private static final class ResolvedDefault
+    {
+        private final EntityType type;
+
+        private final boolean withParameters;
+
+        private final EntityReference reference;
+
+        ResolvedDefault(EntityType type, boolean withParameters, EntityReference reference)
+        {
+            this.type = type;
+            this.withParameters = withParameters;
+            this.reference = reference;
+        }
+    }
+
+    /**
+     * A resolved reference along with the default references which were used to resolve it.
+     *
+     * @version $Id$
+     */
+    private static final class CachedReference
+    {
+        private final EntityReference reference;
+
+        private final ResolvedDefault[] defaults;
+
+        CachedReference(EntityReference reference, List<ResolvedDefault> defaults)
+        {
+            this.reference = reference;
+            this.defaults = defaults.toArray(new ResolvedDefault[0]);
+        }
+    }
+
     /**
      * Array of character to unescape in entity names.
      */
@@ -59,6 +108,11 @@ public abstract class AbstractStringEntityReferenceResolver extends AbstractEnti
 
     private Map<EntityType, Map<Character, EntityType>> referenceSetup;
 
+    /**
+     * The resolved references, indexed by entity type and string representation.
+     */
+    private Map<EntityType, Map<String, CachedReference>> cache;
+
     /**
      * Empty constructor, to be used by the Component Manager, which will also inject the Symbol Scheme.
      */
@@ -96,6 +150,11 @@ public void initialize()
         String escape = Character.toString(getSymbolScheme().getEscapeSymbol());
         this.escapeMatching = new String[] { escape + escape, escape };
         this.escapeMatchingReplace = new String[] { escape, StringUtils.EMPTY };
+
+        this.cache = new EnumMap<>(EntityType.class);
+        for (EntityType type : EntityType.values()) {
+            this.cache.put(type, Collections.synchronizedMap(new LRUMap<>(CACHE_CAPACITY)));
+        }
     }
 
     private StringBuilder createStringBuilder(String entityReferenceRepresentation)
@@ -114,12 +173,64 @@ private StringBuilder createStringBuilder(String entityReferenceRepresentation)
 
     @Override
     public EntityReference resolve(String entityReferenceRepresentation, EntityType type, Object... parameters)
+    {
+        if (entityReferenceRepresentation == null) {
+            return resolve(entityReferenceRepresentation, type, null, parameters);
+        }
+
+        // Parsing the same representations again and again is costly so we reuse the previous result as long as the
+        // default references it relied on did not change (they generally depend on the context)
+        Map<String, CachedReference> typeCache = this.cache.get(type);
+        CachedReference cachedReference = typeCache.get(entityReferenceRepresentation);
+        if (cachedReference != null && isValid(cachedReference, parameters)) {
+            return cachedReference.reference;
+        }
+
+        List<ResolvedDefault> defaults = new ArrayList<>();
+        EntityReference reference = resolve(entityReferenceRepresentation, type, defaults, parameters);
+
+        // The least recently used reference is dropped when the cache is full
+        typeCache.put(entityReferenceRepresentation, new CachedReference(reference, defaults));
+
+        return reference;
+    }
+
+    private boolean isValid(CachedReference cachedReference, Object... parameters)
+    {
+        for (ResolvedDefault resolvedDefault : cachedReference.defaults) {
+            EntityReference defaultReference = resolvedDefault.withParameters
+                ? resolveDefaultReference(resolvedDefault.type, parameters)
+                : resolveDefaultReference(resolvedDefault.type);
+
+            if (!Objects.equals(defaultReference, resolvedDefault.reference)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private EntityReference recordDefaultReference(EntityType type, List<ResolvedDefault> defaults,
+        boolean withParameters, Object... parameters)
+    {
+        EntityReference reference =
+            withParameters ? resolveDefaultReference(type, parameters) : resolveDefaultReference(type);
+
+        if (defaults != null) {
+            defaults.add(new ResolvedDefault(type, withParameters, reference));
+        }
+
+        return reference;
+    }
+
+    private EntityReference resolve(String entityReferenceRepresentation, EntityType type,
+        List<ResolvedDefault> defaults, Object... parameters)
     {
         Map<Character, EntityType> typeSetup = getTypeSetup(type);
 
         // Check if the type require anything specific
         if (typeSetup == null || typeSetup.isEmpty()) {
-            return getNewReference(entityReferenceRepresentation, true, type, parameters);
+            return getNewReference(entityReferenceRepresentation, true, type, defaults, parameters);
         }
 
         StringBuilder representation = createStringBuilder(entityReferenceRepresentation);
@@ -185,7 +296,7 @@ public EntityReference resolve(String entityReferenceRepresentation, EntityType
             }
 
             reference = appendNewReference(reference,
-                getNewReference(i, representation, unescape, currentType, referenceParameters, parameters));
+                getNewReference(i, representation, unescape, currentType, referenceParameters, defaults, parameters));
 
             if (parentType != null) {
                 currentType = parentType;
@@ -197,15 +308,17 @@ public EntityReference resolve(String entityReferenceRepresentation, EntityType
         }
 
         // Handle last entity reference's name
-        reference = appendNewReference(reference, getNewReference(representation, true, currentType, parameters));
+        reference = appendNewReference(reference,
+            getNewReference(representation, true, currentType, defaults, parameters));
 
         // Evaluate keywords when supported ("..", ".")
-        reference = evaluateKeywords(reference, parameters);
+        reference = evaluateKeywords(reference, defaults, true, parameters);
 
         return reference;
     }
 
-    private EntityReference evaluateKeywords(EntityReference reference, Object... parameters)
+    private EntityReference evaluateKeywords(EntityReference reference, List<ResolvedDefault> defaults,
+        boolean withParameters, Object... parameters)
     {
         if (reference == null) {
             return null;
@@ -213,15 +326,16 @@ private EntityReference evaluateKeywords(EntityReference reference, Object... pa
 
         EntityReference evaluatedReference = reference;
 
-        EntityReference evaluatedParent = evaluateKeywords(reference.getParent());
+        EntityReference evaluatedParent = evaluateKeywords(reference.getParent(), defaults, false);
 
         if (reference.getName().equals(getSymbolScheme().getCurrentReferenceKeyword(reference.getType()))) {
             if (evaluatedParent == null) {
                 // No parent, start from the default reference
-                evaluatedReference = resolveDefaultReference(reference.getType(), parameters);
+                evaluatedReference = recordDefaultReference(reference.getType(), defaults, withParameters, parameters);
             } else if (evaluatedParent.getType() != reference.getType()) {
                 // Parent type is different, switch parent in default reference
-                EntityReference defaultReference = resolveDefaultReference(reference.getType(), parameters);
+                EntityReference defaultReference =
+                    recordDefaultReference(reference.getType(), defaults, withParameters, parameters);
                 EntityReference defaultParent = defaultReference.extractReference(evaluatedParent.getType());
                 evaluatedReference = defaultReference.replaceParent(defaultParent, evaluatedParent);
             } else {
@@ -235,7 +349,8 @@ private EntityReference evaluateKeywords(EntityReference reference, Object... pa
                 evaluatedReference = null;
             } else if (evaluatedParent.getType() != reference.getType()) {
                 // Get current reference to know is there is several levels in it (several pages or spaces for example)
-                EntityReference defaultReference = resolveDefaultReference(reference.getType(), parameters);
+                EntityReference defaultReference =
+                    recordDefaultReference(reference.getType(), defaults, withParameters, parameters);
                 if (defaultReference.getParent() == null) {
                     // Parent type is different, stay on it
                     evaluatedReference = evaluatedParent;
@@ -273,7 +388,7 @@ private String unescape(String text)
     }
 
     private EntityReference getNewReference(CharSequence representation, boolean unescape, EntityType type,
-        Object... parameters)
+        List<ResolvedDefault> defaults, Object... parameters)
     {
         EntityReference newReference;
         if (representation.length() > 0) {
@@ -283,21 +398,21 @@ private EntityReference getNewReference(CharSequence representation, boolean une
             }
             newReference = new EntityReference(name, type);
         } else {
-            newReference = resolveDefaultReference(type, null, parameters);
+            newReference = recordDefaultReference(type, null, defaults, parameters);
         }
 
         return newReference;
     }
 
     private EntityReference getNewReference(int i, StringBuilder representation, boolean unescape, EntityType type,
-        Map<String, Serializable> referenceParameters, Object... parameters)
+        Map<String, Serializable> referenceParameters, List<ResolvedDefault> defaults, Object... parameters)
     {
         EntityReference newReference;
 
         // Found a valid separator (not escaped), separate content on its left from content on its
         // right
         if (i == representation.length() - 1) {
-            newReference = resolveDefaultReference(type, referenceParameters, parameters);
+            newReference = recordDefaultReference(type, referenceParameters, defaults, parameters);
         } else {
             String name = representation.substring(i + 1, representation.length());
             if (unescape) {
@@ -314,7 +429,13 @@ private EntityReference getNewReference(int i, StringBuilder representation, boo
     protected EntityReference resolveDefaultReference(EntityType type, Map<String, Serializable> referenceParameters,
         Object... parameters)
     {
-        EntityReference reference = resolveDefaultReference(type, parameters);
+        return recordDefaultReference(type, referenceParameters, null, parameters);
+    }
+
+    private EntityReference recordDefaultReference(EntityType type, Map<String, Serializable> referenceParameters,
+        List<ResolvedDefault> defaults, Object... parameters)
+    {
+        EntityReference reference = recordDefaultReference(type, defaults, true, parameters);
 
         if (referenceParameters != null && !referenceParameters.isEmpty()) {
             reference = new EntityReference(reference, referenceParameters);
@@ -44,6 +44,7 @@
 import org.xwiki.test.junit5.mockito.MockComponent;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.mockito.Mockito.when;
 
 /**
@@ -608,4 +609,40 @@ public void testResolvePageReferenceParameters() throws Exception
         assertEquals(new EntityReference(pageReference, Collections.singletonMap("key=novalue", "nokey=value")),
             reference);
     }
+
+    @Test
+    public void resolveCachedReference()
+    {
+        EntityReference reference = this.resolver.resolve("wiki:space.page", EntityType.DOCUMENT);
+        assertSame(reference, this.resolver.resolve("wiki:space.page", EntityType.DOCUMENT));
+
+        reference = this.resolver.resolve("space.page", EntityType.DOCUMENT);
+        assertEquals(new DocumentReference(DEFAULT_WIKI, "space", "page"), reference);
+        assertSame(reference, this.resolver.resolve("space.page", EntityType.DOCUMENT));
+
+        // The default references are still taken into account
+        assertEquals(new DocumentReference("otherwiki", "space", "page"),
+            this.resolver.resolve("space.page", EntityType.DOCUMENT, new WikiReference("otherwiki")));
+        when(this.referenceProvider.getDefaultReference(EntityType.WIKI)).thenReturn(new WikiReference("newwiki"));
+        assertEquals(new DocumentReference("newwiki", "space", "page"),
+            this.resolver.resolve("space.page", EntityType.DOCUMENT));
+        assertEquals(new SpaceReference("newwiki", "space"), this.resolver.resolve("space", EntityType.SPACE));
+    }
+
+    @Test
+    public void resolveCachedReferenceWhenCacheIsFull()
+    {
+        EntityReference reference = this.resolver.resolve("wiki:space.page", EntityType.DOCUMENT);
+
+        // Fill the cache while keeping using the first reference
+        for (int i = 0; i < 2000; ++i) {
+            this.resolver.resolve("wiki:space.page" + i, EntityType.DOCUMENT);
+            assertSame(reference, this.resolver.resolve("wiki:space.page", EntityType.DOCUMENT));
+        }
+
+        // The least recently used references were dropped
+        EntityReference otherReference = this.resolver.resolve("wiki:space.page0", EntityType.DOCUMENT);
+        assertEquals(new DocumentReference("wiki", "space", "page0"), otherReference);
+        assertSame(otherReference, this.resolver.resolve("wiki:space.page0", EntityType.DOCUMENT));
+    }
 }
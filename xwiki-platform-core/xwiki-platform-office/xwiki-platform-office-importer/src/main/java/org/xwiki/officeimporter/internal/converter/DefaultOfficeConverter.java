@@ -22,9 +22,17 @@
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.TreeMap;
 
 import org.apache.commons.io.IOUtils;
 import org.jodconverter.LocalConverter;
@@ -57,6 +65,11 @@ public class DefaultOfficeConverter implements OfficeConverter
      */
     private File workDir;
 
+    /**
+     * Where to store the conversion results, {@code null} if they should not be stored.
+     */
+    private OfficeConverterCache cache;
+
     /**
      * Creates a new {@link DefaultOfficeConverter} instance.
      * 
@@ -64,9 +77,23 @@ public class DefaultOfficeConverter implements OfficeConverter
      * @param workDir space for holding temporary file.
      */
     public DefaultOfficeConverter(LocalConverter converter, File workDir)
+    {
+        this(converter, workDir, null);
+    }
+
+    /**
+     * Creates a new {@link DefaultOfficeConverter} instance storing the conversion results on disk.
+     * 
+     * @param converter provided by JODConverter library.
+     * @param workDir space for holding temporary file.
+     * @param cache where to store the conversion results, {@code null} if they should not be stored
+     * @since 12.0RC1
+     */
+    public DefaultOfficeConverter(LocalConverter converter, File workDir, OfficeConverterCache cache)
     {
         this.converter = converter;
         this.workDir = workDir;
+        this.cache = cache;
     }
 
     @Override
@@ -84,15 +111,25 @@ public Map<String, byte[]> convert(Map<String, InputStream> inputStreams, String
             // Prepare temporary storage.
             storage = new OfficeConverterFileStorage(this.workDir, inputFileName, outputFileName);
 
-            // Write out all the input streams.
-            FileOutputStream fos = null;
-            for (Map.Entry<String, InputStream> entry : inputStreams.entrySet()) {
-                try {
-                    File temp = new File(storage.getInputDir(), entry.getKey());
-                    fos = new FileOutputStream(temp);
-                    IOUtils.copy(entry.getValue(), fos);
-                } finally {
-                    IOUtils.closeQuietly(fos);
+            // Write out all the input streams, computing the key of the conversion on the way. The input files are
+            // sorted so that the key doesn't depend on the order of the map.
+            MessageDigest digest = null;
+            if (this.cache != null && this.cache.isEnabled()) {
+                digest = createDigest();
+                updateDigest(digest, inputFileName);
+                updateDigest(digest, outputFileName);
+            }
+            for (Map.Entry<String, InputStream> entry : new TreeMap<>(inputStreams).entrySet()) {
+                writeInputFile(storage.getInputDir(), entry.getKey(), entry.getValue(), digest);
+            }
+
+            String key = null;
+            if (digest != null) {
+                key = String.format("%064x", new BigInteger(1, digest.digest()));
+
+                Map<String, byte[]> result = this.cache.get(key);
+                if (result != null) {
+                    return result;
                 }
             }
 
@@ -101,6 +138,10 @@ public Map<String, byte[]> convert(Map<String, InputStream> inputStreams, String
                 .to(storage.getOutputFile())
                 .execute();
 
+            if (key != null) {
+                this.cache.put(key, storage.getOutputDir());
+            }
+
             // Collect all the output artifacts.
             Map<String, byte[]> result = new HashMap<String, byte[]>();
             FileInputStream fis = null;
@@ -123,6 +164,37 @@ public Map<String, byte[]> convert(Map<String, InputStream> inputStreams, String
         }
     }
 
+    private void writeInputFile(File inputDir, String fileName, InputStream inputStream, MessageDigest digest)
+        throws IOException, NoSuchAlgorithmException
+    {
+        // Each file content is digested separately so that the boundaries between the files are part of the key.
+        MessageDigest fileDigest = digest != null ? createDigest() : null;
+        OutputStream outputStream = new FileOutputStream(new File(inputDir, fileName));
+        if (fileDigest != null) {
+            outputStream = new DigestOutputStream(outputStream, fileDigest);
+        }
+        try (OutputStream fos = outputStream) {
+            IOUtils.copy(inputStream, fos);
+        }
+
+        if (digest != null) {
+            updateDigest(digest, fileName);
+            digest.update(fileDigest.digest());
+        }
+    }
+
+    private MessageDigest createDigest() throws NoSuchAlgorithmException
+    {
+        return MessageDigest.getInstance("SHA-256");
+    }
+
+    private void updateDigest(MessageDigest digest, String value)
+    {
+        digest.update(value.getBytes(StandardCharsets.UTF_8));
+        // Separate the values
+        digest.update((byte) 0);
+    }
+
     @Override
     public DocumentFormatRegistry getFormatRegistry()
     {
@@ -0,0 +1,275 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.officeimporter.internal.converter;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.lang3.exception.ExceptionUtils;
+import org.slf4j.Logger;
+import org.xwiki.component.annotation.Component;
+import org.xwiki.environment.Environment;
+import org.xwiki.officeimporter.server.OfficeServerConfiguration;
+
+/**
+ * Keeps the office conversion results on the local disk, bounded by their total size, so that the office server is
+ * not asked to convert the same file again after the in-memory caches are cleared or the wiki is restarted. Each
+ * result is stored in its own directory named after the key of the conversion, and the least recently used results
+ * are deleted when the total size exceeds the configured limit. The index of the stored results is rebuilt from the
+ * disk the first time the cache is used, in the order of their last access date.
+ *
+ * @version $Id$
+ * @since 12.0RC1
+ */
+@Component(roles = OfficeConverterCache.class)
+@Singleton
+public class OfficeConverterCache
+{
+    /**
+     * The prefix of the directories where the results are written before being added to the cache, so that a result
+     * is never visible partially written.
+     */
+    private static final String TEMPORARY_PREFIX = "tmp-";
+
+    @Inject
+    private Environment environment;
+
+    @Inject
+    private OfficeServerConfiguration configuration;
+
+    @Inject
+    private Logger logger;
+
+    /**
+     * Prevents the stored results from being deleted while they are read. Always acquired before the monitor of the
+     * cache, which protects the index.
+     */
+    private final ReadWriteLock filesLock = new ReentrantReadWriteLock();
+
+    private File directory;
+
+    private long maxSize;
+
+    /**
+     * The size of each stored result, from the least recently used to the most recently used.
+     */
+    private Map<String, Long> entries;
+
+    private long size;
+
+    /**
+     * @return {@code true} if the conversion results should be stored, {@code false} if the cache is disabled
+     */
+    public boolean isEnabled()
+    {
+        return this.configuration.getCacheMaxSize() > 0;
+    }
+
+    /**
+     * @param key the key of the conversion
+     * @return the output files of the conversion, or {@code null} if the conversion result is not stored
+     */
+    public Map<String, byte[]> get(String key)
+    {
+        Map<String, byte[]> result;
+
+        this.filesLock.readLock().lock();
+        try {
+            synchronized (this) {
+                // Also marks the entry as the most recently used one
+                if (getEntries().get(key) == null) {
+                    return null;
+                }
+            }
+
+            result = read(key);
+        } finally {
+            this.filesLock.readLock().unlock();
+        }
+
+        if (result == null) {
+            remove(key);
+        }
+
+        return result;
+    }
+
+    private Map<String, byte[]> read(String key)
+    {
+        File entryDirectory = new File(this.directory, key);
+        // Remember the access order across restarts
+        entryDirectory.setLastModified(System.currentTimeMillis());
+
+        try {
+            Map<String, byte[]> result = new HashMap<>();
+            for (File file : listFiles(entryDirectory)) {
+                result.put(file.getName(), FileUtils.readFileToByteArray(file));
+            }
+
+            return result.isEmpty() ? null : result;
+        } catch (IOException e) {
+            this.logger.warn("Failed to read the stored office conversion result [{}]: {}", key,
+                ExceptionUtils.getRootCauseMessage(e));
+
+            return null;
+        }
+    }
+
+    /**
+     * Store the output files of a conversion, evicting the least recently used results if needed.
+     *
+     * @param key the key of the conversion
+     * @param outputDirectory the directory containing the output files of the conversion
+     */
+    public void put(String key, File outputDirectory)
+    {
+        File temporaryDirectory = null;
+        try {
+            synchronized (this) {
+                if (getEntries().containsKey(key)) {
+                    return;
+                }
+                this.directory.mkdirs();
+            }
+
+            // Copy the files outside of the lock, they can be big
+            temporaryDirectory = Files.createTempDirectory(this.directory.toPath(), TEMPORARY_PREFIX).toFile();
+            FileUtils.copyDirectory(outputDirectory, temporaryDirectory);
+            long entrySize = FileUtils.sizeOfDirectory(temporaryDirectory);
+
+            // Evicting results must wait for them to be read
+            this.filesLock.writeLock().lock();
+            try {
+                synchronized (this) {
+                    if (getEntries().containsKey(key) || entrySize > this.maxSize) {
+                        FileUtils.deleteQuietly(temporaryDirectory);
+                    } else if (temporaryDirectory.renameTo(new File(this.directory, key))) {
+                        this.entries.put(key, entrySize);
+                        this.size += entrySize;
+
+                        evict();
+                    } else {
+                        throw new IOException("Failed to rename [" + temporaryDirectory + "]");
+                    }
+                }
+            } finally {
+                this.filesLock.writeLock().unlock();
+            }
+        } catch (IOException e) {
+            this.logger.warn("Failed to store the office conversion result [{}]: {}", key,
+                ExceptionUtils.getRootCauseMessage(e));
+
+            FileUtils.deleteQuietly(temporaryDirectory);
+        }
+    }
+
+    /**
+     * @return the total size of the stored results, in bytes
+     */
+    public synchronized long getSize()
+    {
+        getEntries();
+
+        return this.size;
+    }
+
+    private void remove(String key)
+    {
+        this.filesLock.writeLock().lock();
+        try {
+            synchronized (this) {
+                Long entrySize = getEntries().remove(key);
+                if (entrySize != null) {
+                    this.size -= entrySize;
+
+                    FileUtils.deleteQuietly(new File(this.directory, key));
+                }
+            }
+        } finally {
+            this.filesLock.writeLock().unlock();
+        }
+    }
+
+    private Map<String, Long> getEntries()
+    {
+        if (this.entries == null) {
+            this.maxSize = this.configuration.getCacheMaxSize();
+            this.directory = new File(this.environment.getPermanentDirectory(), "cache/officeconverter");
+            this.entries = new LinkedHashMap<>(16, 0.75F, true);
+
+            scan();
+        }
+
+        return this.entries;
+    }
+
+    private void scan()
+    {
+        File[] files = listFiles(this.directory);
+
+        // Restore the access order from the last modification date of the stored results
+        Arrays.sort(files, Comparator.comparingLong(File::lastModified));
+
+        for (File file : files) {
+            if (file.isDirectory() && !file.getName().startsWith(TEMPORARY_PREFIX)) {
+                long entrySize = FileUtils.sizeOfDirectory(file);
+                this.entries.put(file.getName(), entrySize);
+                this.size += entrySize;
+            } else {
+                // Left over by an interrupted write
+                FileUtils.deleteQuietly(file);
+            }
+        }
+
+        evict();
+    }
+
+    private void evict()
+    {
+        Iterator<Map.Entry<String, Long>> iterator = this.entries.entrySet().iterator();
+        while (this.size > this.maxSize && iterator.hasNext()) {
+            Map.Entry<String, Long> entry = iterator.next();
+            iterator.remove();
+            this.size -= entry.getValue();
+
+            FileUtils.deleteQuietly(new File(this.directory, entry.getKey()));
+        }
+    }
+
+    private File[] listFiles(File parent)
+    {
+        File[] files = parent.listFiles();
+
+        return files != null ? files : new File[0];
+    }
+}
@@ -36,6 +36,7 @@
 import org.xwiki.environment.Environment;
 import org.xwiki.officeimporter.converter.OfficeConverter;
 import org.xwiki.officeimporter.internal.converter.DefaultOfficeConverter;
+import org.xwiki.officeimporter.internal.converter.OfficeConverterCache;
 import org.xwiki.officeimporter.server.OfficeServer;
 import org.xwiki.officeimporter.server.OfficeServerConfiguration;
 import org.xwiki.officeimporter.server.OfficeServerException;
@@ -73,6 +74,12 @@ public class DefaultOfficeServer implements OfficeServer
     @Inject
     private Logger logger;
 
+    /**
+     * Used to store the conversion results on disk.
+     */
+    @Inject
+    private OfficeConverterCache cache;
+
     /**
      * Internal {@link OfficeManager} used to control / connect the office server.
      */
@@ -167,7 +174,7 @@ public void initialize() throws OfficeServerException
         }
 
         File workDir = this.environment.getTemporaryDirectory();
-        this.converter = new DefaultOfficeConverter(this.jodConverter, workDir);
+        this.converter = new DefaultOfficeConverter(this.jodConverter, workDir, this.cache);
     }
 
     @Override
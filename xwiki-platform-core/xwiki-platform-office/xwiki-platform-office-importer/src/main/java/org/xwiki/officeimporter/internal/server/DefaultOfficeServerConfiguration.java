@@ -71,6 +71,11 @@ public class DefaultOfficeServerConfiguration implements OfficeServerConfigurati
      */
     private static final long DEFAULT_TASK_EXECUTION_TIMEOUT = 30000L;
 
+    /**
+     * @see OfficeServerConfiguration#getCacheMaxSize()
+     */
+    private static final long DEFAULT_CACHE_MAX_SIZE = 100L * 1024 * 1024;
+
     /**
      * @see OfficeServerConfiguration#getHomePath()
      */
@@ -135,6 +140,12 @@ public long getTaskExecutionTimeout()
         return this.configuration.getProperty(PREFIX + "taskExecutionTimeout", DEFAULT_TASK_EXECUTION_TIMEOUT);
     }
 
+    @Override
+    public long getCacheMaxSize()
+    {
+        return this.configuration.getProperty(PREFIX + "cacheMaxSize", DEFAULT_CACHE_MAX_SIZE);
+    }
+
     @Override
     public void initialize() throws InitializationException
     {
@@ -20,6 +20,7 @@
 package org.xwiki.officeimporter.server;
 
 import org.xwiki.component.annotation.Role;
+import org.xwiki.stability.Unstable;
 
 /**
  * Configuration properties for the {@link OfficeServer}. They are defined in XWiki's global configuration file using
@@ -89,4 +90,15 @@
      * @return the timeout for document conversion tasks
      */
     long getTaskExecutionTimeout();
+
+    /**
+     * @return the maximum total size, in bytes, of the conversion results kept on the local disk, {@code 0} to not
+     *         keep them
+     * @since 12.0RC1
+     */
+    @Unstable
+    default long getCacheMaxSize()
+    {
+        return 0;
+    }
 }
@@ -0,0 +1,173 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.officeimporter.internal.converter;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.commons.io.FileUtils;
+import org.jodconverter.LocalConverter;
+import org.jodconverter.job.ConversionJobWithOptionalSourceFormatUnspecified;
+import org.jodconverter.job.ConversionJobWithOptionalTargetFormatUnspecified;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.xwiki.environment.Environment;
+import org.xwiki.officeimporter.server.OfficeServerConfiguration;
+import org.xwiki.test.junit5.XWikiTempDir;
+import org.xwiki.test.junit5.XWikiTempDirExtension;
+import org.xwiki.test.junit5.mockito.ComponentTest;
+import org.xwiki.test.junit5.mockito.InjectMockComponents;
+import org.xwiki.test.junit5.mockito.MockComponent;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for {@link DefaultOfficeConverter}, using a fake office server.
+ *
+ * @version $Id$
+ */
+@ComponentTest
+@ExtendWith(XWikiTempDirExtension.class)
+public class DefaultOfficeConverterTest
+{
+    @InjectMockComponents
+    private OfficeConverterCache cache;
+
+    @MockComponent
+    private Environment environment;
+
+    @MockComponent
+    private OfficeServerConfiguration configuration;
+
+    @XWikiTempDir
+    private File testDirectory;
+
+    private File workDirectory;
+
+    private LocalConverter localConverter;
+
+    private ConversionJobWithOptionalTargetFormatUnspecified conversionJob;
+
+    private File inputFile;
+
+    private File outputFile;
+
+    @BeforeEach
+    public void configure() throws Exception
+    {
+        when(this.environment.getPermanentDirectory()).thenReturn(new File(this.testDirectory, "permanent"));
+        when(this.configuration.getCacheMaxSize()).thenReturn(1000L);
+
+        this.workDirectory = new File(this.testDirectory, "work");
+        this.workDirectory.mkdirs();
+
+        // The fake office server writes the name and the content of the input file in the output file
+        this.localConverter = mock(LocalConverter.class);
+        ConversionJobWithOptionalSourceFormatUnspecified sourceJob =
+            mock(ConversionJobWithOptionalSourceFormatUnspecified.class);
+        this.conversionJob = mock(ConversionJobWithOptionalTargetFormatUnspecified.class);
+        when(this.localConverter.convert(any(File.class))).thenAnswer(invocation -> {
+            this.inputFile = invocation.getArgument(0);
+            return sourceJob;
+        });
+        when(sourceJob.to(any(File.class))).thenAnswer(invocation -> {
+            this.outputFile = invocation.getArgument(0);
+            return this.conversionJob;
+        });
+        doAnswer(invocation -> {
+            FileUtils.writeStringToFile(this.outputFile,
+                this.inputFile.getName() + ':' + FileUtils.readFileToString(this.inputFile, "UTF-8"), "UTF-8");
+            return null;
+        }).when(this.conversionJob).execute();
+    }
+
+    private Map<String, byte[]> convert(DefaultOfficeConverter converter, String content) throws Exception
+    {
+        Map<String, InputStream> inputStreams = new HashMap<>();
+        inputStreams.put("input.doc", new ByteArrayInputStream(content.getBytes("UTF-8")));
+
+        return converter.convert(inputStreams, "input.doc", "output.html");
+    }
+
+    @Test
+    public void convertWithoutCache() throws Exception
+    {
+        DefaultOfficeConverter converter = new DefaultOfficeConverter(this.localConverter, this.workDirectory);
+
+        assertArrayEquals("input.doc:content".getBytes(), convert(converter, "content").get("output.html"));
+        assertArrayEquals("input.doc:content".getBytes(), convert(converter, "content").get("output.html"));
+
+        verify(this.conversionJob, times(2)).execute();
+        assertEquals(0, this.cache.getSize());
+    }
+
+    @Test
+    public void convertWithCache() throws Exception
+    {
+        DefaultOfficeConverter converter =
+            new DefaultOfficeConverter(this.localConverter, this.workDirectory, this.cache);
+
+        // Cache miss: the office server is asked to convert the file and the result is stored
+        Map<String, byte[]> result = convert(converter, "content");
+        assertEquals(1, result.size());
+        assertArrayEquals("input.doc:content".getBytes(), result.get("output.html"));
+        verify(this.conversionJob).execute();
+        assertEquals(17, this.cache.getSize());
+
+        // Cache hit: the stored result is returned without asking the office server
+        result = convert(converter, "content");
+        assertEquals(1, result.size());
+        assertArrayEquals("input.doc:content".getBytes(), result.get("output.html"));
+        verify(this.conversionJob).execute();
+
+        // A different input is a different conversion
+        result = convert(converter, "other");
+        assertArrayEquals("input.doc:other".getBytes(), result.get("output.html"));
+        verify(this.conversionJob, times(2)).execute();
+        assertEquals(32, this.cache.getSize());
+
+        // The temporary files are always cleaned
+        assertEquals(0, this.workDirectory.list().length);
+    }
+
+    @Test
+    public void convertWithDisabledCache() throws Exception
+    {
+        when(this.configuration.getCacheMaxSize()).thenReturn(0L);
+        DefaultOfficeConverter converter =
+            new DefaultOfficeConverter(this.localConverter, this.workDirectory, this.cache);
+
+        convert(converter, "content");
+        convert(converter, "content");
+
+        verify(this.conversionJob, times(2)).execute();
+    }
+}
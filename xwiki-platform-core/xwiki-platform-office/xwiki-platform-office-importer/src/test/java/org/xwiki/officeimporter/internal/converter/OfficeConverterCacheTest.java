@@ -0,0 +1,157 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.officeimporter.internal.converter;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Map;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.xwiki.environment.Environment;
+import org.xwiki.officeimporter.server.OfficeServerConfiguration;
+import org.xwiki.test.junit5.XWikiTempDir;
+import org.xwiki.test.junit5.XWikiTempDirExtension;
+import org.xwiki.test.junit5.mockito.ComponentTest;
+import org.xwiki.test.junit5.mockito.InjectMockComponents;
+import org.xwiki.test.junit5.mockito.MockComponent;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for {@link OfficeConverterCache}.
+ *
+ * @version $Id$
+ */
+@ComponentTest
+@ExtendWith(XWikiTempDirExtension.class)
+public class OfficeConverterCacheTest
+{
+    @InjectMockComponents
+    private OfficeConverterCache cache;
+
+    @MockComponent
+    private Environment environment;
+
+    @MockComponent
+    private OfficeServerConfiguration configuration;
+
+    @XWikiTempDir
+    private File testDirectory;
+
+    private File permanentDirectory;
+
+    @BeforeEach
+    public void configure()
+    {
+        this.permanentDirectory = new File(this.testDirectory, "permanent");
+        when(this.environment.getPermanentDirectory()).thenReturn(this.permanentDirectory);
+        when(this.configuration.getCacheMaxSize()).thenReturn(10L);
+    }
+
+    /**
+     * Simulate a conversion writing its output files in a new directory.
+     */
+    private File convert(String name, String... contents) throws IOException
+    {
+        File outputDirectory = new File(this.testDirectory, "output-" + name);
+        for (int i = 0; i < contents.length; ++i) {
+            FileUtils.writeStringToFile(new File(outputDirectory, name + i), contents[i], "UTF-8");
+        }
+
+        return outputDirectory;
+    }
+
+    @Test
+    public void getAndPut() throws IOException
+    {
+        assertTrue(this.cache.isEnabled());
+        assertNull(this.cache.get("key"));
+
+        this.cache.put("key", convert("output", "abc", "de"));
+
+        Map<String, byte[]> result = this.cache.get("key");
+        assertEquals(2, result.size());
+        assertArrayEquals("abc".getBytes(), result.get("output0"));
+        assertArrayEquals("de".getBytes(), result.get("output1"));
+        assertEquals(5, this.cache.getSize());
+    }
+
+    @Test
+    public void evictLeastRecentlyUsed() throws IOException
+    {
+        this.cache.put("a", convert("a", "aaaa"));
+        this.cache.put("b", convert("b", "bbbb"));
+
+        // Make "a" the most recently used result
+        assertNotNull(this.cache.get("a"));
+
+        this.cache.put("c", convert("c", "cccc"));
+
+        assertNotNull(this.cache.get("a"));
+        assertNull(this.cache.get("b"));
+        assertNotNull(this.cache.get("c"));
+        assertEquals(8, this.cache.getSize());
+        assertFalse(new File(this.permanentDirectory, "cache/officeconverter/b").exists());
+
+        // Too big to be stored
+        this.cache.put("d", convert("d", "ddddddddddd"));
+
+        assertNull(this.cache.get("d"));
+        assertEquals(8, this.cache.getSize());
+    }
+
+    @Test
+    public void scan() throws IOException
+    {
+        File directory = new File(this.permanentDirectory, "cache/officeconverter");
+        FileUtils.writeStringToFile(new File(directory, "a/file"), "aaaa", "UTF-8");
+        FileUtils.writeStringToFile(new File(directory, "b/file"), "bbbb", "UTF-8");
+        FileUtils.writeStringToFile(new File(directory, "c/file"), "cccc", "UTF-8");
+        FileUtils.writeStringToFile(new File(directory, "tmp-123/file"), "partial", "UTF-8");
+        new File(directory, "b").setLastModified(1000L);
+        new File(directory, "a").setLastModified(2000L);
+        new File(directory, "c").setLastModified(3000L);
+
+        // The least recently used result is removed to fit the limit
+        assertEquals(8, this.cache.getSize());
+        assertNull(this.cache.get("b"));
+        assertFalse(new File(directory, "b").exists());
+        assertFalse(new File(directory, "tmp-123").exists());
+        assertArrayEquals("aaaa".getBytes(), this.cache.get("a").get("file"));
+        assertArrayEquals("cccc".getBytes(), this.cache.get("c").get("file"));
+    }
+
+    @Test
+    public void disabled()
+    {
+        when(this.configuration.getCacheMaxSize()).thenReturn(0L);
+
+        assertFalse(this.cache.isEnabled());
+    }
+}
@@ -46,5 +46,6 @@ public void testDefaultConfiguration() throws Exception
         Assert.assertNull(configuration.getProfilePath());
         Assert.assertTrue(configuration.getMaxTasksPerProcess() > 0);
         Assert.assertTrue(configuration.getTaskExecutionTimeout() > 0);
+        Assert.assertTrue(configuration.getCacheMaxSize() > 0);
     }
 }
@@ -41,6 +41,7 @@
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.Date;
@@ -2191,6 +2192,66 @@ public XWikiDocument getDocument(DocumentReference reference, XWikiContext conte
         return getDocument(doc, context);
     }
 
+    /**
+     * Load several documents at once. Documents found in the cache are returned directly and all the others are loaded
+     * from the store using as few queries as possible, which is a lot faster than calling
+     * {@link #getDocument(DocumentReference, XWikiContext)} for each reference.
+     *
+     * @param references the references of the documents to load
+     * @param context see {@link XWikiContext}
+     * @return the documents, in the same order as the passed references (if a document couldn't be found a new one is
+     *         created in memory - but not saved)
+     * @throws XWikiException when failing to load the documents
+     * @since 12.0RC1
+     */
+    @Unstable
+    public List<XWikiDocument> getDocuments(Collection<DocumentReference> references, XWikiContext context)
+        throws XWikiException
+    {
+        XWikiDocument[] documents = new XWikiDocument[references.size()];
+
+        // Group the documents by wiki since the store works on the current wiki
+        Map<String, List<XWikiDocument>> documentsByWiki = new LinkedHashMap<>();
+        Map<String, List<Integer>> indexesByWiki = new HashMap<>();
+        int index = 0;
+        for (DocumentReference reference : references) {
+            XWikiDocument doc = new XWikiDocument(
+                reference.getLocale() != null ? new DocumentReference(reference, (Locale) null) : reference,
+                reference.getLocale());
+
+            doc.setContentDirty(true);
+
+            String wiki = reference.getWikiReference().getName();
+            documentsByWiki.computeIfAbsent(wiki, k -> new ArrayList<>()).add(doc);
+            indexesByWiki.computeIfAbsent(wiki, k -> new ArrayList<>()).add(index++);
+
+            try {
+                // Indicate the the async context manipulated documents
+                getAsyncContext().useEntity(doc.getDocumentReferenceWithLocale());
+            } catch (Exception e) {
+                // If the AsyncContext component does not work then we are not in an asynchronous context anyway
+                LOGGER.debug("Failed to register the document in the asynchronous context", e);
+            }
+        }
+
+        String currentWiki = context.getWikiId();
+        try {
+            for (Map.Entry<String, List<XWikiDocument>> entry : documentsByWiki.entrySet()) {
+                context.setWikiId(entry.getKey());
+
+                List<XWikiDocument> wikiDocuments = getStore().loadXWikiDocs(entry.getValue(), context);
+                List<Integer> wikiIndexes = indexesByWiki.get(entry.getKey());
+                for (int i = 0; i < wikiDocuments.size(); ++i) {
+                    documents[wikiIndexes.get(i)] = wikiDocuments.get(i);
+                }
+            }
+        } finally {
+            context.setWikiId(currentWiki);
+        }
+
+        return Arrays.asList(documents);
+    }
+
     /**
      * @param reference the reference of the page
      * @param context see {@link XWikiContext}
@@ -29,6 +29,7 @@
 import java.util.List;
 import java.util.Objects;
 
+import org.apache.commons.fileupload.FileItem;
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.ObjectUtils;
 import org.apache.commons.lang3.StringUtils;
@@ -60,6 +61,7 @@
 import org.xwiki.model.reference.EntityReferenceResolver;
 import org.xwiki.model.reference.EntityReferenceSerializer;
 import org.xwiki.model.reference.WikiReference;
+import org.xwiki.stability.Unstable;
 import org.xwiki.text.XWikiToStringBuilder;
 import org.xwiki.tika.internal.TikaUtils;
 
@@ -1077,6 +1079,25 @@ public void setContent(InputStream is) throws IOException
         this.size = this.content.getLongSize();
     }
 
+    /**
+     * Set the content of the attachment from an already stored {@link FileItem} (e.g. an uploaded file), without
+     * copying it.
+     *
+     * @param fileItem the file item holding the new content
+     * @since 12.0RC1
+     * @see XWikiAttachmentContent#setContent(FileItem)
+     */
+    @Unstable
+    public void setContent(FileItem fileItem)
+    {
+        if (this.content == null) {
+            this.content = new XWikiAttachmentContent(this);
+        }
+
+        this.content.setContent(fileItem);
+        this.size = this.content.getLongSize();
+    }
+
     public void loadAttachmentContent(XWikiContext xcontext) throws XWikiException
     {
         if (this.content == null) {
@@ -32,8 +32,10 @@
 import org.apache.commons.io.input.BoundedInputStream;
 import org.apache.commons.io.output.ProxyOutputStream;
 import org.xwiki.environment.Environment;
+import org.xwiki.stability.Unstable;
 import org.xwiki.store.UnexpectedException;
 
+import com.xpn.xwiki.internal.file.DigestDiskFileItem;
 import com.xpn.xwiki.web.Utils;
 
 /**
@@ -120,7 +122,7 @@ private static FileItem getNewFileItem()
             if (!dir.mkdirs() && !dir.exists()) {
                 throw new UnexpectedException("Failed to create directory for attachments " + dir);
             }
-            final DiskFileItem dfi = new DiskFileItem(null, null, false, null, 10000, dir);
+            final DiskFileItem dfi = new DigestDiskFileItem(null, null, false, null, 10000, dir);
             // This causes the temp file to be created.
             dfi.getOutputStream().close();
             return dfi;
@@ -316,6 +318,54 @@ public void setContent(InputStream is) throws IOException
         }
     }
 
+    /**
+     * Set the content of the attachment from an already stored {@link FileItem} (e.g. an uploaded file), without
+     * copying it. The attachment content takes ownership of the file item which should not be modified or deleted by
+     * the caller afterwards.
+     *
+     * @param fileItem the file item holding the new content
+     * @since 12.0RC1
+     */
+    @Unstable
+    public void setContent(FileItem fileItem)
+    {
+        this.file = fileItem;
+        setContentDirty(true);
+        if (this.attachment != null) {
+            this.attachment.setLongSize(getLongSize());
+        }
+    }
+
+    /**
+     * @return the file where the content is stored, or {@code null} if the content is not stored in a file (e.g.
+     *         small contents are kept in memory); the returned file should never be modified
+     * @since 12.0RC1
+     */
+    @Unstable
+    public File getContentFile()
+    {
+        if (this.file instanceof DiskFileItem && !this.file.isInMemory()) {
+            return ((DiskFileItem) this.file).getStoreLocation();
+        }
+
+        return null;
+    }
+
+    /**
+     * @return the hexadecimal SHA-256 digest of the content when it was computed while the content was written,
+     *         {@code null} otherwise
+     * @since 12.0RC1
+     */
+    @Unstable
+    public String getDigest()
+    {
+        if (this.file instanceof DigestDiskFileItem) {
+            return ((DigestDiskFileItem) this.file).getDigest();
+        }
+
+        return null;
+    }
+
     /**
      * @return the true size of the content of the attachment.
      * @since 2.3M2
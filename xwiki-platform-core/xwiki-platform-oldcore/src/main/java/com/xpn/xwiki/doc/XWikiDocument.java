@@ -58,6 +58,7 @@
 import javax.inject.Provider;
 import javax.servlet.http.HttpServletResponse;
 
+import org.apache.commons.fileupload.FileItem;
 import org.apache.commons.lang3.BooleanUtils;
 import org.apache.commons.lang3.ObjectUtils;
 import org.apache.commons.lang3.StringUtils;
@@ -5849,6 +5850,36 @@ public XWikiAttachment addAttachment(String fileName, InputStream content, XWiki
      * @since 9.10rc1
      */
     public XWikiAttachment setAttachment(String fileName, InputStream content, XWikiContext context) throws IOException
+    {
+        XWikiAttachment attachment = getOrCreateAttachment(fileName);
+
+        attachment.setContent(content);
+        attachment.setAuthorReference(context.getUserReference());
+
+        return attachment;
+    }
+
+    /**
+     * Create or update attachment with the passed name with the content of the passed file item, without copying it.
+     * 
+     * @param fileName the name of the attachment
+     * @param content the file item holding the content of the attachment (e.g. an uploaded file)
+     * @param context the XWiki context
+     * @return the new attachment
+     * @since 12.0RC1
+     */
+    @Unstable
+    public XWikiAttachment setAttachment(String fileName, FileItem content, XWikiContext context)
+    {
+        XWikiAttachment attachment = getOrCreateAttachment(fileName);
+
+        attachment.setContent(content);
+        attachment.setAuthorReference(context.getUserReference());
+
+        return attachment;
+    }
+
+    private XWikiAttachment getOrCreateAttachment(String fileName)
     {
         int i = fileName.indexOf('\\');
         if (i == -1) {
@@ -5865,9 +5896,6 @@ public XWikiAttachment setAttachment(String fileName, InputStream content, XWiki
             setAttachment(attachment);
         }
 
-        attachment.setContent(content);
-        attachment.setAuthorReference(context.getUserReference());
-
         return attachment;
     }
 
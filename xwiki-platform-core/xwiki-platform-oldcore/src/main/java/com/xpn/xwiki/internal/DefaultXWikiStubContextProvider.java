@@ -59,9 +59,37 @@ public class DefaultXWikiStubContextProvider implements XWikiStubContextProvider
     private Provider<DocumentReference> defaultDocumentReferenceProvider;
 
     /**
-     * The initial stub XWikiContext.
+     * The immutable data from which the stub contexts are created, replaced as a whole when the provider is
+     * initialized again.
      */
-    private XWikiContext initialContext;
+    private volatile StubContextTemplate template;
+
+    /**
+     * The initial stub XWikiContext and request. They are never modified after the template creation so they can be
+     * shared between all the threads without locking.
+     */
+    private static final class StubContextTemplate
+    {
+        private final XWikiContext context;
+
+        private final XWikiServletRequestStub request;
+
+        private final boolean response;
+
+        /**
+         * {@link XWikiContext#clone()} synchronizes on the cloned context so each thread clones its own copy of the
+         * template context to avoid contention when many contexts are created concurrently.
+         */
+        private final ThreadLocal<XWikiContext> threadContexts;
+
+        StubContextTemplate(XWikiContext context, XWikiServletRequestStub request, boolean response)
+        {
+            this.context = context;
+            this.request = request;
+            this.response = response;
+            this.threadContexts = ThreadLocal.withInitial(context::clone);
+        }
+    }
 
     @Override
     public void initialize(XWikiContext context)
@@ -80,8 +108,9 @@ public void initialize(XWikiContext context)
 
         // We are sure the context request is a real servlet request
         // So we force the dummy request with the current host
+        XWikiServletRequestStub initialRequest = null;
         if (newContext.getRequest() != null) {
-            XWikiServletRequestStub initialRequest = new XWikiServletRequestStub(context.getRequest());
+            initialRequest = new XWikiServletRequestStub(context.getRequest());
             XWikiServletRequest request = new XWikiServletRequest(initialRequest);
             newContext.setRequest(request);
         }
@@ -94,7 +123,7 @@ public void initialize(XWikiContext context)
             newContext.setResponse(response);
         }
 
-        this.initialContext = newContext;
+        this.template = new StubContextTemplate(newContext, initialRequest, newContext.getResponse() != null);
 
         this.logger.debug("Stub context initialized.");
     }
@@ -102,38 +131,38 @@ public void initialize(XWikiContext context)
     @Override
     public XWikiContext createStubContext()
     {
-        XWikiContext stubContext;
-
-        if (this.initialContext != null) {
-            stubContext = this.initialContext.clone();
-
-            // We make sure to not share the same Request instance with several threads
-            if (this.initialContext.getRequest() != null) {
-                XWikiServletRequestStub stubRequest = new XWikiServletRequestStub(this.initialContext.getRequest());
-                XWikiServletRequest request = new XWikiServletRequest(stubRequest);
-                stubContext.setRequest(request);
-
-                // Each context is supposed to have a dedicated URL factory
-                if (stubContext.getWiki() != null) {
-                    XWikiURLFactory urlf = stubContext.getWiki().getURLFactoryService()
-                        .createURLFactory(XWikiContext.MODE_SERVLET, stubContext);
-                    stubContext.setURLFactory(urlf);
-                }
-            }
+        StubContextTemplate currentTemplate = this.template;
+
+        if (currentTemplate == null) {
+            return null;
+        }
 
-            // We make sure to not share the same Response instance with several threads
-            if (this.initialContext.getResponse() != null) {
-                XWikiServletResponseStub stubResponse = new XWikiServletResponseStub();
-                XWikiServletResponse response = new XWikiServletResponse(stubResponse);
-                stubContext.setResponse(response);
+        XWikiContext stubContext = currentTemplate.threadContexts.get().clone();
+
+        // We make sure to not share the same Request instance with several threads (the copy only duplicates the
+        // headers and parameters if they are modified)
+        if (currentTemplate.request != null) {
+            XWikiServletRequest request = new XWikiServletRequest(currentTemplate.request.copy());
+            stubContext.setRequest(request);
+
+            // Each context is supposed to have a dedicated URL factory
+            if (stubContext.getWiki() != null) {
+                XWikiURLFactory urlf = stubContext.getWiki().getURLFactoryService()
+                    .createURLFactory(XWikiContext.MODE_SERVLET, stubContext);
+                stubContext.setURLFactory(urlf);
             }
+        }
 
-            // We make sure to not share the same document instance with several threads
-            stubContext.setDoc(new XWikiDocument(this.defaultDocumentReferenceProvider.get()));
-        } else {
-            stubContext = null;
+        // We make sure to not share the same Response instance with several threads
+        if (currentTemplate.response) {
+            XWikiServletResponseStub stubResponse = new XWikiServletResponseStub();
+            XWikiServletResponse response = new XWikiServletResponse(stubResponse);
+            stubContext.setResponse(response);
         }
 
+        // We make sure to not share the same document instance with several threads
+        stubContext.setDoc(new XWikiDocument(this.defaultDocumentReferenceProvider.get()));
+
         return stubContext;
     }
 }
@@ -0,0 +1,99 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package com.xpn.xwiki.internal.file;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+
+import org.apache.commons.codec.binary.Hex;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.fileupload.disk.DiskFileItem;
+
+/**
+ * A {@link DiskFileItem} which computes the SHA-256 digest of its content while it's being written, so that the
+ * content doesn't have to be read again to get it.
+ *
+ * @version $Id$
+ * @since 12.0RC1
+ */
+public class DigestDiskFileItem extends DiskFileItem
+{
+    private static final long serialVersionUID = 1L;
+
+    private transient String digest;
+
+    /**
+     * @param fieldName the name of the form field
+     * @param contentType the content type passed by the browser or {@code null} if not specified
+     * @param isFormField whether or not this item is a plain form field, as opposed to a file upload
+     * @param fileName the original filename in the user's filesystem, or {@code null} if not specified
+     * @param sizeThreshold the threshold, in bytes, below which items will be retained in memory and above which they
+     *            will be stored as a file
+     * @param repository the data repository, which is the directory in which files will be created, should the item
+     *            size exceed the threshold
+     */
+    public DigestDiskFileItem(String fieldName, String contentType, boolean isFormField, String fileName,
+        int sizeThreshold, File repository)
+    {
+        super(fieldName, contentType, isFormField, fileName, sizeThreshold, repository);
+    }
+
+    @Override
+    public OutputStream getOutputStream() throws IOException
+    {
+        this.digest = null;
+
+        MessageDigest messageDigest = DigestUtils.getSha256Digest();
+
+        return new DigestOutputStream(super.getOutputStream(), messageDigest)
+        {
+            private boolean closed;
+
+            @Override
+            public void close() throws IOException
+            {
+                super.close();
+
+                if (!this.closed) {
+                    this.closed = true;
+                    DigestDiskFileItem.this.digest = Hex.encodeHexString(messageDigest.digest());
+                }
+            }
+        };
+    }
+
+    @Override
+    protected File getTempFile()
+    {
+        // Overridden to make the temporary file accessible to DigestDiskFileItemFactory
+        return super.getTempFile();
+    }
+
+    /**
+     * @return the hexadecimal SHA-256 digest of the content, or {@code null} if the content was not completely written
+     */
+    public String getDigest()
+    {
+        return this.digest;
+    }
+}
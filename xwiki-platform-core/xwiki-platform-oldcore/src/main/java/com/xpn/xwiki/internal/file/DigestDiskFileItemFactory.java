@@ -0,0 +1,57 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package com.xpn.xwiki.internal.file;
+
+import java.io.File;
+
+import org.apache.commons.fileupload.FileItem;
+import org.apache.commons.fileupload.disk.DiskFileItemFactory;
+import org.apache.commons.io.FileCleaningTracker;
+
+/**
+ * A {@link DiskFileItemFactory} which creates {@link DigestDiskFileItem}s for the uploaded files, so that their digest
+ * is computed while they are being parsed.
+ *
+ * @version $Id$
+ * @since 12.0RC1
+ */
+public class DigestDiskFileItemFactory extends DiskFileItemFactory
+{
+    @Override
+    public FileItem createItem(String fieldName, String contentType, boolean isFormField, String fileName)
+    {
+        // The digest of the form fields is not needed
+        if (isFormField) {
+            return super.createItem(fieldName, contentType, isFormField, fileName);
+        }
+
+        DigestDiskFileItem item =
+            new DigestDiskFileItem(fieldName, contentType, isFormField, fileName, getSizeThreshold(), getRepository());
+
+        // Same setup as DiskFileItemFactory#createItem
+        item.setDefaultCharset(getDefaultCharset());
+        FileCleaningTracker tracker = getFileCleaningTracker();
+        if (tracker != null) {
+            tracker.track(item.getTempFile(), item);
+        }
+
+        return item;
+    }
+}
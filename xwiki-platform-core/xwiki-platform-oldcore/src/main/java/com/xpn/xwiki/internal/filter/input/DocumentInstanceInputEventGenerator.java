@@ -21,11 +21,14 @@
 
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 
 import javax.inject.Inject;
 import javax.inject.Named;
 import javax.inject.Provider;
 
+import org.apache.commons.lang3.exception.ExceptionUtils;
+import org.slf4j.Logger;
 import org.xwiki.component.annotation.Component;
 import org.xwiki.component.annotation.InstantiationStrategy;
 import org.xwiki.component.descriptor.ComponentInstantiationStrategy;
@@ -34,10 +37,12 @@
 import org.xwiki.filter.descriptor.FilterStreamDescriptor;
 import org.xwiki.filter.event.model.WikiDocumentFilter;
 import org.xwiki.filter.instance.input.AbstractInstanceInputEventGenerator;
+import org.xwiki.filter.instance.input.DocumentInstanceInputProperties;
 import org.xwiki.filter.instance.input.EntityEventGenerator;
 import org.xwiki.model.reference.DocumentReference;
 import org.xwiki.model.reference.SpaceReference;
 import org.xwiki.properties.BeanManager;
+import org.xwiki.properties.PropertyException;
 
 import com.xpn.xwiki.XWikiContext;
 import com.xpn.xwiki.XWikiException;
@@ -61,12 +66,78 @@ public class DocumentInstanceInputEventGenerator extends AbstractInstanceInputEv
     @Inject
     private Provider<XWikiContext> xcontextProvider;
 
+    @Inject
+    private Logger logger;
+
+    private boolean streaming;
+
+    /**
+     * The default locale of the current document, kept between {@link #setWikiDocumentParameters} and
+     * {@link #beginWikiDocument} in streaming mode to avoid loading it twice from the store.
+     */
+    private XWikiDocument currentDocument;
+
+    @Override
+    public void setProperties(Map<String, Object> properties)
+    {
+        super.setProperties(properties);
+
+        if (properties instanceof DocumentInstanceInputProperties) {
+            this.streaming = ((DocumentInstanceInputProperties) properties).isStreaming();
+        } else {
+            DocumentInstanceInputProperties propertiesBean = new DocumentInstanceInputProperties();
+            try {
+                this.beanManager.populate(propertiesBean, properties);
+            } catch (PropertyException e) {
+                this.logger.warn("Failed to parse the document instance input properties: {}",
+                    ExceptionUtils.getRootCauseMessage(e));
+            }
+            this.streaming = propertiesBean.isStreaming();
+        }
+    }
+
     @Override
     public FilterStreamDescriptor getDescriptor()
     {
         return this.documentLocaleParser.getDescriptor();
     }
 
+    private XWikiDocument getDefaultDocument(DocumentReference reference, XWikiContext xcontext)
+        throws FilterException
+    {
+        try {
+            if (this.streaming) {
+                if (this.currentDocument == null
+                    || !this.currentDocument.getDocumentReference().equals(reference)) {
+                    this.currentDocument = loadDocument(reference, Locale.ROOT, xcontext);
+                }
+
+                return this.currentDocument;
+            }
+
+            return xcontext.getWiki().getDocument(reference, xcontext);
+        } catch (XWikiException e) {
+            throw new FilterException("Failed to get document [" + reference + "]", e);
+        }
+    }
+
+    /**
+     * Load the document directly from the store, bypassing the document cache so that the document (and the
+     * attachments content it might load) can be garbage collected as soon as it has been written.
+     */
+    private XWikiDocument loadDocument(DocumentReference reference, Locale locale, XWikiContext xcontext)
+        throws XWikiException
+    {
+        String currentWiki = xcontext.getWikiId();
+        try {
+            xcontext.setWikiId(reference.getWikiReference().getName());
+
+            return xcontext.getWiki().getNotCacheStore().loadXWikiDoc(new XWikiDocument(reference, locale), xcontext);
+        } finally {
+            xcontext.setWikiId(currentWiki);
+        }
+    }
+
     @Override
     public void setWikiDocumentParameters(String name, FilterEventParameters documentParameters) throws FilterException
     {
@@ -74,12 +145,7 @@ public void setWikiDocumentParameters(String name, FilterEventParameters documen
 
         XWikiContext xcontext = this.xcontextProvider.get();
 
-        XWikiDocument defaultDocument;
-        try {
-            defaultDocument = xcontext.getWiki().getDocument(reference, xcontext);
-        } catch (XWikiException e) {
-            throw new FilterException("Failed to get document [" + reference + "]", e);
-        }
+        XWikiDocument defaultDocument = getDefaultDocument(reference, xcontext);
 
         documentParameters.put(WikiDocumentFilter.PARAMETER_LOCALE, defaultDocument.getDefaultLocale());
     }
@@ -93,12 +159,7 @@ public void beginWikiDocument(String name, FilterEventParameters parameters) thr
 
         XWikiContext xcontext = this.xcontextProvider.get();
 
-        XWikiDocument defaultDocument;
-        try {
-            defaultDocument = xcontext.getWiki().getDocument(reference, xcontext);
-        } catch (XWikiException e) {
-            throw new FilterException("Failed to get document [" + reference + "]", e);
-        }
+        XWikiDocument defaultDocument = getDefaultDocument(reference, xcontext);
 
         // Default document locale
         this.documentLocaleParser.write(defaultDocument, this.filter, this.properties);
@@ -113,11 +174,25 @@ public void beginWikiDocument(String name, FilterEventParameters parameters) thr
         // Translations
         for (Locale locale : locales) {
             try {
-                XWikiDocument translationDocument = defaultDocument.getTranslatedDocument(locale, xcontext);
+                XWikiDocument translationDocument;
+                if (this.streaming) {
+                    translationDocument = loadDocument(reference, locale, xcontext);
+                } else {
+                    translationDocument = defaultDocument.getTranslatedDocument(locale, xcontext);
+                }
                 this.documentLocaleParser.write(translationDocument, this.filter, this.properties);
             } catch (XWikiException e) {
                 throw new FilterException("Failed to get document [" + reference + "] for locale [" + locale + "]", e);
             }
         }
     }
+
+    @Override
+    public void endWikiDocument(String name, FilterEventParameters parameters) throws FilterException
+    {
+        // Release the document as soon as it's been written
+        this.currentDocument = null;
+
+        super.endWikiDocument(name, parameters);
+    }
 }
@@ -110,6 +110,13 @@ public void write(XWikiAttachment attachment, Object filter, XWikiAttachmentFilt
         }
 
         writeAttachment(attachment, attachmentFilter, properties, attachmentParameters, xcontext);
+
+        if (properties.isStreaming()) {
+            // Release the content and history as soon as they have been written to not keep all the attachments of
+            // the document in memory (the document itself is not cached in streaming mode)
+            attachment.setAttachment_content(null);
+            attachment.setAttachment_archive(null);
+        }
     }
 
     private void writeAttachment(XWikiAttachment attachment, XWikiAttachmentFilter attachmentFilter,
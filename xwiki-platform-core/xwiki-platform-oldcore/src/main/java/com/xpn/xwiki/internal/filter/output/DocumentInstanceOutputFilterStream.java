@@ -20,24 +20,47 @@
 package com.xpn.xwiki.internal.filter.output;
 
 import java.io.IOException;
-import java.util.Date;
+import java.io.Serializable;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Locale;
+import java.util.Map;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
 
 import javax.inject.Inject;
 import javax.inject.Named;
 import javax.inject.Provider;
 
+import org.apache.commons.lang3.concurrent.BasicThreadFactory;
 import org.slf4j.Logger;
 import org.xwiki.component.annotation.Component;
 import org.xwiki.component.annotation.InstantiationStrategy;
 import org.xwiki.component.descriptor.ComponentInstantiationStrategy;
+import org.xwiki.component.manager.ComponentLookupException;
 import org.xwiki.component.manager.ComponentManager;
+import org.xwiki.context.Execution;
+import org.xwiki.context.ExecutionContext;
+import org.xwiki.context.ExecutionContextManager;
+import org.xwiki.context.concurrent.ContextStoreManager;
 import org.xwiki.filter.FilterDescriptorManager;
 import org.xwiki.filter.FilterEventParameters;
 import org.xwiki.filter.FilterException;
 import org.xwiki.filter.event.model.WikiDocumentFilter;
 import org.xwiki.filter.instance.output.DocumentInstanceOutputProperties;
 import org.xwiki.filter.output.AbstractBeanOutputFilterStream;
+import org.xwiki.job.event.status.JobProgressManager;
+import org.xwiki.logging.LogQueue;
+import org.xwiki.logging.LoggerManager;
+import org.xwiki.logging.event.LoggerListener;
 import org.xwiki.logging.marker.TranslationMarker;
 import org.xwiki.model.reference.DocumentReference;
 import org.xwiki.model.reference.DocumentReferenceResolver;
@@ -49,6 +72,7 @@
 import com.xpn.xwiki.doc.XWikiAttachment;
 import com.xpn.xwiki.doc.XWikiDocument;
 import com.xpn.xwiki.doc.XWikiDocumentArchive;
+import com.xpn.xwiki.internal.context.XWikiContextContextStore;
 
 /**
  * @version $Id$
@@ -69,6 +93,25 @@ public class DocumentInstanceOutputFilterStream extends AbstractBeanOutputFilter
     private static final TranslationMarker LOG_DOCUMENT_FAILSAVE =
         new TranslationMarker("filter.instance.log.document.failsave", WikiDocumentFilter.LOG_DOCUMENT_ERROR);
 
+    private static final class SaveResult
+    {
+        private final DocumentReference reference;
+
+        private boolean isnew;
+
+        private Exception error;
+
+        /**
+         * The log produced by the save in the worker thread.
+         */
+        private final LogQueue log = new LogQueue();
+
+        SaveResult(DocumentReference reference)
+        {
+            this.reference = reference;
+        }
+    }
+
     @Inject
     private FilterDescriptorManager filterManager;
 
@@ -90,6 +133,21 @@ public class DocumentInstanceOutputFilterStream extends AbstractBeanOutputFilter
     @Inject
     private EntityOutputFilterStream<XWikiDocument> documentListener;
 
+    @Inject
+    private ExecutionContextManager executionContextManager;
+
+    @Inject
+    private Execution execution;
+
+    @Inject
+    private ContextStoreManager contextStore;
+
+    @Inject
+    private LoggerManager loggerManager;
+
+    @Inject
+    private JobProgressManager progress;
+
     @Inject
     private Logger logger;
 
@@ -97,6 +155,24 @@ public class DocumentInstanceOutputFilterStream extends AbstractBeanOutputFilter
 
     private FilterEventParameters currentRevisionParameters;
 
+    private ExecutorService executor;
+
+    private Semaphore slots;
+
+    private Map<String, Serializable> savedContext;
+
+    /**
+     * The last save submitted for each document (used to order the saves of a document and of the documents using
+     * it as class).
+     */
+    private final Map<DocumentReference, CompletableFuture<SaveResult>> pendingDocuments = new HashMap<>();
+
+    private final Queue<CompletableFuture<SaveResult>> submittedDocuments = new ArrayDeque<>();
+
+    private long startTime;
+
+    private long savedDocuments;
+
     private XWikiDocumentOutputFilterStream getXWikiDocumentOutputFilterStream()
     {
         return (XWikiDocumentOutputFilterStream) this.documentListener;
@@ -111,7 +187,23 @@ protected Object createFilter() throws FilterException
     @Override
     public void close() throws IOException
     {
-        // Nothing to close
+        if (this.executor != null) {
+            // Wait for the documents saved in background
+            try {
+                flushDocuments(true);
+            } catch (FilterException e) {
+                throw new IOException("Failed to save documents", e);
+            } finally {
+                if (this.executor != null) {
+                    stopExecutor();
+                }
+            }
+
+            if (this.properties.isVerbose()) {
+                this.logger.info("Saved [{}] documents in [{}] ms ([{}] documents per second)", this.savedDocuments,
+                    System.currentTimeMillis() - this.startTime, getThroughput());
+            }
+        }
     }
 
     @Override
@@ -182,94 +274,289 @@ private void maybeSaveDocument() throws FilterException
             return;
         }
 
-        XWikiContext xcontext = this.xcontextProvider.get();
+        if (this.properties.getSaveThreads() > 1) {
+            submitDocument(inputDocument);
+        } else {
+            try {
+                boolean isnew = saveDocument(inputDocument);
+
+                logSaved(inputDocument.getDocumentReferenceWithLocale(), isnew);
+            } catch (Exception e) {
+                failSave(inputDocument.getDocumentReferenceWithLocale(), e);
+            }
+        }
+    }
+
+    private void submitDocument(XWikiDocument inputDocument) throws FilterException
+    {
+        if (this.executor == null) {
+            startExecutor();
+        }
 
+        // Report the saves which are already finished (and fail early if needed)
+        flushDocuments(false);
+
+        // Wait for a free slot to not keep too many parsed documents in memory
         try {
-            XWikiDocument document =
-                xcontext.getWiki().getDocument(inputDocument.getDocumentReferenceWithLocale(), xcontext);
+            this.slots.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+
+            throw new FilterException("Interrupted while waiting to save document", e);
+        }
 
-            // Remember if it's a creation or an update
-            boolean isnew = document.isNew();
+        // The locales and revisions of a document are saved in order and a document using a class is saved after the
+        // previous version of that class
+        DocumentReference documentReference = inputDocument.getDocumentReference();
+        List<CompletableFuture<SaveResult>> dependencies = new ArrayList<>();
+        addDependency(documentReference, dependencies);
+        for (DocumentReference classReference : inputDocument.getXObjects().keySet()) {
+            if (!classReference.equals(documentReference)) {
+                addDependency(classReference, dependencies);
+            }
+        }
 
-            // Make sure document's attachments content are loaded from the store
-            document.loadAttachmentsContentSafe(xcontext);
+        CompletableFuture<SaveResult> future = CompletableFuture
+            .allOf(dependencies.toArray(new CompletableFuture[dependencies.size()]))
+            .thenApplyAsync(v -> saveDocumentInThread(inputDocument), this.executor);
 
-            // Safer to clone for thread safety and in case the save fail
-            document = document.clone();
+        this.pendingDocuments.put(documentReference, future);
+        this.submittedDocuments.add(future);
+    }
 
-            if (this.properties.isPreviousDeleted()) {
-                // Indicate we want to completely replace the previous document with the new one (XWiki#saveDocument
-                // will take care of that automatically)
-                document.setNew(true);
+    private void addDependency(DocumentReference reference, List<CompletableFuture<SaveResult>> dependencies)
+    {
+        CompletableFuture<SaveResult> dependency = this.pendingDocuments.get(reference);
+        if (dependency != null) {
+            if (dependency.isDone()) {
+                this.pendingDocuments.remove(reference);
+            } else {
+                dependencies.add(dependency);
             }
+        }
+    }
 
-            document.apply(inputDocument);
+    private void startExecutor() throws FilterException
+    {
+        try {
+            this.savedContext = this.contextStore.save(Arrays.asList(XWikiContextContextStore.PROP_WIKI,
+                XWikiContextContextStore.PROP_USER, XWikiContextContextStore.PROP_LOCALE));
+        } catch (ComponentLookupException e) {
+            throw new FilterException("Failed to save the context", e);
+        }
 
-            // Get the version from the input document
+        int threads = this.properties.getSaveThreads();
 
-            document.setMinorEdit(inputDocument.isMinorEdit());
+        this.executor = Executors.newFixedThreadPool(threads, new BasicThreadFactory.Builder()
+            .namingPattern("XWiki document import thread %d").daemon(true).build());
+        this.slots = new Semaphore(threads * 2);
+        this.startTime = System.currentTimeMillis();
+    }
 
-            // Authors
+    private SaveResult saveDocumentInThread(XWikiDocument inputDocument)
+    {
+        SaveResult result = new SaveResult(inputDocument.getDocumentReferenceWithLocale());
 
-            if (!this.properties.isAuthorPreserved()) {
-                if (this.properties.isAuthorSet()) {
-                    setAuthorReference(document, this.properties.getAuthor());
-                } else {
-                    setAuthorReference(document, xcontext.getUserReference());
-                }
-                document.setContentAuthorReference(document.getAuthorReference());
-                if (document.isNew()) {
-                    document.setCreatorReference(document.getAuthorReference());
+        // Isolate the log of the save so that it can be reported in the log of the reading thread (which might be
+        // the isolated log of a job)
+        this.loggerManager.pushLogListener(new LoggerListener(UUID.randomUUID().toString(), result.log));
+
+        try {
+            this.executionContextManager.initialize(new ExecutionContext());
+
+            try {
+                this.contextStore.restore(this.savedContext);
+
+                result.isnew = saveDocument(inputDocument);
+            } finally {
+                this.execution.removeContext();
+            }
+        } catch (Exception e) {
+            result.error = e;
+        } finally {
+            this.loggerManager.popLogListener();
+
+            this.slots.release();
+        }
+
+        return result;
+    }
+
+    /**
+     * Report the result of the submitted saves in the order they were submitted (the log is associated to the calling
+     * thread).
+     * <p>
+     * While the input is being read its progress is already reported, so the progress of the saves is only reported
+     * when waiting for the remaining saves at the end, with one step per document.
+     * 
+     * @param wait true if the method should wait for all the submitted saves to be finished
+     */
+    private void flushDocuments(boolean wait) throws FilterException
+    {
+        if (wait && !this.submittedDocuments.isEmpty()) {
+            // The progress events are only taken into account when sent from the job thread (the reading thread)
+            this.progress.pushLevelProgress(this.submittedDocuments.size(), this);
+
+            try {
+                flushDocuments(true, true);
+            } finally {
+                this.progress.popLevelProgress(this);
+            }
+        } else {
+            flushDocuments(wait, false);
+        }
+    }
+
+    private void flushDocuments(boolean wait, boolean reportProgress) throws FilterException
+    {
+        while (!this.submittedDocuments.isEmpty() && (wait || this.submittedDocuments.peek().isDone())) {
+            if (reportProgress) {
+                this.progress.startStep(this, "filter.instance.progress.document.save",
+                    "Save the remaining documents ([{}] documents saved, [{}] documents per second)",
+                    this.savedDocuments, getThroughput());
+            }
+
+            CompletableFuture<SaveResult> future = this.submittedDocuments.poll();
+            SaveResult result = future.join();
+
+            // Forget about the document if no other save was submitted for it since then
+            this.pendingDocuments.remove(new DocumentReference(result.reference, (Locale) null), future);
+
+            ++this.savedDocuments;
+
+            // Report the log produced by the save in the worker thread
+            result.log.log(this.logger);
+
+            if (result.error != null) {
+                try {
+                    failSave(result.reference, result.error);
+                } catch (FilterException e) {
+                    stopExecutor();
+
+                    throw e;
                 }
             } else {
-                setAuthors(document, inputDocument);
+                logSaved(result.reference, result.isnew);
             }
 
-            // Version related information and save
+            if (reportProgress) {
+                this.progress.endStep(this);
+            }
+        }
+    }
 
-            if (this.properties.isVersionPreserved()) {
-                // Make sure to use metadata coming from the input document
-                document.setVersion(inputDocument.getVersion());
-                document.setDate(inputDocument.getDate());
-                document.setContentUpdateDate(inputDocument.getContentUpdateDate());
-                for (XWikiAttachment attachment : document.getAttachmentList()) {
-                    attachment.setVersion(inputDocument.getAttachment(attachment.getFilename()).getVersion());
-                }
-                if (document.isNew()) {
-                    document.setCreationDate(inputDocument.getCreationDate());
-                    document.setDocumentArchive(inputDocument.getDocumentArchive());
-                }
+    private long getThroughput()
+    {
+        long time = Math.max(System.currentTimeMillis() - this.startTime, 1);
 
-                // Make sure the document won't be modified by the store
-                document.setMetaDataDirty(false);
-                document.setContentDirty(false);
+        return TimeUnit.SECONDS.toMillis(this.savedDocuments) / time;
+    }
 
-                xcontext.getWiki().saveDocument(document, inputDocument.getComment(), inputDocument.isMinorEdit(),
-                    xcontext);
-            } else {
-                // Forget the input history to let the store do its standard job
-                document.setDocumentArchive((XWikiDocumentArchive) null);
+    private void stopExecutor()
+    {
+        this.executor.shutdownNow();
+        this.executor = null;
+        this.pendingDocuments.clear();
+        this.submittedDocuments.clear();
+    }
 
-                xcontext.getWiki().saveDocument(document, this.properties.getSaveComment(), xcontext);
+    private void logSaved(DocumentReference reference, boolean isnew)
+    {
+        if (this.properties.isVerbose()) {
+            if (isnew) {
+                this.logger.info(LOG_DOCUMENT_CREATED, "Created document [{}]", reference);
+            } else {
+                this.logger.info(LOG_DOCUMENT_UPDATED, "Updated document [{}]", reference);
             }
+        }
+    }
 
-            if (this.properties.isVerbose()) {
-                if (isnew) {
-                    this.logger.info(LOG_DOCUMENT_CREATED, "Created document [{}]",
-                        document.getDocumentReferenceWithLocale());
-                } else {
-                    this.logger.info(LOG_DOCUMENT_UPDATED, "Updated document [{}]",
-                        document.getDocumentReferenceWithLocale());
-                }
+    private void failSave(DocumentReference reference, Exception e) throws FilterException
+    {
+        this.logger.error(LOG_DOCUMENT_FAILSAVE, "Failed to save document [{}]", reference, e);
+
+        if (this.properties.isStoppedWhenSaveFail()) {
+            throw new FilterException("Failed to save document", e);
+        }
+    }
+
+    /**
+     * @param inputDocument the document to save
+     * @return true if the document did not exist before
+     */
+    private boolean saveDocument(XWikiDocument inputDocument) throws Exception
+    {
+        XWikiContext xcontext = this.xcontextProvider.get();
+
+        XWikiDocument document =
+            xcontext.getWiki().getDocument(inputDocument.getDocumentReferenceWithLocale(), xcontext);
+
+        // Remember if it's a creation or an update
+        boolean isnew = document.isNew();
+
+        // Make sure document's attachments content are loaded from the store
+        document.loadAttachmentsContentSafe(xcontext);
+
+        // Safer to clone for thread safety and in case the save fail
+        document = document.clone();
+
+        if (this.properties.isPreviousDeleted()) {
+            // Indicate we want to completely replace the previous document with the new one (XWiki#saveDocument
+            // will take care of that automatically)
+            document.setNew(true);
+        }
+
+        document.apply(inputDocument);
+
+        // Get the version from the input document
+
+        document.setMinorEdit(inputDocument.isMinorEdit());
+
+        // Authors
+
+        if (!this.properties.isAuthorPreserved()) {
+            if (this.properties.isAuthorSet()) {
+                setAuthorReference(document, this.properties.getAuthor());
+            } else {
+                setAuthorReference(document, xcontext.getUserReference());
             }
-        } catch (Exception e) {
-            this.logger.error(LOG_DOCUMENT_FAILSAVE, "Failed to save document [{}]",
-                inputDocument.getDocumentReferenceWithLocale(), e);
+            document.setContentAuthorReference(document.getAuthorReference());
+            if (document.isNew()) {
+                document.setCreatorReference(document.getAuthorReference());
+            }
+        } else {
+            setAuthors(document, inputDocument);
+        }
+
+        // Version related information and save
 
-            if (this.properties.isStoppedWhenSaveFail()) {
-                throw new FilterException("Failed to save document", e);
+        if (this.properties.isVersionPreserved()) {
+            // Make sure to use metadata coming from the input document
+            document.setVersion(inputDocument.getVersion());
+            document.setDate(inputDocument.getDate());
+            document.setContentUpdateDate(inputDocument.getContentUpdateDate());
+            for (XWikiAttachment attachment : document.getAttachmentList()) {
+                attachment.setVersion(inputDocument.getAttachment(attachment.getFilename()).getVersion());
             }
+            if (document.isNew()) {
+                document.setCreationDate(inputDocument.getCreationDate());
+                document.setDocumentArchive(inputDocument.getDocumentArchive());
+            }
+
+            // Make sure the document won't be modified by the store
+            document.setMetaDataDirty(false);
+            document.setContentDirty(false);
+
+            xcontext.getWiki().saveDocument(document, inputDocument.getComment(), inputDocument.isMinorEdit(),
+                xcontext);
+        } else {
+            // Forget the input history to let the store do its standard job
+            document.setDocumentArchive((XWikiDocumentArchive) null);
+
+            xcontext.getWiki().saveDocument(document, this.properties.getSaveComment(), xcontext);
         }
+
+        return isnew;
     }
 
     private void setAuthorReference(XWikiDocument document, DocumentReference authorReference)
@@ -81,6 +81,7 @@
 import org.xwiki.context.ExecutionContext;
 import org.xwiki.environment.Environment;
 import org.xwiki.logging.LoggerConfiguration;
+import org.xwiki.metrics.MetricsRegistry;
 import org.xwiki.wiki.descriptor.WikiDescriptorManager;
 
 import com.xpn.xwiki.XWikiException;
@@ -149,6 +150,9 @@ public class HibernateStore implements Disposable, Integrator, Initializable
     @Inject
     private LoggerConfiguration loggerConfiguration;
 
+    @Inject
+    private MetricsRegistry metrics;
+
     private DataMigrationManager dataMigrationManager;
 
     private final BootstrapServiceRegistry bootstrapServiceRegistry =
@@ -292,6 +296,18 @@ public void build()
 
         // Create a new session factory
         this.sessionFactory = this.configuration.buildSessionFactory(standardServiceRegistry);
+
+        // Hibernate statistics have a cost so they are only collected when someone is going to look at them
+        if (this.metrics.isEnabled()) {
+            this.sessionFactory.getStatistics().setStatisticsEnabled(true);
+
+            this.metrics.registerGauge("store.hibernate.statements",
+                () -> this.sessionFactory.getStatistics().getPrepareStatementCount());
+            this.metrics.registerGauge("store.hibernate.queries",
+                () -> this.sessionFactory.getStatistics().getQueryExecutionCount());
+            this.metrics.registerGauge("store.hibernate.transactions",
+                () -> this.sessionFactory.getStatistics().getTransactionCount());
+        }
     }
 
     private void disposeInternal()
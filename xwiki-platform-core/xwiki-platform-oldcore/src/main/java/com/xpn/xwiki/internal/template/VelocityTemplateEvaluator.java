@@ -26,7 +26,10 @@
 import javax.inject.Singleton;
 
 import org.xwiki.component.annotation.Component;
+import org.xwiki.component.phase.Initializable;
 import org.xwiki.job.event.status.JobProgressManager;
+import org.xwiki.metrics.MetricsRegistry;
+import org.xwiki.metrics.Timer;
 import org.xwiki.rendering.internal.transformation.MutableRenderingContext;
 import org.xwiki.rendering.transformation.RenderingContext;
 import org.xwiki.security.authorization.AuthorizationManager;
@@ -43,7 +46,7 @@
  */
 @Component(roles = VelocityTemplateEvaluator.class)
 @Singleton
-public class VelocityTemplateEvaluator
+public class VelocityTemplateEvaluator implements Initializable
 {
     @Inject
     private AuthorizationManager authorization;
@@ -57,6 +60,19 @@
     @Inject
     private VelocityManager velocityManager;
 
+    @Inject
+    private MetricsRegistry metrics;
+
+    private Timer evaluateTimer = Timer.NOOP;
+
+    @Override
+    public void initialize()
+    {
+        if (this.metrics.isEnabled()) {
+            this.evaluateTimer = this.metrics.getTimer("template.velocity.evaluate");
+        }
+    }
+
     /**
      * @param template the template to execute
      * @param content the template content to execute
@@ -91,9 +107,12 @@ public void evaluateContent(Template template, TemplateContent content, Writer w
         this.progress.startStep(template, "template.evaluateContent.message",
             "Evaluate content of template with id [{}]", template.getId());
 
+        long start = this.evaluateTimer.start();
         try {
             this.velocityManager.evaluate(writer, namespace, new StringReader(content.getContent()));
         } finally {
+            this.evaluateTimer.stop(start);
+
             // Get rid of temporary rendering context
             if (renderingContextPushed) {
                 ((MutableRenderingContext) this.renderingContext).pop();
@@ -42,6 +42,7 @@
 import com.xpn.xwiki.XWikiContext;
 import com.xpn.xwiki.XWikiException;
 import com.xpn.xwiki.api.Api;
+import com.xpn.xwiki.internal.file.DigestDiskFileItemFactory;
 import com.xpn.xwiki.plugin.XWikiDefaultPlugin;
 import com.xpn.xwiki.plugin.XWikiPluginInterface;
 
@@ -209,7 +210,8 @@ public void loadFileList(long uploadMaxSize, int uploadSizeThreashold, String te
 
         // Get the FileUpload Data
         // Make sure the factory only ever creates file items which will be deleted when the jvm is stopped.
-        DiskFileItemFactory factory = new DiskFileItemFactory()
+        // Compute the digest while the files are being parsed so that the attachment content can reuse it
+        DiskFileItemFactory factory = new DigestDiskFileItemFactory()
         {
             @Override
             public FileItem createItem(String fieldName, String contentType, boolean isFormField, String fileName)
@@ -19,6 +19,7 @@
  */
 package com.xpn.xwiki.store;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 
@@ -41,6 +42,8 @@
 import org.xwiki.component.phase.Initializable;
 import org.xwiki.component.phase.InitializationException;
 import org.xwiki.configuration.ConfigurationSource;
+import org.xwiki.metrics.Counter;
+import org.xwiki.metrics.MetricsRegistry;
 import org.xwiki.model.reference.DocumentReference;
 import org.xwiki.model.reference.EntityReferenceSerializer;
 import org.xwiki.observation.EventListener;
@@ -97,6 +100,19 @@ public class XWikiCacheStore extends AbstractXWikiStore
     @Named("xwikicfg")
     private ConfigurationSource configuration;
 
+    @Inject
+    private MetricsRegistry metrics;
+
+    /**
+     * The number of documents returned without asking the underlying store.
+     */
+    private Counter cacheHits = Counter.NOOP;
+
+    /**
+     * The number of documents loaded from the underlying store.
+     */
+    private Counter cacheMisses = Counter.NOOP;
+
     private XWikiStoreInterface store;
 
     private Cache<XWikiDocument> cache;
@@ -144,6 +160,11 @@ public void initialize() throws InitializationException
         }
 
         initListener();
+
+        if (this.metrics.isEnabled()) {
+            this.cacheHits = this.metrics.getCounter("store.cache.hit");
+            this.cacheMisses = this.metrics.getCounter("store.cache.miss");
+        }
     }
 
     @Override
@@ -343,6 +364,8 @@ public XWikiDocument loadXWikiDoc(XWikiDocument doc, XWikiContext inputxcontext)
             if (cachedoc != null) {
                 cachedoc.setFromCache(true);
 
+                this.cacheHits.increment();
+
                 LOGGER.debug("Cache: got doc {} from cache", key);
             } else {
                 Boolean result = getPageExistCache().get(key);
@@ -350,6 +373,8 @@ public XWikiDocument loadXWikiDoc(XWikiDocument doc, XWikiContext inputxcontext)
                 if (result == Boolean.FALSE) {
                     LOGGER.debug("Cache: The document {} does not exist, return an empty one", key);
 
+                    this.cacheHits.increment();
+
                     cachedoc = doc;
                     cachedoc.setNew(true);
 
@@ -360,6 +385,8 @@ public XWikiDocument loadXWikiDoc(XWikiDocument doc, XWikiContext inputxcontext)
                 } else {
                     LOGGER.debug("Cache: Trying to get doc {} from persistent storage", key);
 
+                    this.cacheMisses.increment();
+
                     cachedoc = this.store.loadXWikiDoc(doc, context);
 
                     LOGGER.debug("Cache: Got doc {} from storage", key);
@@ -387,6 +414,87 @@ public XWikiDocument loadXWikiDoc(XWikiDocument doc, XWikiContext inputxcontext)
         }
     }
 
+    @Override
+    public List<XWikiDocument> loadXWikiDocs(List<XWikiDocument> docs, XWikiContext inputxcontext)
+        throws XWikiException
+    {
+        // Make sure to use the right XWikiContext instance to avoid issues
+        XWikiContext context = getExecutionXContext(inputxcontext, true);
+
+        try {
+            XWikiDocument[] documents = new XWikiDocument[docs.size()];
+
+            // Resolve everything we can from the caches and remember the misses
+            List<XWikiDocument> missingDocuments = new ArrayList<>();
+            List<Integer> missingIndexes = new ArrayList<>();
+            List<String> missingKeys = new ArrayList<>();
+            for (int i = 0; i < documents.length; ++i) {
+                XWikiDocument doc = docs.get(i);
+                String key = getKey(doc, context);
+
+                XWikiDocument cachedoc;
+                try {
+                    cachedoc = getCache().get(key);
+                } catch (Exception e) {
+                    LOGGER.error("Failed to get document from the cache", e);
+
+                    cachedoc = null;
+                }
+
+                if (cachedoc != null) {
+                    cachedoc.setFromCache(true);
+                } else if (getPageExistCache().get(key) == Boolean.FALSE) {
+                    cachedoc = doc;
+                    cachedoc.setNew(true);
+
+                    // Make sure to always return a document with an original version, even for one that does not exist.
+                    // Allow writing more generic code.
+                    cachedoc
+                        .setOriginalDocument(new XWikiDocument(cachedoc.getDocumentReference(), cachedoc.getLocale()));
+                    cachedoc.setStore(this.store);
+                } else {
+                    missingDocuments.add(doc);
+                    missingIndexes.add(i);
+                    missingKeys.add(key);
+                }
+
+                documents[i] = cachedoc;
+            }
+
+            LOGGER.debug("Cache: {} documents out of {} not found in cache", missingDocuments.size(), documents.length);
+
+            this.cacheHits.add(documents.length - missingDocuments.size());
+            this.cacheMisses.add(missingDocuments.size());
+
+            // Load all the misses at once from the persistent storage
+            if (!missingDocuments.isEmpty()) {
+                List<XWikiDocument> loadedDocuments = this.store.loadXWikiDocs(missingDocuments, context);
+
+                for (int i = 0; i < loadedDocuments.size(); ++i) {
+                    XWikiDocument loadedDocument = loadedDocuments.get(i);
+                    String key = missingKeys.get(i);
+
+                    if (loadedDocument.isNew()) {
+                        getPageExistCache().set(key, Boolean.FALSE);
+                    } else {
+                        getCache().set(key, loadedDocument);
+
+                        // Also update exist cache
+                        getPageExistCache().set(key, Boolean.TRUE);
+                    }
+
+                    loadedDocument.setStore(this.store);
+
+                    documents[missingIndexes.get(i)] = loadedDocument;
+                }
+            }
+
+            return Arrays.asList(documents);
+        } finally {
+            restoreExecutionXContext();
+        }
+    }
+
     @Override
     public void deleteXWikiDoc(XWikiDocument doc, XWikiContext inputxcontext) throws XWikiException
     {
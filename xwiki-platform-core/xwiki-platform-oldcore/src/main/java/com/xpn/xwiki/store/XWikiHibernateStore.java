@@ -31,6 +31,7 @@
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Locale;
@@ -53,8 +54,10 @@
 import org.hibernate.SessionFactory;
 import org.hibernate.boot.Metadata;
 import org.hibernate.cfg.Configuration;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
 import org.hibernate.mapping.PersistentClass;
 import org.hibernate.mapping.Property;
+import org.hibernate.persister.entity.EntityPersister;
 import org.hibernate.query.NativeQuery;
 import org.hibernate.query.Query;
 import org.slf4j.Logger;
@@ -116,6 +119,11 @@
 @Singleton
 public class XWikiHibernateStore extends XWikiHibernateBaseStore implements XWikiStoreInterface, Initializable
 {
+    /**
+     * The maximum number of identifiers passed to a single {@code in} clause when loading several documents at once.
+     */
+    private static final int LOAD_BATCH_SIZE = 500;
+
     @Inject
     private Logger logger;
 
@@ -873,12 +881,6 @@ public XWikiDocument loadXWikiDoc(XWikiDocument doc, XWikiContext inputxcontext)
 
                 try {
                     session.load(doc, Long.valueOf(doc.getId()));
-                    doc.setNew(false);
-                    doc.setMostRecent(true);
-                    // Fix for XWIKI-1651
-                    doc.setDate(new Date(doc.getDate().getTime()));
-                    doc.setCreationDate(new Date(doc.getCreationDate().getTime()));
-                    doc.setContentUpdateDate(new Date(doc.getContentUpdateDate().getTime()));
                 } catch (ObjectNotFoundException e) { // No document
                     doc.setNew(true);
 
@@ -889,117 +891,103 @@ public XWikiDocument loadXWikiDoc(XWikiDocument doc, XWikiContext inputxcontext)
                     return doc;
                 }
 
-                // Loading the attachment list
-                if (doc.hasElement(XWikiDocument.HAS_ATTACHMENTS)) {
-                    loadAttachmentList(doc, context, false);
+                loadXWikiDocContent(doc, null, session, context);
+
+                if (bTransaction) {
+                    endTransaction(context, false);
+                }
+            } catch (Exception e) {
+                Object[] args = { doc.getDocumentReference() };
+                throw new XWikiException(XWikiException.MODULE_XWIKI_STORE,
+                    XWikiException.ERROR_XWIKI_STORE_HIBERNATE_READING_DOC, "Exception while reading document [{0}]", e,
+                    args);
+            } finally {
+                try {
+                    if (bTransaction) {
+                        endTransaction(context, false);
+                    }
+                } catch (Exception e) {
                 }
 
-                // TODO: handle the case where there are no xWikiClass and xWikiObject in the Database
-                BaseClass bclass = new BaseClass();
-                String cxml = doc.getXClassXML();
-                if (cxml != null) {
-                    bclass.fromXML(cxml);
-                    doc.setXClass(bclass);
-                    bclass.setDirty(false);
+                // End monitoring timer
+                if (monitor != null) {
+                    monitor.endTimer(HINT);
                 }
+            }
 
-                // Store this XWikiClass in the context so that we can use it in case of recursive usage
-                // of classes
-                context.addBaseClass(bclass);
+            this.logger.debug("Loaded XWikiDocument: [{}]", doc.getDocumentReference());
 
-                if (doc.hasElement(XWikiDocument.HAS_OBJECTS)) {
-                    Query<BaseObject> query = session.createQuery(
-                        "from BaseObject as bobject where bobject.name = :name order by bobject.number",
-                        BaseObject.class);
-                    query.setParameter("name", doc.getFullName());
+            return doc;
+        } finally {
+            restoreExecutionXContext();
+        }
+    }
 
-                    Iterator<BaseObject> it = query.list().iterator();
+    @Override
+    public List<XWikiDocument> loadXWikiDocs(List<XWikiDocument> docs, XWikiContext inputxcontext)
+        throws XWikiException
+    {
+        XWikiContext context = getExecutionXContext(inputxcontext, true);
 
-                    EntityReference localGroupEntityReference = new EntityReference("XWikiGroups", EntityType.DOCUMENT,
-                        new EntityReference("XWiki", EntityType.SPACE));
-                    DocumentReference groupsDocumentReference = new DocumentReference(context.getWikiId(),
-                        localGroupEntityReference.getParent().getName(), localGroupEntityReference.getName());
+        try {
+            boolean bTransaction = true;
+            MonitorPlugin monitor = Util.getMonitorPlugin(context);
+            try {
+                // Start monitoring timer
+                if (monitor != null) {
+                    monitor.startTimer(HINT);
+                }
+                checkHibernate(context);
 
-                    boolean hasGroups = false;
-                    while (it.hasNext()) {
-                        BaseObject object = it.next();
-                        DocumentReference classReference = object.getXClassReference();
+                // Share the same session between all the documents
+                bTransaction = bTransaction && beginTransaction(null, context);
+                Session session = getSession(context);
+                session.setHibernateFlushMode(FlushMode.MANUAL);
 
-                        if (classReference == null) {
-                            continue;
-                        }
+                // Load the rows of the documents in a few batched queries
+                Map<Long, XWikiDocument> documentsById = new LinkedHashMap<>();
+                for (XWikiDocument doc : docs) {
+                    documentsById.putIfAbsent(doc.getId(), doc);
+                }
+                Set<Long> existingIds = loadXWikiDocRows(documentsById, session);
 
-                        // It seems to search before is case insensitive. And this would break the loading if we get an
-                        // object which doesn't really belong to this document
-                        if (!object.getDocumentReference().equals(doc.getDocumentReference())) {
-                            continue;
-                        }
+                // Load the objects of the existing documents in a few batched queries
+                Set<String> names = new HashSet<>();
+                for (Long id : existingIds) {
+                    XWikiDocument doc = documentsById.get(id);
+                    if (doc.hasElement(XWikiDocument.HAS_OBJECTS)) {
+                        names.add(doc.getFullName());
+                    }
+                }
+                Map<String, List<BaseObject>> objectsByName = loadXWikiObjects(names, session);
 
-                        BaseObject newobject;
-                        if (classReference.equals(doc.getDocumentReference())) {
-                            newobject = bclass.newCustomClassInstance(context);
-                        } else {
-                            newobject = BaseClass.newCustomClassInstance(classReference, context);
-                        }
-                        if (newobject != null) {
-                            newobject.setId(object.getId());
-                            newobject.setXClassReference(object.getRelativeXClassReference());
-                            newobject.setDocumentReference(object.getDocumentReference());
-                            newobject.setNumber(object.getNumber());
-                            newobject.setGuid(object.getGuid());
-                            object = newobject;
-                        }
+                for (XWikiDocument doc : documentsById.values()) {
+                    doc.setStore(this);
 
-                        if (classReference.equals(groupsDocumentReference)) {
-                            // Groups objects are handled differently.
-                            hasGroups = true;
-                        } else {
-                            loadXWikiCollectionInternal(object, doc, context, false, true);
-                        }
-                        doc.setXObject(object.getNumber(), object);
-                    }
+                    if (existingIds.contains(doc.getId())) {
+                        loadXWikiDocContent(doc,
+                            objectsByName.getOrDefault(doc.getFullName(), Collections.emptyList()), session, context);
+                    } else {
+                        doc.setNew(true);
 
-                    // AFAICT this was added as an emergency patch because loading of objects has proven
-                    // too slow and the objects which cause the most overhead are the XWikiGroups objects
-                    // as each group object (each group member) would otherwise cost 2 database queries.
-                    // This will do every group member in a single query.
-                    if (hasGroups) {
-                        Query<Object[]> query2 = session.createQuery(
-                            "select bobject.number, prop.value from StringProperty as prop,"
-                                + "BaseObject as bobject where bobject.name = :name and bobject.className='XWiki.XWikiGroups' "
-                                + "and bobject.id=prop.id.id and prop.id.name='member' order by bobject.number",
-                            Object[].class);
-                        query2.setParameter("name", doc.getFullName());
-
-                        Iterator<Object[]> it2 = query2.list().iterator();
-                        while (it2.hasNext()) {
-                            Object[] result = it2.next();
-                            Integer number = (Integer) result[0];
-                            String member = (String) result[1];
-                            BaseObject obj = BaseClass.newCustomClassInstance(groupsDocumentReference, context);
-                            obj.setDocumentReference(doc.getDocumentReference());
-                            obj.setXClassReference(localGroupEntityReference);
-                            obj.setNumber(number.intValue());
-                            obj.setStringValue("member", member);
-                            doc.setXObject(obj.getNumber(), obj);
-                        }
+                        // Make sure to always return a document with an original version, even for one that does not
+                        // exist. Allow writing more generic code.
+                        doc.setOriginalDocument(new XWikiDocument(doc.getDocumentReference(), doc.getLocale()));
                     }
                 }
 
-                doc.setContentDirty(false);
-                doc.setMetaDataDirty(false);
-
-                // We need to ensure that the loaded document becomes the original document
-                doc.setOriginalDocument(doc.clone());
-
-                if (bTransaction) {
-                    endTransaction(context, false);
+                // Return the documents in the requested order (the same instance for duplicated references)
+                List<XWikiDocument> documents = new ArrayList<>(docs.size());
+                for (XWikiDocument doc : docs) {
+                    documents.add(documentsById.get(doc.getId()));
                 }
+
+                return documents;
+            } catch (XWikiException e) {
+                throw e;
             } catch (Exception e) {
-                Object[] args = { doc.getDocumentReference() };
                 throw new XWikiException(XWikiException.MODULE_XWIKI_STORE,
-                    XWikiException.ERROR_XWIKI_STORE_HIBERNATE_READING_DOC, "Exception while reading document [{0}]", e,
-                    args);
+                    XWikiException.ERROR_XWIKI_STORE_HIBERNATE_READING_DOC, "Exception while reading documents", e);
             } finally {
                 try {
                     if (bTransaction) {
@@ -1013,15 +1001,202 @@ public XWikiDocument loadXWikiDoc(XWikiDocument doc, XWikiContext inputxcontext)
                     monitor.endTimer(HINT);
                 }
             }
-
-            this.logger.debug("Loaded XWikiDocument: [{}]", doc.getDocumentReference());
-
-            return doc;
         } finally {
             restoreExecutionXContext();
         }
     }
 
+    /**
+     * Load everything stored outside of the document row (attachments, class and objects) in a document whose row was
+     * just loaded.
+     *
+     * @param doc the document whose row was loaded
+     * @param objects the objects of the document, {@code null} to load them
+     * @param session the current session
+     * @param context the XWiki context
+     * @throws XWikiException when failing to load the document
+     */
+    private void loadXWikiDocContent(XWikiDocument doc, List<BaseObject> objects, Session session,
+        XWikiContext context) throws XWikiException
+    {
+        doc.setNew(false);
+        doc.setMostRecent(true);
+        // Fix for XWIKI-1651
+        doc.setDate(new Date(doc.getDate().getTime()));
+        doc.setCreationDate(new Date(doc.getCreationDate().getTime()));
+        doc.setContentUpdateDate(new Date(doc.getContentUpdateDate().getTime()));
+
+        // Loading the attachment list
+        if (doc.hasElement(XWikiDocument.HAS_ATTACHMENTS)) {
+            loadAttachmentList(doc, context, false);
+        }
+
+        // TODO: handle the case where there are no xWikiClass and xWikiObject in the Database
+        BaseClass bclass = new BaseClass();
+        String cxml = doc.getXClassXML();
+        if (cxml != null) {
+            bclass.fromXML(cxml);
+            doc.setXClass(bclass);
+            bclass.setDirty(false);
+        }
+
+        // Store this XWikiClass in the context so that we can use it in case of recursive usage
+        // of classes
+        context.addBaseClass(bclass);
+
+        if (doc.hasElement(XWikiDocument.HAS_OBJECTS)) {
+            List<BaseObject> documentObjects = objects;
+            if (documentObjects == null) {
+                Query<BaseObject> query = session.createQuery(
+                    "from BaseObject as bobject where bobject.name = :name order by bobject.number",
+                    BaseObject.class);
+                query.setParameter("name", doc.getFullName());
+                documentObjects = query.list();
+            }
+
+            Iterator<BaseObject> it = documentObjects.iterator();
+
+            EntityReference localGroupEntityReference = new EntityReference("XWikiGroups", EntityType.DOCUMENT,
+                new EntityReference("XWiki", EntityType.SPACE));
+            DocumentReference groupsDocumentReference = new DocumentReference(context.getWikiId(),
+                localGroupEntityReference.getParent().getName(), localGroupEntityReference.getName());
+
+            boolean hasGroups = false;
+            while (it.hasNext()) {
+                BaseObject object = it.next();
+                DocumentReference classReference = object.getXClassReference();
+
+                if (classReference == null) {
+                    continue;
+                }
+
+                // It seems to search before is case insensitive. And this would break the loading if we get an
+                // object which doesn't really belong to this document
+                if (!object.getDocumentReference().equals(doc.getDocumentReference())) {
+                    continue;
+                }
+
+                BaseObject newobject;
+                if (classReference.equals(doc.getDocumentReference())) {
+                    newobject = bclass.newCustomClassInstance(context);
+                } else {
+                    newobject = BaseClass.newCustomClassInstance(classReference, context);
+                }
+                if (newobject != null) {
+                    newobject.setId(object.getId());
+                    newobject.setXClassReference(object.getRelativeXClassReference());
+                    newobject.setDocumentReference(object.getDocumentReference());
+                    newobject.setNumber(object.getNumber());
+                    newobject.setGuid(object.getGuid());
+                    object = newobject;
+                }
+
+                if (classReference.equals(groupsDocumentReference)) {
+                    // Groups objects are handled differently.
+                    hasGroups = true;
+                } else {
+                    loadXWikiCollectionInternal(object, doc, context, false, true);
+                }
+                doc.setXObject(object.getNumber(), object);
+            }
+
+            // AFAICT this was added as an emergency patch because loading of objects has proven
+            // too slow and the objects which cause the most overhead are the XWikiGroups objects
+            // as each group object (each group member) would otherwise cost 2 database queries.
+            // This will do every group member in a single query.
+            if (hasGroups) {
+                Query<Object[]> query2 = session.createQuery(
+                    "select bobject.number, prop.value from StringProperty as prop,"
+                        + "BaseObject as bobject where bobject.name = :name and bobject.className='XWiki.XWikiGroups' "
+                        + "and bobject.id=prop.id.id and prop.id.name='member' order by bobject.number",
+                    Object[].class);
+                query2.setParameter("name", doc.getFullName());
+
+                Iterator<Object[]> it2 = query2.list().iterator();
+                while (it2.hasNext()) {
+                    Object[] result = it2.next();
+                    Integer number = (Integer) result[0];
+                    String member = (String) result[1];
+                    BaseObject obj = BaseClass.newCustomClassInstance(groupsDocumentReference, context);
+                    obj.setDocumentReference(doc.getDocumentReference());
+                    obj.setXClassReference(localGroupEntityReference);
+                    obj.setNumber(number.intValue());
+                    obj.setStringValue("member", member);
+                    doc.setXObject(obj.getNumber(), obj);
+                }
+            }
+        }
+
+        doc.setContentDirty(false);
+        doc.setMetaDataDirty(false);
+
+        // We need to ensure that the loaded document becomes the original document
+        doc.setOriginalDocument(doc.clone());
+    }
+
+    /**
+     * Load the rows of the passed documents in batched {@code in} queries, directly into the passed instances (the same
+     * way {@link Session#load(Object, java.io.Serializable)} does).
+     *
+     * @param documents the documents to load, indexed by identifier
+     * @param session the current session
+     * @return the identifiers of the documents which exist
+     */
+    private Set<Long> loadXWikiDocRows(Map<Long, XWikiDocument> documents, Session session)
+    {
+        EntityPersister persister = ((SessionFactoryImplementor) session.getSessionFactory()).getMetamodel()
+            .entityPersister(XWikiDocument.class);
+        String[] propertyNames = persister.getPropertyNames();
+
+        StringBuilder statement = new StringBuilder("select doc.id");
+        for (String propertyName : propertyNames) {
+            statement.append(", doc.").append(propertyName);
+        }
+        statement.append(" from XWikiDocument as doc where doc.id in (:ids)");
+
+        Set<Long> existingIds = new HashSet<>();
+        List<Long> ids = new ArrayList<>(documents.keySet());
+        for (int start = 0; start < ids.size(); start += LOAD_BATCH_SIZE) {
+            Query<Object[]> query = session.createQuery(statement.toString(), Object[].class);
+            query.setParameterList("ids", ids.subList(start, Math.min(start + LOAD_BATCH_SIZE, ids.size())));
+
+            for (Object[] row : query.list()) {
+                Long id = (Long) row[0];
+                persister.setPropertyValues(documents.get(id), ArrayUtils.remove(row, 0));
+                existingIds.add(id);
+            }
+        }
+
+        return existingIds;
+    }
+
+    /**
+     * Load the objects of the passed documents in batched {@code in} queries.
+     *
+     * @param names the full names of the documents
+     * @param session the current session
+     * @return the objects of each document, indexed by document full name and ordered by number
+     */
+    private Map<String, List<BaseObject>> loadXWikiObjects(Collection<String> names, Session session)
+    {
+        Map<String, List<BaseObject>> objects = new HashMap<>();
+
+        List<String> nameList = new ArrayList<>(names);
+        for (int start = 0; start < nameList.size(); start += LOAD_BATCH_SIZE) {
+            Query<BaseObject> query = session.createQuery(
+                "from BaseObject as bobject where bobject.name in (:names) order by bobject.name, bobject.number",
+                BaseObject.class);
+            query.setParameterList("names",
+                nameList.subList(start, Math.min(start + LOAD_BATCH_SIZE, nameList.size())));
+
+            for (BaseObject object : query.list()) {
+                objects.computeIfAbsent(object.getName(), key -> new ArrayList<>()).add(object);
+            }
+        }
+
+        return objects;
+    }
+
     @Override
     public void deleteXWikiDoc(XWikiDocument doc, XWikiContext inputxcontext) throws XWikiException
     {
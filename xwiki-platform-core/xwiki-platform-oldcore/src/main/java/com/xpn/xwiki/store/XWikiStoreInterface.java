@@ -19,6 +19,7 @@
  */
 package com.xpn.xwiki.store;
 
+import java.util.ArrayList;
 import java.util.List;
 
 import org.xwiki.component.annotation.Role;
@@ -42,6 +43,31 @@
 
     XWikiDocument loadXWikiDoc(XWikiDocument doc, XWikiContext context) throws XWikiException;
 
+    /**
+     * Load several documents at once. All the passed documents are expected to be located in the current wiki.
+     * <p>
+     * The default implementation simply calls {@link #loadXWikiDoc(XWikiDocument, XWikiContext)} for each document but
+     * stores are encouraged to override it to reduce the number of round trips with the storage.
+     *
+     * @param docs the documents to load
+     * @param context the XWiki context
+     * @return the loaded documents, in the same order as the passed documents (a document which does not exist is
+     *         returned as a new document)
+     * @throws XWikiException when failing to load the documents
+     * @since 12.0RC1
+     */
+    @Unstable
+    default List<XWikiDocument> loadXWikiDocs(List<XWikiDocument> docs, XWikiContext context) throws XWikiException
+    {
+        List<XWikiDocument> documents = new ArrayList<>(docs.size());
+
+        for (XWikiDocument doc : docs) {
+            documents.add(loadXWikiDoc(doc, context));
+        }
+
+        return documents;
+    }
+
     void deleteXWikiDoc(XWikiDocument doc, XWikiContext context) throws XWikiException;
 
     List<String> getClassList(XWikiContext context) throws XWikiException;
@@ -219,6 +219,7 @@ private String exportXAR(XWikiContext context) throws XWikiException, IOExceptio
         boolean attachmentJRCS =
             getBooleanProperty("attachment_jrcs", "xwiki.action.export.xar.attachment.jrcs", true, context);
         boolean optimized = getBooleanProperty("optimized", "xwiki.action.export.xar.optimized", true, context);
+        boolean streaming = getBooleanProperty("streaming", "xwiki.action.export.xar.streaming", true, context);
         boolean backup = Boolean.valueOf(request.get("backup"));
         String author = request.get("author");
         String licence = request.get("licence");
@@ -240,6 +241,8 @@ private String exportXAR(XWikiContext context) throws XWikiException, IOExceptio
 
             inputProperties.setWithJRCSRevisions(history);
             inputProperties.setWithRevisions(false);
+            // Don't keep the exported documents in memory
+            inputProperties.setStreaming(streaming);
             // Retro compatibility: by default attachment history is serialized as JRCS but we disabled it if standard
             // attachment revisions is enabled
             if (!attachmentJRCS) {
@@ -0,0 +1,135 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package com.xpn.xwiki.web;
+
+import java.io.FilterWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Map;
+
+/**
+ * Replace the placeholders created with {@link Utils#createPlaceholder(String, com.xpn.xwiki.XWikiContext)} while
+ * writing the content to the wrapped writer. Only a small buffer is kept to handle placeholders split between two
+ * writes.
+ *
+ * @version $Id$
+ * @since 12.0RC1
+ */
+class PlaceholderWriter extends FilterWriter
+{
+    /**
+     * The prefix of all placeholders.
+     */
+    static final String PREFIX = "KEY";
+
+    /**
+     * The length of all placeholders.
+     */
+    static final int LENGTH = 16;
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private final Map<String, String> placeholders;
+
+    private final StringBuilder buffer = new StringBuilder();
+
+    /**
+     * @param out the writer where to write the content with the placeholders replaced
+     * @param placeholders the placeholders and the values to replace them with
+     */
+    PlaceholderWriter(Writer out, Map<String, String> placeholders)
+    {
+        super(out);
+
+        this.placeholders = placeholders;
+    }
+
+    @Override
+    public void write(int c) throws IOException
+    {
+        this.buffer.append((char) c);
+
+        if (this.buffer.length() >= BUFFER_SIZE) {
+            replace(false);
+        }
+    }
+
+    @Override
+    public void write(char[] cbuf, int off, int len) throws IOException
+    {
+        this.buffer.append(cbuf, off, len);
+
+        if (this.buffer.length() >= BUFFER_SIZE) {
+            replace(false);
+        }
+    }
+
+    @Override
+    public void write(String str, int off, int len) throws IOException
+    {
+        this.buffer.append(str, off, off + len);
+
+        if (this.buffer.length() >= BUFFER_SIZE) {
+            replace(false);
+        }
+    }
+
+    @Override
+    public void flush() throws IOException
+    {
+        replace(true);
+
+        super.flush();
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        replace(true);
+
+        super.close();
+    }
+
+    private void replace(boolean end) throws IOException
+    {
+        int length = this.buffer.length();
+        int start = 0;
+
+        for (int index = this.buffer.indexOf(PREFIX); index != -1 && index + LENGTH <= length;) {
+            String value = this.placeholders.get(this.buffer.substring(index, index + LENGTH));
+
+            if (value != null) {
+                this.out.append(this.buffer, start, index);
+                this.out.write(value);
+
+                start = index + LENGTH;
+                index = this.buffer.indexOf(PREFIX, start);
+            } else {
+                index = this.buffer.indexOf(PREFIX, index + 1);
+            }
+        }
+
+        // Keep what could be the beginning of a placeholder until we know what comes next
+        int writeEnd = end ? length : Math.max(start, length - LENGTH + 1);
+
+        this.out.append(this.buffer, start, writeEnd);
+        this.buffer.delete(0, writeEnd);
+    }
+}
@@ -20,7 +20,6 @@
 package com.xpn.xwiki.web;
 
 import java.io.IOException;
-import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.LinkedHashMap;
 import java.util.List;
@@ -31,6 +30,7 @@
 import javax.script.ScriptContext;
 import javax.servlet.http.HttpServletResponse;
 
+import org.apache.commons.fileupload.FileItem;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.exception.ExceptionUtils;
 import org.slf4j.Logger;
@@ -178,16 +178,14 @@ public boolean uploadAttachment(String fieldName, String filename, FileUploadPlu
         XWikiResponse response = context.getResponse();
         DocumentReference usernameReference = context.getUserReference();
 
-        XWikiAttachment attachment;
-        try {
-            InputStream contentInputStream = fileupload.getFileItemInputStream(fieldName, context);
-            attachment = doc.setAttachment(filename, contentInputStream, context);
-        } catch (IOException e) {
+        FileItem fileItem = fileupload.getFile(fieldName, context);
+        if (fileItem == null) {
             throw new XWikiException(XWikiException.MODULE_XWIKI_APP,
-                XWikiException.ERROR_XWIKI_APP_UPLOAD_FILE_EXCEPTION, "Exception while reading uploaded parsed file",
-                e);
+                XWikiException.ERROR_XWIKI_APP_UPLOAD_FILE_EXCEPTION, "Exception while reading uploaded parsed file");
         }
 
+        XWikiAttachment attachment = doc.setAttachment(filename, fileItem, context);
+
         // Set the document author
         doc.setAuthorReference(usernameReference);
         if (doc.isNew()) {
@@ -235,6 +233,11 @@ public boolean uploadAttachment(String fieldName, String filename, FileUploadPlu
             }
             throw e;
         }
+
+        // The attachment takes ownership of the uploaded file instead of copying it, so it must not be deleted with
+        // the other uploaded files at the end of the request. It's still deleted with them when the save fails.
+        fileupload.getFileItems(context).remove(fileItem);
+
         return false;
     }
 
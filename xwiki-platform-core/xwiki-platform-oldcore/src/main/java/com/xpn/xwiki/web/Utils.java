@@ -21,7 +21,10 @@
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
 import java.io.UnsupportedEncodingException;
+import java.io.Writer;
 import java.lang.reflect.Type;
 import java.net.URL;
 import java.util.Collections;
@@ -29,7 +32,6 @@
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
 
 import javax.inject.Provider;
 import javax.servlet.http.HttpServletRequest;
@@ -194,11 +196,13 @@ public static void parseTemplate(String template, boolean write, XWikiContext co
         }
 
         if (!context.isFinished()) {
+            byte[] bytes = null;
             if (context.getResponse() instanceof XWikiServletResponse) {
                 // Set the content length to the number of bytes, not the
                 // string length, so as to handle multi-byte encodings
                 try {
-                    response.setContentLength(content.getBytes(context.getWiki().getEncoding()).length);
+                    bytes = content.getBytes(context.getWiki().getEncoding());
+                    response.setContentLength(bytes.length);
                 } catch (UnsupportedEncodingException e) {
                     e.printStackTrace();
                 }
@@ -211,7 +215,9 @@ public static void parseTemplate(String template, boolean write, XWikiContext co
             {
                 try {
                     try {
-                        response.getOutputStream().write(content.getBytes(context.getWiki().getEncoding()));
+                        // Reuse the bytes encoded to compute the content length
+                        response.getOutputStream()
+                            .write(bytes != null ? bytes : content.getBytes(context.getWiki().getEncoding()));
                     } catch (IllegalStateException ex) {
                         response.getWriter().write(content);
                     }
@@ -878,13 +884,21 @@ public static String createPlaceholder(String value, XWikiContext context)
         Map<String, String> renderingKeys = (Map<String, String>) context.get(PLACEHOLDERS_CONTEXT_KEY);
         String key;
         do {
-            key = "KEY" + RandomStringUtils.randomAlphanumeric(10) + "KEY";
+            key = PlaceholderWriter.PREFIX
+                + RandomStringUtils.randomAlphanumeric(PlaceholderWriter.LENGTH - 2 * PlaceholderWriter.PREFIX.length())
+                + PlaceholderWriter.PREFIX;
         } while (renderingKeys.containsKey(key));
         renderingKeys.put(key, value);
 
         return key;
     }
 
+    @SuppressWarnings("unchecked")
+    private static Map<String, String> getPlaceholders(XWikiContext context)
+    {
+        return (Map<String, String>) context.get(PLACEHOLDERS_CONTEXT_KEY);
+    }
+
     /**
      * Insert back the replaced strings.
      *
@@ -898,14 +912,21 @@ public static String replacePlaceholders(String content, XWikiContext context)
             return content;
         }
 
-        String result = content;
-        @SuppressWarnings("unchecked")
-        Map<String, String> renderingKeys = (Map<String, String>) context.get(PLACEHOLDERS_CONTEXT_KEY);
-        for (Entry<String, String> e : renderingKeys.entrySet()) {
-            result = result.replace(e.getKey(), e.getValue());
+        Map<String, String> renderingKeys = getPlaceholders(context);
+        if (renderingKeys.isEmpty()) {
+            return content;
+        }
+
+        // Replace all the placeholders in one pass
+        StringWriter result = new StringWriter(content.length());
+        try (Writer writer = new PlaceholderWriter(result, renderingKeys)) {
+            writer.write(content);
+        } catch (IOException e) {
+            // Should never happen with a StringWriter
+            throw new UncheckedIOException(e);
         }
 
-        return result;
+        return result.toString();
     }
 
     /**
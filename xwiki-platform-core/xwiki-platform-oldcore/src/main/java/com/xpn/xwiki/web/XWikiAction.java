@@ -55,6 +55,8 @@
 import org.xwiki.job.internal.DefaultJobProgress;
 import org.xwiki.localization.ContextualLocalizationManager;
 import org.xwiki.localization.LocaleUtils;
+import org.xwiki.metrics.MetricsRegistry;
+import org.xwiki.metrics.Timer;
 import org.xwiki.model.EntityType;
 import org.xwiki.model.reference.DocumentReference;
 import org.xwiki.model.reference.DocumentReferenceResolver;
@@ -162,6 +164,36 @@ public abstract class XWikiAction extends Action
 
     private EntityReferenceSerializer<String> localSerializer;
 
+    private ActionTimers timers;
+
+    /**
+     * The timers measuring the phases of the request execution. Grouped in an immutable holder so that they are safely
+     * published to the other request threads once initialized.
+     */
+    private static final class ActionTimers
+    {
+        private final Timer request;
+
+        private final Timer prepareDocuments;
+
+        private final Timer action;
+
+        private final Timer render;
+
+        private final Timer template;
+
+        ActionTimers(MetricsRegistry metrics)
+        {
+            boolean enabled = metrics.isEnabled();
+
+            this.request = enabled ? metrics.getTimer("action.request") : Timer.NOOP;
+            this.prepareDocuments = enabled ? metrics.getTimer("action.prepareDocuments") : Timer.NOOP;
+            this.action = enabled ? metrics.getTimer("action.action") : Timer.NOOP;
+            this.render = enabled ? metrics.getTimer("action.render") : Timer.NOOP;
+            this.template = enabled ? metrics.getTimer("action.template") : Timer.NOOP;
+        }
+    }
+
     protected ContextualLocalizationManager getLocalization()
     {
         if (this.localization == null) {
@@ -185,6 +217,15 @@ protected JobProgressManager getProgress()
         return this.progress;
     }
 
+    private ActionTimers getTimers()
+    {
+        if (this.timers == null) {
+            this.timers = new ActionTimers(Utils.getComponent(MetricsRegistry.class));
+        }
+
+        return this.timers;
+    }
+
     protected EntityNameValidationManager getEntityNameValidationManager()
     {
         if (this.entityNameValidationManager == null) {
@@ -317,6 +358,9 @@ public ActionForward execute(XWikiContext context) throws Exception
 
         String sasync = context.getRequest().get("async");
 
+        ActionTimers actionTimers = getTimers();
+        long requestStart = actionTimers.request.start();
+
         try {
             String action = context.getAction();
 
@@ -461,7 +505,14 @@ public ActionForward execute(XWikiContext context) throws Exception
                 getProgress().startStep(this, "Prepare documents and put them in the context");
 
                 // Prepare documents and put them in the context
-                if (!xwiki.prepareDocuments(context.getRequest(), context, vcontext)) {
+                long prepareStart = actionTimers.prepareDocuments.start();
+                boolean prepared;
+                try {
+                    prepared = xwiki.prepareDocuments(context.getRequest(), context, vcontext);
+                } finally {
+                    actionTimers.prepareDocuments.stop(prepareStart);
+                }
+                if (!prepared) {
                     return null;
                 }
 
@@ -556,24 +607,44 @@ public ActionForward execute(XWikiContext context) throws Exception
                 String renderResult = null;
                 XWikiDocument doc = context.getDoc();
                 docName = doc.getFullName();
-                if (!hasRedirect && action(context)) {
-                    renderResult = render(context);
+                if (!hasRedirect) {
+                    long actionStart = actionTimers.action.start();
+                    boolean shouldRender;
+                    try {
+                        shouldRender = action(context);
+                    } finally {
+                        actionTimers.action.stop(actionStart);
+                    }
+
+                    if (shouldRender) {
+                        long renderStart = actionTimers.render.start();
+                        try {
+                            renderResult = render(context);
+                        } finally {
+                            actionTimers.render.stop(renderStart);
+                        }
+                    }
                 }
 
                 if (renderResult != null) {
-                    if (doc.isNew() && "view".equals(context.getAction())
-                        && !"recyclebin".equals(context.getRequest().get("viewer"))
-                        && !"children".equals(context.getRequest().get("viewer"))
-                        && !"siblings".equals(context.getRequest().get("viewer"))) {
-                        String page = Utils.getPage(context.getRequest(), "docdoesnotexist");
-
-                        getProgress().startStep(this, "Execute template [" + page + "]");
-                        Utils.parseTemplate(page, context);
-                    } else {
-                        String page = Utils.getPage(context.getRequest(), renderResult);
-
-                        getProgress().startStep(this, "Execute template [" + page + "]");
-                        Utils.parseTemplate(page, !page.equals("direct"), context);
+                    long templateStart = actionTimers.template.start();
+                    try {
+                        if (doc.isNew() && "view".equals(context.getAction())
+                            && !"recyclebin".equals(context.getRequest().get("viewer"))
+                            && !"children".equals(context.getRequest().get("viewer"))
+                            && !"siblings".equals(context.getRequest().get("viewer"))) {
+                            String page = Utils.getPage(context.getRequest(), "docdoesnotexist");
+
+                            getProgress().startStep(this, "Execute template [" + page + "]");
+                            Utils.parseTemplate(page, context);
+                        } else {
+                            String page = Utils.getPage(context.getRequest(), renderResult);
+
+                            getProgress().startStep(this, "Execute template [" + page + "]");
+                            Utils.parseTemplate(page, !page.equals("direct"), context);
+                        }
+                    } finally {
+                        actionTimers.template.stop(templateStart);
                     }
                 }
                 return null;
@@ -686,6 +757,8 @@ public ActionForward execute(XWikiContext context) throws Exception
                 getProgress().popLevelProgress(this);
             }
         } finally {
+            actionTimers.request.stop(requestStart);
+
             // End request
             if (monitor != null) {
                 monitor.endRequest();
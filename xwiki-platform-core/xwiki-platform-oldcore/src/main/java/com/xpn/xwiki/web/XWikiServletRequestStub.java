@@ -86,6 +86,12 @@ public class XWikiServletRequestStub implements XWikiRequest
 
     private boolean daemon = true;
 
+    /**
+     * True when the headers and the parameters are shared with another request and need to be copied before being
+     * modified.
+     */
+    private boolean copyOnWrite;
+
     public XWikiServletRequestStub()
     {
     }
@@ -164,6 +170,59 @@ public XWikiServletRequestStub(XWikiRequest request)
         }
     }
 
+    /**
+     * Create a copy of this request. Contrary to {@link #XWikiServletRequestStub(XWikiRequest)}, the headers and the
+     * parameters are shared between the two requests until one of them modifies them, which makes the copy cheap.
+     *
+     * @return the copy of this request
+     * @since 12.0RC1
+     */
+    public XWikiServletRequestStub copy()
+    {
+        XWikiServletRequestStub copy = new XWikiServletRequestStub();
+
+        copy.secure = this.secure;
+        copy.scheme = this.scheme;
+        copy.protocol = this.protocol;
+        copy.queryString = this.queryString;
+        copy.contextPath = this.contextPath;
+        copy.servletPath = this.servletPath;
+        copy.serverName = this.serverName;
+        copy.serverPort = this.serverPort;
+        copy.requestURI = this.requestURI;
+        // The URL buffer is returned as is by #getRequestURL() so it cannot be shared
+        copy.requestURL = this.requestURL != null ? new StringBuffer(this.requestURL) : null;
+        copy.daemon = this.daemon;
+
+        copy.headerNames = this.headerNames;
+        copy.headers = this.headers;
+        copy.parameters = this.parameters;
+        copy.copyOnWrite = true;
+        // Only write the flag once since the copied request might be read by several threads
+        if (!this.copyOnWrite) {
+            this.copyOnWrite = true;
+        }
+
+        return copy;
+    }
+
+    private void beforeWrite()
+    {
+        if (this.copyOnWrite) {
+            if (this.headerNames != null) {
+                this.headerNames = new Vector<>(this.headerNames);
+            }
+            if (this.headers != null) {
+                this.headers = new LinkedHashMap<>(this.headers);
+            }
+            if (this.parameters != null) {
+                this.parameters = new LinkedHashMap<>(this.parameters);
+            }
+
+            this.copyOnWrite = false;
+        }
+    }
+
     private Map<String, String[]> clone(Map<String, String[]> map)
     {
         Map<String, String[]> clone;
@@ -186,6 +245,8 @@ public void setContextPath(String contextPath)
 
     public void setHost(String host)
     {
+        beforeWrite();
+
         if (this.headers == null) {
             this.headers = new LinkedHashMap<>();
         }
@@ -243,6 +304,8 @@ public String getHeader(String s)
      */
     public void put(String key, String value)
     {
+        beforeWrite();
+
         if (this.parameters == null) {
             this.parameters = new LinkedHashMap<>();
         }
@@ -24,8 +24,10 @@
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
 import java.util.Date;
 
+import org.apache.commons.codec.digest.DigestUtils;
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.io.input.ReaderInputStream;
 import org.junit.jupiter.api.BeforeEach;
@@ -45,6 +47,7 @@
 import org.xwiki.test.junit5.mockito.MockComponent;
 import org.xwiki.test.mockito.MockitoComponentManager;
 
+import com.xpn.xwiki.internal.file.DigestDiskFileItem;
 import com.xpn.xwiki.store.AttachmentVersioningStore;
 import com.xpn.xwiki.test.MockitoOldcore;
 import com.xpn.xwiki.test.component.XWikiDocumentFilterUtilsComponentList;
@@ -224,6 +227,27 @@ public void setContentViaOutputStream() throws Exception
         assertTrue(xac.isContentDirty());
     }
 
+    @Test
+    public void setContentFromFileItem() throws Exception
+    {
+        DigestDiskFileItem fileItem = new DigestDiskFileItem("file", null, false, "file.txt", 0, null);
+        try (OutputStream os = fileItem.getOutputStream()) {
+            IOUtils.write("content", os, StandardCharsets.UTF_8);
+        }
+
+        XWikiAttachment attachment = new XWikiAttachment();
+        attachment.setContent(fileItem);
+
+        assertEquals(7, attachment.getLongSize());
+        assertTrue(attachment.isContentDirty());
+        assertEquals("content", IOUtils.toString(attachment.getContentInputStream(null), StandardCharsets.UTF_8));
+        // The content is not copied
+        assertEquals(fileItem.getStoreLocation(), attachment.getAttachment_content().getContentFile());
+        assertEquals(DigestUtils.sha256Hex("content"), attachment.getAttachment_content().getDigest());
+
+        fileItem.delete();
+    }
+
     @Test
     public void setContentWithMaxSize() throws Exception
     {
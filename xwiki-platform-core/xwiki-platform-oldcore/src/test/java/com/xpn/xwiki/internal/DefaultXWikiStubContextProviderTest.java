@@ -19,9 +19,13 @@
  */
 package com.xpn.xwiki.internal;
 
+import javax.inject.Provider;
+
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.xwiki.model.reference.DocumentReference;
 import org.xwiki.test.junit5.mockito.InjectMockComponents;
+import org.xwiki.test.junit5.mockito.MockComponent;
 
 import com.xpn.xwiki.XWikiContext;
 import com.xpn.xwiki.test.MockitoOldcore;
@@ -34,7 +38,9 @@
 import com.xpn.xwiki.web.XWikiURLFactoryService;
 
 import static com.xpn.xwiki.test.mockito.OldcoreMatchers.anyXWikiContext;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.mockito.ArgumentMatchers.same;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
@@ -50,6 +56,9 @@
     @InjectMockitoOldcore
     private MockitoOldcore oldcore;
 
+    @MockComponent
+    private Provider<DocumentReference> defaultDocumentReferenceProvider;
+
     @InjectMockComponents
     private DefaultXWikiStubContextProvider provider;
 
@@ -64,6 +73,7 @@ public void beforeEach()
         when(this.oldcore.getSpyXWiki().getURLFactoryService()).thenReturn(this.urlFactoryService);
         when(this.urlFactoryService.createURLFactory(same(XWikiContext.MODE_SERVLET), anyXWikiContext()))
             .thenAnswer(invocation -> new XWikiServletURLFactory());
+        when(this.defaultDocumentReferenceProvider.get()).thenReturn(new DocumentReference("xwiki", "Main", "WebHome"));
 
         this.provider.initialize(this.oldcore.getXWikiContext());
     }
@@ -79,4 +89,35 @@ public void createStubContext()
         assertNotSame(xcontext1.getResponse(), xcontext2.getResponse());
         assertNotSame(xcontext1.getURLFactory(), xcontext2.getURLFactory());
     }
+
+    @Test
+    public void createStubContextIsolated()
+    {
+        XWikiContext xcontext1 = this.provider.createStubContext();
+        xcontext1.setWikiId("otherwiki");
+        xcontext1.put("key", "value");
+        ((XWikiServletRequestStub) ((XWikiServletRequest) xcontext1.getRequest()).getHttpServletRequest()).put("param",
+            "value");
+
+        XWikiContext xcontext2 = this.provider.createStubContext();
+
+        assertEquals(this.oldcore.getXWikiContext().getMainXWiki(), xcontext2.getWikiId());
+        assertNull(xcontext2.get("key"));
+        assertNull(xcontext2.getRequest().getParameter("param"));
+    }
+
+    @Test
+    public void createStubContextFromSeveralThreads() throws Exception
+    {
+        XWikiContext xcontext1 = this.provider.createStubContext();
+
+        XWikiContext[] xcontext2 = new XWikiContext[1];
+        Thread thread = new Thread(() -> xcontext2[0] = this.provider.createStubContext());
+        thread.start();
+        thread.join();
+
+        assertNotSame(xcontext1, xcontext2[0]);
+        assertEquals(xcontext1.getWikiId(), xcontext2[0].getWikiId());
+        assertNotSame(xcontext1.getRequest(), xcontext2[0].getRequest());
+    }
 }
@@ -0,0 +1,65 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package com.xpn.xwiki.internal.file;
+
+import java.io.File;
+
+import org.apache.commons.fileupload.FileItem;
+import org.apache.commons.fileupload.disk.DiskFileItem;
+import org.apache.commons.io.FileCleaningTracker;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.same;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Validate {@link DigestDiskFileItemFactory}.
+ *
+ * @version $Id$
+ */
+public class DigestDiskFileItemFactoryTest
+{
+    @Test
+    public void createItem()
+    {
+        FileCleaningTracker tracker = mock(FileCleaningTracker.class);
+
+        DigestDiskFileItemFactory factory = new DigestDiskFileItemFactory();
+        factory.setDefaultCharset("UTF-8");
+        factory.setFileCleaningTracker(tracker);
+
+        FileItem fileItem = factory.createItem("file", "text/plain", false, "file.txt");
+
+        assertTrue(fileItem instanceof DigestDiskFileItem);
+        // Same setup as the items created by DiskFileItemFactory
+        assertEquals("UTF-8", ((DiskFileItem) fileItem).getDefaultCharset());
+        verify(tracker).track(any(File.class), same(fileItem));
+
+        FileItem formField = factory.createItem("field", null, true, null);
+
+        assertFalse(formField instanceof DigestDiskFileItem);
+        assertEquals("UTF-8", ((DiskFileItem) formField).getDefaultCharset());
+    }
+}
@@ -50,4 +50,19 @@ public void testImportDocumentsPreserveVersion() throws FilterException, IOExcep
 
         assertXML("document1", outputProperties, inputProperties);
     }
+
+    @Test
+    public void testImportDocumentsStreaming() throws FilterException, IOException
+    {
+        DocumentInstanceOutputProperties outputProperties = new DocumentInstanceOutputProperties();
+        outputProperties.setVerbose(false);
+
+        DocumentInstanceInputProperties inputProperties = new DocumentInstanceInputProperties();
+        inputProperties.setWithRevisions(false);
+        inputProperties.setWithJRCSRevisions(false);
+        inputProperties.setStreaming(true);
+        inputProperties.setVerbose(false);
+
+        assertXML("document1", outputProperties, inputProperties);
+    }
 }
@@ -163,6 +163,25 @@ public void importDocument1WithPreserveVersion() throws FilterException, XWikiEx
         assertDocument1PreserveVersion(document);
     }
 
+    @Test
+    public void importDocument1WithSaveThreads() throws FilterException, XWikiException, ParseException
+    {
+        DocumentInstanceOutputProperties outputProperties = new DocumentInstanceOutputProperties();
+
+        outputProperties.setVersionPreserved(true);
+        outputProperties.setVerbose(false);
+        outputProperties.setSaveThreads(2);
+
+        importFromXML("document1", outputProperties);
+
+        XWikiDocument document = this.oldcore.getSpyXWiki().getDocument(new DocumentReference("wiki", "space", "page"),
+            this.oldcore.getXWikiContext());
+
+        assertFalse(document.isNew());
+
+        assertDocument1PreserveVersion(document);
+    }
+
     @Test
     public void importDocument1WithDeletePreviousAndPreserveVersion()
         throws FilterException, XWikiException, ParseException
@@ -19,6 +19,9 @@
  */
 package com.xpn.xwiki.store;
 
+import java.util.Arrays;
+import java.util.List;
+
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.xwiki.cache.Cache;
@@ -30,6 +33,7 @@
 import org.xwiki.observation.remote.RemoteObservationManagerContext;
 import org.xwiki.test.annotation.ComponentList;
 
+import com.xpn.xwiki.XWikiContext;
 import com.xpn.xwiki.XWikiException;
 import com.xpn.xwiki.doc.XWikiDocument;
 import com.xpn.xwiki.test.MockitoOldcore;
@@ -37,10 +41,13 @@
 import com.xpn.xwiki.test.junit5.mockito.OldcoreTest;
 
 import static com.xpn.xwiki.test.mockito.OldcoreMatchers.isCacheConfiguration;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
@@ -122,6 +129,37 @@ public void loadXWikiDoc() throws Exception
         verifyNoMoreInteractions(this.existCache);
     }
 
+    @Test
+    public void loadXWikiDocs() throws Exception
+    {
+        // Set current wiki
+        this.oldcore.getXWikiContext().setWikiId("wiki");
+        this.oldcore.getSpyXWiki().saveDocument(new XWikiDocument(new DocumentReference("wiki", "space", "page")),
+            this.oldcore.getXWikiContext());
+
+        XWikiDocument cachedDocument = new XWikiDocument(new DocumentReference("wiki", "space", "cached"));
+        when(this.cache.get("4:wiki5:space6:cached0:")).thenReturn(cachedDocument);
+
+        XWikiCacheStore store = new XWikiCacheStore(this.oldcore.getMockStore(), this.oldcore.getXWikiContext());
+
+        List<XWikiDocument> documents = store.loadXWikiDocs(
+            Arrays.asList(new XWikiDocument(new DocumentReference("wiki", "space", "page")), cachedDocument,
+                new XWikiDocument(new DocumentReference("wiki", "space", "nopage"))),
+            this.oldcore.getXWikiContext());
+
+        assertEquals(3, documents.size());
+        assertFalse(documents.get(0).isNew());
+        assertSame(cachedDocument, documents.get(1));
+        assertTrue(documents.get(2).isNew());
+
+        // Make sure only the missing documents have been loaded from the store, in one call
+        verify(this.oldcore.getMockStore()).loadXWikiDocs(argThat(docs -> docs.size() == 2),
+            any(XWikiContext.class));
+        verify(this.cache).set(eq("4:wiki5:space4:page0:"), any(XWikiDocument.class));
+        verify(this.existCache).set("4:wiki5:space4:page0:", Boolean.TRUE);
+        verify(this.existCache).set("4:wiki5:space6:nopage0:", Boolean.FALSE);
+    }
+
     @Test
     public void saveXWikiDocumentFailing() throws XWikiException
     {
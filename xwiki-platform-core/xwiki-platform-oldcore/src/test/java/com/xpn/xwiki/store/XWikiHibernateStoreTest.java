@@ -23,11 +23,15 @@
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.Date;
 import java.util.List;
 import java.util.Locale;
 
 import org.hibernate.Session;
 import org.hibernate.dialect.Dialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.metamodel.spi.MetamodelImplementor;
+import org.hibernate.persister.entity.EntityPersister;
 import org.hibernate.query.NativeQuery;
 import org.hibernate.query.Query;
 import org.junit.Before;
@@ -380,4 +384,52 @@ public void loadBacklinksFromSubwiki() throws Exception
         verify(this.hibernateStore).beginTransaction();
         verify(this.hibernateStore).endTransaction(false);
     }
+
+    @Test
+    public void loadXWikiDocs() throws Exception
+    {
+        EntityPersister persister = mock(EntityPersister.class);
+        when(persister.getPropertyNames()).thenReturn(new String[] { "fullName", "elements" });
+        MetamodelImplementor metamodel = mock(MetamodelImplementor.class);
+        when(metamodel.entityPersister(XWikiDocument.class)).thenReturn(persister);
+        SessionFactoryImplementor sessionFactory = mock(SessionFactoryImplementor.class);
+        when(sessionFactory.getMetamodel()).thenReturn(metamodel);
+        when(this.session.getSessionFactory()).thenReturn(sessionFactory);
+        when(this.hibernateStore.beginTransaction()).thenReturn(true);
+
+        XWikiDocument existingDocument = mock(XWikiDocument.class);
+        when(existingDocument.getId()).thenReturn(1L);
+        when(existingDocument.getFullName()).thenReturn("Space.Existing");
+        when(existingDocument.hasElement(XWikiDocument.HAS_OBJECTS)).thenReturn(true);
+        when(existingDocument.getDate()).thenReturn(new Date());
+        when(existingDocument.getCreationDate()).thenReturn(new Date());
+        when(existingDocument.getContentUpdateDate()).thenReturn(new Date());
+        XWikiDocument missingDocument = mock(XWikiDocument.class);
+        when(missingDocument.getId()).thenReturn(2L);
+
+        Query<Object[]> rowsQuery = mock(Query.class);
+        when(this.session.createQuery(
+            "select doc.id, doc.fullName, doc.elements from XWikiDocument as doc where doc.id in (:ids)",
+            Object[].class)).thenReturn(rowsQuery);
+        when(rowsQuery.list()).thenReturn(Collections.singletonList(new Object[] { 1L, "Space.Existing", 2 }));
+        Query<BaseObject> objectsQuery = mock(Query.class);
+        when(this.session.createQuery(
+            "from BaseObject as bobject where bobject.name in (:names) order by bobject.name, bobject.number",
+            BaseObject.class)).thenReturn(objectsQuery);
+        when(objectsQuery.list()).thenReturn(Collections.emptyList());
+
+        List<XWikiDocument> documents =
+            this.store.loadXWikiDocs(Arrays.asList(existingDocument, missingDocument), this.xcontext);
+
+        assertEquals(Arrays.asList(existingDocument, missingDocument), documents);
+
+        // The rows and the objects of all the documents are loaded with a single query each
+        verify(rowsQuery).setParameterList("ids", Arrays.asList(1L, 2L));
+        verify(persister).setPropertyValues(same(existingDocument), eq(new Object[] { "Space.Existing", 2 }));
+        verify(objectsQuery).setParameterList("names", Arrays.asList("Space.Existing"));
+        verify(this.session, never()).load(any(XWikiDocument.class), any());
+
+        verify(existingDocument).setNew(false);
+        verify(missingDocument).setNew(true);
+    }
 }
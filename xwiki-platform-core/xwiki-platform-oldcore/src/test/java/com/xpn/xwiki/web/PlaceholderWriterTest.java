@@ -0,0 +1,90 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package com.xpn.xwiki.web;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Validate {@link PlaceholderWriter}.
+ *
+ * @version $Id$
+ */
+public class PlaceholderWriterTest
+{
+    private static final String KEY1 = "KEYabcdefghijKEY";
+
+    private static final String KEY2 = "KEY0123456789KEY";
+
+    private String write(Map<String, String> placeholders, String... chunks) throws IOException
+    {
+        StringWriter result = new StringWriter();
+        try (PlaceholderWriter writer = new PlaceholderWriter(result, placeholders)) {
+            for (String chunk : chunks) {
+                writer.write(chunk);
+                // Force the processing of the current buffer
+                writer.flush();
+            }
+        }
+
+        return result.toString();
+    }
+
+    @Test
+    public void replace() throws IOException
+    {
+        Map<String, String> placeholders = new HashMap<>();
+        placeholders.put(KEY1, "value1");
+        placeholders.put(KEY2, "value2");
+
+        assertEquals("avalue1bvalue2cvalue1", write(placeholders, "a" + KEY1 + "b" + KEY2 + "c" + KEY1));
+        assertEquals("KEY no KEY placeholder KEY", write(placeholders, "KEY no KEY placeholder KEY"));
+        assertEquals("KEYvalue1KEY", write(placeholders, "KEY" + KEY1 + "KEY"));
+    }
+
+    @Test
+    public void replaceSplitPlaceholder() throws IOException
+    {
+        Map<String, String> placeholders = new HashMap<>();
+        placeholders.put(KEY1, "value1");
+
+        StringWriter result = new StringWriter();
+        try (PlaceholderWriter writer = new PlaceholderWriter(result, placeholders)) {
+            StringBuilder content = new StringBuilder();
+            for (int i = 0; i < 9000; ++i) {
+                content.append('a');
+            }
+            // Make sure the placeholder is cut by the buffer processing
+            content.append(KEY1, 0, 8);
+            writer.write(content.toString());
+            writer.write(KEY1.substring(8));
+            writer.write("b");
+        }
+
+        assertEquals(9000 + "value1b".length(), result.toString().length());
+        assertEquals("value1b", result.toString().substring(9000));
+    }
+}
@@ -0,0 +1,154 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package com.xpn.xwiki.web;
+
+import java.io.File;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import org.apache.commons.fileupload.disk.DiskFileItem;
+import org.apache.commons.io.IOUtils;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.xwiki.localization.ContextualLocalizationManager;
+import org.xwiki.model.reference.DocumentReference;
+import org.xwiki.test.junit5.mockito.MockComponent;
+
+import com.xpn.xwiki.XWikiContext;
+import com.xpn.xwiki.XWikiException;
+import com.xpn.xwiki.doc.XWikiAttachment;
+import com.xpn.xwiki.doc.XWikiDocument;
+import com.xpn.xwiki.plugin.fileupload.FileUploadPlugin;
+import com.xpn.xwiki.test.MockitoOldcore;
+import com.xpn.xwiki.test.junit5.mockito.InjectMockitoOldcore;
+import com.xpn.xwiki.test.junit5.mockito.OldcoreTest;
+import com.xpn.xwiki.test.reference.ReferenceComponentList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.doThrow;
+
+/**
+ * Unit tests for {@link UploadAction}.
+ *
+ * @version $Id$
+ */
+@OldcoreTest
+@ReferenceComponentList
+public class UploadActionTest
+{
+    private static final DocumentReference DOCUMENT_REFERENCE = new DocumentReference("xwiki", "Space", "Page");
+
+    private static final DocumentReference USER_REFERENCE = new DocumentReference("xwiki", "XWiki", "User");
+
+    private static final String FIELD_NAME = "filepath";
+
+    private static final String FILE_NAME = "file.txt";
+
+    @MockComponent
+    private ContextualLocalizationManager localization;
+
+    @InjectMockitoOldcore
+    private MockitoOldcore oldcore;
+
+    @Mock
+    private XWikiRequest request;
+
+    private XWikiContext xcontext;
+
+    private DiskFileItem fileItem;
+
+    private FileUploadPlugin fileupload;
+
+    private XWikiDocument document;
+
+    /**
+     * The object being tested.
+     */
+    private UploadAction uploadAction = new UploadAction();
+
+    @BeforeEach
+    public void beforeEach() throws Exception
+    {
+        this.xcontext = this.oldcore.getXWikiContext();
+        this.xcontext.setRequest(this.request);
+        this.xcontext.setUserReference(USER_REFERENCE);
+
+        // Make sure the uploaded content is stored on disk
+        this.fileItem = new DiskFileItem(FIELD_NAME, "text/plain", false, FILE_NAME, 0,
+            this.oldcore.getTemporaryDirectory());
+        try (OutputStream stream = this.fileItem.getOutputStream()) {
+            stream.write("content".getBytes(StandardCharsets.UTF_8));
+        }
+        this.xcontext.put(FileUploadPlugin.FILE_LIST_KEY, new ArrayList<>(Arrays.asList(this.fileItem)));
+        this.fileupload =
+            new FileUploadPlugin(FileUploadPlugin.PLUGIN_NAME, FileUploadPlugin.class.getName(), this.xcontext);
+
+        this.document = new XWikiDocument(DOCUMENT_REFERENCE);
+
+        doNothing().when(this.oldcore.getSpyXWiki()).checkSavingDocument(any(), any(XWikiDocument.class), any(),
+            anyBoolean(), any(XWikiContext.class));
+    }
+
+    @Test
+    public void uploadAttachment() throws Exception
+    {
+        File uploadedFile = this.fileItem.getStoreLocation();
+        assertTrue(uploadedFile.exists());
+
+        assertFalse(
+            this.uploadAction.uploadAttachment(FIELD_NAME, FILE_NAME, this.fileupload, this.document, this.xcontext));
+
+        // The attachment content is the uploaded file, not a copy
+        XWikiAttachment attachment = this.document.getAttachment(FILE_NAME);
+        assertEquals(uploadedFile, attachment.getAttachment_content().getContentFile());
+        assertEquals("content",
+            IOUtils.toString(attachment.getContentInputStream(this.xcontext), StandardCharsets.UTF_8));
+
+        // The uploaded file is not deleted at the end of the request since the attachment owns it
+        assertFalse(this.fileupload.getFileItems(this.xcontext).contains(this.fileItem));
+        this.fileupload.cleanFileList(this.xcontext);
+        assertTrue(uploadedFile.exists());
+    }
+
+    @Test
+    public void uploadAttachmentWhenSaveFails() throws Exception
+    {
+        File uploadedFile = this.fileItem.getStoreLocation();
+        doThrow(new XWikiException()).when(this.oldcore.getSpyXWiki()).saveDocument(any(XWikiDocument.class),
+            any(String.class), any(XWikiContext.class));
+
+        assertThrows(XWikiException.class, () -> this.uploadAction.uploadAttachment(FIELD_NAME, FILE_NAME,
+            this.fileupload, this.document, this.xcontext));
+
+        // Nobody owns the uploaded file so it's deleted at the end of the request
+        assertTrue(this.fileupload.getFileItems(this.xcontext).contains(this.fileItem));
+        this.fileupload.cleanFileList(this.xcontext);
+        assertFalse(uploadedFile.exists());
+    }
+}
@@ -28,6 +28,8 @@
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
 
 /**
  * Validate {@link XWikiServletRequestStub}.
@@ -54,4 +56,29 @@ public void copy() throws MalformedURLException
         assertEquals(contextPath, copiedRequest.getContextPath());
         assertFalse(copiedRequest.isDaemon());
     }
+
+    @Test
+    public void copyOnWrite() throws MalformedURLException
+    {
+        XWikiServletRequestStub request =
+            new XWikiServletRequestStub(new URL("http://host:42/contextPath/path"), "contextPath", null);
+        request.put("param", "value");
+
+        XWikiServletRequestStub copiedRequest = request.copy();
+
+        assertEquals("value", copiedRequest.getParameter("param"));
+        assertEquals(request.getRequestURL().toString(), copiedRequest.getRequestURL().toString());
+        assertNotSame(request.getRequestURL(), copiedRequest.getRequestURL());
+
+        copiedRequest.put("other", "copy");
+        copiedRequest.setHost("otherhost");
+        request.put("param", "value2");
+
+        assertNull(request.getParameter("other"));
+        assertEquals("copy", copiedRequest.getParameter("other"));
+        assertEquals(1, copiedRequest.getParameterValues("param").length);
+        assertEquals(2, request.getParameterValues("param").length);
+        assertEquals("host", request.getHeaders("x-forwarded-host").nextElement());
+        assertEquals("otherhost", copiedRequest.getHeaders("x-forwarded-host").nextElement());
+    }
 }
@@ -62,6 +62,13 @@
 
     public static final String AVERAGERATING_CLASS_FIELDNAME_AVERAGEVOTE_METHOD = "method";
 
+    /**
+     * The sum of the votes, used to update the average vote without loading all the ratings.
+     *
+     * @since 12.0RC1
+     */
+    public static final String AVERAGERATING_CLASS_FIELDNAME_TOTALVOTE = "totalvote";
+
     public static final String RATING_REPUTATION_METHOD_BALANCED = "balanced";
 
     public static final String RATING_REPUTATION_METHOD_AVERAGE = "average";
@@ -19,7 +19,9 @@
  */
 package org.xwiki.ratings.internal;
 
+import java.util.Arrays;
 import java.util.List;
+import java.util.stream.Stream;
 
 import javax.inject.Inject;
 import javax.inject.Provider;
@@ -33,6 +35,9 @@
 import org.xwiki.ratings.RatingsException;
 import org.xwiki.ratings.RatingsManager;
 import org.xwiki.ratings.ReputationException;
+import org.xwiki.ratings.UpdateRatingEvent;
+import org.xwiki.ratings.UpdateRatingFailedEvent;
+import org.xwiki.ratings.UpdatingRatingEvent;
 
 import com.xpn.xwiki.XWiki;
 import com.xpn.xwiki.XWikiContext;
@@ -47,6 +52,19 @@
  */
 public abstract class AbstractRatingsManager implements RatingsManager
 {
+    private static final String AVERAGE_RATING_QUERY =
+        "select sum(avgvote.value) as vote, count(avgvote.value) as nbvotes from XWikiDocument as doc %s"
+            + ", BaseObject as avgobj, FloatProperty as avgvote, StringProperty as avgmethod %s"
+            + "doc.fullName=avgobj.name and avgobj.className=?1"
+            + " and avgobj.id=avgvote.id.id and avgvote.id.name='" + AVERAGERATING_CLASS_FIELDNAME_AVERAGEVOTE
+            + "' and avgobj.id=avgmethod.id.id and avgmethod.id.name='"
+            + AVERAGERATING_CLASS_FIELDNAME_AVERAGEVOTE_METHOD + "' and avgmethod.value=?2";
+
+    /**
+     * The number of locks used to serialize the updates of the average ratings of a same document.
+     */
+    private static final int AVERAGE_RATING_LOCKS = 64;
+
     @Inject
     protected ObservationManager observationManager;
 
@@ -59,6 +77,16 @@ public abstract class AbstractRatingsManager implements RatingsManager
     @Inject
     private RatingsConfiguration ratingsConfiguration;
 
+    @Inject
+    private AverageRatingAggregates aggregates;
+
+    /**
+     * The incremental update of an average rating reads the stored sum and number of votes before writing them back so
+     * two concurrent votes on the same document must not be interleaved. The locks are shared by the documents with
+     * the same hash to avoid keeping one lock per document.
+     */
+    private final Object[] averageRatingLocks = Stream.generate(Object::new).limit(AVERAGE_RATING_LOCKS).toArray();
+
     @Override
     public String getRatingsClassName()
     {
@@ -180,28 +208,21 @@ public AverageRating getAverageRatingFromQuery(String fromsql, String wheresql,
         throws RatingsException
     {
         try {
-            String fromsql2 =
-                fromsql + ", BaseObject as avgobj, FloatProperty as avgvote, StringProperty as avgmethod ";
-            String wheresql2 =
-                (wheresql.equals("") ? "where " : wheresql + " and ")
-                    + "doc.fullName=avgobj.name and avgobj.className='" + getAverageRatingsClassName()
-                    + "' and avgobj.id=avgvote.id.id and avgvote.id.name='" + AVERAGERATING_CLASS_FIELDNAME_AVERAGEVOTE
-                    + "' and avgobj.id=avgmethod.id.id and avgmethod.id.name='"
-                    + AVERAGERATING_CLASS_FIELDNAME_AVERAGEVOTE_METHOD + "' and avgmethod.value='" + method + "'";
             String sql =
-                "select sum(avgvote.value) as vote, count(avgvote.value) as nbvotes from XWikiDocument as doc "
-                    + fromsql2 + wheresql2;
+                String.format(AVERAGE_RATING_QUERY, fromsql, wheresql.equals("") ? "where " : wheresql + " and ");
 
             if (logger.isDebugEnabled()) {
                 logger.debug("Running average rating with sql " + sql);
             }
             getXWikiContext().put("lastsql", sql);
 
-            List result = getXWiki().getStore().search(sql, 0, 0, getXWikiContext());
-            float vote = ((Number) ((Object[]) result.get(0))[0]).floatValue();
+            List result = getXWiki().getStore().search(sql, 0, 0,
+                Arrays.asList(getAverageRatingsClassName(), method), getXWikiContext());
+            Number vote = (Number) ((Object[]) result.get(0))[0];
             int nbvotes = ((Number) ((Object[]) result.get(0))[1]).intValue();
 
-            AverageRating avgr = new MemoryAverageRating(null, nbvotes, vote / nbvotes, method);
+            AverageRating avgr =
+                new MemoryAverageRating(null, nbvotes, nbvotes > 0 ? vote.floatValue() / nbvotes : 0, method);
             return avgr;
         } catch (XWikiException e) {
             throw new RatingsException(e);
@@ -211,7 +232,35 @@ public AverageRating getAverageRatingFromQuery(String fromsql, String wheresql,
     @Override
     public boolean removeRating(Rating rating) throws RatingsException
     {
-        return rating.remove();
+        DocumentReference documentRef = rating.getDocumentReference();
+        int vote = rating.getVote();
+
+        // Indicate that we start modifying the rating
+        this.observationManager.notify(new UpdatingRatingEvent(documentRef, rating, vote), null);
+
+        boolean updateFailed = true;
+        boolean removed;
+        try {
+            removed = rating.remove();
+
+            // Take the removed vote out of the average rating, unless it was not counted in the first place
+            if (removed && vote != 0 && isAverageRatingStored(documentRef)) {
+                for (String method : getDefaultReputationMethods(documentRef)) {
+                    updateAverageRating(documentRef, method, -vote, -1, false);
+                }
+            }
+
+            updateFailed = false;
+        } finally {
+            // The vote is the same before and after the event so that the reputations are left untouched
+            if (updateFailed) {
+                this.observationManager.notify(new UpdateRatingFailedEvent(documentRef, rating, vote), null);
+            } else {
+                this.observationManager.notify(new UpdateRatingEvent(documentRef, rating, vote), null);
+            }
+        }
+
+        return removed;
     }
 
     @Override
@@ -269,19 +318,74 @@ public void updateAverageRating(DocumentReference documentRef, Rating rating, in
     {
         // we only update if we are in stored mode and if the vote changed
         if (isAverageRatingStored(documentRef) && oldVote != rating.getVote()) {
+            // an old vote of 0 means that it's a new rating
+            updateAverageRating(documentRef, method, rating.getVote() - oldVote, oldVote == 0 ? 1 : 0, false);
+        }
+    }
+
+    /**
+     * Recomputes the stored average rating of a document from all its ratings, to repair any drift of the
+     * incrementally maintained average.
+     *
+     * @param documentRef the rated document
+     * @param method the method used to compute the average rating
+     * @throws RatingsException when failing to compute or save the average rating
+     * @since 12.0RC1
+     */
+    public void recomputeAverageRating(DocumentReference documentRef, String method) throws RatingsException
+    {
+        if (isAverageRatingStored(documentRef)) {
+            // Indicate that we start modifying the average rating
+            this.observationManager.notify(new UpdatingRatingEvent(documentRef, null, 0), null);
+
+            try {
+                updateAverageRating(documentRef, method, 0, 0, true);
+            } finally {
+                // No vote changed so there is no reputation to update
+                this.observationManager.notify(new UpdateRatingFailedEvent(documentRef, null, 0), null);
+            }
+        }
+    }
+
+    private void updateAverageRating(DocumentReference documentRef, String method, int voteDelta, int nbVotesDelta,
+        boolean recompute) throws RatingsException
+    {
+        Object lock = this.averageRatingLocks[Math.floorMod(documentRef.hashCode(), this.averageRatingLocks.length)];
+
+        synchronized (lock) {
+            updateAverageRatingLocked(documentRef, method, voteDelta, nbVotesDelta, recompute);
+        }
+    }
+
+    private void updateAverageRatingLocked(DocumentReference documentRef, String method, int voteDelta,
+        int nbVotesDelta, boolean recompute) throws RatingsException
+    {
+        AverageRating averageRating = getAverageRating(documentRef, method, true);
+
+        StoredAverageRating storedRating = null;
+        if (averageRating instanceof StoredAverageRating && method.equals(RATING_REPUTATION_METHOD_AVERAGE)) {
+            storedRating = (StoredAverageRating) averageRating;
+        }
+
+        if (!recompute && storedRating != null && storedRating.hasTotalVote()) {
+            // Only the sum and the number of votes are needed to maintain an average, no need to load all the ratings
+            long totalVote = storedRating.getTotalVote() + voteDelta;
+            int nbVotes = storedRating.getNbVotes() + nbVotesDelta;
+            storedRating.setTotalVote(totalVote);
+            storedRating.setNbVotes(nbVotes);
+            storedRating.setAverageVote(nbVotes > 0 ? (float) totalVote / nbVotes : 0);
+        } else {
             AverageRating aRating = calcAverageRating(documentRef, method);
-            AverageRating averageRating = getAverageRating(documentRef, method, true);
             averageRating.setAverageVote(aRating.getAverageVote());
             averageRating.setNbVotes(aRating.getNbVotes());
-            averageRating.save();
-            /*
-             * StoredAverageRating averageRating = (StoredAverageRating) getAverageRating(container, method, true,
-             * context); int diffTotal = rating.getVote() - oldVote; int diffNbVotes = (oldVote==0) ? 1 : 0; int
-             * oldNbVotes = averageRating.getNbVotes(); averageRating.setNbVotes(oldNbVotes + diffNbVotes);
-             * averageRating.setAverageVote((averageRating.getAverageVote()*oldNbVotes + diffTotal) / (oldNbVotes +
-             * diffNbVotes));
-             */
+            if (storedRating != null) {
+                storedRating.setTotalVote(Math.round((double) aRating.getAverageVote() * aRating.getNbVotes()));
+            }
         }
+
+        averageRating.save();
+
+        this.aggregates.update(documentRef, method, averageRating.getNbVotes(), averageRating.getAverageVote());
     }
 
     @Override
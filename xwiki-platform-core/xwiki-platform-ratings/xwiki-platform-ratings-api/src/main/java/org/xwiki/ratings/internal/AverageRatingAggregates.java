@@ -0,0 +1,238 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.ratings.internal;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import org.apache.commons.lang3.tuple.ImmutablePair;
+import org.apache.commons.lang3.tuple.Pair;
+import org.xwiki.component.annotation.Component;
+import org.xwiki.model.reference.DocumentReference;
+import org.xwiki.model.reference.DocumentReferenceResolver;
+import org.xwiki.model.reference.WikiReference;
+import org.xwiki.query.Query;
+import org.xwiki.query.QueryException;
+import org.xwiki.query.QueryManager;
+import org.xwiki.ratings.AverageRating;
+import org.xwiki.ratings.RatingsManager;
+
+/**
+ * Keep in memory the stored average ratings of the documents of each wiki, so that the best rated documents can be
+ * listed without querying the database. The average ratings of a wiki and a method are loaded with a single query the
+ * first time they are needed and then kept up to date by the ratings managers and by
+ * {@link AverageRatingAggregatesListener} for the changes made elsewhere.
+ *
+ * @version $Id$
+ * @since 12.0RC1
+ */
+@Component(roles = AverageRatingAggregates.class)
+@Singleton
+public class AverageRatingAggregates
+{
+    private static final String QUERY = "select avgobj.name, nbvotes.value, avgvote.value "
+        + "from BaseObject as avgobj, IntegerProperty as nbvotes, FloatProperty as avgvote, "
+        + "StringProperty as avgmethod "
+        + "where avgobj.className = :className and avgobj.id = nbvotes.id.id and nbvotes.id.name = :nbVotes "
+        + "and avgobj.id = avgvote.id.id and avgvote.id.name = :averageVote "
+        + "and avgobj.id = avgmethod.id.id and avgmethod.id.name = :methodField and avgmethod.value = :method";
+
+    private static final Comparator<AverageRating> BEST_RATED =
+        Comparator.comparingDouble(AverageRating::getAverageVote).thenComparingInt(AverageRating::getNbVotes);
+
+    @Inject
+    private QueryManager queryManager;
+
+    @Inject
+    @Named("current")
+    private DocumentReferenceResolver<String> resolver;
+
+    private final Map<Pair<String, String>, Map<DocumentReference, MemoryAverageRating>> aggregates =
+        new ConcurrentHashMap<>();
+
+    /**
+     * Update the average rating of a document.
+     *
+     * @param documentReference the rated document
+     * @param method the method used to compute the average rating
+     * @param nbVotes the new number of votes
+     * @param averageVote the new average vote
+     */
+    public void update(DocumentReference documentReference, String method, int nbVotes, float averageVote)
+    {
+        Map<DocumentReference, MemoryAverageRating> ratings =
+            this.aggregates.get(new ImmutablePair<>(documentReference.getWikiReference().getName(), method));
+
+        // Nothing to do if the average ratings of the wiki are not loaded yet, they will be read from the database
+        if (ratings != null) {
+            if (nbVotes > 0) {
+                ratings.put(documentReference,
+                    new MemoryAverageRating(documentReference, nbVotes, averageVote, method));
+            } else {
+                ratings.remove(documentReference);
+            }
+        }
+    }
+
+    /**
+     * Replace the average ratings of a document, for example when they were modified without going through the ratings
+     * managers (on another cluster member or by editing the average rating objects directly).
+     *
+     * @param documentReference the rated document
+     * @param averageRatings the current average ratings of the document, one per method
+     */
+    public void update(DocumentReference documentReference, Collection<? extends AverageRating> averageRatings)
+    {
+        String wiki = documentReference.getWikiReference().getName();
+        this.aggregates.forEach((key, ratings) -> {
+            if (key.getLeft().equals(wiki)) {
+                AverageRating averageRating = averageRatings.stream()
+                    .filter(rating -> key.getRight().equals(rating.getMethod())).findFirst().orElse(null);
+
+                if (averageRating != null && averageRating.getNbVotes() > 0) {
+                    ratings.put(documentReference, new MemoryAverageRating(documentReference,
+                        averageRating.getNbVotes(), averageRating.getAverageVote(), key.getRight()));
+                } else {
+                    ratings.remove(documentReference);
+                }
+            }
+        });
+    }
+
+    /**
+     * Forget the average ratings of a document, whatever the method used to compute them.
+     *
+     * @param documentReference the document which is not rated anymore
+     */
+    public void remove(DocumentReference documentReference)
+    {
+        String wiki = documentReference.getWikiReference().getName();
+        this.aggregates.forEach((key, ratings) -> {
+            if (key.getLeft().equals(wiki)) {
+                ratings.remove(documentReference);
+            }
+        });
+    }
+
+    /**
+     * Forget the average ratings of a wiki, they will be read again from the database when needed.
+     *
+     * @param wiki the identifier of the wiki
+     */
+    public void invalidate(String wiki)
+    {
+        this.aggregates.keySet().removeIf(key -> key.getLeft().equals(wiki));
+    }
+
+    /**
+     * @param wiki the identifier of the wiki
+     * @param method the method used to compute the average ratings
+     * @param count the maximum number of average ratings to return
+     * @return the best average ratings of the wiki documents, best first
+     * @throws QueryException when failing to load the average ratings of the wiki
+     */
+    public List<MemoryAverageRating> getBestRated(String wiki, String method, int count) throws QueryException
+    {
+        return getBestRated(wiki, method, count, documentReference -> true);
+    }
+
+    /**
+     * @param wiki the identifier of the wiki
+     * @param method the method used to compute the average ratings
+     * @param count the maximum number of average ratings to return
+     * @param filter the documents which can be returned (only called for the documents which are good enough to be
+     *            part of the result)
+     * @return the best average ratings of the wiki documents accepted by the filter, best first
+     * @throws QueryException when failing to load the average ratings of the wiki
+     */
+    public List<MemoryAverageRating> getBestRated(String wiki, String method, int count,
+        Predicate<DocumentReference> filter) throws QueryException
+    {
+        Map<DocumentReference, MemoryAverageRating> ratings = getRatings(wiki, method);
+
+        // Keep the best ratings in a min-heap to avoid sorting all the documents of the wiki
+        PriorityQueue<MemoryAverageRating> best = new PriorityQueue<>(Math.min(count, ratings.size()) + 1, BEST_RATED);
+        for (MemoryAverageRating rating : ratings.values()) {
+            if (count > 0 && (best.size() < count || BEST_RATED.compare(rating, best.peek()) > 0)
+                && filter.test(rating.getDocumentReference())) {
+                best.offer(rating);
+                if (best.size() > count) {
+                    best.poll();
+                }
+            }
+        }
+
+        List<MemoryAverageRating> result = new ArrayList<>(best);
+        result.sort(BEST_RATED.reversed());
+
+        return result;
+    }
+
+    private Map<DocumentReference, MemoryAverageRating> getRatings(String wiki, String method) throws QueryException
+    {
+        Pair<String, String> key = new ImmutablePair<>(wiki, method);
+
+        Map<DocumentReference, MemoryAverageRating> ratings = this.aggregates.get(key);
+        if (ratings == null) {
+            ratings = load(wiki, method);
+
+            Map<DocumentReference, MemoryAverageRating> previous = this.aggregates.putIfAbsent(key, ratings);
+            if (previous != null) {
+                ratings = previous;
+            }
+        }
+
+        return ratings;
+    }
+
+    private Map<DocumentReference, MemoryAverageRating> load(String wiki, String method) throws QueryException
+    {
+        Query query = this.queryManager.createQuery(QUERY, Query.HQL);
+        query.setWiki(wiki);
+        query.bindValue("className", RatingsManager.AVERAGE_RATINGS_CLASSNAME);
+        query.bindValue("nbVotes", RatingsManager.AVERAGERATING_CLASS_FIELDNAME_NBVOTES);
+        query.bindValue("averageVote", RatingsManager.AVERAGERATING_CLASS_FIELDNAME_AVERAGEVOTE);
+        query.bindValue("methodField", RatingsManager.AVERAGERATING_CLASS_FIELDNAME_AVERAGEVOTE_METHOD);
+        query.bindValue("method", method);
+
+        WikiReference wikiReference = new WikiReference(wiki);
+        Map<DocumentReference, MemoryAverageRating> ratings = new ConcurrentHashMap<>();
+        for (Object[] result : query.<Object[]>execute()) {
+            int nbVotes = ((Number) result[1]).intValue();
+            if (nbVotes > 0) {
+                DocumentReference documentReference = this.resolver.resolve((String) result[0], wikiReference);
+                ratings.put(documentReference, new MemoryAverageRating(documentReference, nbVotes,
+                    ((Number) result[2]).floatValue(), method));
+            }
+        }
+
+        return ratings;
+    }
+}
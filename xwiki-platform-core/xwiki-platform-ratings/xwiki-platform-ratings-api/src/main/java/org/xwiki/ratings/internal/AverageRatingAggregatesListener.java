@@ -0,0 +1,114 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.ratings.internal;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import org.xwiki.bridge.event.DocumentDeletedEvent;
+import org.xwiki.bridge.event.WikiDeletedEvent;
+import org.xwiki.component.annotation.Component;
+import org.xwiki.observation.AbstractEventListener;
+import org.xwiki.observation.event.Event;
+import org.xwiki.ratings.RatingsManager;
+
+import com.xpn.xwiki.doc.XWikiDocument;
+import com.xpn.xwiki.internal.event.XObjectEvent;
+import com.xpn.xwiki.objects.BaseObject;
+import com.xpn.xwiki.objects.BaseObjectReference;
+
+/**
+ * Remove the deleted documents and wikis from the in-memory average ratings and reload the average ratings of a
+ * document when its average rating objects are modified. The object events are also generated for the documents
+ * modified on the other members of the cluster, and for the average rating objects saved without the ratings API.
+ *
+ * @version $Id$
+ * @since 12.0RC1
+ */
+@Component
+@Named(AverageRatingAggregatesListener.NAME)
+@Singleton
+public class AverageRatingAggregatesListener extends AbstractEventListener
+{
+    /**
+     * The name of this event listener.
+     */
+    public static final String NAME = "AverageRatingAggregatesListener";
+
+    @Inject
+    private AverageRatingAggregates aggregates;
+
+    /**
+     * Default constructor.
+     */
+    public AverageRatingAggregatesListener()
+    {
+        super(NAME, getListenedEvents());
+    }
+
+    private static List<Event> getListenedEvents()
+    {
+        List<Event> events = new ArrayList<>(BaseObjectReference.anyEvents(RatingsManager.AVERAGE_RATINGS_CLASSNAME));
+        events.add(new DocumentDeletedEvent());
+        events.add(new WikiDeletedEvent());
+
+        return events;
+    }
+
+    @Override
+    public void onEvent(Event event, Object source, Object data)
+    {
+        if (event instanceof WikiDeletedEvent) {
+            this.aggregates.invalidate(((WikiDeletedEvent) event).getWikiId());
+        } else {
+            XWikiDocument document = (XWikiDocument) source;
+
+            // The average ratings are stored in the default translation
+            if (document.getLocale().equals(Locale.ROOT)) {
+                if (event instanceof XObjectEvent) {
+                    this.aggregates.update(document.getDocumentReference(), getAverageRatings(document));
+                } else {
+                    this.aggregates.remove(document.getDocumentReference());
+                }
+            }
+        }
+    }
+
+    private List<MemoryAverageRating> getAverageRatings(XWikiDocument document)
+    {
+        List<MemoryAverageRating> averageRatings = new ArrayList<>();
+        for (BaseObject averageRatingObject : document.getXObjects(RatingsManager.AVERAGE_RATINGS_CLASSREFERENCE)) {
+            if (averageRatingObject != null) {
+                averageRatings.add(new MemoryAverageRating(document.getDocumentReference(),
+                    averageRatingObject.getIntValue(RatingsManager.AVERAGERATING_CLASS_FIELDNAME_NBVOTES),
+                    averageRatingObject.getFloatValue(RatingsManager.AVERAGERATING_CLASS_FIELDNAME_AVERAGEVOTE),
+                    averageRatingObject
+                        .getStringValue(RatingsManager.AVERAGERATING_CLASS_FIELDNAME_AVERAGEVOTE_METHOD)));
+            }
+        }
+
+        return averageRatings;
+    }
+}
@@ -53,5 +53,6 @@ protected void createClass(BaseClass xclass)
         xclass.addNumberField(RatingsManager.AVERAGERATING_CLASS_FIELDNAME_NBVOTES, "Number of Votes", 5, "integer");
         xclass.addNumberField(RatingsManager.AVERAGERATING_CLASS_FIELDNAME_AVERAGEVOTE, "Average Vote", 5, "float");
         xclass.addTextField(RatingsManager.AVERAGERATING_CLASS_FIELDNAME_AVERAGEVOTE_METHOD, "Average Vote method", 10);
+        xclass.addNumberField(RatingsManager.AVERAGERATING_CLASS_FIELDNAME_TOTALVOTE, "Total Vote", 10, "long");
     }
 }
@@ -0,0 +1,159 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.ratings.internal;
+
+import java.util.List;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Provider;
+
+import org.xwiki.component.annotation.Component;
+import org.xwiki.component.annotation.InstantiationStrategy;
+import org.xwiki.component.descriptor.ComponentInstantiationStrategy;
+import org.xwiki.job.AbstractJob;
+import org.xwiki.job.DefaultJobStatus;
+import org.xwiki.job.Request;
+import org.xwiki.model.reference.DocumentReference;
+import org.xwiki.model.reference.DocumentReferenceResolver;
+import org.xwiki.model.reference.WikiReference;
+import org.xwiki.query.Query;
+import org.xwiki.query.QueryManager;
+import org.xwiki.ratings.ConfiguredProvider;
+import org.xwiki.ratings.RatingsException;
+import org.xwiki.ratings.RatingsManager;
+
+import com.xpn.xwiki.XWikiContext;
+
+/**
+ * Recompute from the ratings all the average ratings stored in a wiki, to repair the drift of the incrementally
+ * maintained averages.
+ *
+ * @version $Id$
+ * @since 12.0RC1
+ */
+@Component
+@InstantiationStrategy(ComponentInstantiationStrategy.PER_LOOKUP)
+@Named(AverageRatingsRecomputeJob.JOBTYPE)
+public class AverageRatingsRecomputeJob
+    extends AbstractJob<AverageRatingsRecomputeRequest, DefaultJobStatus<AverageRatingsRecomputeRequest>>
+{
+    /**
+     * The id of the job.
+     */
+    public static final String JOBTYPE = "ratings.averages.recompute";
+
+    private static final String QUERY = "select distinct avgobj.name, avgmethod.value "
+        + "from BaseObject as avgobj, StringProperty as avgmethod where avgobj.className = :className "
+        + "and avgobj.id = avgmethod.id.id and avgmethod.id.name = :methodField";
+
+    @Inject
+    private transient QueryManager queryManager;
+
+    @Inject
+    @Named("current")
+    private transient DocumentReferenceResolver<String> resolver;
+
+    @Inject
+    private transient ConfiguredProvider<RatingsManager> ratingsManagerProvider;
+
+    @Inject
+    private transient AverageRatingAggregates aggregates;
+
+    @Inject
+    private transient Provider<XWikiContext> xcontextProvider;
+
+    @Override
+    public String getType()
+    {
+        return JOBTYPE;
+    }
+
+    @Override
+    protected AverageRatingsRecomputeRequest castRequest(Request request)
+    {
+        AverageRatingsRecomputeRequest recomputeRequest;
+        if (request instanceof AverageRatingsRecomputeRequest) {
+            recomputeRequest = (AverageRatingsRecomputeRequest) request;
+        } else {
+            recomputeRequest = new AverageRatingsRecomputeRequest(request);
+        }
+
+        return recomputeRequest;
+    }
+
+    @Override
+    protected void runInternal() throws Exception
+    {
+        String wiki = getRequest().getWiki();
+
+        // The ratings configuration depends on the current wiki
+        XWikiContext xcontext = this.xcontextProvider.get();
+        String currentWiki = xcontext.getWikiId();
+        xcontext.setWikiId(wiki);
+
+        try {
+            Query query = this.queryManager.createQuery(QUERY, Query.HQL);
+            query.setWiki(wiki);
+            query.bindValue("className", RatingsManager.AVERAGE_RATINGS_CLASSNAME);
+            query.bindValue("methodField", RatingsManager.AVERAGERATING_CLASS_FIELDNAME_AVERAGEVOTE_METHOD);
+            List<Object[]> averageRatings = query.execute();
+
+            this.logger.info("Recompute [{}] average ratings in wiki [{}].", averageRatings.size(), wiki);
+
+            recompute(averageRatings, new WikiReference(wiki));
+        } finally {
+            xcontext.setWikiId(currentWiki);
+
+            // Reload the best rated documents from the database
+            this.aggregates.invalidate(wiki);
+        }
+    }
+
+    private void recompute(List<Object[]> averageRatings, WikiReference wikiReference)
+    {
+        this.progressManager.pushLevelProgress(averageRatings.size(), this);
+
+        try {
+            for (Object[] averageRating : averageRatings) {
+                this.progressManager.startStep(this);
+
+                DocumentReference documentReference = this.resolver.resolve((String) averageRating[0], wikiReference);
+                String method = (String) averageRating[1];
+                RatingsManager ratingsManager = this.ratingsManagerProvider.get(documentReference);
+                if (ratingsManager instanceof AbstractRatingsManager) {
+                    try {
+                        ((AbstractRatingsManager) ratingsManager).recomputeAverageRating(documentReference, method);
+                    } catch (RatingsException e) {
+                        this.logger.error("Failed to recompute the [{}] average rating of document [{}].", method,
+                            documentReference, e);
+                    }
+                } else {
+                    this.logger.warn("Ratings manager [{}] of document [{}] does not support recomputing averages.",
+                        ratingsManager.getClass().getName(), documentReference);
+                }
+
+                this.progressManager.endStep(this);
+            }
+        } finally {
+            this.progressManager.popLevelProgress(this);
+        }
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.ratings.internal;
+
+import org.xwiki.job.AbstractRequest;
+import org.xwiki.job.Request;
+
+/**
+ * The request used to configure {@link AverageRatingsRecomputeJob}.
+ *
+ * @version $Id$
+ * @since 12.0RC1
+ */
+public class AverageRatingsRecomputeRequest extends AbstractRequest
+{
+    /**
+     * Serialization identifier.
+     */
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * @see #getWiki()
+     */
+    private String wiki;
+
+    /**
+     * The default constructor.
+     */
+    public AverageRatingsRecomputeRequest()
+    {
+    }
+
+    /**
+     * @param request the request to copy
+     */
+    public AverageRatingsRecomputeRequest(Request request)
+    {
+        super(request);
+    }
+
+    /**
+     * @return the identifier of the wiki where to recompute the stored average ratings
+     */
+    public String getWiki()
+    {
+        return this.wiki;
+    }
+
+    /**
+     * @param wiki the identifier of the wiki where to recompute the stored average ratings
+     */
+    public void setWiki(String wiki)
+    {
+        this.wiki = wiki;
+    }
+}
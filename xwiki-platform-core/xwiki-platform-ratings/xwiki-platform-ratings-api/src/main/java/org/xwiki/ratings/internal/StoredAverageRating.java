@@ -91,6 +91,36 @@ public void setMethod(String method)
         object.setStringValue(RatingsManager.AVERAGERATING_CLASS_FIELDNAME_AVERAGEVOTE_METHOD, method);
     }
 
+    /**
+     * Average ratings stored before 12.0RC1, or computed with a method other than the plain average, don't have the
+     * sum of the votes.
+     *
+     * @return {@code true} if the sum of the votes is stored
+     * @since 12.0RC1
+     */
+    public boolean hasTotalVote()
+    {
+        return object.safeget(RatingsManager.AVERAGERATING_CLASS_FIELDNAME_TOTALVOTE) != null;
+    }
+
+    /**
+     * @return the sum of the votes
+     * @since 12.0RC1
+     */
+    public long getTotalVote()
+    {
+        return object.getLongValue(RatingsManager.AVERAGERATING_CLASS_FIELDNAME_TOTALVOTE);
+    }
+
+    /**
+     * @param totalVote the sum of the votes
+     * @since 12.0RC1
+     */
+    public void setTotalVote(long totalVote)
+    {
+        object.setLongValue(RatingsManager.AVERAGERATING_CLASS_FIELDNAME_TOTALVOTE, totalVote);
+    }
+
     @Override
     public void save() throws RatingsException
     {
@@ -20,7 +20,10 @@
 package org.xwiki.ratings.script;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 import javax.inject.Inject;
 import javax.inject.Named;
@@ -28,6 +31,8 @@
 import javax.inject.Singleton;
 
 import org.xwiki.component.annotation.Component;
+import org.xwiki.job.Job;
+import org.xwiki.job.JobExecutor;
 import org.xwiki.model.reference.DocumentReference;
 import org.xwiki.model.reference.DocumentReferenceResolver;
 import org.xwiki.model.reference.EntityReference;
@@ -36,7 +41,14 @@
 import org.xwiki.ratings.Rating;
 import org.xwiki.ratings.RatingsConfiguration;
 import org.xwiki.ratings.RatingsManager;
+import org.xwiki.ratings.internal.AverageRatingAggregates;
+import org.xwiki.ratings.internal.AverageRatingsRecomputeJob;
+import org.xwiki.ratings.internal.AverageRatingsRecomputeRequest;
+import org.xwiki.ratings.internal.MemoryAverageRating;
 import org.xwiki.script.service.ScriptService;
+import org.xwiki.security.authorization.ContextualAuthorizationManager;
+import org.xwiki.security.authorization.Right;
+import org.xwiki.stability.Unstable;
 
 import com.xpn.xwiki.XWikiContext;
 import com.xpn.xwiki.api.Document;
@@ -73,6 +85,15 @@ public class RatingsScriptService implements ScriptService
     @Inject
     private RatingsConfiguration ratingsConfiguration;
 
+    @Inject
+    private AverageRatingAggregates aggregates;
+
+    @Inject
+    private JobExecutor jobExecutor;
+
+    @Inject
+    private ContextualAuthorizationManager authorization;
+
     /**
      * Retrieve the XWiki context from the current execution context.
      * 
@@ -402,6 +423,75 @@ public AverageRatingApi getUserReputation(DocumentReference username)
         }
     }
     
+    /**
+     * Get the best rated documents of the current wiki, from their stored average ratings. Only the documents the
+     * current user is allowed to view are returned.
+     *
+     * @param method the method used to compute the average ratings
+     * @param count the maximum number of documents to return
+     * @return the best rated documents with their average rating, best first
+     * @since 12.0RC1
+     */
+    @Unstable
+    public Map<DocumentReference, AverageRatingApi> getBestRated(String method, int count)
+    {
+        setError(null);
+
+        try {
+            Map<DocumentReference, AverageRatingApi> bestRated = new LinkedHashMap<>();
+            for (MemoryAverageRating averageRating : this.aggregates.getBestRated(getXWikiContext().getWikiId(),
+                method, count, reference -> this.authorization.hasAccess(Right.VIEW, reference))) {
+                bestRated.put(averageRating.getDocumentReference(), new AverageRatingApi(averageRating));
+            }
+
+            return bestRated;
+        } catch (Throwable e) {
+            setError(e);
+            return null;
+        }
+    }
+
+    /**
+     * Get the best rated documents of the current wiki, from their stored average ratings. Only the documents the
+     * current user is allowed to view are returned.
+     *
+     * @param count the maximum number of documents to return
+     * @return the best rated documents with their average rating, best first
+     * @since 12.0RC1
+     */
+    @Unstable
+    public Map<DocumentReference, AverageRatingApi> getBestRated(int count)
+    {
+        return getBestRated(RatingsManager.RATING_REPUTATION_METHOD_AVERAGE, count);
+    }
+
+    /**
+     * Start a job recomputing from the ratings all the average ratings stored in the current wiki. Requires
+     * administration right on the wiki.
+     *
+     * @return the started job, or {@code null} if it failed to start
+     * @since 12.0RC1
+     */
+    @Unstable
+    public Job recomputeAverageRatings()
+    {
+        setError(null);
+
+        try {
+            XWikiContext xcontext = getXWikiContext();
+            this.authorization.checkAccess(Right.ADMIN, xcontext.getWikiReference());
+
+            AverageRatingsRecomputeRequest request = new AverageRatingsRecomputeRequest();
+            request.setId(Arrays.asList("ratings", "averages", "recompute", xcontext.getWikiId()));
+            request.setWiki(xcontext.getWikiId());
+
+            return this.jobExecutor.execute(AverageRatingsRecomputeJob.JOBTYPE, request);
+        } catch (Throwable e) {
+            setError(e);
+            return null;
+        }
+    }
+
     /**
      * Get configuration document.
       *
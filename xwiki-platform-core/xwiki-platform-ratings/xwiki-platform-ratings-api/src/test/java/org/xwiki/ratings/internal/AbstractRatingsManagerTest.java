@@ -0,0 +1,233 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.ratings.internal;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.lang3.reflect.FieldUtils;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.xwiki.model.reference.DocumentReference;
+import org.xwiki.observation.ObservationManager;
+import org.xwiki.ratings.Rating;
+import org.xwiki.ratings.RatingsManager;
+import org.xwiki.ratings.UpdateRatingEvent;
+import org.xwiki.ratings.UpdatingRatingEvent;
+
+import com.xpn.xwiki.XWiki;
+import com.xpn.xwiki.XWikiContext;
+import com.xpn.xwiki.doc.XWikiDocument;
+import com.xpn.xwiki.objects.BaseObject;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.CALLS_REAL_METHODS;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+/**
+ * Validate the incremental update of the stored average ratings in {@link AbstractRatingsManager}.
+ *
+ * @version $Id$
+ */
+public class AbstractRatingsManagerTest
+{
+    private static final DocumentReference DOCUMENT = new DocumentReference("wiki", "Space", "Page");
+
+    private static final String METHOD = RatingsManager.RATING_REPUTATION_METHOD_AVERAGE;
+
+    private AbstractRatingsManager manager;
+
+    private AverageRatingAggregates aggregates;
+
+    private ObservationManager observationManager;
+
+    private XWiki xwiki;
+
+    private XWikiContext xcontext;
+
+    private XWikiDocument document;
+
+    private BaseObject averageObject;
+
+    @BeforeEach
+    public void beforeEach() throws Exception
+    {
+        this.manager = mock(AbstractRatingsManager.class,
+            withSettings().useConstructor().defaultAnswer(CALLS_REAL_METHODS));
+
+        this.aggregates = mock(AverageRatingAggregates.class);
+        FieldUtils.writeField(this.manager, "aggregates", this.aggregates, true);
+        this.observationManager = mock(ObservationManager.class);
+        FieldUtils.writeField(this.manager, "observationManager", this.observationManager, true);
+
+        this.xwiki = mock(XWiki.class);
+        this.xcontext = mock(XWikiContext.class);
+        when(this.xcontext.getWiki()).thenReturn(this.xwiki);
+        this.document = mock(XWikiDocument.class);
+        this.averageObject = new BaseObject();
+
+        doReturn(true).when(this.manager).isAverageRatingStored(DOCUMENT);
+        doReturn(new String[] { METHOD }).when(this.manager).getDefaultReputationMethods(DOCUMENT);
+        doAnswer(invocation -> new StoredAverageRating(this.document, this.averageObject, this.xcontext))
+            .when(this.manager).getAverageRating(DOCUMENT, METHOD, true);
+    }
+
+    private void setStoredAverage(int nbVotes, long totalVote)
+    {
+        this.averageObject.setIntValue(RatingsManager.AVERAGERATING_CLASS_FIELDNAME_NBVOTES, nbVotes);
+        this.averageObject.setLongValue(RatingsManager.AVERAGERATING_CLASS_FIELDNAME_TOTALVOTE, totalVote);
+        this.averageObject.setFloatValue(RatingsManager.AVERAGERATING_CLASS_FIELDNAME_AVERAGEVOTE,
+            nbVotes > 0 ? (float) totalVote / nbVotes : 0);
+    }
+
+    private void assertStoredAverage(int nbVotes, long totalVote, float averageVote)
+    {
+        assertEquals(nbVotes, this.averageObject.getIntValue(RatingsManager.AVERAGERATING_CLASS_FIELDNAME_NBVOTES));
+        assertEquals(totalVote,
+            this.averageObject.getLongValue(RatingsManager.AVERAGERATING_CLASS_FIELDNAME_TOTALVOTE));
+        assertEquals(averageVote,
+            this.averageObject.getFloatValue(RatingsManager.AVERAGERATING_CLASS_FIELDNAME_AVERAGEVOTE), 0.0001);
+    }
+
+    private Rating mockRating(int vote)
+    {
+        Rating rating = mock(Rating.class);
+        when(rating.getDocumentReference()).thenReturn(DOCUMENT);
+        when(rating.getVote()).thenReturn(vote);
+
+        return rating;
+    }
+
+    @Test
+    public void updateAverageRatingWithNewVote() throws Exception
+    {
+        setStoredAverage(4, 10);
+
+        this.manager.updateAverageRating(DOCUMENT, mockRating(5), 0, METHOD);
+
+        assertStoredAverage(5, 15, 3f);
+        verify(this.xwiki).saveDocument(this.document, "Update rating", true, this.xcontext);
+        verify(this.aggregates).update(DOCUMENT, METHOD, 5, 3f);
+
+        // The ratings were not loaded
+        verify(this.manager, never()).calcAverageRating(any(), any());
+    }
+
+    @Test
+    public void updateAverageRatingWithChangedVote() throws Exception
+    {
+        setStoredAverage(4, 10);
+
+        this.manager.updateAverageRating(DOCUMENT, mockRating(5), 2, METHOD);
+
+        assertStoredAverage(4, 13, 3.25f);
+        verify(this.aggregates).update(DOCUMENT, METHOD, 4, 3.25f);
+    }
+
+    @Test
+    public void updateAverageRatingWithSameVote() throws Exception
+    {
+        setStoredAverage(4, 10);
+
+        this.manager.updateAverageRating(DOCUMENT, mockRating(3), 3, METHOD);
+
+        assertStoredAverage(4, 10, 2.5f);
+        verify(this.xwiki, never()).saveDocument(any(), any(), any(Boolean.class), any());
+    }
+
+    @Test
+    public void updateAverageRatingWithoutTotalVote() throws Exception
+    {
+        // Average rating stored before the sum of the votes
+        this.averageObject.setIntValue(RatingsManager.AVERAGERATING_CLASS_FIELDNAME_NBVOTES, 4);
+        this.averageObject.setFloatValue(RatingsManager.AVERAGERATING_CLASS_FIELDNAME_AVERAGEVOTE, 2.5f);
+        doReturn(new MemoryAverageRating(DOCUMENT, 5, 3f, METHOD)).when(this.manager).calcAverageRating(DOCUMENT,
+            METHOD);
+
+        this.manager.updateAverageRating(DOCUMENT, mockRating(5), 0, METHOD);
+
+        // The average is computed from all the ratings, and the sum of the votes is stored for the next time
+        assertStoredAverage(5, 15, 3f);
+    }
+
+    @Test
+    public void removeRating() throws Exception
+    {
+        setStoredAverage(4, 10);
+        Rating rating = mockRating(4);
+        when(rating.remove()).thenReturn(true);
+
+        assertTrue(this.manager.removeRating(rating));
+
+        assertStoredAverage(3, 6, 2f);
+        verify(this.aggregates).update(DOCUMENT, METHOD, 3, 2f);
+        verify(this.observationManager).notify(any(UpdatingRatingEvent.class), any());
+        verify(this.observationManager).notify(any(UpdateRatingEvent.class), any());
+    }
+
+    @Test
+    public void removeLastRating() throws Exception
+    {
+        setStoredAverage(1, 4);
+        Rating rating = mockRating(4);
+        when(rating.remove()).thenReturn(true);
+
+        this.manager.removeRating(rating);
+
+        assertStoredAverage(0, 0, 0f);
+        verify(this.aggregates).update(DOCUMENT, METHOD, 0, 0f);
+    }
+
+    @Test
+    public void updateAverageRatingConcurrently() throws Exception
+    {
+        setStoredAverage(0, 0);
+        Rating rating = mockRating(2);
+
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < 4; ++i) {
+            Thread thread = new Thread(() -> {
+                for (int j = 0; j < 100; ++j) {
+                    try {
+                        this.manager.updateAverageRating(DOCUMENT, rating, 0, METHOD);
+                    } catch (Exception e) {
+                        throw new RuntimeException(e);
+                    }
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        // No vote was lost
+        assertStoredAverage(400, 800, 2f);
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.ratings.internal;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Locale;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.xwiki.bridge.event.DocumentDeletedEvent;
+import org.xwiki.model.reference.DocumentReference;
+import org.xwiki.ratings.AverageRating;
+import org.xwiki.ratings.RatingsManager;
+import org.xwiki.test.junit5.mockito.ComponentTest;
+import org.xwiki.test.junit5.mockito.InjectMockComponents;
+import org.xwiki.test.junit5.mockito.MockComponent;
+
+import com.xpn.xwiki.doc.XWikiDocument;
+import com.xpn.xwiki.internal.event.XObjectDeletedEvent;
+import com.xpn.xwiki.internal.event.XObjectUpdatedEvent;
+import com.xpn.xwiki.objects.BaseObject;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for {@link AverageRatingAggregatesListener}.
+ *
+ * @version $Id$
+ */
+@ComponentTest
+public class AverageRatingAggregatesListenerTest
+{
+    private static final DocumentReference DOCUMENT = new DocumentReference("wiki", "Space", "Page");
+
+    @InjectMockComponents
+    private AverageRatingAggregatesListener listener;
+
+    @MockComponent
+    private AverageRatingAggregates aggregates;
+
+    private XWikiDocument document(Locale locale, BaseObject... averageRatingObjects)
+    {
+        XWikiDocument document = mock(XWikiDocument.class);
+        when(document.getDocumentReference()).thenReturn(DOCUMENT);
+        when(document.getLocale()).thenReturn(locale);
+        when(document.getXObjects(RatingsManager.AVERAGE_RATINGS_CLASSREFERENCE))
+            .thenReturn(Arrays.asList(averageRatingObjects));
+
+        return document;
+    }
+
+    private BaseObject averageRatingObject(int nbVotes, float averageVote, String method)
+    {
+        BaseObject averageRatingObject = mock(BaseObject.class);
+        when(averageRatingObject.getIntValue(RatingsManager.AVERAGERATING_CLASS_FIELDNAME_NBVOTES))
+            .thenReturn(nbVotes);
+        when(averageRatingObject.getFloatValue(RatingsManager.AVERAGERATING_CLASS_FIELDNAME_AVERAGEVOTE))
+            .thenReturn(averageVote);
+        when(averageRatingObject.getStringValue(RatingsManager.AVERAGERATING_CLASS_FIELDNAME_AVERAGEVOTE_METHOD))
+            .thenReturn(method);
+
+        return averageRatingObject;
+    }
+
+    @Test
+    public void onAverageRatingObjectUpdated()
+    {
+        XWikiDocument document = document(Locale.ROOT, averageRatingObject(3, 4.5f, "average"), null);
+
+        this.listener.onEvent(new XObjectUpdatedEvent(), document, null);
+
+        ArgumentCaptor<Collection<AverageRating>> averageRatings = ArgumentCaptor.forClass(Collection.class);
+        verify(this.aggregates).update(eq(DOCUMENT), averageRatings.capture());
+
+        assertEquals(1, averageRatings.getValue().size());
+        AverageRating averageRating = averageRatings.getValue().iterator().next();
+        assertEquals(3, averageRating.getNbVotes());
+        assertEquals(4.5f, averageRating.getAverageVote());
+        assertEquals("average", averageRating.getMethod());
+    }
+
+    @Test
+    public void onAverageRatingObjectDeleted()
+    {
+        this.listener.onEvent(new XObjectDeletedEvent(), document(Locale.ROOT), null);
+
+        verify(this.aggregates).update(eq(DOCUMENT), eq(Arrays.asList()));
+    }
+
+    @Test
+    public void onTranslationUpdated()
+    {
+        this.listener.onEvent(new XObjectUpdatedEvent(), document(Locale.FRENCH), null);
+
+        verify(this.aggregates, never()).update(any(DocumentReference.class), any(Collection.class));
+    }
+
+    @Test
+    public void onDocumentDeleted()
+    {
+        this.listener.onEvent(new DocumentDeletedEvent(), document(Locale.ROOT), null);
+
+        verify(this.aggregates).remove(DOCUMENT);
+    }
+}
@@ -0,0 +1,146 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.ratings.internal;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import javax.inject.Named;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.xwiki.model.reference.DocumentReference;
+import org.xwiki.model.reference.DocumentReferenceResolver;
+import org.xwiki.model.reference.WikiReference;
+import org.xwiki.query.Query;
+import org.xwiki.query.QueryManager;
+import org.xwiki.test.junit5.mockito.ComponentTest;
+import org.xwiki.test.junit5.mockito.InjectMockComponents;
+import org.xwiki.test.junit5.mockito.MockComponent;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for {@link AverageRatingAggregates}.
+ *
+ * @version $Id$
+ */
+@ComponentTest
+public class AverageRatingAggregatesTest
+{
+    private static final WikiReference WIKI = new WikiReference("wiki");
+
+    @InjectMockComponents
+    private AverageRatingAggregates aggregates;
+
+    @MockComponent
+    private QueryManager queryManager;
+
+    @MockComponent
+    @Named("current")
+    private DocumentReferenceResolver<String> resolver;
+
+    private Query query;
+
+    @BeforeEach
+    public void configure() throws Exception
+    {
+        this.query = mock(Query.class);
+        when(this.queryManager.createQuery(anyString(), anyString())).thenReturn(this.query);
+        when(this.query.execute()).thenReturn(Arrays.<Object>asList(new Object[] { "Space.A", 10, 3.5f },
+            new Object[] { "Space.B", 2, 4.5f }, new Object[] { "Space.C", 0, 0f },
+            new Object[] { "Space.D", 20, 3.5f }));
+
+        for (String page : Arrays.asList("A", "B", "C", "D")) {
+            when(this.resolver.resolve("Space." + page, WIKI)).thenReturn(new DocumentReference("wiki", "Space", page));
+        }
+    }
+
+    private List<String> getBestRated(int count) throws Exception
+    {
+        return this.aggregates.getBestRated("wiki", "average", count).stream()
+            .map(rating -> rating.getDocumentReference().getName()).collect(Collectors.toList());
+    }
+
+    @Test
+    public void getBestRated() throws Exception
+    {
+        assertEquals(Arrays.asList("B", "D", "A"), getBestRated(10));
+        assertEquals(Arrays.asList("B", "D"), getBestRated(2));
+        assertEquals(Arrays.asList(), getBestRated(0));
+
+        // The average ratings are loaded only once
+        verify(this.query, times(1)).execute();
+    }
+
+    @Test
+    public void updateAndRemove() throws Exception
+    {
+        assertEquals(Arrays.asList("B", "D", "A"), getBestRated(10));
+
+        this.aggregates.update(new DocumentReference("wiki", "Space", "A"), "average", 11, 3.6f);
+        this.aggregates.update(new DocumentReference("wiki", "Space", "C"), "average", 1, 5f);
+        this.aggregates.update(new DocumentReference("wiki", "Space", "B"), "average", 0, 0f);
+
+        assertEquals(Arrays.asList("C", "A", "D"), getBestRated(10));
+
+        this.aggregates.remove(new DocumentReference("wiki", "Space", "C"));
+
+        assertEquals(Arrays.asList("A", "D"), getBestRated(10));
+
+        this.aggregates.invalidate("wiki");
+
+        assertEquals(Arrays.asList("B", "D", "A"), getBestRated(10));
+        verify(this.query, times(2)).execute();
+    }
+
+    @Test
+    public void updateAllMethods() throws Exception
+    {
+        assertEquals(Arrays.asList("B", "D", "A"), getBestRated(10));
+
+        DocumentReference documentA = new DocumentReference("wiki", "Space", "A");
+        DocumentReference documentB = new DocumentReference("wiki", "Space", "B");
+
+        this.aggregates.update(documentA, Arrays.asList(new MemoryAverageRating(documentA, 1, 5f, "average"),
+            new MemoryAverageRating(documentA, 1, 5f, "balanced")));
+        // The average rating object of B was removed
+        this.aggregates.update(documentB, Arrays.asList());
+
+        assertEquals(Arrays.asList("A", "D"), getBestRated(10));
+        verify(this.query, times(1)).execute();
+    }
+
+    @Test
+    public void getBestRatedFiltered() throws Exception
+    {
+        List<String> bestRated = this.aggregates
+            .getBestRated("wiki", "average", 2, reference -> !reference.getName().equals("B")).stream()
+            .map(rating -> rating.getDocumentReference().getName()).collect(Collectors.toList());
+
+        assertEquals(Arrays.asList("D", "A"), bestRated);
+    }
+}
@@ -19,6 +19,8 @@
  */
 package org.xwiki.refactoring.internal;
 
+import java.util.Map;
+
 import org.xwiki.component.annotation.Role;
 import org.xwiki.model.reference.DocumentReference;
 
@@ -41,6 +43,16 @@
     void renameLinks(DocumentReference documentReference, DocumentReference oldLinkTarget,
         DocumentReference newLinkTarget);
 
+    /**
+     * Renames several link targets from the content of the specified document at once (the document is saved only
+     * once).
+     * 
+     * @param documentReference the document whose content needs to be updated
+     * @param linkTargets the link targets that need to be replaced associated with their new link target
+     * @since 12.0RC1
+     */
+    void renameLinks(DocumentReference documentReference, Map<DocumentReference, DocumentReference> linkTargets);
+
     /**
      * Updates the relative links from the content of a document after it has been renamed or moved. This ensures that
      * the links from the content of the renamed/moved document are relative to the new reference.
@@ -20,6 +20,9 @@
 package org.xwiki.refactoring.internal.job;
 
 import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 import javax.inject.Named;
 
@@ -44,6 +47,11 @@
 @Named(RefactoringJobs.MOVE)
 public class MoveJob extends AbstractCopyOrMoveJob<MoveRequest>
 {
+    /**
+     * The documents renamed by this job (only filled in bulk mode).
+     */
+    private final Map<DocumentReference, DocumentReference> renamedDocuments = new LinkedHashMap<>();
+
     @Override
     public String getType()
     {
@@ -132,6 +140,10 @@ protected boolean copyOrMove(DocumentReference oldReference, DocumentReference n
             this.progressManager.startStep(this);
             DocumentRenamedEvent documentRenamedEvent = new DocumentRenamedEvent(oldReference, newReference);
             this.observationManager.notify(documentRenamedEvent, this, this.getRequest());
+            if (this.request.isBulk()) {
+                // Remember the rename to update the back-links of all the moved documents at once at the end
+                this.renamedDocuments.put(oldReference, newReference);
+            }
             this.progressManager.endStep(this);
 
             return true;
@@ -139,4 +151,15 @@ protected boolean copyOrMove(DocumentReference oldReference, DocumentReference n
             this.progressManager.popLevelProgress(this);
         }
     }
+
+    /**
+     * @return the documents renamed by this job so far (old reference to new reference), only filled when the request
+     *         is in bulk mode
+     * @see MoveRequest#isBulk()
+     * @since 12.0RC1
+     */
+    public Map<DocumentReference, DocumentReference> getRenamedDocuments()
+    {
+        return Collections.unmodifiableMap(this.renamedDocuments);
+    }
 }
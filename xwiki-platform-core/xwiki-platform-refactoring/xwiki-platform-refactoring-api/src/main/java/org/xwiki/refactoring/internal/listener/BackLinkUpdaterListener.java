@@ -21,7 +21,11 @@
 
 import java.util.Collection;
 import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.function.Predicate;
 
 import javax.inject.Inject;
@@ -36,6 +40,7 @@
 import org.xwiki.observation.AbstractEventListener;
 import org.xwiki.observation.event.Event;
 import org.xwiki.refactoring.event.DocumentRenamedEvent;
+import org.xwiki.refactoring.event.EntitiesRenamedEvent;
 import org.xwiki.refactoring.internal.LinkRefactoring;
 import org.xwiki.refactoring.internal.ModelBridge;
 import org.xwiki.refactoring.internal.job.MoveJob;
@@ -46,7 +51,8 @@
 import org.xwiki.wiki.manager.WikiManagerException;
 
 /**
- * Updates the back-links after a document has been renamed.
+ * Updates the back-links after a document has been renamed (or after all the documents have been renamed when the move
+ * is done in bulk).
  * 
  * @version $Id$
  * @since 11.1RC1
@@ -84,13 +90,17 @@ public class BackLinkUpdaterListener extends AbstractEventListener
      */
     public BackLinkUpdaterListener()
     {
-        super(NAME, new DocumentRenamedEvent());
+        super(NAME, new DocumentRenamedEvent(), new EntitiesRenamedEvent());
     }
 
     @Override
     public void onEvent(Event event, Object source, Object data)
     {
-        if (event instanceof DocumentRenamedEvent) {
+        if (event instanceof EntitiesRenamedEvent) {
+            if (source instanceof MoveJob && ((MoveRequest) data).isBulk()) {
+                onEntitiesRenamed((MoveJob) source, (MoveRequest) data);
+            }
+        } else if (event instanceof DocumentRenamedEvent) {
             boolean updateLinks = true;
             boolean updateLinksOnFarm = true;
             Predicate<EntityReference> canEdit =
@@ -98,6 +108,10 @@ public void onEvent(Event event, Object source, Object data)
 
             if (source instanceof MoveJob) {
                 MoveRequest request = (MoveRequest) data;
+                if (request.isBulk()) {
+                    // The back-links are updated once all the entities have been moved
+                    return;
+                }
                 updateLinks = request.isUpdateLinks();
                 updateLinksOnFarm = request.isUpdateLinksOnFarm();
                 // Check access rights taking into account the move request.
@@ -110,16 +124,80 @@ public void onEvent(Event event, Object source, Object data)
         }
     }
 
+    private void onEntitiesRenamed(MoveJob job, MoveRequest request)
+    {
+        Map<DocumentReference, DocumentReference> renamedDocuments = job.getRenamedDocuments();
+
+        if (request.isUpdateLinks() && !renamedDocuments.isEmpty()) {
+            Collection<String> wikiIds = new LinkedHashSet<>();
+            for (DocumentReference oldReference : renamedDocuments.keySet()) {
+                wikiIds.add(oldReference.getWikiReference().getName());
+            }
+            if (request.isUpdateLinksOnFarm()) {
+                wikiIds = getWikiIds(wikiIds);
+            }
+
+            this.progressManager.pushLevelProgress(wikiIds.size(), this);
+
+            try {
+                for (String wikiId : wikiIds) {
+                    this.progressManager.startStep(this);
+                    updateBackLinks(renamedDocuments, entityReference -> job.hasAccess(Right.EDIT, entityReference),
+                        wikiId);
+                    this.progressManager.endStep(this);
+                }
+            } finally {
+                this.progressManager.popLevelProgress(this);
+            }
+        }
+    }
+
+    private void updateBackLinks(Map<DocumentReference, DocumentReference> renamedDocuments,
+        Predicate<EntityReference> canEdit, String wikiId)
+    {
+        this.logger.info("Updating the back-links for [{}] documents in wiki [{}].", renamedDocuments.size(), wikiId);
+
+        // Search the back-links of all the renamed documents at once
+        Map<DocumentReference, Set<DocumentReference>> backlinks =
+            this.modelBridge.getBackLinkedReferences(renamedDocuments.keySet(), wikiId);
+
+        this.progressManager.pushLevelProgress(backlinks.size(), this);
+
+        try {
+            for (Map.Entry<DocumentReference, Set<DocumentReference>> entry : backlinks.entrySet()) {
+                this.progressManager.startStep(this);
+                if (canEdit.test(entry.getKey())) {
+                    // Update all the links of the back-linked document at once
+                    Map<DocumentReference, DocumentReference> linkTargets = new LinkedHashMap<>();
+                    for (DocumentReference linkedReference : entry.getValue()) {
+                        linkTargets.put(linkedReference, renamedDocuments.get(linkedReference));
+                    }
+                    this.linkRefactoring.renameLinks(entry.getKey(), linkTargets);
+                }
+                this.progressManager.endStep(this);
+            }
+        } finally {
+            this.progressManager.popLevelProgress(this);
+        }
+    }
+
+    private Collection<String> getWikiIds(Collection<String> defaultWikiIds)
+    {
+        try {
+            return this.wikiDescriptorManager.getAllIds();
+        } catch (WikiManagerException e) {
+            this.logger.error("Failed to retrieve the list of wikis.", e);
+
+            return defaultWikiIds;
+        }
+    }
+
     private void updateBackLinks(DocumentRenamedEvent event, Predicate<EntityReference> canEdit,
         boolean updateLinksOnFarm)
     {
         Collection<String> wikiIds = Collections.singleton(event.getSourceReference().getWikiReference().getName());
         if (updateLinksOnFarm) {
-            try {
-                wikiIds = this.wikiDescriptorManager.getAllIds();
-            } catch (WikiManagerException e) {
-                this.logger.error("Failed to retrieve the list of wikis.", e);
-            }
+            wikiIds = getWikiIds(wikiIds);
         }
 
         if (!wikiIds.isEmpty()) {
@@ -19,6 +19,8 @@
  */
 package org.xwiki.refactoring.job;
 
+import org.xwiki.stability.Unstable;
+
 /**
  * A job request that can be used to move a collection of entities to a specified destination. This request can also be
  * used to rename an entity.
@@ -51,6 +53,11 @@ public class MoveRequest extends AbstractCopyOrMoveRequest
      */
     private static final String PROPERTY_UPDATE_PARENT_FIELD = "updateParentField";
 
+    /**
+     * @see #isBulk()
+     */
+    private static final String PROPERTY_BULK = "bulk";
+
     /**
      * @return {@code true} if the source entities specified by {@link #getEntityReferences()} should be deleted,
      *         {@code false} otherwise; in a standard move operation the source is deleted but sometimes you may want to
@@ -122,4 +129,31 @@ public void setUpdateParentField(boolean updateParentField)
     {
         setProperty(PROPERTY_UPDATE_PARENT_FIELD, updateParentField);
     }
+
+    /**
+     * @return {@code true} if the back-links should be updated once all the entities have been moved (using one
+     *         back-link query per wiki and saving each back-linked document only once) instead of after each document
+     *         move, {@code false} otherwise
+     * @since 12.0RC1
+     */
+    @Unstable
+    public boolean isBulk()
+    {
+        return getProperty(PROPERTY_BULK, false);
+    }
+
+    /**
+     * Sets whether the back-links should be updated once all the entities have been moved instead of after each
+     * document move. This is much faster when moving a lot of documents (e.g. a large space tree) but the back-links
+     * are pointing to missing documents until the end of the move.
+     *
+     * @param bulk {@code true} to update the back-links in bulk at the end of the move, {@code false} to update them
+     *            after each document move
+     * @since 12.0RC1
+     */
+    @Unstable
+    public void setBulk(boolean bulk)
+    {
+        setProperty(PROPERTY_BULK, bulk);
+    }
 }
@@ -20,6 +20,10 @@
 package org.xwiki.refactoring.internal.listener;
 
 import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -27,6 +31,7 @@
 import org.mockito.Mock;
 import org.xwiki.model.reference.DocumentReference;
 import org.xwiki.refactoring.event.DocumentRenamedEvent;
+import org.xwiki.refactoring.event.EntitiesRenamedEvent;
 import org.xwiki.refactoring.internal.LinkRefactoring;
 import org.xwiki.refactoring.internal.ModelBridge;
 import org.xwiki.refactoring.internal.job.RenameJob;
@@ -189,6 +194,44 @@ public void onDocumentRenamedWithoutRenameJobAndNoEditRight()
         assertEquals("Updating the back-links for document [foo:Users.Alice] in wiki [bar].", logCapture.getMessage(1));
     }
 
+    @Test
+    public void onDocumentRenamedInBulk()
+    {
+        renameRequest.setBulk(true);
+
+        this.listener.onEvent(documentRenamedEvent, renameJob, renameRequest);
+
+        verify(this.linkRefactoring, never()).renameLinks(any(), any(), any());
+    }
+
+    @Test
+    public void onEntitiesRenamedInBulk()
+    {
+        renameRequest.setBulk(true);
+        renameRequest.setUpdateLinks(true);
+        renameRequest.setUpdateLinksOnFarm(false);
+
+        DocumentReference eveReference = new DocumentReference("foo", "Users", "Eve");
+        DocumentReference frankReference = new DocumentReference("foo", "Users", "Frank");
+        Map<DocumentReference, DocumentReference> renamedDocuments = new LinkedHashMap<>();
+        renamedDocuments.put(aliceReference, bobReference);
+        renamedDocuments.put(eveReference, frankReference);
+        when(this.renameJob.getRenamedDocuments()).thenReturn(renamedDocuments);
+
+        Map<DocumentReference, Set<DocumentReference>> backlinks = new LinkedHashMap<>();
+        backlinks.put(carolReference, new LinkedHashSet<>(Arrays.asList(aliceReference, eveReference)));
+        when(this.modelBridge.getBackLinkedReferences(renamedDocuments.keySet(), "foo")).thenReturn(backlinks);
+
+        when(this.renameJob.hasAccess(Right.EDIT, carolReference)).thenReturn(true);
+
+        this.listener.onEvent(new EntitiesRenamedEvent(), renameJob, renameRequest);
+
+        verify(this.linkRefactoring).renameLinks(carolReference, renamedDocuments);
+        verify(this.linkRefactoring, never()).renameLinks(any(), any(), any());
+
+        assertEquals("Updating the back-links for [2] documents in wiki [foo].", logCapture.getMessage(0));
+    }
+
     @Test
     public void onOtherEvents()
     {
@@ -20,9 +20,14 @@
 package org.xwiki.refactoring.internal;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.regex.Pattern;
 
 import javax.inject.Inject;
@@ -44,6 +49,7 @@
 import org.xwiki.model.reference.EntityReferenceSerializer;
 import org.xwiki.model.reference.LocalDocumentReference;
 import org.xwiki.model.reference.SpaceReference;
+import org.xwiki.model.reference.WikiReference;
 import org.xwiki.query.Query;
 import org.xwiki.query.QueryManager;
 import org.xwiki.refactoring.internal.job.PermanentlyDeleteJob;
@@ -73,6 +79,11 @@ public class DefaultModelBridge implements ModelBridge
      */
     private static final Pattern LIKE_SPECIAL_CHARS = Pattern.compile("([%_/])");
 
+    /**
+     * The maximum number of links to look for in a single back-links query.
+     */
+    private static final int BACKLINKS_BATCH_SIZE = 500;
+
     /**
      * The reference to the type of object used to create an automatic redirect when renaming or moving a document.
      */
@@ -123,6 +134,13 @@ public class DefaultModelBridge implements ModelBridge
     @Named("compact")
     private EntityReferenceSerializer<String> compactEntityReferenceSerializer;
 
+    /**
+     * Used to serialize the references the same way they are stored in the links table.
+     */
+    @Inject
+    @Named("compactwiki")
+    private EntityReferenceSerializer<String> compactWikiEntityReferenceSerializer;
+
     /**
      * Use to get back a relative reference based on a compact string reference.
      */
@@ -284,6 +302,57 @@ public List<DocumentReference> getBackLinkedReferences(DocumentReference documen
         }
     }
 
+    @Override
+    public Map<DocumentReference, Set<DocumentReference>> getBackLinkedReferences(
+        Collection<DocumentReference> documentReferences, String wikiId)
+    {
+        Map<DocumentReference, Set<DocumentReference>> backlinks = new LinkedHashMap<>();
+
+        XWikiContext xcontext = this.xcontextProvider.get();
+        String previousWikiId = xcontext.getWikiId();
+        try {
+            // The links are stored relative to the wiki of the document containing them
+            xcontext.setWikiId(wikiId);
+
+            Map<String, DocumentReference> links = new HashMap<>();
+            for (DocumentReference documentReference : documentReferences) {
+                links.put(this.compactWikiEntityReferenceSerializer.serialize(documentReference), documentReference);
+            }
+
+            WikiReference wikiReference = new WikiReference(wikiId);
+            List<String> linkList = new ArrayList<>(links.keySet());
+            for (int i = 0; i < linkList.size(); i += BACKLINKS_BATCH_SIZE) {
+                Query query = this.queryManager.createQuery("select backlink.fullName, backlink.id.link "
+                    + "from XWikiLink as backlink where backlink.id.link in (:links)", Query.HQL);
+                query.setWiki(wikiId);
+                query.bindValue("links", linkList.subList(i, Math.min(i + BACKLINKS_BATCH_SIZE, linkList.size())));
+
+                for (Object[] result : query.<Object[]>execute()) {
+                    // The database might return links which are not exactly the ones asked (e.g. when it's case
+                    // insensitive)
+                    DocumentReference linkedReference = links.get(result[1]);
+                    if (linkedReference == null) {
+                        this.logger.debug("Ignoring the back-link from [{}] to [{}] which does not match any of the"
+                            + " requested documents.", result[0], result[1]);
+
+                        continue;
+                    }
+
+                    DocumentReference backlinkReference =
+                        this.explicitDocumentReferenceResolver.resolve((String) result[0], wikiReference);
+                    backlinks.computeIfAbsent(backlinkReference, key -> new LinkedHashSet<>()).add(linkedReference);
+                }
+            }
+        } catch (Exception e) {
+            this.logger.error("Failed to retrieve the back-links for documents [{}] on wiki [{}].", documentReferences,
+                wikiId, e);
+        } finally {
+            xcontext.setWikiId(previousWikiId);
+        }
+
+        return backlinks;
+    }
+
     @Override
     public List<DocumentReference> getDocumentReferences(SpaceReference spaceReference)
     {
@@ -23,6 +23,8 @@
 import java.util.Collections;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
 
 import javax.inject.Named;
 import javax.inject.Provider;
@@ -41,6 +43,7 @@
 import org.xwiki.model.reference.EntityReferenceResolver;
 import org.xwiki.model.reference.EntityReferenceSerializer;
 import org.xwiki.model.reference.SpaceReference;
+import org.xwiki.model.reference.WikiReference;
 import org.xwiki.query.Query;
 import org.xwiki.query.QueryManager;
 import org.xwiki.refactoring.internal.job.PermanentlyDeleteJob;
@@ -494,6 +497,35 @@ public void getBackLinkedReferences() throws Exception
         verify(this.xcontext).setWikiId("carol");
     }
 
+    @Test
+    public void getBackLinkedReferencesForSeveralDocuments(MockitoComponentManager mocker) throws Exception
+    {
+        DocumentReference documentReference = new DocumentReference("bob", "Path", "Page");
+        EntityReferenceSerializer<String> compactWikiEntityReferenceSerializer =
+            mocker.getInstance(EntityReferenceSerializer.TYPE_STRING, "compactwiki");
+        when(compactWikiEntityReferenceSerializer.serialize(documentReference)).thenReturn("Path.Page");
+
+        Query query = mock(Query.class);
+        QueryManager queryManager = mocker.getInstance(QueryManager.class);
+        when(queryManager.createQuery(any(), any())).thenReturn(query);
+        // The second link only matches because of a case insensitive database
+        when(query.execute()).thenReturn(Arrays.<Object>asList(new Object[] { "One.Two", "Path.Page" },
+            new Object[] { "Three.Four", "path.page" }));
+
+        DocumentReferenceResolver<String> explicitDocumentReferenceResolver =
+            mocker.getInstance(DocumentReferenceResolver.TYPE_STRING, "explicit");
+        DocumentReference backlinkReference = new DocumentReference("bob", "One", "Two");
+        when(explicitDocumentReferenceResolver.resolve("One.Two", new WikiReference("bob")))
+            .thenReturn(backlinkReference);
+
+        Map<DocumentReference, Set<DocumentReference>> backlinks =
+            this.modelBridge.getBackLinkedReferences(Arrays.asList(documentReference), "bob");
+
+        assertEquals(Collections.singletonMap(backlinkReference, Collections.singleton(documentReference)),
+            backlinks);
+        verify(query).bindValue("links", Arrays.asList("Path.Page"));
+    }
+
     @Test
     public void restoreDeletedDocument() throws Exception
     {
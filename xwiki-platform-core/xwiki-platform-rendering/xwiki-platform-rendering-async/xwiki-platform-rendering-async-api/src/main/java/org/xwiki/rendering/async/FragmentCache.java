@@ -0,0 +1,69 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.rendering.async;
+
+import java.util.List;
+import java.util.Set;
+
+import org.xwiki.component.annotation.Role;
+import org.xwiki.rendering.RenderingException;
+import org.xwiki.stability.Unstable;
+
+/**
+ * Cache the result of the rendering of a fragment (a panel, a menu, the output of a macro, etc.) and automatically
+ * invalidate it when any of the documents, objects, components or rights used during its rendering (as reported to
+ * {@link AsyncContext}) is modified.
+ * <p>
+ * Fragments can be nested: the dependencies of a fragment are also associated to the fragments rendering it.
+ * 
+ * @version $Id$
+ * @since 12.0RC1
+ */
+@Role
+@Unstable
+public interface FragmentCache
+{
+    /**
+     * Produce the content of a fragment.
+     * 
+     * @version $Id$
+     */
+    @FunctionalInterface
+    interface FragmentRenderer
+    {
+        /**
+         * @return the rendered fragment
+         * @throws RenderingException when failing to render the fragment
+         */
+        String render() throws RenderingException;
+    }
+
+    /**
+     * Return the cached result of the fragment or render it and cache the result.
+     * 
+     * @param id the identifier of the fragment
+     * @param contextEntries the context entries (see {@code ContextStoreManager}) the result of the fragment depends
+     *            on, they are part of the cache key
+     * @param renderer the renderer to call when the fragment is not in the cache
+     * @return the rendered fragment
+     * @throws RenderingException when failing to render the fragment
+     */
+    String render(List<String> id, Set<String> contextEntries, FragmentRenderer renderer) throws RenderingException;
+}
@@ -0,0 +1,49 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.rendering.async.internal;
+
+import org.xwiki.component.annotation.Role;
+
+/**
+ * Configuration of the asynchronous rendering.
+ * 
+ * @version $Id$
+ * @since 12.0RC1
+ */
+@Role
+public interface AsyncRenderingConfiguration
+{
+    /**
+     * @return true if the asynchronous blocks should be executed in parallel on the server and joined before the
+     *         result is sent, instead of being sent as placeholders loaded by the client
+     */
+    boolean isParallelEnabled();
+
+    /**
+     * @return the maximum time in seconds to wait for a block executed in parallel before falling back on a placeholder
+     *         loaded by the client
+     */
+    long getParallelTimeout();
+
+    /**
+     * @return the maximum number of threads executing the asynchronous blocks in parallel on the server
+     */
+    int getParallelThreads();
+}
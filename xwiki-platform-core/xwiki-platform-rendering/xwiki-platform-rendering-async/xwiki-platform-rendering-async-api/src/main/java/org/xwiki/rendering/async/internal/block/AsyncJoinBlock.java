@@ -0,0 +1,147 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.rendering.async.internal.block;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import org.xwiki.job.event.status.JobStatus.State;
+import org.xwiki.rendering.async.internal.AsyncRendererExecutor;
+import org.xwiki.rendering.async.internal.AsyncRendererExecutorResponse;
+import org.xwiki.rendering.async.internal.AsyncRendererJobStatus;
+import org.xwiki.rendering.block.AbstractBlock;
+import org.xwiki.rendering.block.Block;
+import org.xwiki.rendering.listener.Listener;
+
+/**
+ * Stand for the result of an asynchronous block executed in parallel on the server. The block stays empty until it's
+ * explicitly joined, generally by the {@link AsyncJoinTransformation} once all the asynchronous blocks of the content
+ * are started, so that looking at the content of the XDOM (as the macro transformation does to find the next macro to
+ * execute) never waits for the execution.
+ * <p>
+ * If the execution is not finished after the configured timeout the usual placeholder loaded by the client is used
+ * instead.
+ * 
+ * @version $Id$
+ * @since 12.0RC1
+ */
+public class AsyncJoinBlock extends AbstractBlock
+{
+    private final AsyncRendererExecutor executor;
+
+    private final AsyncRendererExecutorResponse response;
+
+    private final Block placeholder;
+
+    private final long timeout;
+
+    private boolean joined;
+
+    /**
+     * @param executor the executor used to wait for the result
+     * @param response the response of the started execution
+     * @param placeholder the block to use if the execution is not finished in time
+     * @param timeout the maximum time in seconds to wait for the result
+     */
+    public AsyncJoinBlock(AsyncRendererExecutor executor, AsyncRendererExecutorResponse response, Block placeholder,
+        long timeout)
+    {
+        this.executor = executor;
+        this.response = response;
+        this.placeholder = placeholder;
+        this.timeout = timeout;
+    }
+
+    /**
+     * @return the maximum time in seconds to wait for the result
+     */
+    public long getTimeout()
+    {
+        return this.timeout;
+    }
+
+    /**
+     * @return true if the result of the execution was already set as content of this block
+     */
+    public synchronized boolean isJoined()
+    {
+        return this.joined;
+    }
+
+    /**
+     * Wait for the result of the execution (up to the configured timeout) and set it as content of this block.
+     */
+    public void join()
+    {
+        join(this.timeout, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Wait for the result of the execution and set it as content of this block. The placeholder is used if the
+     * execution is not finished in time. Does nothing if the block is already joined.
+     * 
+     * @param time the maximum time to wait for the result
+     * @param unit the time unit of the time argument
+     */
+    public synchronized void join(long time, TimeUnit unit)
+    {
+        if (!this.joined) {
+            this.joined = true;
+
+            setChildren(Collections.singletonList(getResult(time, unit)));
+        }
+    }
+
+    @Override
+    public void traverse(Listener listener)
+    {
+        // The content is needed right now: the transformation in charge of joining the blocks was not executed
+        join();
+
+        super.traverse(listener);
+    }
+
+    private Block getResult(long time, TimeUnit unit)
+    {
+        AsyncRendererJobStatus status = this.response.getStatus();
+
+        if (status.getState() != State.FINISHED) {
+            try {
+                // Wait for the job to be finished (or until the timeout is reached)
+                this.executor.getAsyncStatus(status.getRequest().getId(), this.response.getAsyncClientId(), time,
+                    unit);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+
+                return this.placeholder;
+            }
+        }
+
+        if (status.getState() == State.FINISHED && status.getResult() instanceof BlockAsyncRendererResult) {
+            Block block = ((BlockAsyncRendererResult) status.getResult()).getBlock();
+
+            if (block != null) {
+                return block;
+            }
+        }
+
+        return this.placeholder;
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.rendering.async.internal.block;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import org.xwiki.component.annotation.Component;
+import org.xwiki.rendering.block.Block;
+import org.xwiki.rendering.block.match.ClassBlockMatcher;
+import org.xwiki.rendering.transformation.AbstractTransformation;
+import org.xwiki.rendering.transformation.TransformationContext;
+import org.xwiki.rendering.transformation.TransformationException;
+
+/**
+ * Wait for all the asynchronous blocks executed in parallel on the server and replace them with their result. Since
+ * all the blocks are started by the previous transformations (the macro transformation in particular) before this one
+ * is executed, the content pays for the slowest block instead of the sum of all of them.
+ * 
+ * @version $Id$
+ * @since 12.0RC1
+ */
+@Component
+@Named(AsyncJoinTransformation.HINT)
+@Singleton
+public class AsyncJoinTransformation extends AbstractTransformation
+{
+    /**
+     * The hint of the transformation, to add to the list of transformations in the configuration.
+     */
+    public static final String HINT = "asyncjoin";
+
+    private static final int PRIORITY = 10000;
+
+    @Override
+    public int getPriority()
+    {
+        // Executed after all the other transformations
+        return PRIORITY;
+    }
+
+    @Override
+    public void transform(Block block, TransformationContext context) throws TransformationException
+    {
+        List<AsyncJoinBlock> joinBlocks =
+            block.getBlocks(new ClassBlockMatcher(AsyncJoinBlock.class), Block.Axes.DESCENDANT_OR_SELF);
+
+        // The blocks are executed at the same time so they share the same timeout
+        long start = System.nanoTime();
+        for (AsyncJoinBlock joinBlock : joinBlocks) {
+            long remaining = TimeUnit.SECONDS.toNanos(joinBlock.getTimeout()) - (System.nanoTime() - start);
+            joinBlock.join(Math.max(remaining, 0), TimeUnit.NANOSECONDS);
+
+            // Replace the block with its result
+            Block parent = joinBlock.getParent();
+            if (parent != null) {
+                parent.replaceChild(joinBlock.getChildren(), joinBlock);
+            }
+        }
+    }
+}
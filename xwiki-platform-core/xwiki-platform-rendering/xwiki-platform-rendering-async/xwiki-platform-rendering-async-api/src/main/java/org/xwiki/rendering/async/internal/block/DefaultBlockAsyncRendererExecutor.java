@@ -31,6 +31,7 @@
 import org.xwiki.rendering.async.internal.AsyncRendererExecutor;
 import org.xwiki.rendering.async.internal.AsyncRendererExecutorResponse;
 import org.xwiki.rendering.async.internal.AsyncRendererWrapper;
+import org.xwiki.rendering.async.internal.AsyncRenderingConfiguration;
 import org.xwiki.rendering.block.Block;
 import org.xwiki.rendering.block.FormatBlock;
 import org.xwiki.rendering.block.GroupBlock;
@@ -89,6 +90,9 @@ public Syntax getTargetSyntax()
     @Inject
     private JobProgressManager progress;
 
+    @Inject
+    private Provider<AsyncRenderingConfiguration> configurationProvider;
+
     @Override
     public Block execute(BlockAsyncRendererConfiguration configuration) throws JobException, RenderingException
     {
@@ -131,6 +135,20 @@ public Block execute(BlockAsyncRenderer renderer, AsyncRendererConfiguration con
             return result.getBlock();
         }
 
+        Block placeholder = createPlaceholder(renderer, response);
+
+        // Wait for the result on the server side, as late as possible so that the next asynchronous blocks are
+        // executed in parallel in the meantime
+        AsyncRenderingConfiguration asyncConfiguration = this.configurationProvider.get();
+        if (asyncConfiguration.isParallelEnabled()) {
+            return new AsyncJoinBlock(this.executor, response, placeholder, asyncConfiguration.getParallelTimeout());
+        }
+
+        return placeholder;
+    }
+
+    private Block createPlaceholder(BlockAsyncRenderer renderer, AsyncRendererExecutorResponse response)
+    {
         // Return a placeholder waiting for the result
         Block placeholder;
         if (renderer.isInline()) {
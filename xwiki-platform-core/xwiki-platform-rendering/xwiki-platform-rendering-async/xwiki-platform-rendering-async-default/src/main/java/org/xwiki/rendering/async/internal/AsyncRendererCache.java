@@ -24,6 +24,8 @@
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 import javax.inject.Inject;
@@ -55,6 +57,10 @@
 @Singleton
 public class AsyncRendererCache implements Initializable, CacheEntryListener<AsyncRendererJobStatus>
 {
+    private static final int STAMPS_SIZE = 4096;
+
+    private static final String WIKI_STAMP_PREFIX = "wiki:";
+
     @Inject
     private AuthorizationManager authorization;
 
@@ -75,6 +81,21 @@ public class AsyncRendererCache implements Initializable, CacheEntryListener<Asy
 
     private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
 
+    /**
+     * Incremented each time something is invalidated.
+     */
+    private final AtomicLong version = new AtomicLong();
+
+    /**
+     * The version of the last invalidation of each dependency, indexed by the hash of the dependency. Collisions only
+     * mean that a result might not be cached when it could have been.
+     */
+    private final AtomicLongArray stamps = new AtomicLongArray(STAMPS_SIZE);
+
+    private volatile long rightsStamp;
+
+    private volatile long flushStamp;
+
     /**
      * @return the lock the lock
      * @since 10.11.5
@@ -149,10 +170,30 @@ public AsyncRendererJobStatus getAsync(String clientId)
         return status;
     }
 
+    /**
+     * @return the current invalidation version, to pass to {@link #put(AsyncRendererJobStatus, long)}
+     * @since 12.0RC1
+     */
+    public long getVersion()
+    {
+        return this.version.get();
+    }
+
     /**
      * @param status the job status to add to the cache
      */
     public void put(AsyncRendererJobStatus status)
+    {
+        put(status, Long.MAX_VALUE);
+    }
+
+    /**
+     * @param status the job status to add to the cache
+     * @param startVersion the invalidation version (see {@link #getVersion()}) when the execution started, the result
+     *            is not stored in the long cache if one of its dependencies was invalidated since then
+     * @since 12.0RC1
+     */
+    public void put(AsyncRendererJobStatus status, long startVersion)
     {
         this.lock.writeLock().lock();
 
@@ -165,8 +206,8 @@ public void put(AsyncRendererJobStatus status)
 
             String cacheKey = toCacheKey(status.getRequest().getId());
 
-            // If cache is enabled, store the status in the long cache
-            if (longCacheAllowed) {
+            // If cache is enabled, store the status in the long cache (unless the result is already outdated)
+            if (longCacheAllowed && !isStale(status, startVersion)) {
                 this.longCache.set(cacheKey, status);
             }
 
@@ -181,11 +222,60 @@ public void put(AsyncRendererJobStatus status)
         }
     }
 
+    private boolean isStale(AsyncRendererJobStatus status, long startVersion)
+    {
+        if (this.flushStamp > startVersion) {
+            return true;
+        }
+
+        if (!status.getRights().isEmpty() && this.rightsStamp > startVersion) {
+            return true;
+        }
+
+        for (EntityReference reference : status.getReferences()) {
+            if (getStamp(reference) > startVersion
+                || getStamp(WIKI_STAMP_PREFIX + reference.getRoot().getName()) > startVersion) {
+                return true;
+            }
+        }
+
+        for (Type roleType : status.getRoleTypes()) {
+            if (getStamp(roleType.getTypeName()) > startVersion) {
+                return true;
+            }
+        }
+
+        for (ComponentRole<?> role : status.getRoles()) {
+            if (getStamp(role.getRoleType().getTypeName()) > startVersion) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private long getStamp(Object dependency)
+    {
+        return this.stamps.get(getStampIndex(dependency));
+    }
+
+    private void stamp(Object dependency)
+    {
+        this.stamps.set(getStampIndex(dependency), this.version.incrementAndGet());
+    }
+
+    private int getStampIndex(Object dependency)
+    {
+        return (dependency.hashCode() & Integer.MAX_VALUE) % STAMPS_SIZE;
+    }
+
     /**
      * Remove all the entries the cache contains.
      */
     public void flush()
     {
+        this.flushStamp = this.version.incrementAndGet();
+
         this.longCache.removeAll();
         this.asyncCache.removeAll();
     }
@@ -224,6 +314,7 @@ public void cacheEntryRemoved(CacheEntryEvent<AsyncRendererJobStatus> event)
         remove(key, status.getReferences(), this.referenceMapping);
         remove(key, status.getRoleTypes(), this.roleTypeMapping);
         remove(key, status.getRoles(), this.roleMapping);
+        remove(key, status.getRights(), this.rightMapping);
     }
 
     private <T> void remove(String key, Set<T> values, Map<T, Set<String>> mapping)
@@ -253,6 +344,8 @@ public void cacheEntryModified(CacheEntryEvent<AsyncRendererJobStatus> event)
     public void cleanCache(EntityReference reference)
     {
         if (reference != null) {
+            stamp(reference);
+
             clean(this.referenceMapping.remove(reference));
 
             // Also clean entries associated to one of the reference parents
@@ -265,6 +358,8 @@ public void cleanCache(EntityReference reference)
      */
     public void cleanCache(String wiki)
     {
+        stamp(WIKI_STAMP_PREFIX + wiki);
+
         for (Map.Entry<EntityReference, Set<String>> entry : this.referenceMapping.entrySet()) {
             EntityReference reference = entry.getKey();
 
@@ -280,10 +375,60 @@ public void cleanCache(String wiki)
      */
     public void cleanCache(Type roleType, String roleHint)
     {
+        stamp(roleType.getTypeName());
+
         clean(this.roleTypeMapping.remove(roleType));
         clean(this.roleMapping.remove(new DefaultComponentRole<>(roleType, roleHint)));
     }
 
+    /**
+     * Same as {@link #cleanCache(Type, String)} but for a type known only by its name (when it comes from another
+     * member of the cluster).
+     * 
+     * @param roleTypeName the name of the type of the component
+     * @param roleHint the hint of the component
+     * @since 12.0RC1
+     */
+    public void cleanCache(String roleTypeName, String roleHint)
+    {
+        stamp(roleTypeName);
+
+        for (Type roleType : this.roleTypeMapping.keySet()) {
+            if (roleType.getTypeName().equals(roleTypeName)) {
+                clean(this.roleTypeMapping.remove(roleType));
+            }
+        }
+
+        for (ComponentRole<?> role : this.roleMapping.keySet()) {
+            if (role.getRoleType().getTypeName().equals(roleTypeName) && role.getRoleHint().equals(roleHint)) {
+                clean(this.roleMapping.remove(role));
+            }
+        }
+    }
+
+    /**
+     * Apply the passed invalidation.
+     * 
+     * @param event the description of what to invalidate
+     * @since 12.0RC1
+     */
+    public void cleanCache(AsyncRendererCacheInvalidationEvent event)
+    {
+        event.getReferences().forEach(this::cleanCache);
+
+        if (event.getWiki() != null) {
+            cleanCache(event.getWiki());
+        }
+
+        if (event.getRoleType() != null) {
+            cleanCache(event.getRoleType(), event.getRoleHint());
+        }
+
+        if (event.isRights()) {
+            cleanCacheForRight();
+        }
+    }
+
     /**
      * Clean entries for which the right evaluation changed.
      * 
@@ -291,6 +436,8 @@ public void cleanCache(Type roleType, String roleHint)
      */
     public void cleanCacheForRight()
     {
+        this.rightsStamp = this.version.incrementAndGet();
+
         this.rightMapping.forEach(this::checkRight);
     }
 
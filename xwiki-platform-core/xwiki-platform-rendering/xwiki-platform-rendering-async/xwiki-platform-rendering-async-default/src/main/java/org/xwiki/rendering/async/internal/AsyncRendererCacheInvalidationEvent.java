@@ -0,0 +1,146 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.rendering.async.internal;
+
+import java.io.Serializable;
+import java.lang.reflect.Type;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import org.xwiki.model.reference.EntityReference;
+import org.xwiki.observation.event.Event;
+
+/**
+ * Compact description of what was invalidated in {@link AsyncRendererCache}, sent to the other members of the cluster
+ * so that they invalidate the same entries (some of the events triggering the invalidation, like component
+ * registration or right modifications, are not shared between the cluster members).
+ * 
+ * @version $Id$
+ * @since 12.0RC1
+ */
+public class AsyncRendererCacheInvalidationEvent implements Event, Serializable
+{
+    private static final long serialVersionUID = 1L;
+
+    private final Set<EntityReference> references = new LinkedHashSet<>();
+
+    private String wiki;
+
+    private String roleType;
+
+    private String roleHint;
+
+    private boolean rights;
+
+    /**
+     * @return the references for which to invalidate the entries
+     */
+    public Set<EntityReference> getReferences()
+    {
+        return this.references;
+    }
+
+    /**
+     * @param reference the reference for which to invalidate the entries
+     * @return this event
+     */
+    public AsyncRendererCacheInvalidationEvent addReference(EntityReference reference)
+    {
+        if (reference != null) {
+            this.references.add(reference);
+        }
+
+        return this;
+    }
+
+    /**
+     * @return the wiki for which to invalidate all the entries
+     */
+    public String getWiki()
+    {
+        return this.wiki;
+    }
+
+    /**
+     * @param wiki the wiki for which to invalidate all the entries
+     * @return this event
+     */
+    public AsyncRendererCacheInvalidationEvent setWiki(String wiki)
+    {
+        this.wiki = wiki;
+
+        return this;
+    }
+
+    /**
+     * @return the name of the type of the component for which to invalidate the entries (the {@link Type} itself is not
+     *         always serializable)
+     */
+    public String getRoleType()
+    {
+        return this.roleType;
+    }
+
+    /**
+     * @return the hint of the component for which to invalidate the entries
+     */
+    public String getRoleHint()
+    {
+        return this.roleHint;
+    }
+
+    /**
+     * @param type the type of the component for which to invalidate the entries
+     * @param hint the hint of the component for which to invalidate the entries
+     * @return this event
+     */
+    public AsyncRendererCacheInvalidationEvent setComponent(Type type, String hint)
+    {
+        this.roleType = type.getTypeName();
+        this.roleHint = hint;
+
+        return this;
+    }
+
+    /**
+     * @return true if the entries depending on a right check should be invalidated
+     */
+    public boolean isRights()
+    {
+        return this.rights;
+    }
+
+    /**
+     * @param rights true if the entries depending on a right check should be invalidated
+     * @return this event
+     */
+    public AsyncRendererCacheInvalidationEvent setRights(boolean rights)
+    {
+        this.rights = rights;
+
+        return this;
+    }
+
+    @Override
+    public boolean matches(Object otherEvent)
+    {
+        return otherEvent instanceof AsyncRendererCacheInvalidationEvent;
+    }
+}
@@ -21,6 +21,7 @@
 
 import javax.inject.Inject;
 import javax.inject.Named;
+import javax.inject.Provider;
 import javax.inject.Singleton;
 
 import org.xwiki.bridge.event.DocumentCreatedEvent;
@@ -33,7 +34,9 @@
 import org.xwiki.component.event.ComponentDescriptorRemovedEvent;
 import org.xwiki.model.reference.WikiReference;
 import org.xwiki.observation.AbstractEventListener;
+import org.xwiki.observation.ObservationManager;
 import org.xwiki.observation.event.Event;
+import org.xwiki.observation.remote.RemoteObservationManagerContext;
 import org.xwiki.security.authorization.event.RightUpdatedEvent;
 
 import com.xpn.xwiki.doc.XWikiDocument;
@@ -66,6 +69,12 @@ public class AsyncRendererCacheListener extends AbstractEventListener
     @Inject
     private AsyncRendererCache cache;
 
+    @Inject
+    private Provider<ObservationManager> observationManagerProvider;
+
+    @Inject
+    private RemoteObservationManagerContext remoteContext;
+
     /**
      * Default constructor.
      */
@@ -75,41 +84,61 @@ public AsyncRendererCacheListener()
             new XClassPropertyUpdatedEvent(), new XObjectAddedEvent(), new XObjectDeletedEvent(),
             new XObjectUpdatedEvent(), new DocumentCreatedEvent(), new DocumentUpdatedEvent(),
             new DocumentDeletedEvent(), new ComponentDescriptorAddedEvent(), new ComponentDescriptorRemovedEvent(),
-            new RightUpdatedEvent());
+            new RightUpdatedEvent(), new AsyncRendererCacheInvalidationEvent());
     }
 
     @Override
     public void onEvent(Event event, Object source, Object data)
     {
+        if (event instanceof AsyncRendererCacheInvalidationEvent) {
+            // Invalidation coming from another member of the cluster (the local ones are already applied)
+            if (this.remoteContext.isRemoteState()) {
+                this.cache.cleanCache((AsyncRendererCacheInvalidationEvent) event);
+            }
+
+            return;
+        }
+
+        AsyncRendererCacheInvalidationEvent invalidation = new AsyncRendererCacheInvalidationEvent();
+
         if (event instanceof RightUpdatedEvent) {
-            this.cache.cleanCacheForRight();
+            invalidation.setRights(true);
         } else if (event instanceof ComponentDescriptorEvent) {
             ComponentDescriptorEvent componentEvent = ((ComponentDescriptorEvent) event);
-            this.cache.cleanCache(componentEvent.getRoleType(), componentEvent.getRoleHint());
+            invalidation.setComponent(componentEvent.getRoleType(), componentEvent.getRoleHint());
         } else if (event instanceof WikiDeletedEvent) {
             WikiReference wikiReference = new WikiReference(((WikiDeletedEvent) event).getWikiId());
 
-            this.cache.cleanCache(wikiReference.getName());
+            invalidation.setWiki(wikiReference.getName());
         } else {
             XWikiDocument document = (XWikiDocument) source;
 
             // Clean entries associated to modified document
-            this.cache.cleanCache(document.getDocumentReference());
+            invalidation.addReference(document.getDocumentReference());
 
             // Clean entries associated to modified document with locale
-            this.cache.cleanCache(document.getDocumentReferenceWithLocale());
+            invalidation.addReference(document.getDocumentReferenceWithLocale());
 
             // Clean entries associated to the exact entry
             if (event instanceof EntityEvent) {
-                onEntityEvent((EntityEvent) event, document);
+                onEntityEvent((EntityEvent) event, document, invalidation);
             }
         }
+
+        this.cache.cleanCache(invalidation);
+
+        // Share the invalidation with the other members of the cluster since some of the events (components, rights)
+        // are not shared and the remote document events don't carry enough information to find the modified objects
+        if (!this.remoteContext.isRemoteState()) {
+            this.observationManagerProvider.get().notify(invalidation, null, null);
+        }
     }
 
-    private void onEntityEvent(EntityEvent event, XWikiDocument document)
+    private void onEntityEvent(EntityEvent event, XWikiDocument document,
+        AsyncRendererCacheInvalidationEvent invalidation)
     {
         // Clean entries associated to the entity
-        this.cache.cleanCache(event.getReference());
+        invalidation.addReference(event.getReference());
 
         // Clean entries associated to modified object class reference
         if (event instanceof XObjectEvent) {
@@ -123,7 +152,7 @@ private void onEntityEvent(EntityEvent event, XWikiDocument document)
                 obj = document.getXObject(objectEvent.getReference());
             }
 
-            this.cache.cleanCache(obj.getXClassReference());
+            invalidation.addReference(obj.getXClassReference());
         }
     }
 }
@@ -48,6 +48,8 @@ public class AsyncRendererJob extends AbstractJob<AsyncRendererJobRequest, Async
     @Inject
     private TemplateManager templateManager;
 
+    private long cacheVersion = Long.MAX_VALUE;
+
     @Override
     protected AsyncRendererJobRequest castRequest(Request request)
     {
@@ -78,6 +80,9 @@ protected void runInternal() throws Exception
     {
         AsyncRenderer renderer = getRequest().getRenderer();
 
+        // Remember when the execution started to not cache a result invalidated in the meantime
+        this.cacheVersion = this.cache.getVersion();
+
         // Enable async execution only if cache is disabled as otherwise we could end up with place holders not
         // associated to any job since it was not really executed the following times
         this.asyncContext.setEnabled(!renderer.isCacheAllowed());
@@ -98,6 +103,7 @@ protected void runInternal() throws Exception
         getStatus().setReferences(contextUse.getReferences());
         getStatus().setRoles(contextUse.getRoles());
         getStatus().setRoleTypes(contextUse.getRoleTypes());
+        getStatus().setRights(contextUse.getRights());
         getStatus().setUses(contextUse.getUses());
     }
 
@@ -107,6 +113,6 @@ protected void jobFinished(Throwable error)
         super.jobFinished(error);
 
         // Cache the result
-        this.cache.put(getStatus());
+        this.cache.put(getStatus(), this.cacheVersion);
     }
 }
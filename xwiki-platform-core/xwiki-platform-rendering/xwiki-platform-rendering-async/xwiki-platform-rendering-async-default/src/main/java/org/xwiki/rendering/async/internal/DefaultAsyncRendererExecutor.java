@@ -27,6 +27,10 @@
 import java.util.List;
 import java.util.Map;
 import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
 
@@ -36,11 +40,15 @@
 import javax.inject.Singleton;
 
 import org.apache.commons.collections4.MapUtils;
+import org.apache.commons.lang3.concurrent.BasicThreadFactory;
 import org.slf4j.Logger;
 import org.xwiki.cache.CacheControl;
 import org.xwiki.component.annotation.Component;
+import org.xwiki.component.descriptor.ComponentRole;
+import org.xwiki.component.manager.ComponentLifecycleException;
 import org.xwiki.component.manager.ComponentLookupException;
 import org.xwiki.component.manager.ComponentManager;
+import org.xwiki.component.phase.Disposable;
 import org.xwiki.context.concurrent.ContextStoreManager;
 import org.xwiki.job.Job;
 import org.xwiki.job.JobException;
@@ -50,6 +58,7 @@
 import org.xwiki.rendering.async.AsyncContext;
 import org.xwiki.rendering.async.AsyncContextHandler;
 import org.xwiki.rendering.async.internal.DefaultAsyncContext.ContextUse;
+import org.xwiki.rendering.async.internal.DefaultAsyncContext.RightEntry;
 import org.xwiki.security.authorization.AuthorExecutor;
 
 import com.xpn.xwiki.internal.context.XWikiContextContextStore;
@@ -62,8 +71,15 @@
  */
 @Component
 @Singleton
-public class DefaultAsyncRendererExecutor implements AsyncRendererExecutor
+public class DefaultAsyncRendererExecutor implements AsyncRendererExecutor, Disposable
 {
+    /**
+     * The maximum number of blocks waiting for a thread to be executed in parallel, per thread.
+     */
+    private static final int PARALLEL_QUEUE_FACTOR = 10;
+
+    private static final long PARALLEL_KEEP_ALIVE = 60L;
+
     @Inject
     @Named(AsyncRendererJobStatus.JOBTYPE)
     private Provider<Job> jobProvider;
@@ -90,11 +106,29 @@ public class DefaultAsyncRendererExecutor implements AsyncRendererExecutor
     @Inject
     private CacheControl cacheControl;
 
+    @Inject
+    private AsyncRenderingConfiguration asyncConfiguration;
+
     @Inject
     private Logger logger;
 
     private AtomicLong clientIdCount = new AtomicLong();
 
+    /**
+     * The jobs executed in parallel (not known by the job executor).
+     */
+    private final Map<List<String>, Job> parallelJobs = new ConcurrentHashMap<>();
+
+    private ThreadPoolExecutor parallelExecutor;
+
+    @Override
+    public synchronized void dispose() throws ComponentLifecycleException
+    {
+        if (this.parallelExecutor != null) {
+            this.parallelExecutor.shutdownNow();
+        }
+    }
+
     private String newClientId()
     {
         return String.valueOf(this.clientIdCount.incrementAndGet());
@@ -106,7 +140,7 @@ public AsyncRendererJobStatus getAsyncStatus(List<String> id, String clientId)
         //////////////////////////////////////////////
         // Try running job
 
-        Job job = this.executor.getJob(id);
+        Job job = getJob(id);
 
         if (job != null) {
             AsyncRendererJobStatus status = (AsyncRendererJobStatus) job.getStatus();
@@ -135,7 +169,7 @@ public AsyncRendererJobStatus getAsyncStatus(List<String> id, String clientId, l
         AsyncRendererJobStatus status = getAsyncStatus(id, clientId);
 
         if (status != null && status.getState() != State.FINISHED) {
-            Job job = this.executor.getJob(id);
+            Job job = getJob(id);
 
             if (job != null) {
                 // Wait for the job to be finished (or until the timeout is reached)
@@ -172,6 +206,9 @@ public AsyncRendererExecutorResponse render(AsyncRenderer renderer, AsyncRendere
 
                         injectUses(status);
 
+                        // Make sure a cached parent execution is invalidated for the same reasons
+                        propagateUses(status);
+
                         return new AsyncRendererExecutorResponse(status);
                     } else if (asyncAllowed) {
                         // Already running job, associate it with another client
@@ -208,7 +245,7 @@ public AsyncRendererExecutorResponse render(AsyncRenderer renderer, AsyncRendere
 
                 request.setId(jobId);
 
-                Job job = this.executor.execute(AsyncRendererJobStatus.JOBTYPE, request);
+                Job job = startJob(request);
 
                 AsyncRendererJobStatus status = (AsyncRendererJobStatus) job.getStatus();
 
@@ -221,6 +258,9 @@ public AsyncRendererExecutorResponse render(AsyncRenderer renderer, AsyncRendere
 
             // If async is disabled run the renderer in the current thread
             if (renderer.isCacheAllowed()) {
+                // Remember when the execution started to not cache a result invalidated in the meantime
+                long cacheVersion = this.cache.getVersion();
+
                 // Prepare to catch stuff to invalidate the cache
                 if (this.asyncContext instanceof DefaultAsyncContext) {
                     ((DefaultAsyncContext) this.asyncContext).pushContextUse();
@@ -242,7 +282,10 @@ public AsyncRendererExecutorResponse render(AsyncRenderer renderer, AsyncRendere
 
                 request.setId(jobId);
 
-                this.cache.put(status);
+                this.cache.put(status, cacheVersion);
+
+                // Make sure a cached parent execution is invalidated for the same reasons
+                propagateUses(status);
             } else {
                 AsyncRendererResult result = syncRender(renderer, false, configuration);
 
@@ -256,6 +299,63 @@ public AsyncRendererExecutorResponse render(AsyncRenderer renderer, AsyncRendere
         return response;
     }
 
+    private Job getJob(List<String> id)
+    {
+        Job job = this.parallelJobs.get(id);
+
+        if (job == null) {
+            job = this.executor.getJob(id);
+        }
+
+        return job;
+    }
+
+    private Job startJob(AsyncRendererJobRequest request) throws JobException
+    {
+        ThreadPoolExecutor jobExecutor = getParallelExecutor();
+
+        if (jobExecutor != null) {
+            Job job = this.jobProvider.get();
+            job.initialize(request);
+
+            List<String> id = request.getId();
+            this.parallelJobs.put(id, job);
+
+            try {
+                jobExecutor.execute(() -> {
+                    try {
+                        job.run();
+                    } finally {
+                        this.parallelJobs.remove(id, job);
+                    }
+                });
+
+                return job;
+            } catch (RejectedExecutionException e) {
+                this.parallelJobs.remove(id, job);
+
+                this.logger.debug("Too many asynchronous blocks executed in parallel, using the job executor");
+            }
+        }
+
+        return this.executor.execute(AsyncRendererJobStatus.JOBTYPE, request);
+    }
+
+    private synchronized ThreadPoolExecutor getParallelExecutor()
+    {
+        if (this.parallelExecutor == null && this.asyncConfiguration.isParallelEnabled()) {
+            // Use dedicated threads: the asynchronous blocks executed in parallel are waited for by the request
+            // thread so they should not be stuck behind the (potentially long) jobs of the job executor
+            int threads = this.asyncConfiguration.getParallelThreads();
+            this.parallelExecutor = new ThreadPoolExecutor(threads, threads, PARALLEL_KEEP_ALIVE, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(threads * PARALLEL_QUEUE_FACTOR), new BasicThreadFactory.Builder()
+                    .namingPattern("XWiki async rendering thread %d").daemon(true).build());
+            this.parallelExecutor.allowCoreThreadTimeOut(true);
+        }
+
+        return this.parallelExecutor;
+    }
+
     private AsyncRendererResult syncRender(AsyncRenderer renderer, boolean cached,
         AsyncRendererConfiguration configuration) throws RenderingException
     {
@@ -291,6 +391,25 @@ private void injectUses(AsyncRendererJobStatus status)
         }
     }
 
+    private void propagateUses(AsyncRendererJobStatus status)
+    {
+        status.getReferences().forEach(this.asyncContext::useEntity);
+        status.getRoleTypes().forEach(this.asyncContext::useComponent);
+
+        for (ComponentRole<?> role : status.getRoles()) {
+            this.asyncContext.useComponent(role.getRoleType(), role.getRoleHint());
+        }
+
+        for (RightEntry right : status.getRights()) {
+            this.asyncContext.useRight(right.getRight(), right.getUserReference(), right.getEntityReference(),
+                right.isAllowed());
+        }
+
+        if (status.getUses() != null) {
+            status.getUses().forEach((type, values) -> values.forEach(value -> this.asyncContext.use(type, value)));
+        }
+    }
+
     private Map<String, Serializable> getContext(boolean asyncAllowed, boolean cacheAllowed,
         AsyncRendererConfiguration configuration) throws JobException
     {
@@ -326,7 +445,7 @@ private Map<String, Serializable> getContext(boolean asyncAllowed, boolean cache
     private AsyncRendererJobStatus getCurrent(List<String> jobId)
     {
         // Try to find the job status in a running job
-        Job job = this.executor.getJob(jobId);
+        Job job = getJob(jobId);
 
         // Found a running job, return it
         if (job instanceof AsyncRendererJob) {
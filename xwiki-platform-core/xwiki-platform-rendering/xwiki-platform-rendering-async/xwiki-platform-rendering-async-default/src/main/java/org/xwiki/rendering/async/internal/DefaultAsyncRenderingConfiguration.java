@@ -0,0 +1,71 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.rendering.async.internal;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import org.xwiki.component.annotation.Component;
+import org.xwiki.configuration.ConfigurationSource;
+
+/**
+ * Get configuration data from the XWiki properties file. Supported options:
+ * <ul>
+ * <li>"rendering.async.parallel", default = false</li>
+ * <li>"rendering.async.parallelTimeout", default = 30</li>
+ * <li>"rendering.async.parallelThreads", default = 10</li>
+ * </ul>
+ * 
+ * @version $Id$
+ * @since 12.0RC1
+ */
+@Component
+@Singleton
+public class DefaultAsyncRenderingConfiguration implements AsyncRenderingConfiguration
+{
+    private static final String PREFIX = "rendering.async.";
+
+    private static final long DEFAULT_PARALLEL_TIMEOUT = 30;
+
+    private static final int DEFAULT_PARALLEL_THREADS = 10;
+
+    @Inject
+    @Named("xwikiproperties")
+    private ConfigurationSource configuration;
+
+    @Override
+    public boolean isParallelEnabled()
+    {
+        return this.configuration.getProperty(PREFIX + "parallel", Boolean.FALSE).booleanValue();
+    }
+
+    @Override
+    public long getParallelTimeout()
+    {
+        return this.configuration.getProperty(PREFIX + "parallelTimeout", DEFAULT_PARALLEL_TIMEOUT);
+    }
+
+    @Override
+    public int getParallelThreads()
+    {
+        return this.configuration.getProperty(PREFIX + "parallelThreads", DEFAULT_PARALLEL_THREADS);
+    }
+}
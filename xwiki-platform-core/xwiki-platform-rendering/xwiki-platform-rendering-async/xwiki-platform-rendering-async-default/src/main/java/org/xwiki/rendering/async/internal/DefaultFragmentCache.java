@@ -0,0 +1,106 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.rendering.async.internal;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import org.xwiki.component.annotation.Component;
+import org.xwiki.job.JobException;
+import org.xwiki.rendering.RenderingException;
+import org.xwiki.rendering.async.FragmentCache;
+
+/**
+ * Default implementation of {@link FragmentCache} based on the synchronous (and cached) execution of
+ * {@link AsyncRendererExecutor}.
+ * 
+ * @version $Id$
+ * @since 12.0RC1
+ */
+@Component
+@Singleton
+public class DefaultFragmentCache implements FragmentCache
+{
+    private static final String ID_PREFIX = "fragment";
+
+    @Inject
+    private AsyncRendererExecutor executor;
+
+    private static final class FragmentAsyncRenderer implements AsyncRenderer
+    {
+        private final List<String> id;
+
+        private final FragmentRenderer renderer;
+
+        FragmentAsyncRenderer(List<String> id, FragmentRenderer renderer)
+        {
+            this.id = new ArrayList<>(id.size() + 1);
+            this.id.add(ID_PREFIX);
+            this.id.addAll(id);
+
+            this.renderer = renderer;
+        }
+
+        @Override
+        public List<String> getId()
+        {
+            return this.id;
+        }
+
+        @Override
+        public AsyncRendererResult render(boolean async, boolean cached) throws RenderingException
+        {
+            return new AsyncRendererResult(this.renderer.render());
+        }
+
+        @Override
+        public boolean isAsyncAllowed()
+        {
+            return false;
+        }
+
+        @Override
+        public boolean isCacheAllowed()
+        {
+            return true;
+        }
+    }
+
+    @Override
+    public String render(List<String> id, Set<String> contextEntries, FragmentRenderer renderer)
+        throws RenderingException
+    {
+        AsyncRendererConfiguration configuration = new AsyncRendererConfiguration();
+        configuration.setContextEntries(contextEntries);
+
+        AsyncRendererExecutorResponse response;
+        try {
+            response = this.executor.render(new FragmentAsyncRenderer(id, renderer), configuration);
+        } catch (JobException e) {
+            throw new RenderingException("Failed to render fragment " + id, e);
+        }
+
+        return response.getStatus().getResult().getResult();
+    }
+}
@@ -197,6 +197,52 @@ public void invalidateSyncOnWiki()
         assertNull(this.asyncCache.getSync(getId()));
     }
 
+    @Test
+    public void putInvalidatedDuringExecution()
+    {
+        setReferences(new DocumentReference("wiki", "Space", "Document"));
+
+        long version = this.asyncCache.getVersion();
+
+        // Invalidated while the result was produced
+        this.asyncCache.cleanCache(new ObjectReference("name", new DocumentReference("wiki", "Space", "Document")));
+
+        this.asyncCache.put(this.status, version);
+
+        assertNull(this.asyncCache.getSync(getId()));
+
+        // Unrelated invalidation
+        version = this.asyncCache.getVersion();
+        this.asyncCache.cleanCache(new DocumentReference("wiki", "Space", "Other"));
+
+        this.asyncCache.put(this.status, version);
+
+        assertSame(this.status, this.asyncCache.getSync(getId()));
+    }
+
+    @Test
+    public void invalidateSyncOnRemoteEvent()
+    {
+        setRoles(new DefaultComponentRole<>(String.class, "hint"));
+        setReferences(new DocumentReference("wiki", "Space", "Document"));
+
+        this.asyncCache.put(this.status);
+
+        this.asyncCache.cleanCache(new AsyncRendererCacheInvalidationEvent().setComponent(String.class, "otherhint"));
+
+        assertSame(this.status, this.asyncCache.getSync(getId()));
+
+        this.asyncCache.cleanCache(new AsyncRendererCacheInvalidationEvent().setComponent(String.class, "hint"));
+
+        assertNull(this.asyncCache.getSync(getId()));
+
+        this.asyncCache.put(this.status);
+
+        this.asyncCache.cleanCache(new AsyncRendererCacheInvalidationEvent().setWiki("wiki"));
+
+        assertNull(this.asyncCache.getSync(getId()));
+    }
+
     @Test
     public void getAsyncSingleClient()
     {
@@ -27,19 +27,35 @@
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 
+import javax.inject.Named;
+import javax.inject.Provider;
+
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.invocation.InvocationOnMock;
 import org.mockito.stubbing.Answer;
+import org.xwiki.cache.CacheControl;
 import org.xwiki.component.manager.ComponentLookupException;
 import org.xwiki.context.concurrent.ContextStoreManager;
 import org.xwiki.job.Job;
 import org.xwiki.job.JobException;
 import org.xwiki.job.JobExecutor;
+import org.xwiki.job.event.status.JobStatus.State;
+import org.xwiki.model.reference.DocumentReference;
 import org.xwiki.rendering.RenderingException;
 import org.xwiki.rendering.async.AsyncContext;
+import org.xwiki.rendering.async.internal.block.AsyncJoinBlock;
+import org.xwiki.rendering.async.internal.block.AsyncJoinTransformation;
+import org.xwiki.rendering.async.internal.block.BlockAsyncRendererResult;
+import org.xwiki.rendering.block.Block;
+import org.xwiki.rendering.block.WordBlock;
+import org.xwiki.rendering.block.XDOM;
 import org.xwiki.test.junit5.mockito.ComponentTest;
 import org.xwiki.test.junit5.mockito.InjectMockComponents;
 import org.xwiki.test.junit5.mockito.MockComponent;
@@ -49,8 +65,12 @@
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.same;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 /**
@@ -81,6 +101,16 @@
     @MockComponent
     private ContextStoreManager context;
 
+    @MockComponent
+    private CacheControl cacheControl;
+
+    @MockComponent
+    private AsyncRenderingConfiguration asyncConfiguration;
+
+    @MockComponent
+    @Named(AsyncRendererJobStatus.JOBTYPE)
+    private Provider<Job> jobProvider;
+
     @InjectMockComponents
     private DefaultAsyncRendererExecutor executor;
 
@@ -224,6 +254,32 @@ public void rendererNotAsyncNotCachedContextEnabled() throws JobException, Rende
         assertEquals("false false", response.getStatus().getResult().getResult());
     }
 
+    @Test
+    public void rendererCachedPropagatesUses() throws JobException, RenderingException
+    {
+        List<String> jobId = Arrays.asList("1", "2", "celement1", "value1%5c", "celement2", "value2%2f");
+
+        DocumentReference reference = new DocumentReference("wiki", "space", "page");
+        AsyncRendererJobRequest request = new AsyncRendererJobRequest();
+        request.setId(jobId);
+        AsyncRendererJobStatus status = new AsyncRendererJobStatus(request, new AsyncRendererResult("cached"),
+            Collections.singleton(reference), Collections.singleton(String.class), null, null, null);
+        when(this.cache.getSync(jobId)).thenReturn(status);
+        when(this.cacheControl.isCacheReadAllowed(any())).thenReturn(true);
+
+        when(this.renderer.getId()).thenReturn(Arrays.asList("1", "2"));
+        when(this.renderer.isAsyncAllowed()).thenReturn(false);
+        when(this.renderer.isCacheAllowed()).thenReturn(true);
+
+        AsyncRendererExecutorResponse response = this.executor.render(this.renderer, this.configuration);
+
+        assertEquals("cached", response.getStatus().getResult().getResult());
+
+        // The dependencies of the cached result are also dependencies of the current execution
+        verify(this.asyncContext).useEntity(reference);
+        verify(this.asyncContext).useComponent(String.class);
+    }
+
     @Test
     public void rendererAsyncAlreadyRunning() throws JobException, RenderingException
     {
@@ -247,4 +303,79 @@ public void rendererAsyncAlreadyRunning() throws JobException, RenderingExceptio
         assertNotNull(response.getAsyncClientId());
         assertSame(status, response.getStatus());
     }
+
+    private Job mockParallelJob(CyclicBarrier barrier) throws InterruptedException
+    {
+        Job parallelJob = mock(Job.class);
+
+        AtomicReference<AsyncRendererJobStatus> jobStatus = new AtomicReference<>();
+        CountDownLatch finished = new CountDownLatch(1);
+
+        doAnswer(invocation -> {
+            jobStatus.set(new AsyncRendererJobStatus(invocation.getArgument(0), null, null));
+
+            return null;
+        }).when(parallelJob).initialize(any());
+        when(parallelJob.getStatus()).thenAnswer(invocation -> jobStatus.get());
+        doAnswer(invocation -> {
+            AsyncRendererJobStatus status = jobStatus.get();
+
+            // Wait for the other job to be started
+            barrier.await(10, TimeUnit.SECONDS);
+
+            status.setResult(status.getRequest().getRenderer().render(true, false));
+            status.setState(State.FINISHED);
+            finished.countDown();
+
+            return null;
+        }).when(parallelJob).run();
+        when(parallelJob.join(anyLong(), any()))
+            .thenAnswer(invocation -> finished.await(invocation.getArgument(0), invocation.getArgument(1)));
+
+        return parallelJob;
+    }
+
+    private AsyncRenderer mockParallelRenderer(String id, Block block) throws RenderingException
+    {
+        AsyncRenderer parallelRenderer = mock(AsyncRenderer.class);
+
+        when(parallelRenderer.getId()).thenReturn(Arrays.asList(id));
+        when(parallelRenderer.isAsyncAllowed()).thenReturn(true);
+        when(parallelRenderer.render(true, false)).thenReturn(new BlockAsyncRendererResult(id, block));
+
+        return parallelRenderer;
+    }
+
+    @Test
+    public void rendererAsyncParallel() throws Exception
+    {
+        when(this.asyncContext.isEnabled()).thenReturn(true);
+        when(this.asyncConfiguration.isParallelEnabled()).thenReturn(true);
+        when(this.asyncConfiguration.getParallelThreads()).thenReturn(2);
+
+        // Each job waits for the other one to be started so they can only finish if they are executed at the same time
+        CyclicBarrier barrier = new CyclicBarrier(2);
+        when(this.jobProvider.get()).thenAnswer(invocation -> mockParallelJob(barrier));
+
+        Block result1 = new WordBlock("result1");
+        Block result2 = new WordBlock("result2");
+
+        AsyncRendererExecutorResponse response1 =
+            this.executor.render(mockParallelRenderer("1", result1), this.configuration);
+        AsyncRendererExecutorResponse response2 =
+            this.executor.render(mockParallelRenderer("2", result2), this.configuration);
+
+        // Join the blocks like it's done at the end of the transformations
+        XDOM xdom =
+            new XDOM(Arrays.asList(new AsyncJoinBlock(this.executor, response1, new WordBlock("placeholder1"), 10),
+                new AsyncJoinBlock(this.executor, response2, new WordBlock("placeholder2"), 10)));
+        new AsyncJoinTransformation().transform(xdom, null);
+
+        assertEquals(2, xdom.getChildren().size());
+        assertSame(result1, xdom.getChildren().get(0));
+        assertSame(result2, xdom.getChildren().get(1));
+
+        // The blocks were not executed by the job executor
+        verify(this.jobs, never()).execute(any(), any());
+    }
 }
@@ -0,0 +1,74 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.rendering.async.internal;
+
+import javax.inject.Named;
+
+import org.junit.jupiter.api.Test;
+import org.xwiki.configuration.ConfigurationSource;
+import org.xwiki.test.junit5.mockito.ComponentTest;
+import org.xwiki.test.junit5.mockito.InjectMockComponents;
+import org.xwiki.test.junit5.mockito.MockComponent;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.when;
+
+/**
+ * Validate {@link DefaultAsyncRenderingConfiguration}.
+ * 
+ * @version $Id$
+ */
+@ComponentTest
+public class DefaultAsyncRenderingConfigurationTest
+{
+    @MockComponent
+    @Named("xwikiproperties")
+    private ConfigurationSource source;
+
+    @InjectMockComponents
+    private DefaultAsyncRenderingConfiguration configuration;
+
+    @Test
+    public void defaultValues()
+    {
+        when(this.source.getProperty(anyString(), any(Object.class)))
+            .thenAnswer(invocation -> invocation.getArgument(1));
+
+        assertFalse(this.configuration.isParallelEnabled());
+        assertEquals(30, this.configuration.getParallelTimeout());
+        assertEquals(10, this.configuration.getParallelThreads());
+    }
+
+    @Test
+    public void configuredValues()
+    {
+        when(this.source.getProperty("rendering.async.parallel", Boolean.FALSE)).thenReturn(Boolean.TRUE);
+        when(this.source.getProperty("rendering.async.parallelTimeout", 30L)).thenReturn(5L);
+        when(this.source.getProperty("rendering.async.parallelThreads", 10)).thenReturn(4);
+
+        assertTrue(this.configuration.isParallelEnabled());
+        assertEquals(5, this.configuration.getParallelTimeout());
+        assertEquals(4, this.configuration.getParallelThreads());
+    }
+}
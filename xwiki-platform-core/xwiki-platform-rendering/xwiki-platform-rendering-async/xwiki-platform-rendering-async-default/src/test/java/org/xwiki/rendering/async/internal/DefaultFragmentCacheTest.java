@@ -0,0 +1,196 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.rendering.async.internal;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.inject.Named;
+import javax.inject.Provider;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.xwiki.cache.CacheControl;
+import org.xwiki.cache.CacheException;
+import org.xwiki.cache.CacheManager;
+import org.xwiki.cache.internal.MapCache;
+import org.xwiki.component.internal.ContextComponentManagerProvider;
+import org.xwiki.context.Execution;
+import org.xwiki.context.ExecutionContext;
+import org.xwiki.context.concurrent.ContextStoreManager;
+import org.xwiki.job.Job;
+import org.xwiki.job.JobExecutor;
+import org.xwiki.model.internal.reference.EntityReferenceFactory;
+import org.xwiki.model.reference.DocumentReference;
+import org.xwiki.model.reference.EntityReference;
+import org.xwiki.rendering.async.AsyncContext;
+import org.xwiki.rendering.async.FragmentCache;
+import org.xwiki.rendering.async.FragmentCache.FragmentRenderer;
+import org.xwiki.security.authorization.AuthorExecutor;
+import org.xwiki.security.authorization.AuthorizationManager;
+import org.xwiki.test.annotation.BeforeComponent;
+import org.xwiki.test.annotation.ComponentList;
+import org.xwiki.test.junit5.mockito.ComponentTest;
+import org.xwiki.test.junit5.mockito.InjectComponentManager;
+import org.xwiki.test.junit5.mockito.MockComponent;
+import org.xwiki.test.mockito.MockitoComponentManager;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+/**
+ * Validate {@link DefaultFragmentCache}.
+ * 
+ * @version $Id$
+ */
+@ComponentTest
+@ComponentList({DefaultFragmentCache.class, DefaultAsyncRendererExecutor.class, AsyncRendererCache.class,
+    DefaultAsyncContext.class, ContextComponentManagerProvider.class})
+public class DefaultFragmentCacheTest
+{
+    private static final DocumentReference DOCUMENT = new DocumentReference("wiki", "Space", "Document");
+
+    private static final DocumentReference OTHER_DOCUMENT = new DocumentReference("wiki", "Space", "Other");
+
+    @InjectComponentManager
+    private MockitoComponentManager componentManager;
+
+    @MockComponent
+    private CacheManager cacheManager;
+
+    @MockComponent
+    private CacheControl cacheControl;
+
+    @MockComponent
+    private Execution execution;
+
+    @MockComponent
+    private EntityReferenceFactory referenceFactory;
+
+    @MockComponent
+    private JobExecutor jobs;
+
+    @MockComponent
+    @Named(AsyncRendererJobStatus.JOBTYPE)
+    private Provider<Job> jobProvider;
+
+    @MockComponent
+    private ContextStoreManager contextStore;
+
+    @MockComponent
+    private AsyncRenderingConfiguration asyncConfiguration;
+
+    @MockComponent
+    private AuthorExecutor authorExecutor;
+
+    @MockComponent
+    private AuthorizationManager authorization;
+
+    private FragmentCache fragmentCache;
+
+    private AsyncContext asyncContext;
+
+    private AsyncRendererCache asyncCache;
+
+    @BeforeComponent
+    public void beforeComponent() throws CacheException
+    {
+        when(this.cacheManager.<AsyncRendererJobStatus>createNewCache(any())).thenReturn(new MapCache<>());
+        when(this.cacheControl.isCacheReadAllowed(any())).thenReturn(true);
+        when(this.execution.getContext()).thenReturn(new ExecutionContext());
+        when(this.referenceFactory.getReference(any()))
+            .thenAnswer(invocation -> invocation.<EntityReference>getArgument(0));
+    }
+
+    @BeforeEach
+    public void beforeEach() throws Exception
+    {
+        this.fragmentCache = this.componentManager.getInstance(FragmentCache.class);
+        this.asyncContext = this.componentManager.getInstance(AsyncContext.class);
+        this.asyncCache = this.componentManager.getInstance(AsyncRendererCache.class);
+    }
+
+    private FragmentRenderer renderer(AtomicInteger renderings, EntityReference dependency)
+    {
+        return () -> {
+            this.asyncContext.useEntity(dependency);
+
+            return "content" + renderings.incrementAndGet();
+        };
+    }
+
+    @Test
+    public void renderMissAndHit() throws Exception
+    {
+        AtomicInteger renderings = new AtomicInteger();
+
+        // Miss
+        assertEquals("content1",
+            this.fragmentCache.render(Arrays.asList("panel"), null, renderer(renderings, DOCUMENT)));
+
+        // Hit
+        assertEquals("content1",
+            this.fragmentCache.render(Arrays.asList("panel"), null, renderer(renderings, DOCUMENT)));
+        assertEquals(1, renderings.get());
+
+        // Another fragment
+        assertEquals("content2",
+            this.fragmentCache.render(Arrays.asList("menu"), null, renderer(renderings, DOCUMENT)));
+    }
+
+    @Test
+    public void renderInvalidatedOnDependency() throws Exception
+    {
+        AtomicInteger renderings = new AtomicInteger();
+
+        assertEquals("content1",
+            this.fragmentCache.render(Arrays.asList("panel"), null, renderer(renderings, DOCUMENT)));
+
+        // Not a dependency
+        this.asyncCache.cleanCache(OTHER_DOCUMENT);
+
+        assertEquals("content1",
+            this.fragmentCache.render(Arrays.asList("panel"), null, renderer(renderings, DOCUMENT)));
+
+        this.asyncCache.cleanCache(DOCUMENT);
+
+        assertEquals("content2",
+            this.fragmentCache.render(Arrays.asList("panel"), null, renderer(renderings, DOCUMENT)));
+    }
+
+    @Test
+    public void renderNestedInvalidatedOnInnerDependency() throws Exception
+    {
+        AtomicInteger innerRenderings = new AtomicInteger();
+        AtomicInteger outerRenderings = new AtomicInteger();
+
+        FragmentRenderer outer = () -> "outer" + outerRenderings.incrementAndGet() + '['
+            + this.fragmentCache.render(Arrays.asList("inner"), null, renderer(innerRenderings, DOCUMENT)) + ']';
+
+        assertEquals("outer1[content1]", this.fragmentCache.render(Arrays.asList("outer"), null, outer));
+        assertEquals("outer1[content1]", this.fragmentCache.render(Arrays.asList("outer"), null, outer));
+
+        // The dependencies of the inner fragment are also dependencies of the outer fragment
+        this.asyncCache.cleanCache(DOCUMENT);
+
+        assertEquals("outer2[content2]", this.fragmentCache.render(Arrays.asList("outer"), null, outer));
+    }
+}
@@ -0,0 +1,161 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.rendering.async.internal.block;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.xwiki.rendering.async.internal.AsyncRendererExecutor;
+import org.xwiki.rendering.async.internal.AsyncRendererExecutorResponse;
+import org.xwiki.rendering.async.internal.AsyncRendererJobRequest;
+import org.xwiki.rendering.async.internal.AsyncRendererJobStatus;
+import org.xwiki.rendering.block.Block;
+import org.xwiki.rendering.block.ParagraphBlock;
+import org.xwiki.rendering.block.WordBlock;
+import org.xwiki.rendering.block.XDOM;
+import org.xwiki.rendering.listener.Listener;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Validate {@link AsyncJoinBlock} and {@link AsyncJoinTransformation}.
+ * 
+ * @version $Id$
+ */
+public class AsyncJoinBlockTest
+{
+    private static final List<String> JOB_ID = Arrays.asList("job");
+
+    private static final String CLIENT_ID = "client";
+
+    private AsyncRendererExecutor executor;
+
+    private AsyncRendererJobRequest request;
+
+    private Block placeholder;
+
+    private Block result;
+
+    @BeforeEach
+    public void beforeEach()
+    {
+        this.executor = mock(AsyncRendererExecutor.class);
+
+        this.request = new AsyncRendererJobRequest();
+        this.request.setId(JOB_ID);
+
+        this.placeholder = new WordBlock("placeholder");
+        this.result = new WordBlock("result");
+    }
+
+    private AsyncJoinBlock finishedBlock()
+    {
+        AsyncRendererJobStatus status =
+            new AsyncRendererJobStatus(this.request, new BlockAsyncRendererResult("result", this.result));
+
+        return new AsyncJoinBlock(this.executor, new AsyncRendererExecutorResponse(status, CLIENT_ID),
+            this.placeholder, 10);
+    }
+
+    private AsyncJoinBlock runningBlock()
+    {
+        AsyncRendererJobStatus status = new AsyncRendererJobStatus(this.request, null, null);
+
+        return new AsyncJoinBlock(this.executor, new AsyncRendererExecutorResponse(status, CLIENT_ID),
+            this.placeholder, 10);
+    }
+
+    @Test
+    public void getChildrenDoesNotWait() throws InterruptedException
+    {
+        AsyncJoinBlock block = runningBlock();
+
+        assertEquals(Collections.emptyList(), block.getChildren());
+        assertEquals(Collections.emptyList(), new XDOM(Arrays.asList(block)).getBlocks(
+            b -> b instanceof WordBlock, Block.Axes.DESCENDANT));
+        assertFalse(block.isJoined());
+
+        verify(this.executor, never()).getAsyncStatus(any(), any(), anyLong(), any());
+    }
+
+    @Test
+    public void joinFinished() throws InterruptedException
+    {
+        AsyncJoinBlock block = finishedBlock();
+
+        block.join();
+
+        assertTrue(block.isJoined());
+        assertEquals(Arrays.asList(this.result), block.getChildren());
+
+        // No need to wait for a finished execution
+        verify(this.executor, never()).getAsyncStatus(any(), any(), anyLong(), any());
+    }
+
+    @Test
+    public void joinNotFinishedInTime() throws InterruptedException
+    {
+        AsyncJoinBlock block = runningBlock();
+
+        block.join();
+
+        assertEquals(Arrays.asList(this.placeholder), block.getChildren());
+
+        verify(this.executor).getAsyncStatus(JOB_ID, CLIENT_ID, 10, TimeUnit.SECONDS);
+    }
+
+    @Test
+    public void traverseJoins()
+    {
+        AsyncJoinBlock block = finishedBlock();
+
+        block.traverse(mock(Listener.class));
+
+        assertTrue(block.isJoined());
+        assertEquals(Arrays.asList(this.result), block.getChildren());
+    }
+
+    @Test
+    public void transformationReplacesBlocks() throws Exception
+    {
+        AsyncJoinBlock finishedBlock = finishedBlock();
+        AsyncJoinBlock runningBlock = runningBlock();
+        ParagraphBlock paragraph = new ParagraphBlock(Arrays.asList(finishedBlock, runningBlock));
+        XDOM xdom = new XDOM(Arrays.asList(paragraph));
+
+        new AsyncJoinTransformation().transform(xdom, null);
+
+        assertEquals(2, paragraph.getChildren().size());
+        assertSame(this.result, paragraph.getChildren().get(0));
+        assertSame(this.placeholder, paragraph.getChildren().get(1));
+    }
+}
@@ -0,0 +1,301 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.rendering.internal.macro.script;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.inject.Inject;
+import javax.inject.Provider;
+import javax.inject.Singleton;
+import javax.script.CompiledScript;
+
+import org.slf4j.Logger;
+import org.xwiki.bridge.DocumentAccessBridge;
+import org.xwiki.cache.Cache;
+import org.xwiki.cache.CacheManager;
+import org.xwiki.cache.config.LRUCacheConfiguration;
+import org.xwiki.cache.event.AbstractCacheEntryListener;
+import org.xwiki.cache.event.CacheEntryEvent;
+import org.xwiki.component.annotation.Component;
+import org.xwiki.component.manager.ComponentLifecycleException;
+import org.xwiki.component.phase.Disposable;
+import org.xwiki.metrics.Counter;
+import org.xwiki.metrics.MetricsRegistry;
+import org.xwiki.model.reference.DocumentReference;
+import org.xwiki.model.reference.EntityReferenceSerializer;
+import org.xwiki.security.authorization.ContextualAuthorizationManager;
+import org.xwiki.security.authorization.Right;
+
+/**
+ * Keep the scripts compiled by the JSR223 script macros so that they are not compiled again at each execution.
+ * <p>
+ * A compiled script is bound to the script engine which compiled it (and to the class loader and the classes of that
+ * engine) so each cache entry keeps the compiled script together with its engine and the script is always evaluated by
+ * that engine, with the script context of the current execution.
+ * <p>
+ * The compiled scripts are indexed by script engine name, by author and programming right (which can change what the
+ * compilation customizers allow) and by content. They are removed from the cache when the document they come from is
+ * modified or deleted.
+ *
+ * @version $Id$
+ * @since 12.0RC1
+ */
+@Component(roles = CompiledScriptCache.class)
+@Singleton
+public class CompiledScriptCache extends AbstractCacheEntryListener<CompiledScriptCache.CompiledScriptEntry>
+    implements Disposable
+{
+    private static final String CACHE_ID = "rendering.macro.script.compiledscripts";
+
+    private static final int DEFAULT_CAPACITY = 500;
+
+    private static final String METRICS_PREFIX = "rendering.macro.script.cache.";
+
+    private static final char KEY_SEPARATOR = '/';
+
+    /**
+     * An entry of the compiled scripts cache.
+     *
+     * @version $Id$
+     */
+    public static class CompiledScriptEntry
+    {
+        private final String content;
+
+        private final String source;
+
+        private final CompiledScript script;
+
+        CompiledScriptEntry(String content, String source, CompiledScript script)
+        {
+            this.content = content;
+            this.source = source;
+            this.script = script;
+        }
+    }
+
+    @Inject
+    private Provider<CacheManager> cacheManagerProvider;
+
+    /**
+     * Resolved when the cache is created since the script macros are also used in environments without metrics.
+     */
+    @Inject
+    private Provider<MetricsRegistry> metricsProvider;
+
+    @Inject
+    private DocumentAccessBridge documentAccessBridge;
+
+    @Inject
+    private ContextualAuthorizationManager authorizationManager;
+
+    @Inject
+    private EntityReferenceSerializer<String> serializer;
+
+    @Inject
+    private Logger logger;
+
+    private volatile Cache<CompiledScriptEntry> cache;
+
+    private boolean disabled;
+
+    /**
+     * Keep an index of the cache keys associated to each source to clean just what's needed.
+     */
+    private final Map<String, Set<String>> sourceIndex = new ConcurrentHashMap<>();
+
+    private final AtomicLong size = new AtomicLong();
+
+    private Counter hits = Counter.NOOP;
+
+    private Counter misses = Counter.NOOP;
+
+    private Cache<CompiledScriptEntry> getCache()
+    {
+        if (this.cache == null && !this.disabled) {
+            synchronized (this) {
+                if (this.cache == null && !this.disabled) {
+                    try {
+                        Cache<CompiledScriptEntry> newCache = this.cacheManagerProvider.get()
+                            .createNewLocalCache(new LRUCacheConfiguration(CACHE_ID, DEFAULT_CAPACITY));
+                        newCache.addCacheEntryListener(this);
+                        initializeMetrics();
+                        this.cache = newCache;
+                    } catch (Exception e) {
+                        this.logger.warn("Failed to create the compiled scripts cache, scripts will be compiled at"
+                            + " each execution: {}", e.getMessage());
+                        this.disabled = true;
+                    }
+                }
+            }
+        }
+
+        return this.cache;
+    }
+
+    private void initializeMetrics()
+    {
+        MetricsRegistry metrics;
+        try {
+            metrics = this.metricsProvider.get();
+        } catch (Exception e) {
+            this.logger.debug("No metrics registry available for the compiled scripts cache: {}", e.getMessage());
+
+            return;
+        }
+
+        if (metrics.isEnabled()) {
+            this.hits = metrics.getCounter(METRICS_PREFIX + "hit");
+            this.misses = metrics.getCounter(METRICS_PREFIX + "miss");
+            metrics.registerGauge(METRICS_PREFIX + "size", this.size::get);
+        }
+    }
+
+    private String getKey(String engineName, String content)
+    {
+        StringBuilder key = new StringBuilder();
+
+        key.append(engineName);
+        key.append(KEY_SEPARATOR);
+        DocumentReference author = this.documentAccessBridge.getCurrentAuthorReference();
+        if (author != null) {
+            key.append(this.serializer.serialize(author));
+        }
+        key.append(KEY_SEPARATOR);
+        key.append(this.authorizationManager.hasAccess(Right.PROGRAM));
+        key.append(KEY_SEPARATOR);
+        key.append(content.length());
+        key.append(KEY_SEPARATOR);
+        key.append(content.hashCode());
+
+        return key.toString();
+    }
+
+    /**
+     * @param engineName the name of the script engine
+     * @param content the script
+     * @return the compiled script, bound to the engine which compiled it, or {@code null} if it's not in the cache
+     */
+    public CompiledScript get(String engineName, String content)
+    {
+        Cache<CompiledScriptEntry> currentCache = getCache();
+
+        if (currentCache != null) {
+            CompiledScriptEntry entry = currentCache.get(getKey(engineName, content));
+
+            // Make sure it's not a hash collision
+            if (entry != null && entry.content.equals(content)) {
+                this.hits.increment();
+
+                return entry.script;
+            }
+
+            this.misses.increment();
+        }
+
+        return null;
+    }
+
+    /**
+     * @param engineName the name of the script engine
+     * @param content the script
+     * @param source the source of the script (generally the serialized reference of the document containing it) or
+     *            {@code null} if it's unknown
+     * @param script the compiled script
+     */
+    public void set(String engineName, String content, String source, CompiledScript script)
+    {
+        Cache<CompiledScriptEntry> currentCache = getCache();
+
+        if (currentCache != null) {
+            String key = getKey(engineName, content);
+
+            currentCache.set(key, new CompiledScriptEntry(content, source, script));
+
+            if (source != null) {
+                this.sourceIndex.computeIfAbsent(source, k -> ConcurrentHashMap.newKeySet()).add(key);
+            }
+        }
+    }
+
+    /**
+     * Remove from the cache all the scripts coming from the passed document.
+     *
+     * @param documentReference the reference of the document which changed
+     */
+    public void invalidate(DocumentReference documentReference)
+    {
+        if (this.cache != null) {
+            Set<String> keys = this.sourceIndex.remove(this.serializer.serialize(documentReference));
+
+            if (keys != null) {
+                for (String key : keys) {
+                    this.cache.remove(key);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the number of compiled scripts currently kept in the cache, each of them retaining its script engine and
+     *         the classes it generated (in the Metaspace for engines like Groovy)
+     */
+    public long getSize()
+    {
+        return this.size.get();
+    }
+
+    @Override
+    public void cacheEntryAdded(CacheEntryEvent<CompiledScriptEntry> event)
+    {
+        this.size.incrementAndGet();
+    }
+
+    @Override
+    public void cacheEntryRemoved(CacheEntryEvent<CompiledScriptEntry> event)
+    {
+        this.size.decrementAndGet();
+
+        String source = event.getEntry().getValue().source;
+        if (source != null) {
+            Set<String> keys = this.sourceIndex.get(source);
+
+            if (keys != null) {
+                keys.remove(event.getEntry().getKey());
+
+                if (keys.isEmpty()) {
+                    this.sourceIndex.remove(source);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void dispose() throws ComponentLifecycleException
+    {
+        if (this.cache != null) {
+            this.cache.dispose();
+        }
+        this.sourceIndex.clear();
+    }
+}
@@ -44,6 +44,7 @@
 import org.xwiki.rendering.block.MetaDataBlock;
 import org.xwiki.rendering.block.XDOM;
 import org.xwiki.rendering.block.match.MetadataBlockMatcher;
+import org.xwiki.rendering.internal.macro.script.CompiledScriptCache;
 import org.xwiki.rendering.listener.MetaData;
 import org.xwiki.rendering.macro.MacroExecutionException;
 import org.xwiki.rendering.macro.descriptor.ContentDescriptor;
@@ -93,6 +94,9 @@
     @Inject
     private ConverterManager converterManager;
 
+    @Inject
+    private CompiledScriptCache compiledScriptCache;
+
     /**
      * @param macroName the name of the macro (eg "groovy")
      */
@@ -235,9 +239,10 @@ protected List<Block> evaluateBlock(ScriptEngine engine, P parameters, String co
         // Set standard javax.script.filename property
         MetaDataBlock metaDataBlock = context.getCurrentMacroBlock()
             .getFirstBlock(new MetadataBlockMatcher(MetaData.SOURCE), Axes.ANCESTOR_OR_SELF);
+        String source = null;
         if (metaDataBlock != null) {
-            scriptContext.setAttribute(ScriptEngine.FILENAME, metaDataBlock.getMetaData().getMetaData(MetaData.SOURCE),
-                ScriptContext.ENGINE_SCOPE);
+            source = (String) metaDataBlock.getMetaData().getMetaData(MetaData.SOURCE);
+            scriptContext.setAttribute(ScriptEngine.FILENAME, source, ScriptContext.ENGINE_SCOPE);
         }
 
         try {
@@ -246,7 +251,14 @@ protected List<Block> evaluateBlock(ScriptEngine engine, P parameters, String co
             // set writer in script context
             scriptContext.setWriter(stringWriter);
 
-            Object scriptResult = eval(content, engine, scriptContext);
+            Object scriptResult;
+            // The scripts using jars are not cached since the jars can be different the next time
+            if (engine instanceof Compilable && StringUtils.isEmpty(parameters.getJars())) {
+                scriptResult = evalCompiled(getScriptEngineName(parameters, context), content, (Compilable) engine,
+                    scriptContext, source);
+            } else {
+                scriptResult = eval(content, engine, scriptContext);
+            }
 
             result = convertScriptExecution(scriptResult, stringWriter, parameters, context);
         } finally {
@@ -354,6 +366,28 @@ protected Object eval(String content, ScriptEngine engine, ScriptContext scriptC
     // /////////////////////////////////////////////////////////////////////
     // Compiled scripts management
 
+    private Object evalCompiled(String engineName, String content, Compilable engine, ScriptContext scriptContext,
+        String source) throws ScriptException
+    {
+        // A cached script is evaluated by the engine which compiled it (and which is kept with it in the cache)
+        CompiledScript compiledScript = this.compiledScriptCache.get(engineName, content);
+        if (compiledScript != null) {
+            return compiledScript.eval(scriptContext);
+        }
+
+        compiledScript = getCompiledScript(content, engine);
+
+        Object result = compiledScript.eval(scriptContext);
+
+        // A script defining classes must be compiled by the engine of the current execution so that the following
+        // scripts can see those classes
+        if (!(result instanceof Class)) {
+            this.compiledScriptCache.set(engineName, content, source, compiledScript);
+        }
+
+        return result;
+    }
+
     /**
      * Return a compiled version of the provided script.
      * 
@@ -364,8 +398,6 @@ protected Object eval(String content, ScriptEngine engine, ScriptContext scriptC
      */
     protected CompiledScript getCompiledScript(String content, Compilable engine) throws ScriptException
     {
-        // TODO: add caching
-
         return engine.compile(content);
     }
 }
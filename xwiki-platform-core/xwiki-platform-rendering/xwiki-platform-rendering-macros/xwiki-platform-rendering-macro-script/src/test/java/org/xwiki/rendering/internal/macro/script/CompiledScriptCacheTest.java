@@ -0,0 +1,144 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.rendering.internal.macro.script;
+
+import java.util.function.LongSupplier;
+
+import javax.script.CompiledScript;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.xwiki.cache.Cache;
+import org.xwiki.cache.CacheEntry;
+import org.xwiki.cache.CacheManager;
+import org.xwiki.cache.config.CacheConfiguration;
+import org.xwiki.cache.event.CacheEntryEvent;
+import org.xwiki.metrics.Counter;
+import org.xwiki.metrics.MetricsRegistry;
+import org.xwiki.model.reference.DocumentReference;
+import org.xwiki.model.reference.EntityReferenceSerializer;
+import org.xwiki.rendering.internal.macro.script.CompiledScriptCache.CompiledScriptEntry;
+import org.xwiki.test.junit5.mockito.ComponentTest;
+import org.xwiki.test.junit5.mockito.InjectMockComponents;
+import org.xwiki.test.junit5.mockito.MockComponent;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for {@link CompiledScriptCache}.
+ *
+ * @version $Id$
+ */
+@ComponentTest
+public class CompiledScriptCacheTest
+{
+    private static final String SCRIPT = "println 'hello'";
+
+    @InjectMockComponents
+    private CompiledScriptCache compiledScriptCache;
+
+    @MockComponent
+    private CacheManager cacheManager;
+
+    @MockComponent
+    private MetricsRegistry metrics;
+
+    @MockComponent
+    private EntityReferenceSerializer<String> serializer;
+
+    private Cache<CompiledScriptEntry> cache;
+
+    private Counter hits = new Counter();
+
+    private Counter misses = new Counter();
+
+    @BeforeEach
+    public void configure() throws Exception
+    {
+        this.cache = mock(Cache.class);
+        when(this.cacheManager.<CompiledScriptEntry>createNewLocalCache(any(CacheConfiguration.class)))
+            .thenReturn(this.cache);
+
+        when(this.metrics.isEnabled()).thenReturn(true);
+        when(this.metrics.getCounter("rendering.macro.script.cache.hit")).thenReturn(this.hits);
+        when(this.metrics.getCounter("rendering.macro.script.cache.miss")).thenReturn(this.misses);
+    }
+
+    @Test
+    public void getSetAndInvalidate()
+    {
+        assertNull(this.compiledScriptCache.get("groovy", SCRIPT));
+        assertEquals(1, this.misses.getCount());
+
+        CompiledScript script = mock(CompiledScript.class);
+        this.compiledScriptCache.set("groovy", SCRIPT, "wiki:Space.Page", script);
+
+        ArgumentCaptor<String> keyCaptor = ArgumentCaptor.forClass(String.class);
+        ArgumentCaptor<CompiledScriptEntry> entryCaptor = ArgumentCaptor.forClass(CompiledScriptEntry.class);
+        verify(this.cache).set(keyCaptor.capture(), entryCaptor.capture());
+        when(this.cache.get(keyCaptor.getValue())).thenReturn(entryCaptor.getValue());
+
+        // The cached script is kept across executions
+        assertSame(script, this.compiledScriptCache.get("groovy", SCRIPT));
+        assertEquals(1, this.hits.getCount());
+
+        // Same hash but different engine
+        assertNull(this.compiledScriptCache.get("python", SCRIPT));
+        assertEquals(2, this.misses.getCount());
+
+        DocumentReference documentReference = new DocumentReference("wiki", "Space", "Page");
+        when(this.serializer.serialize(documentReference)).thenReturn("wiki:Space.Page");
+
+        this.compiledScriptCache.invalidate(documentReference);
+
+        verify(this.cache).remove(eq(keyCaptor.getValue()));
+    }
+
+    @Test
+    public void size()
+    {
+        // Create the cache
+        assertNull(this.compiledScriptCache.get("groovy", SCRIPT));
+
+        ArgumentCaptor<LongSupplier> gaugeCaptor = ArgumentCaptor.forClass(LongSupplier.class);
+        verify(this.metrics).registerGauge(eq("rendering.macro.script.cache.size"), gaugeCaptor.capture());
+
+        CacheEntryEvent<CompiledScriptEntry> event = mock(CacheEntryEvent.class);
+        CacheEntry<CompiledScriptEntry> entry = mock(CacheEntry.class);
+        when(event.getEntry()).thenReturn(entry);
+        when(entry.getValue()).thenReturn(new CompiledScriptEntry(SCRIPT, null, mock(CompiledScript.class)));
+
+        this.compiledScriptCache.cacheEntryAdded(event);
+        this.compiledScriptCache.cacheEntryAdded(event);
+        assertEquals(2, gaugeCaptor.getValue().getAsLong());
+
+        this.compiledScriptCache.cacheEntryRemoved(event);
+        assertEquals(1, this.compiledScriptCache.getSize());
+        assertEquals(1, gaugeCaptor.getValue().getAsLong());
+    }
+}
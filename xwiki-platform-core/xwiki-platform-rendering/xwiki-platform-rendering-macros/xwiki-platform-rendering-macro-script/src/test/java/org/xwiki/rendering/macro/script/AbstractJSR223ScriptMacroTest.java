@@ -0,0 +1,235 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.rendering.macro.script;
+
+import java.io.Reader;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.inject.Provider;
+
+import javax.script.AbstractScriptEngine;
+import javax.script.Bindings;
+import javax.script.Compilable;
+import javax.script.CompiledScript;
+import javax.script.ScriptContext;
+import javax.script.ScriptEngine;
+import javax.script.ScriptEngineFactory;
+import javax.script.ScriptEngineManager;
+import javax.script.ScriptException;
+import javax.script.SimpleBindings;
+import javax.script.SimpleScriptContext;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.xwiki.bridge.DocumentAccessBridge;
+import org.xwiki.cache.Cache;
+import org.xwiki.cache.CacheManager;
+import org.xwiki.cache.config.CacheConfiguration;
+import org.xwiki.component.util.ReflectionUtils;
+import org.xwiki.context.Execution;
+import org.xwiki.context.ExecutionContext;
+import org.xwiki.metrics.MetricsRegistry;
+import org.xwiki.model.reference.EntityReferenceSerializer;
+import org.xwiki.rendering.block.Block;
+import org.xwiki.rendering.block.MacroBlock;
+import org.xwiki.rendering.block.WordBlock;
+import org.xwiki.rendering.internal.macro.script.CompiledScriptCache;
+import org.xwiki.rendering.internal.macro.script.CompiledScriptCache.CompiledScriptEntry;
+import org.xwiki.rendering.transformation.MacroTransformationContext;
+import org.xwiki.script.ScriptContextManager;
+import org.xwiki.security.authorization.ContextualAuthorizationManager;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Validate the compiled scripts management of {@link AbstractJSR223ScriptMacro}.
+ *
+ * @version $Id$
+ */
+public class AbstractJSR223ScriptMacroTest
+{
+    private static final String SCRIPT = "script";
+
+    private static final String VALUE_BINDING = "value";
+
+    private static class TestScriptMacro extends AbstractJSR223ScriptMacro<JSR223ScriptMacroParameters>
+    {
+        TestScriptMacro()
+        {
+            super("Test");
+        }
+    }
+
+    /**
+     * A compilable engine whose compiled scripts return the name of the engine which compiled them and the value
+     * binding of the script context they are evaluated with.
+     */
+    private static class TestScriptEngine extends AbstractScriptEngine implements Compilable
+    {
+        private final String name;
+
+        private int compilations;
+
+        TestScriptEngine(String name)
+        {
+            this.name = name;
+        }
+
+        @Override
+        public CompiledScript compile(String script)
+        {
+            ++this.compilations;
+
+            return new CompiledScript()
+            {
+                @Override
+                public Object eval(ScriptContext context)
+                {
+                    return new WordBlock(name + ':' + script + ':' + context.getAttribute(VALUE_BINDING));
+                }
+
+                @Override
+                public ScriptEngine getEngine()
+                {
+                    return TestScriptEngine.this;
+                }
+            };
+        }
+
+        @Override
+        public CompiledScript compile(Reader script)
+        {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Object eval(String script, ScriptContext context) throws ScriptException
+        {
+            return compile(script).eval(context);
+        }
+
+        @Override
+        public Object eval(Reader reader, ScriptContext context)
+        {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Bindings createBindings()
+        {
+            return new SimpleBindings();
+        }
+
+        @Override
+        public ScriptEngineFactory getFactory()
+        {
+            return null;
+        }
+    }
+
+    private TestScriptMacro macro = new TestScriptMacro();
+
+    private Execution execution = mock(Execution.class);
+
+    private ScriptContextManager scriptContextManager = mock(ScriptContextManager.class);
+
+    private ScriptEngineManager scriptEngineManager = mock(ScriptEngineManager.class);
+
+    private TestScriptEngine engine1 = new TestScriptEngine("engine1");
+
+    private TestScriptEngine engine2 = new TestScriptEngine("engine2");
+
+    private MacroTransformationContext macroContext = new MacroTransformationContext();
+
+    @BeforeEach
+    public void beforeEach()
+    {
+        // A cache keeping its entries in a map
+        Map<String, CompiledScriptEntry> entries = new HashMap<>();
+        Cache<CompiledScriptEntry> cache = mock(Cache.class);
+        when(cache.get(any())).then(invocation -> entries.get(invocation.getArgument(0)));
+        doAnswer(invocation -> entries.put(invocation.getArgument(0), invocation.getArgument(1))).when(cache)
+            .set(any(), any());
+        CacheManager cacheManager = mock(CacheManager.class);
+        when(cacheManager.<CompiledScriptEntry>createNewLocalCache(any(CacheConfiguration.class))).thenReturn(cache);
+
+        CompiledScriptCache compiledScriptCache = new CompiledScriptCache();
+        ReflectionUtils.setFieldValue(compiledScriptCache, "cacheManagerProvider",
+            (Provider<CacheManager>) () -> cacheManager);
+        ReflectionUtils.setFieldValue(compiledScriptCache, "metricsProvider",
+            (Provider<MetricsRegistry>) () -> mock(MetricsRegistry.class));
+        ReflectionUtils.setFieldValue(compiledScriptCache, "documentAccessBridge", mock(DocumentAccessBridge.class));
+        ReflectionUtils.setFieldValue(compiledScriptCache, "authorizationManager",
+            mock(ContextualAuthorizationManager.class));
+        ReflectionUtils.setFieldValue(compiledScriptCache, "serializer", mock(EntityReferenceSerializer.class));
+
+        ReflectionUtils.setFieldValue(this.macro, "execution", this.execution);
+        ReflectionUtils.setFieldValue(this.macro, "scriptContextManager", this.scriptContextManager);
+        ReflectionUtils.setFieldValue(this.macro, "compiledScriptCache", compiledScriptCache);
+        ReflectionUtils.setFieldValue(this.macro, "scriptEngineManager", this.scriptEngineManager);
+
+        // Each execution gets its own engine
+        when(this.scriptEngineManager.getEngineByName("test")).thenReturn(this.engine1, this.engine2);
+
+        this.macroContext.setCurrentMacroBlock(new MacroBlock("test", Collections.emptyMap(), false));
+    }
+
+    private void startRequest(String value)
+    {
+        when(this.execution.getContext()).thenReturn(new ExecutionContext());
+
+        ScriptContext scriptContext = new SimpleScriptContext();
+        scriptContext.setAttribute(VALUE_BINDING, value, ScriptContext.ENGINE_SCOPE);
+        when(this.scriptContextManager.getScriptContext()).thenReturn(scriptContext);
+    }
+
+    private String execute() throws Exception
+    {
+        List<Block> result = this.macro.evaluateBlock(new JSR223ScriptMacroParameters(), SCRIPT, this.macroContext);
+
+        return ((WordBlock) result.get(0)).getWord();
+    }
+
+    @Test
+    public void executeCompiledScriptsInSeveralRequests() throws Exception
+    {
+        startRequest("request1");
+
+        assertEquals("engine1:script:request1", execute());
+        assertEquals("engine1:script:request1", execute());
+        // The script is compiled only once
+        assertEquals(1, this.engine1.compilations);
+
+        startRequest("request2");
+
+        // The script compiled by the engine of the first request is reused, with the script context of the second
+        // request
+        assertEquals("engine1:script:request2", execute());
+        assertEquals(1, this.engine1.compilations);
+        assertEquals(0, this.engine2.compilations);
+    }
+}
@@ -30,6 +30,7 @@
 import org.xwiki.rendering.async.internal.AsyncRendererConfiguration;
 import org.xwiki.rendering.block.Block;
 import org.xwiki.rendering.block.CompositeBlock;
+import org.xwiki.rendering.block.MacroBlock;
 import org.xwiki.rendering.block.XDOM;
 import org.xwiki.rendering.internal.macro.script.NestedScriptMacroEnabled;
 import org.xwiki.rendering.macro.Macro;
@@ -58,6 +59,12 @@ public class DefaultWikiMacro extends AbstractAsyncContentBaseObjectWikiComponen
      */
     private final MacroDescriptor descriptor;
 
+    /**
+     * The content to use when the macro is executed inline. It's prepared only once since it does not depend on the
+     * execution and, like {@link #xdom}, it's never modified (each execution works on a copy).
+     */
+    private final XDOM inlineXDOM;
+
     /**
      * Constructs a new {@link DefaultWikiMacro}.
      * 
@@ -74,6 +81,28 @@ public DefaultWikiMacro(BaseObject baseObject, MacroDescriptor descriptor, Compo
         super(baseObject, Macro.class, descriptor.getId().getId(), componentManager);
 
         this.descriptor = descriptor;
+        this.inlineXDOM = createInlineContent(this.xdom);
+    }
+
+    private static XDOM createInlineContent(XDOM xdom)
+    {
+        // Macro code segment is always parsed into a separate xdom document. Now if this code segment starts with
+        // another macro block, it will always be interpreted as a block macro regardless of the current wiki macro's
+        // context (because as far as the nested macro is concerned, it starts on a new line). This will introduce
+        // unnecessary paragraph elements when the wiki macro is used inline, so we need to force such opening macro
+        // blocks to behave as inline macros if the wiki macro is used inline.
+        List<Block> children = xdom.getChildren();
+        if (!children.isEmpty() && children.get(0) instanceof MacroBlock) {
+            XDOM inlineContent = xdom.clone();
+
+            MacroBlock old = (MacroBlock) inlineContent.getChildren().get(0);
+            MacroBlock replacement = new MacroBlock(old.getId(), old.getParameters(), old.getContent(), true);
+            inlineContent.replaceChild(replacement, old);
+
+            return inlineContent;
+        }
+
+        return xdom;
     }
 
     @Override
@@ -187,9 +216,14 @@ boolean isCacheAllowed()
         return this.cacheAllowed;
     }
 
-    XDOM getContent()
+    /**
+     * @param inline true if the macro is executed inline
+     * @return a copy of the parsed macro content, adapted to the passed mode and ready to be transformed
+     * @since 12.0RC1
+     */
+    XDOM getPreparedContent(boolean inline)
     {
-        return this.xdom;
+        return (inline ? this.inlineXDOM : this.xdom).clone();
     }
 
     Syntax getSyntax()
@@ -290,40 +290,14 @@ private Block extractResult(Block block, WikiMacroBinding macroBinding, boolean
         return result;
     }
 
-    /**
-     * Clone and filter wiki macro content depending of the context.
-     *
-     * @return the cleaned wiki macro content
-     */
-    private XDOM prepareWikiMacroContent()
-    {
-        XDOM xdom = this.wikimacro.getContent().clone();
-
-        // Macro code segment is always parsed into a separate xdom document. Now if this code segment starts with
-        // another macro block, it will always be interpreted as a block macro regardless of the current wiki macro's
-        // context (because as far as the nested macro is concerned, it starts on a new line). This will introduce
-        // unnecessary paragraph elements when the wiki macro is used inline, so we need to force such opening macro
-        // blocks to behave as inline macros if the wiki macro is used inline.
-        if (this.inline) {
-            List<Block> children = xdom.getChildren();
-            if (!children.isEmpty() && children.get(0) instanceof MacroBlock) {
-                MacroBlock old = (MacroBlock) children.get(0);
-                MacroBlock replacement = new MacroBlock(old.getId(), old.getParameters(), old.getContent(), true);
-                xdom.replaceChild(replacement, old);
-            }
-        }
-
-        return xdom;
-    }
-
     @Override
     public Block execute(boolean async, boolean cached) throws RenderingException
     {
         // Register the known involved references and components
         this.asyncContext.useComponent(this.wikimacro.getRoleType(), this.wikimacro.getRoleHint());
 
-        // Parse the wiki macro content.
-        XDOM macroXDOM = prepareWikiMacroContent();
+        // Get a copy of the wiki macro content (parsed only once when the macro is registered)
+        XDOM macroXDOM = this.wikimacro.getPreparedContent(this.inline);
 
         ///////////////////////////////////////
         // Transform
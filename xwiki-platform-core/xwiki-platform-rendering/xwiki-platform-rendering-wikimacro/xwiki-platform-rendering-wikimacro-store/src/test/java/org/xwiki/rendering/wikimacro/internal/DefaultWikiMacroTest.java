@@ -219,6 +219,23 @@ public void testExecuteWhenInlineAndWithMacro() throws Exception
             "Hello {{wikimacro2 param1=\"value1\" param2=\"value2\"/}}");
     }
 
+    /**
+     * The parsed content of the wiki macro is shared between executions so it should not be affected by them.
+     */
+    @Test
+    public void testExecuteSeveralTimes() throws Exception
+    {
+        registerWikiMacro("wikimacro1", "This is **bold**", Syntax.XWIKI_2_0);
+        registerWikiMacro("wikimacro2", "{{wikimacro1 param1=\"v1\" param2=\"v2\"/}}", Syntax.XWIKI_2_0);
+
+        assertXHTML("<p>Hello This is <strong>bold</strong> and This is <strong>bold</strong></p>",
+            "Hello {{wikimacro2 param1=\"value1\" param2=\"value2\"/}} and "
+                + "{{wikimacro2 param1=\"value1\" param2=\"value2\"/}}");
+        assertXHTML("<p>Hello This is <strong>bold</strong></p>",
+            "Hello {{wikimacro2 param1=\"value1\" param2=\"value2\"/}}");
+        assertXHTML("<p>This is <strong>bold</strong></p>", "{{wikimacro1 param1=\"value1\" param2=\"value2\"/}}");
+    }
+
     /**
      * Check that macro used inside wiki macro are executed as part of the document.
      */
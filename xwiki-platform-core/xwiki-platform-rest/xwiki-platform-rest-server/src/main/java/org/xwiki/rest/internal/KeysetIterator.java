@@ -0,0 +1,171 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.rest.internal;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import javax.ws.rs.WebApplicationException;
+
+import com.xpn.xwiki.XWikiContext;
+
+/**
+ * Iterate over the result of a query by fetching it by batches using keyset pagination (i.e. each batch starts after
+ * the last row of the previous one instead of at a given offset) so that only one batch is kept in memory and the cost
+ * of each query does not increase with the position in the result.
+ * <p>
+ * The rows are converted into the items to return as they are iterated. The wiki in which the query and the conversion
+ * are executed is set in the context only during each call since the iteration generally happens after the resource
+ * has returned, while the response is being written.
+ *
+ * @param <R> the type of the rows returned by the query
+ * @param <T> the type of the items
+ * @version $Id$
+ * @since 12.0RC1
+ */
+public abstract class KeysetIterator<R, T> implements Iterator<T>
+{
+    /**
+     * The default number of rows to fetch in each batch.
+     */
+    public static final int DEFAULT_BATCH_SIZE = 100;
+
+    private final XWikiContext xcontext;
+
+    private final String wiki;
+
+    private final int batchSize;
+
+    private long remaining;
+
+    private Iterator<R> batch;
+
+    private int batchCount;
+
+    private R last;
+
+    private boolean finished;
+
+    private T nextItem;
+
+    /**
+     * @param xcontext the XWiki context
+     * @param wiki the wiki where to execute the query
+     * @param number the maximum number of rows to iterate, negative for all
+     */
+    public KeysetIterator(XWikiContext xcontext, String wiki, int number)
+    {
+        this.xcontext = xcontext;
+        this.wiki = wiki;
+        this.batchSize = DEFAULT_BATCH_SIZE;
+        this.remaining = number < 0 ? Long.MAX_VALUE : number;
+    }
+
+    /**
+     * @param after the last row of the previous batch or {@code null} for the first batch
+     * @param limit the maximum number of rows to return
+     * @return the rows located after the passed one
+     * @throws Exception when failing to execute the query
+     */
+    protected abstract List<R> getBatch(R after, int limit) throws Exception;
+
+    /**
+     * @param row the row to convert
+     * @return the item corresponding to the passed row or {@code null} to skip it (for example because the current user
+     *         is not allowed to see it)
+     * @throws Exception when failing to convert the row
+     */
+    protected abstract T convert(R row) throws Exception;
+
+    @Override
+    public boolean hasNext()
+    {
+        if (this.nextItem == null) {
+            String currentWiki = this.xcontext.getWikiId();
+            try {
+                this.xcontext.setWikiId(this.wiki);
+
+                this.nextItem = advance();
+            } catch (Exception e) {
+                throw new WebApplicationException(e);
+            } finally {
+                this.xcontext.setWikiId(currentWiki);
+            }
+        }
+
+        return this.nextItem != null;
+    }
+
+    private T advance() throws Exception
+    {
+        while (true) {
+            R row = nextRow();
+            if (row == null) {
+                return null;
+            }
+
+            T item = convert(row);
+            if (item != null) {
+                return item;
+            }
+        }
+    }
+
+    private R nextRow() throws Exception
+    {
+        if (this.batch == null || !this.batch.hasNext()) {
+            // A batch smaller than what was asked means there is nothing left
+            if (this.finished || this.remaining <= 0 || (this.batch != null && this.batchCount < this.batchSize)) {
+                this.finished = true;
+
+                return null;
+            }
+
+            List<R> rows = getBatch(this.last, (int) Math.min(this.batchSize, this.remaining));
+            this.batchCount = rows.size();
+            this.remaining -= rows.size();
+            this.batch = rows.iterator();
+
+            if (rows.isEmpty()) {
+                this.finished = true;
+
+                return null;
+            }
+        }
+
+        this.last = this.batch.next();
+
+        return this.last;
+    }
+
+    @Override
+    public T next()
+    {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+
+        T item = this.nextItem;
+        this.nextItem = null;
+
+        return item;
+    }
+}
@@ -0,0 +1,67 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.rest.internal.representations;
+
+import java.util.List;
+
+import javax.xml.namespace.QName;
+
+import org.xwiki.rest.model.jaxb.Link;
+
+/**
+ * A collection resource whose items are produced while the response is written instead of being all loaded in memory
+ * first. See {@link StreamingCollectionWriter}.
+ *
+ * @param <T> the type of the items
+ * @version $Id$
+ * @since 12.0RC1
+ */
+public interface StreamingCollection<T> extends Iterable<T>
+{
+    /**
+     * The namespace of the REST model elements.
+     */
+    String NAMESPACE = "http://www.xwiki.org";
+
+    /**
+     * @return the name of the root element in the XML representation
+     */
+    QName getRootElementName();
+
+    /**
+     * @return the name of the element wrapping each item in the XML representation
+     */
+    QName getItemElementName();
+
+    /**
+     * @return the name of the property holding the items in the JSON representation
+     */
+    String getItemsPropertyName();
+
+    /**
+     * @return the type of the items
+     */
+    Class<T> getItemType();
+
+    /**
+     * @return the links of the collection
+     */
+    List<Link> getLinks();
+}
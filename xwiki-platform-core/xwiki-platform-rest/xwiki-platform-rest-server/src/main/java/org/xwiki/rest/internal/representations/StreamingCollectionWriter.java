@@ -0,0 +1,194 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.rest.internal.representations;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+import javax.ws.rs.Produces;
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.ext.MessageBodyWriter;
+import javax.ws.rs.ext.Provider;
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.JAXBElement;
+import javax.xml.bind.JAXBException;
+import javax.xml.bind.Marshaller;
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
+import org.slf4j.Logger;
+import org.xwiki.component.annotation.Component;
+import org.xwiki.rest.XWikiRestComponent;
+import org.xwiki.rest.model.jaxb.Link;
+import org.xwiki.rest.model.jaxb.ObjectFactory;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Write the {@link StreamingCollection}s item by item, as they are produced, so that the memory used to write a listing
+ * does not depend on its size. The produced XML and JSON have the same shape as the ones produced for the
+ * corresponding in-memory collections.
+ * <p>
+ * The status and the beginning of the document are sent before all the items are produced so a failure cannot be
+ * reported with an error status anymore. In that case the document is left unclosed (and the response aborted) so that
+ * the client cannot mistake a truncated listing for a complete one.
+ *
+ * @version $Id$
+ * @since 12.0RC1
+ */
+@Component
+@Named("org.xwiki.rest.internal.representations.StreamingCollectionWriter")
+@Provider
+@Produces({ MediaType.APPLICATION_XML, MediaType.APPLICATION_JSON })
+@Singleton
+public class StreamingCollectionWriter implements MessageBodyWriter<StreamingCollection<?>>, XWikiRestComponent
+{
+    private static final QName LINK = new QName(StreamingCollection.NAMESPACE, "link");
+
+    @Inject
+    private Logger logger;
+
+    private final XMLOutputFactory xmlOutputFactory = XMLOutputFactory.newInstance();
+
+    private final ObjectMapper objectMapper;
+
+    private JAXBContext jaxbContext;
+
+    /**
+     * Default constructor.
+     */
+    public StreamingCollectionWriter()
+    {
+        // Same configuration as the Restlet Jackson converter
+        JsonFactory jsonFactory = new JsonFactory();
+        jsonFactory.configure(JsonGenerator.Feature.AUTO_CLOSE_TARGET, false);
+        // Don't close the arrays and objects of a document which failed to be written
+        jsonFactory.configure(JsonGenerator.Feature.AUTO_CLOSE_JSON_CONTENT, false);
+        this.objectMapper = new ObjectMapper(jsonFactory);
+    }
+
+    private JAXBContext getJAXBContext() throws JAXBException
+    {
+        if (this.jaxbContext == null) {
+            this.jaxbContext = JAXBContext.newInstance(ObjectFactory.class);
+        }
+
+        return this.jaxbContext;
+    }
+
+    @Override
+    public boolean isWriteable(Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType)
+    {
+        return StreamingCollection.class.isAssignableFrom(type);
+    }
+
+    @Override
+    public long getSize(StreamingCollection<?> collection, Class<?> type, Type genericType, Annotation[] annotations,
+        MediaType mediaType)
+    {
+        // Unknown
+        return -1;
+    }
+
+    @Override
+    public void writeTo(StreamingCollection<?> collection, Class<?> type, Type genericType, Annotation[] annotations,
+        MediaType mediaType, MultivaluedMap<String, Object> httpHeaders, OutputStream entityStream)
+        throws IOException, WebApplicationException
+    {
+        try {
+            if (MediaType.APPLICATION_JSON_TYPE.isCompatible(mediaType)) {
+                writeJSON(collection, entityStream);
+            } else {
+                writeXML(collection, entityStream);
+            }
+        } catch (Exception e) {
+            this.logger.error("Failed to write the collection [{}], aborting the response",
+                collection.getRootElementName().getLocalPart(), e);
+
+            // Let the container abort the response instead of completing it
+            throw new IOException("Failed to write the collection", e);
+        }
+    }
+
+    private void writeJSON(StreamingCollection<?> collection, OutputStream entityStream) throws IOException
+    {
+        try (JsonGenerator generator = this.objectMapper.getFactory().createGenerator(entityStream)) {
+            generator.writeStartObject();
+
+            generator.writeFieldName("links");
+            this.objectMapper.writeValue(generator, collection.getLinks());
+
+            generator.writeArrayFieldStart(collection.getItemsPropertyName());
+            for (Object item : collection) {
+                this.objectMapper.writeValue(generator, item);
+            }
+            generator.writeEndArray();
+
+            generator.writeEndObject();
+        }
+    }
+
+    private void writeXML(StreamingCollection<?> collection, OutputStream entityStream)
+        throws JAXBException, XMLStreamException
+    {
+        XMLStreamWriter writer =
+            this.xmlOutputFactory.createXMLStreamWriter(entityStream, StandardCharsets.UTF_8.name());
+
+        Marshaller marshaller = getJAXBContext().createMarshaller();
+        marshaller.setProperty(Marshaller.JAXB_FRAGMENT, Boolean.TRUE);
+
+        writer.writeStartDocument(StandardCharsets.UTF_8.name(), "1.0");
+        writer.setDefaultNamespace(StreamingCollection.NAMESPACE);
+        writer.writeStartElement(StreamingCollection.NAMESPACE, collection.getRootElementName().getLocalPart());
+        writer.writeDefaultNamespace(StreamingCollection.NAMESPACE);
+
+        for (Link link : collection.getLinks()) {
+            marshaller.marshal(new JAXBElement<>(LINK, Link.class, link), writer);
+        }
+
+        writeItems(collection, marshaller, writer);
+
+        writer.writeEndElement();
+        writer.writeEndDocument();
+        writer.flush();
+        writer.close();
+    }
+
+    private <T> void writeItems(StreamingCollection<T> collection, Marshaller marshaller, XMLStreamWriter writer)
+        throws JAXBException
+    {
+        for (T item : collection) {
+            marshaller.marshal(new JAXBElement<>(collection.getItemElementName(), collection.getItemType(), item),
+                writer);
+        }
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.rest.internal.representations.pages;
+
+import java.util.Iterator;
+import java.util.List;
+
+import javax.xml.namespace.QName;
+
+import org.xwiki.rest.internal.representations.StreamingCollection;
+import org.xwiki.rest.internal.representations.StreamingCollectionWriter;
+import org.xwiki.rest.model.jaxb.PageSummary;
+import org.xwiki.rest.model.jaxb.Pages;
+
+/**
+ * {@link Pages} whose page summaries are produced while the response is written.
+ *
+ * @version $Id$
+ * @since 12.0RC1
+ */
+public class StreamingPages extends Pages implements StreamingCollection<PageSummary>
+{
+    private static final QName ROOT = new QName(NAMESPACE, "pages");
+
+    private static final QName ITEM = new QName(NAMESPACE, "pageSummary");
+
+    private final transient Iterator<PageSummary> summaries;
+
+    private transient boolean loaded;
+
+    /**
+     * @param summaries the page summaries, only iterated once
+     */
+    public StreamingPages(Iterator<PageSummary> summaries)
+    {
+        this.summaries = summaries;
+    }
+
+    @Override
+    public Iterator<PageSummary> iterator()
+    {
+        return this.loaded ? super.getPageSummaries().iterator() : this.summaries;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The summaries are only streamed when the response is written by {@link StreamingCollectionWriter}. Calling this
+     * method (for example when the resource is used directly from Java) loads the remaining summaries in the list.
+     */
+    @Override
+    public List<PageSummary> getPageSummaries()
+    {
+        List<PageSummary> list = super.getPageSummaries();
+
+        if (!this.loaded) {
+            this.summaries.forEachRemaining(list::add);
+            this.loaded = true;
+        }
+
+        return list;
+    }
+
+    @Override
+    public QName getRootElementName()
+    {
+        return ROOT;
+    }
+
+    @Override
+    public QName getItemElementName()
+    {
+        return ITEM;
+    }
+
+    @Override
+    public String getItemsPropertyName()
+    {
+        return "pageSummaries";
+    }
+
+    @Override
+    public Class<PageSummary> getItemType()
+    {
+        return PageSummary.class;
+    }
+}
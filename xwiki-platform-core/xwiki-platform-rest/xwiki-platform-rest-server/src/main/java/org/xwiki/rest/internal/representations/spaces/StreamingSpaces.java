@@ -0,0 +1,104 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.rest.internal.representations.spaces;
+
+import java.util.Iterator;
+import java.util.List;
+
+import javax.xml.namespace.QName;
+
+import org.xwiki.rest.internal.representations.StreamingCollection;
+import org.xwiki.rest.internal.representations.StreamingCollectionWriter;
+import org.xwiki.rest.model.jaxb.Space;
+import org.xwiki.rest.model.jaxb.Spaces;
+
+/**
+ * {@link Spaces} whose spaces are produced while the response is written.
+ *
+ * @version $Id$
+ * @since 12.0RC1
+ */
+public class StreamingSpaces extends Spaces implements StreamingCollection<Space>
+{
+    private static final QName ROOT = new QName(NAMESPACE, "spaces");
+
+    private static final QName ITEM = new QName(NAMESPACE, "space");
+
+    private final transient Iterator<Space> spaceIterator;
+
+    private transient boolean loaded;
+
+    /**
+     * @param spaces the spaces, only iterated once
+     */
+    public StreamingSpaces(Iterator<Space> spaces)
+    {
+        this.spaceIterator = spaces;
+    }
+
+    @Override
+    public Iterator<Space> iterator()
+    {
+        return this.loaded ? super.getSpaces().iterator() : this.spaceIterator;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The spaces are only streamed when the response is written by {@link StreamingCollectionWriter}. Calling this
+     * method (for example when the resource is used directly from Java) loads the remaining spaces in the list.
+     */
+    @Override
+    public List<Space> getSpaces()
+    {
+        List<Space> list = super.getSpaces();
+
+        if (!this.loaded) {
+            this.spaceIterator.forEachRemaining(list::add);
+            this.loaded = true;
+        }
+
+        return list;
+    }
+
+    @Override
+    public QName getRootElementName()
+    {
+        return ROOT;
+    }
+
+    @Override
+    public QName getItemElementName()
+    {
+        return ITEM;
+    }
+
+    @Override
+    public String getItemsPropertyName()
+    {
+        return "spaces";
+    }
+
+    @Override
+    public Class<Space> getItemType()
+    {
+        return Space.class;
+    }
+}
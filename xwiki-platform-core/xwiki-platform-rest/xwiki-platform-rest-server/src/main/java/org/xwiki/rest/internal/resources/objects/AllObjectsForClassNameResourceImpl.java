@@ -19,6 +19,7 @@
  */
 package org.xwiki.rest.internal.resources.objects;
 
+import java.net.URI;
 import java.util.List;
 
 import javax.inject.Inject;
@@ -29,13 +30,16 @@
 import org.xwiki.rest.XWikiResource;
 import org.xwiki.rest.XWikiRestException;
 import org.xwiki.rest.internal.DomainObjectFactory;
+import org.xwiki.rest.internal.KeysetIterator;
 import org.xwiki.rest.internal.Utils;
+import org.xwiki.rest.internal.representations.objects.StreamingObjects;
 import org.xwiki.rest.model.jaxb.ObjectSummary;
 import org.xwiki.rest.model.jaxb.Objects;
 import org.xwiki.rest.resources.objects.AllObjectsForClassNameResource;
 import org.xwiki.security.authorization.ContextualAuthorizationManager;
 import org.xwiki.security.authorization.Right;
 
+import com.xpn.xwiki.XWikiException;
 import com.xpn.xwiki.api.Document;
 import com.xpn.xwiki.doc.XWikiDocument;
 import com.xpn.xwiki.objects.BaseObject;
@@ -47,13 +51,79 @@
 @Named("org.xwiki.rest.internal.resources.objects.AllObjectsForClassNameResourceImpl")
 public class AllObjectsForClassNameResourceImpl extends XWikiResource implements AllObjectsForClassNameResource
 {
+    private static final String QUERY = "select doc, obj from BaseObject as obj, XWikiDocument as doc "
+        + "where obj.name=doc.fullName and obj.className=:className";
+
+    private static final String CLASS_NAME = "className";
+
     @Inject
     private ContextualAuthorizationManager authorization;
 
+    /**
+     * Iterate over the objects of a class in the order of their identifiers, using the last identifier of a batch to
+     * fetch the next one.
+     */
+    private final class ObjectSummaryIterator extends KeysetIterator<Object[], ObjectSummary>
+    {
+        private final String wikiName;
+
+        private final String className;
+
+        private final int start;
+
+        private final URI baseUri;
+
+        private final Boolean withPrettyNames;
+
+        ObjectSummaryIterator(String wikiName, String className, int start, int number, Boolean withPrettyNames)
+        {
+            super(Utils.getXWikiContext(componentManager), wikiName, number);
+
+            this.wikiName = wikiName;
+            this.className = className;
+            this.start = start;
+            this.baseUri = uriInfo.getBaseUri();
+            this.withPrettyNames = withPrettyNames;
+        }
+
+        @Override
+        protected List<Object[]> getBatch(Object[] after, int limit) throws Exception
+        {
+            StringBuilder statement = new StringBuilder(QUERY);
+            if (after != null) {
+                statement.append(" and obj.id > :after");
+            }
+            statement.append(" order by obj.id asc");
+
+            Query query = queryManager.createQuery(statement.toString(), Query.XWQL);
+            query.bindValue(CLASS_NAME, this.className);
+            if (after != null) {
+                query.bindValue("after", ((BaseObject) after[1]).getId());
+            } else {
+                query.setOffset(this.start);
+            }
+            query.setLimit(limit);
+
+            return query.execute();
+        }
+
+        @Override
+        protected ObjectSummary convert(Object[] fields) throws Exception
+        {
+            return createObjectSummary(fields, this.wikiName, this.baseUri, this.withPrettyNames);
+        }
+    }
+
     @Override
     public Objects getObjects(String wikiName, String className, Integer start, Integer number, String order,
             Boolean withPrettyNames) throws XWikiRestException
     {
+        if (!"date".equals(order)) {
+            // Stream the objects while the response is written using keyset pagination to avoid loading all the
+            // objects of the class in memory
+            return new StreamingObjects(new ObjectSummaryIterator(wikiName, className, start, number, withPrettyNames));
+        }
+
         String database = Utils.getXWikiContext(componentManager).getWikiId();
 
         try {
@@ -61,33 +131,15 @@ public Objects getObjects(String wikiName, String className, Integer start, Inte
 
             Utils.getXWikiContext(componentManager).setWikiId(wikiName);
 
-            String query = "select doc, obj from BaseObject as obj, XWikiDocument as doc "
-                + "where obj.name=doc.fullName and obj.className=:className";
-            if ("date".equals(order)) {
-                query += " order by doc.date desc";
-            }
-
             List<Object> queryResult = null;
-            queryResult =
-                    queryManager.createQuery(query, Query.XWQL).bindValue("className", className).setLimit(number)
-                            .setOffset(start).execute();
+            queryResult = queryManager.createQuery(QUERY + " order by doc.date desc", Query.XWQL)
+                .bindValue(CLASS_NAME, className).setLimit(number).setOffset(start).execute();
 
             for (Object object : queryResult) {
-                Object[] fields = (Object[]) object;
-                XWikiDocument xwikiDocument = (XWikiDocument) fields[0];
-                xwikiDocument.setDatabase(wikiName);
-
-                if (authorization.hasAccess(Right.VIEW, xwikiDocument.getDocumentReference())) {
-
-                    Document doc = new Document(xwikiDocument, Utils.getXWikiContext(componentManager));
-
-                    BaseObject xwikiObject = (BaseObject) fields[1];
-
-                    ObjectSummary objectSummary = DomainObjectFactory
-                        .createObjectSummary(objectFactory, uriInfo.getBaseUri(), Utils.getXWikiContext(
-                            componentManager), doc, xwikiObject, false, Utils.getXWikiApi(componentManager),
-                            withPrettyNames);
+                ObjectSummary objectSummary =
+                    createObjectSummary((Object[]) object, wikiName, uriInfo.getBaseUri(), withPrettyNames);
 
+                if (objectSummary != null) {
                     objects.getObjectSummaries().add(objectSummary);
                 }
             }
@@ -99,4 +151,23 @@ public Objects getObjects(String wikiName, String className, Integer start, Inte
             Utils.getXWikiContext(componentManager).setWikiId(database);
         }
     }
+
+    private ObjectSummary createObjectSummary(Object[] fields, String wikiName, URI baseUri, Boolean withPrettyNames)
+        throws XWikiException
+    {
+        XWikiDocument xwikiDocument = (XWikiDocument) fields[0];
+        xwikiDocument.setDatabase(wikiName);
+
+        if (authorization.hasAccess(Right.VIEW, xwikiDocument.getDocumentReference())) {
+            Document doc = new Document(xwikiDocument, Utils.getXWikiContext(componentManager));
+
+            BaseObject xwikiObject = (BaseObject) fields[1];
+
+            return DomainObjectFactory.createObjectSummary(objectFactory, baseUri,
+                Utils.getXWikiContext(componentManager), doc, xwikiObject, false, Utils.getXWikiApi(componentManager),
+                withPrettyNames);
+        }
+
+        return null;
+    }
 }
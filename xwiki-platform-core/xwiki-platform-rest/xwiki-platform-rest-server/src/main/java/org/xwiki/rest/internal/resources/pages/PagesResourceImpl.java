@@ -19,6 +19,7 @@
  */
 package org.xwiki.rest.internal.resources.pages;
 
+import java.net.URI;
 import java.util.List;
 import java.util.regex.Pattern;
 
@@ -30,11 +31,16 @@
 import org.xwiki.rest.XWikiResource;
 import org.xwiki.rest.XWikiRestException;
 import org.xwiki.rest.internal.DomainObjectFactory;
+import org.xwiki.rest.internal.KeysetIterator;
 import org.xwiki.rest.internal.Utils;
+import org.xwiki.rest.internal.representations.pages.StreamingPages;
+import org.xwiki.rest.model.jaxb.PageSummary;
 import org.xwiki.rest.model.jaxb.Pages;
 import org.xwiki.rest.resources.pages.PagesResource;
 
+import com.xpn.xwiki.XWikiException;
 import com.xpn.xwiki.api.Document;
+import com.xpn.xwiki.api.XWiki;
 
 /**
  * @version $Id$
@@ -43,13 +49,107 @@
 @Named("org.xwiki.rest.internal.resources.pages.PagesResourceImpl")
 public class PagesResourceImpl extends XWikiResource implements PagesResource
 {
+    private static final String SPACE = "space";
+
+    /**
+     * Iterate over the page summaries of a space in the order of the page names, using the last name of a batch to
+     * fetch the next one.
+     */
+    private final class PageSummaryIterator extends KeysetIterator<String, PageSummary>
+    {
+        private final String wikiName;
+
+        private final List<String> spaces;
+
+        private final String spaceId;
+
+        private final int start;
+
+        private final Pattern parentFilter;
+
+        private final URI baseUri;
+
+        private final Boolean withPrettyNames;
+
+        private final XWiki xwikiApi;
+
+        PageSummaryIterator(String wikiName, List<String> spaces, int start, int number, Pattern parentFilter,
+            Boolean withPrettyNames)
+        {
+            super(Utils.getXWikiContext(componentManager), wikiName, number);
+
+            this.wikiName = wikiName;
+            this.spaces = spaces;
+            this.spaceId = Utils.getLocalSpaceId(spaces);
+            this.start = start;
+            this.parentFilter = parentFilter;
+            this.baseUri = uriInfo.getBaseUri();
+            this.withPrettyNames = withPrettyNames;
+            this.xwikiApi = Utils.getXWikiApi(componentManager);
+        }
+
+        @Override
+        protected List<String> getBatch(String after, int limit) throws Exception
+        {
+            // Same as the getSpaceDocsName named query (which was used before) with the keyset condition
+            StringBuilder statement =
+                new StringBuilder("select distinct doc.name from XWikiDocument doc where doc.space=:space");
+            if (after != null) {
+                statement.append(" and doc.name > :after");
+            }
+            statement.append(" order by doc.name asc");
+
+            Query query = queryManager.createQuery(statement.toString(), Query.HQL);
+            query.addFilter(componentManager.<QueryFilter>getInstance(QueryFilter.class, "hidden"));
+            query.bindValue(SPACE, this.spaceId);
+            if (after != null) {
+                query.bindValue("after", after);
+            } else {
+                query.setOffset(this.start);
+            }
+            query.setLimit(limit);
+
+            return query.execute();
+        }
+
+        @Override
+        protected PageSummary convert(String pageName) throws Exception
+        {
+            Document doc = getPageDocument(this.wikiName, this.spaces, pageName, this.xwikiApi);
+
+            if (doc != null && matchParent(doc, this.parentFilter, this.xwikiApi)) {
+                return DomainObjectFactory.createPageSummary(objectFactory, this.baseUri, doc, this.xwikiApi,
+                    this.withPrettyNames);
+            }
+
+            return null;
+        }
+    }
+
     @Override
     public Pages getPages(String wikiName, String spaceName, Integer start, Integer number,
             String parentFilterExpression, String order, Boolean withPrettyNames)
             throws XWikiRestException
     {
-        String database = Utils.getXWikiContext(componentManager).getWikiId();
         List<String> spaces = parseSpaceSegments(spaceName);
+
+        Pattern parentFilter = null;
+        if (parentFilterExpression != null) {
+            if (parentFilterExpression.equals("null")) {
+                parentFilter = Pattern.compile("");
+            } else {
+                parentFilter = Pattern.compile(parentFilterExpression);
+            }
+        }
+
+        if (!"date".equals(order)) {
+            // The pages are sorted by name: stream them while the response is written using keyset pagination to
+            // avoid loading the whole space in memory
+            return new StreamingPages(
+                new PageSummaryIterator(wikiName, spaces, start, number, parentFilter, withPrettyNames));
+        }
+
+        String database = Utils.getXWikiContext(componentManager).getWikiId();
         String spaceId = Utils.getLocalSpaceId(spaces);
 
         Pages pages = objectFactory.createPages();
@@ -57,52 +157,22 @@ public Pages getPages(String wikiName, String spaceName, Integer start, Integer
         try {
             Utils.getXWikiContext(componentManager).setWikiId(wikiName);
 
-            Query query = ("date".equals(order)) ? queryManager.createQuery(
-                    "select doc.name from Document doc where doc.space=:space and language='' order by doc.date desc",
-                    "xwql") : queryManager.getNamedQuery("getSpaceDocsName");
+            Query query = queryManager.createQuery(
+                "select doc.name from Document doc where doc.space=:space and language='' order by doc.date desc",
+                "xwql");
 
             /* Use an explicit query to improve performance */
             List<String> pageNames =
                     query.addFilter(componentManager.<QueryFilter>getInstance(QueryFilter.class, "hidden"))
-                        .bindValue("space", spaceId).setOffset(start).setLimit(number).execute();
-
-            Pattern parentFilter = null;
-            if (parentFilterExpression != null) {
-                if (parentFilterExpression.equals("null")) {
-                    parentFilter = Pattern.compile("");
-                } else {
-                    parentFilter = Pattern.compile(parentFilterExpression);
-                }
-            }
+                        .bindValue(SPACE, spaceId).setOffset(start).setLimit(number).execute();
 
+            XWiki xwikiApi = Utils.getXWikiApi(componentManager);
             for (String pageName : pageNames) {
-                String pageFullName = Utils.getPageId(wikiName, spaces, pageName);
-
-                if (!Utils.getXWikiApi(componentManager).exists(pageFullName)) {
-                    getLogger().warn("Page [{}] appears to be in space [{}] but no information is available.", pageName,
-                        spaceId);
-                } else {
-                    Document doc = Utils.getXWikiApi(componentManager).getDocument(pageFullName);
-
-                    /* We only add pages we have the right to access */
-                    if (doc != null) {
-                        boolean add = true;
-
-                        Document parent = Utils.getParentDocument(doc, Utils.getXWikiApi(componentManager));
-
-                        if (parentFilter != null) {
-                            String parentId = "";
-                            if (parent != null && !parent.isNew()) {
-                                parentId = parent.getPrefixedFullName();
-                            }
-                            add = parentFilter.matcher(parentId).matches();
-                        }
-
-                        if (add) {
-                            pages.getPageSummaries().add(DomainObjectFactory.createPageSummary(objectFactory,
-                                    uriInfo.getBaseUri(), doc, Utils.getXWikiApi(componentManager), withPrettyNames));
-                        }
-                    }
+                Document doc = getPageDocument(wikiName, spaces, pageName, xwikiApi);
+
+                if (doc != null && matchParent(doc, parentFilter, xwikiApi)) {
+                    pages.getPageSummaries().add(DomainObjectFactory.createPageSummary(objectFactory,
+                            uriInfo.getBaseUri(), doc, xwikiApi, withPrettyNames));
                 }
             }
         } catch (Exception e) {
@@ -113,4 +183,36 @@ public Pages getPages(String wikiName, String spaceName, Integer start, Integer
 
         return pages;
     }
+
+    private Document getPageDocument(String wikiName, List<String> spaces, String pageName, XWiki xwikiApi)
+        throws XWikiException
+    {
+        String pageFullName = Utils.getPageId(wikiName, spaces, pageName);
+
+        if (!xwikiApi.exists(pageFullName)) {
+            getLogger().warn("Page [{}] appears to be in space [{}] but no information is available.", pageName,
+                Utils.getLocalSpaceId(spaces));
+
+            return null;
+        }
+
+        /* We only add pages we have the right to access */
+        return xwikiApi.getDocument(pageFullName);
+    }
+
+    private boolean matchParent(Document doc, Pattern parentFilter, XWiki xwikiApi) throws XWikiException
+    {
+        if (parentFilter == null) {
+            return true;
+        }
+
+        Document parent = Utils.getParentDocument(doc, xwikiApi);
+
+        String parentId = "";
+        if (parent != null && !parent.isNew()) {
+            parentId = parent.getPrefixedFullName();
+        }
+
+        return parentFilter.matcher(parentId).matches();
+    }
 }
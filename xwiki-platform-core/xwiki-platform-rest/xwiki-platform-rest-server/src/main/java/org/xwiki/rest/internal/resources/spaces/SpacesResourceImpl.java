@@ -19,16 +19,21 @@
  */
 package org.xwiki.rest.internal.resources.spaces;
 
+import java.net.URI;
 import java.util.List;
 
 import javax.inject.Named;
 
 import org.xwiki.component.annotation.Component;
+import org.xwiki.query.Query;
 import org.xwiki.query.QueryFilter;
 import org.xwiki.rest.XWikiResource;
 import org.xwiki.rest.XWikiRestException;
 import org.xwiki.rest.internal.DomainObjectFactory;
+import org.xwiki.rest.internal.KeysetIterator;
 import org.xwiki.rest.internal.Utils;
+import org.xwiki.rest.internal.representations.spaces.StreamingSpaces;
+import org.xwiki.rest.model.jaxb.Space;
 import org.xwiki.rest.model.jaxb.Spaces;
 import org.xwiki.rest.resources.spaces.SpacesResource;
 
@@ -42,35 +47,78 @@
 @Named("org.xwiki.rest.internal.resources.spaces.SpacesResourceImpl")
 public class SpacesResourceImpl extends XWikiResource implements SpacesResource
 {
-    @Override
-    public Spaces getSpaces(String wikiName, Integer start, Integer number)
-            throws XWikiRestException
+    /**
+     * Iterate over the spaces of a wiki in the order of their local references, using the last space of a batch to
+     * fetch the next one.
+     */
+    private final class SpaceIterator extends KeysetIterator<String, Space>
     {
-        Spaces spaces = objectFactory.createSpaces();
+        private final String wikiName;
 
-        try {
-            List<String> spaceNames = queryManager.getNamedQuery("getSpaces").addFilter(
-                    componentManager.<QueryFilter>getInstance(QueryFilter.class, "hidden")).setOffset(start)
-                    .setLimit(number).setWiki(wikiName).execute();
+        private final int start;
 
-            for (String spaceName : spaceNames) {
-                List<String> spaceList = Utils.getSpacesFromSpaceId(spaceName);
-                String homeId = Utils.getPageId(wikiName, spaceList, "WebHome");
-                Document home = null;
+        private final URI baseUri;
+
+        private final XWiki xwikiApi;
+
+        SpaceIterator(String wikiName, int start, int number)
+        {
+            super(Utils.getXWikiContext(componentManager), wikiName, number);
+
+            this.wikiName = wikiName;
+            this.start = start;
+            this.baseUri = uriInfo.getBaseUri();
+            this.xwikiApi = Utils.getXWikiApi(componentManager);
+        }
+
+        @Override
+        protected List<String> getBatch(String after, int limit) throws Exception
+        {
+            // Same as the getSpaces named query (which was used before) with the keyset condition
+            StringBuilder statement = new StringBuilder("select distinct doc.space from XWikiDocument doc");
+            if (after != null) {
+                statement.append(" where doc.space > :after");
+            }
+            statement.append(" order by doc.space asc");
+
+            Query query = queryManager.createQuery(statement.toString(), Query.HQL);
+            query.addFilter(componentManager.<QueryFilter>getInstance(QueryFilter.class, "hidden"));
+            if (after != null) {
+                query.bindValue("after", after);
+            } else {
+                query.setOffset(this.start);
+            }
+            query.setLimit(limit);
 
-                XWiki xwikiApi = Utils.getXWikiApi(componentManager);
-                if (xwikiApi.hasAccessLevel("view", homeId)) {
-                    if (xwikiApi.exists(homeId)) {
-                        home = Utils.getXWikiApi(componentManager).getDocument(homeId);
-                    }
-                    spaces.getSpaces().add(DomainObjectFactory
-                            .createSpace(objectFactory, uriInfo.getBaseUri(), wikiName, spaceList, home));
+            return query.execute();
+        }
+
+        @Override
+        protected Space convert(String spaceName) throws Exception
+        {
+            List<String> spaceList = Utils.getSpacesFromSpaceId(spaceName);
+            String homeId = Utils.getPageId(this.wikiName, spaceList, "WebHome");
+
+            // We only add the spaces we have the right to access
+            if (this.xwikiApi.hasAccessLevel("view", homeId)) {
+                Document home = null;
+                if (this.xwikiApi.exists(homeId)) {
+                    home = this.xwikiApi.getDocument(homeId);
                 }
+
+                return DomainObjectFactory.createSpace(objectFactory, this.baseUri, this.wikiName, spaceList, home);
             }
-        } catch (Exception e) {
-            throw new XWikiRestException(e);
+
+            return null;
         }
+    }
 
-        return spaces;
+    @Override
+    public Spaces getSpaces(String wikiName, Integer start, Integer number)
+            throws XWikiRestException
+    {
+        // Stream the spaces while the response is written using keyset pagination to avoid loading all the spaces of
+        // the wiki in memory
+        return new StreamingSpaces(new SpaceIterator(wikiName, start, number));
     }
 }
@@ -0,0 +1,126 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.rest.internal;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.xpn.xwiki.XWikiContext;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for {@link KeysetIterator}.
+ *
+ * @version $Id$
+ */
+public class KeysetIteratorTest
+{
+    private static class IntegerIterator extends KeysetIterator<Integer, String>
+    {
+        private final int size;
+
+        private final List<Integer> afters = new ArrayList<>();
+
+        IntegerIterator(XWikiContext xcontext, int size, int number)
+        {
+            super(xcontext, "wiki", number);
+
+            this.size = size;
+        }
+
+        @Override
+        protected List<Integer> getBatch(Integer after, int limit)
+        {
+            this.afters.add(after);
+
+            List<Integer> rows = new ArrayList<>();
+            for (int i = after != null ? after + 1 : 0; i < this.size && rows.size() < limit; ++i) {
+                rows.add(i);
+            }
+
+            return rows;
+        }
+
+        @Override
+        protected String convert(Integer row)
+        {
+            // Skip the odd rows
+            return row % 2 == 0 ? String.valueOf(row) : null;
+        }
+    }
+
+    private List<String> toList(KeysetIterator<?, String> iterator)
+    {
+        List<String> items = new ArrayList<>();
+        iterator.forEachRemaining(items::add);
+
+        return items;
+    }
+
+    @Test
+    public void iterateAll()
+    {
+        XWikiContext xcontext = mock(XWikiContext.class);
+        when(xcontext.getWikiId()).thenReturn("current");
+
+        IntegerIterator iterator = new IntegerIterator(xcontext, 250, -1);
+
+        List<String> items = toList(iterator);
+
+        assertEquals(125, items.size());
+        assertEquals("0", items.get(0));
+        assertEquals("248", items.get(124));
+        assertEquals(Arrays.asList(null, 99, 199), iterator.afters);
+        assertFalse(iterator.hasNext());
+
+        verify(xcontext, atLeastOnce()).setWikiId("wiki");
+        verify(xcontext, atLeastOnce()).setWikiId("current");
+    }
+
+    @Test
+    public void iterateWithLimit()
+    {
+        IntegerIterator iterator = new IntegerIterator(mock(XWikiContext.class), 250, 150);
+
+        List<String> items = toList(iterator);
+
+        assertEquals(75, items.size());
+        assertEquals("148", items.get(74));
+        assertEquals(Arrays.asList(null, 99), iterator.afters);
+    }
+
+    @Test
+    public void iterateEmpty()
+    {
+        IntegerIterator iterator = new IntegerIterator(mock(XWikiContext.class), 0, -1);
+
+        assertFalse(iterator.hasNext());
+        assertEquals(Arrays.asList((Integer) null), iterator.afters);
+    }
+}
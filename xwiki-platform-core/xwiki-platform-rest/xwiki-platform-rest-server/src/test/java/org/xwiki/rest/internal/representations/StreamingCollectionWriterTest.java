@@ -0,0 +1,246 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.rest.internal.representations;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import javax.ws.rs.core.MediaType;
+import javax.xml.bind.JAXBContext;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.xwiki.component.util.ReflectionUtils;
+import org.xwiki.rest.internal.representations.objects.StreamingObjects;
+import org.xwiki.rest.internal.representations.pages.StreamingPages;
+import org.xwiki.rest.internal.representations.spaces.StreamingSpaces;
+import org.xwiki.rest.model.jaxb.Link;
+import org.xwiki.rest.model.jaxb.ObjectFactory;
+import org.xwiki.rest.model.jaxb.ObjectSummary;
+import org.xwiki.rest.model.jaxb.Objects;
+import org.xwiki.rest.model.jaxb.PageSummary;
+import org.xwiki.rest.model.jaxb.Pages;
+import org.xwiki.rest.model.jaxb.Space;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Validate {@link StreamingCollectionWriter}, {@link StreamingPages}, {@link StreamingObjects} and
+ * {@link StreamingSpaces}.
+ *
+ * @version $Id$
+ */
+public class StreamingCollectionWriterTest
+{
+    private StreamingCollectionWriter writer = new StreamingCollectionWriter();
+
+    private ObjectFactory objectFactory = new ObjectFactory();
+
+    private Logger logger = mock(Logger.class);
+
+    @BeforeEach
+    public void setUp()
+    {
+        ReflectionUtils.setFieldValue(this.writer, "logger", this.logger);
+    }
+
+    private PageSummary pageSummary(String name)
+    {
+        PageSummary summary = this.objectFactory.createPageSummary();
+        summary.setId("xwiki:Space." + name);
+        summary.setName(name);
+        summary.setSpace("Space");
+
+        return summary;
+    }
+
+    private StreamingPages streamingPages()
+    {
+        StreamingPages pages =
+            new StreamingPages(Arrays.asList(pageSummary("Page1"), pageSummary("Page2")).iterator());
+
+        Link link = this.objectFactory.createLink();
+        link.setHref("http://host/rest/wikis/xwiki/spaces/Space");
+        link.setRel("http://www.xwiki.org/rel/space");
+        pages.getLinks().add(link);
+
+        return pages;
+    }
+
+    private StreamingPages failingPages(RuntimeException error)
+    {
+        Iterator<PageSummary> summaries = mock(Iterator.class);
+        when(summaries.hasNext()).thenReturn(true);
+        when(summaries.next()).thenReturn(pageSummary("Page1")).thenThrow(error);
+
+        return new StreamingPages(summaries);
+    }
+
+    private byte[] write(StreamingCollection<?> collection, MediaType mediaType) throws Exception
+    {
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        this.writer.writeTo(collection, collection.getClass(), collection.getClass(), null, mediaType, null, stream);
+
+        return stream.toByteArray();
+    }
+
+    @Test
+    public void isWriteable()
+    {
+        assertTrue(this.writer.isWriteable(StreamingPages.class, null, null, MediaType.APPLICATION_XML_TYPE));
+        assertTrue(this.writer.isWriteable(StreamingObjects.class, null, null, MediaType.APPLICATION_JSON_TYPE));
+        assertFalse(this.writer.isWriteable(Pages.class, null, null, MediaType.APPLICATION_XML_TYPE));
+    }
+
+    @Test
+    public void writePagesXML() throws Exception
+    {
+        byte[] xml = write(streamingPages(), MediaType.APPLICATION_XML_TYPE);
+
+        // The streamed XML can be read as a regular pages representation
+        Pages pages = (Pages) JAXBContext.newInstance(ObjectFactory.class).createUnmarshaller()
+            .unmarshal(new ByteArrayInputStream(xml));
+
+        assertEquals(1, pages.getLinks().size());
+        assertEquals("http://www.xwiki.org/rel/space", pages.getLinks().get(0).getRel());
+        assertEquals(2, pages.getPageSummaries().size());
+        assertEquals("Page1", pages.getPageSummaries().get(0).getName());
+        assertEquals("xwiki:Space.Page2", pages.getPageSummaries().get(1).getId());
+    }
+
+    @Test
+    public void writePagesJSON() throws Exception
+    {
+        byte[] json = write(streamingPages(), MediaType.APPLICATION_JSON_TYPE);
+
+        Map<String, Object> pages = new ObjectMapper().readValue(json, Map.class);
+
+        assertEquals(1, ((List<?>) pages.get("links")).size());
+        List<Map<String, Object>> summaries = (List<Map<String, Object>>) pages.get("pageSummaries");
+        assertEquals(2, summaries.size());
+        assertEquals("Page1", summaries.get(0).get("name"));
+        assertEquals("xwiki:Space.Page2", summaries.get(1).get("id"));
+    }
+
+    @Test
+    public void writeObjectsXML() throws Exception
+    {
+        ObjectSummary summary = this.objectFactory.createObjectSummary();
+        summary.setClassName("Space.Class");
+        summary.setNumber(1);
+
+        byte[] xml = write(new StreamingObjects(Arrays.asList(summary).iterator()), MediaType.APPLICATION_XML_TYPE);
+
+        Objects objects = (Objects) JAXBContext.newInstance(ObjectFactory.class).createUnmarshaller()
+            .unmarshal(new ByteArrayInputStream(xml));
+
+        assertEquals(1, objects.getObjectSummaries().size());
+        assertEquals("Space.Class", objects.getObjectSummaries().get(0).getClassName());
+        assertEquals(1, objects.getObjectSummaries().get(0).getNumber());
+    }
+
+    @Test
+    public void getSummariesWhenNotStreamed()
+    {
+        StreamingPages pages = streamingPages();
+
+        // Accessing the list directly loads the summaries
+        assertEquals(2, pages.getPageSummaries().size());
+        assertEquals("Page2", pages.getPageSummaries().get(1).getName());
+
+        // The loaded summaries are still written
+        assertTrue(pages.iterator().hasNext());
+        assertEquals("Page1", pages.iterator().next().getName());
+
+        StreamingObjects objects =
+            new StreamingObjects(Arrays.asList(this.objectFactory.createObjectSummary()).iterator());
+
+        assertEquals(1, objects.getObjectSummaries().size());
+    }
+
+    @Test
+    public void writeSpacesJSON() throws Exception
+    {
+        Space space = this.objectFactory.createSpace();
+        space.setId("xwiki:Space");
+        space.setName("Space");
+
+        byte[] json = write(new StreamingSpaces(Arrays.asList(space).iterator()), MediaType.APPLICATION_JSON_TYPE);
+
+        Map<String, Object> spaces = new ObjectMapper().readValue(json, Map.class);
+
+        List<Map<String, Object>> spaceList = (List<Map<String, Object>>) spaces.get("spaces");
+        assertEquals(1, spaceList.size());
+        assertEquals("xwiki:Space", spaceList.get(0).get("id"));
+    }
+
+    @Test
+    public void writeJSONWhenIterationFails()
+    {
+        RuntimeException error = new RuntimeException("error");
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+
+        IOException exception = assertThrows(IOException.class, () -> this.writer.writeTo(failingPages(error),
+            StreamingPages.class, StreamingPages.class, null, MediaType.APPLICATION_JSON_TYPE, null, stream));
+
+        assertSame(error, exception.getCause());
+        verify(this.logger).error(eq("Failed to write the collection [{}], aborting the response"), eq("pages"),
+            eq(error));
+
+        // The items written before the failure are sent but the document is not closed
+        String json = new String(stream.toByteArray());
+        assertTrue(json.contains("\"Page1\""));
+        assertThrows(JsonProcessingException.class, () -> new ObjectMapper().readValue(json, Map.class));
+    }
+
+    @Test
+    public void writeXMLWhenIterationFails() throws Exception
+    {
+        RuntimeException error = new RuntimeException("error");
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+
+        IOException exception = assertThrows(IOException.class, () -> this.writer.writeTo(failingPages(error),
+            StreamingPages.class, StreamingPages.class, null, MediaType.APPLICATION_XML_TYPE, null, stream));
+
+        assertSame(error, exception.getCause());
+        verify(this.logger).error(eq("Failed to write the collection [{}], aborting the response"), eq("pages"),
+            eq(error));
+
+        // Whatever was flushed before the failure, the root element is never closed
+        assertFalse(new String(stream.toByteArray()).contains("</pages>"));
+    }
+}
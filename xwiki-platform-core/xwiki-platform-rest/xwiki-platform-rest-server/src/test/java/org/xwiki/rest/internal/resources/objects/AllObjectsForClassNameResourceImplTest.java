@@ -0,0 +1,138 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.rest.internal.resources.objects;
+
+import java.net.URI;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.ws.rs.core.UriInfo;
+
+import org.apache.commons.lang3.reflect.FieldUtils;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.xwiki.model.reference.DocumentReference;
+import org.xwiki.query.Query;
+import org.xwiki.query.QueryManager;
+import org.xwiki.rest.internal.ModelFactory;
+import org.xwiki.rest.internal.representations.objects.StreamingObjects;
+import org.xwiki.rest.model.jaxb.ObjectSummary;
+import org.xwiki.rest.model.jaxb.Objects;
+import org.xwiki.security.authorization.Right;
+import org.xwiki.test.junit5.mockito.InjectMockComponents;
+import org.xwiki.test.junit5.mockito.MockComponent;
+
+import com.xpn.xwiki.doc.XWikiDocument;
+import com.xpn.xwiki.objects.BaseObject;
+import com.xpn.xwiki.test.MockitoOldcore;
+import com.xpn.xwiki.test.junit5.mockito.InjectMockitoOldcore;
+import com.xpn.xwiki.test.junit5.mockito.OldcoreTest;
+import com.xpn.xwiki.test.reference.ReferenceComponentList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for {@link AllObjectsForClassNameResourceImpl}.
+ * 
+ * @version $Id$
+ */
+@OldcoreTest
+@ReferenceComponentList
+public class AllObjectsForClassNameResourceImplTest
+{
+    private static final String QUERY = "select doc, obj from BaseObject as obj, XWikiDocument as doc "
+        + "where obj.name=doc.fullName and obj.className=:className";
+
+    @InjectMockComponents
+    private AllObjectsForClassNameResourceImpl resource;
+
+    @MockComponent
+    private QueryManager queryManager;
+
+    @MockComponent
+    private ModelFactory modelFactory;
+
+    @InjectMockitoOldcore
+    private MockitoOldcore oldcore;
+
+    private Query query = mock(Query.class);
+
+    @BeforeEach
+    public void configure() throws Exception
+    {
+        UriInfo uriInfo = mock(UriInfo.class);
+        when(uriInfo.getBaseUri()).thenReturn(new URI("https://test/"));
+        FieldUtils.writeField(this.resource, "uriInfo", uriInfo, true);
+
+        when(this.modelFactory.toRestObjectSummary(any(), any(), any(), anyBoolean(), any())).then(invocation -> {
+            BaseObject object = invocation.getArgument(2);
+            ObjectSummary summary = new ObjectSummary();
+            summary.setPageName(object.getDocumentReference().getName());
+            summary.setNumber(object.getNumber());
+            return summary;
+        });
+    }
+
+    private Object[] row(String page, int number)
+    {
+        DocumentReference documentReference = new DocumentReference("xwiki", "Space", page);
+        BaseObject object = new BaseObject();
+        object.setDocumentReference(documentReference);
+        object.setNumber(number);
+
+        when(this.oldcore.getMockContextualAuthorizationManager().hasAccess(Right.VIEW, documentReference))
+            .thenReturn(!page.equals("Denied"));
+
+        return new Object[] {new XWikiDocument(documentReference), object};
+    }
+
+    @Test
+    public void getObjectsStreamed() throws Exception
+    {
+        when(this.queryManager.createQuery(QUERY + " order by obj.id asc", Query.XWQL)).thenReturn(this.query);
+        List<Object> rows = Arrays.asList(row("Page1", 0), row("Denied", 0), row("Page1", 1));
+        when(this.query.execute()).thenReturn(rows);
+
+        Objects objects = this.resource.getObjects("xwiki", "Space.Class", 2, -1, null, false);
+
+        // Nothing is loaded before the response is written
+        assertTrue(objects instanceof StreamingObjects);
+        verify(this.query, never()).execute();
+
+        List<ObjectSummary> summaries = objects.getObjectSummaries();
+
+        // The objects of the pages which are not viewable are skipped
+        assertEquals(2, summaries.size());
+        assertEquals("Page1", summaries.get(0).getPageName());
+        assertEquals(0, summaries.get(0).getNumber());
+        assertEquals(1, summaries.get(1).getNumber());
+
+        verify(this.query).bindValue("className", "Space.Class");
+        verify(this.query).setOffset(2);
+        verify(this.query).setLimit(100);
+    }
+}
@@ -0,0 +1,160 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.rest.internal.resources.pages;
+
+import java.net.URI;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.inject.Named;
+import javax.ws.rs.core.UriInfo;
+
+import org.apache.commons.lang3.reflect.FieldUtils;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.xwiki.model.reference.DocumentReference;
+import org.xwiki.query.Query;
+import org.xwiki.query.QueryFilter;
+import org.xwiki.query.QueryManager;
+import org.xwiki.rest.internal.ModelFactory;
+import org.xwiki.rest.internal.representations.pages.StreamingPages;
+import org.xwiki.rest.model.jaxb.PageSummary;
+import org.xwiki.rest.model.jaxb.Pages;
+import org.xwiki.test.junit5.mockito.InjectMockComponents;
+import org.xwiki.test.junit5.mockito.MockComponent;
+
+import com.xpn.xwiki.api.Document;
+import com.xpn.xwiki.doc.XWikiDocument;
+import com.xpn.xwiki.test.MockitoOldcore;
+import com.xpn.xwiki.test.junit5.mockito.InjectMockitoOldcore;
+import com.xpn.xwiki.test.junit5.mockito.OldcoreTest;
+import com.xpn.xwiki.test.reference.ReferenceComponentList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for {@link PagesResourceImpl}.
+ * 
+ * @version $Id$
+ */
+@OldcoreTest
+@ReferenceComponentList
+public class PagesResourceImplTest
+{
+    @InjectMockComponents
+    private PagesResourceImpl resource;
+
+    @MockComponent
+    private QueryManager queryManager;
+
+    @MockComponent
+    @Named("hidden")
+    private QueryFilter hiddenFilter;
+
+    @MockComponent
+    private ModelFactory modelFactory;
+
+    @InjectMockitoOldcore
+    private MockitoOldcore oldcore;
+
+    private Query query = mock(Query.class);
+
+    @BeforeEach
+    public void configure() throws Exception
+    {
+        UriInfo uriInfo = mock(UriInfo.class);
+        when(uriInfo.getBaseUri()).thenReturn(new URI("https://test/"));
+        FieldUtils.writeField(this.resource, "uriInfo", uriInfo, true);
+
+        when(this.modelFactory.toRestPageSummary(any(), any(), any())).then(invocation -> {
+            PageSummary summary = new PageSummary();
+            summary.setName(invocation.<Document>getArgument(1).getDocumentReference().getName());
+            return summary;
+        });
+
+        when(this.oldcore.getMockRightService().hasAccessLevel(eq("view"), any(), any(), any())).thenReturn(true);
+        when(this.oldcore.getMockRightService().hasAccessLevel(eq("view"), any(), eq("xwiki:Space.Denied"), any()))
+            .thenReturn(false);
+
+        for (String name : Arrays.asList("Page1", "Page2", "Denied")) {
+            this.oldcore.getSpyXWiki().saveDocument(
+                new XWikiDocument(new DocumentReference("xwiki", "Space", name)), this.oldcore.getXWikiContext());
+        }
+    }
+
+    @Test
+    public void getPagesStreamed() throws Exception
+    {
+        when(this.queryManager.createQuery(
+            "select distinct doc.name from XWikiDocument doc where doc.space=:space order by doc.name asc",
+            Query.HQL)).thenReturn(this.query);
+        List<Object> names = Arrays.asList("Denied", "Missing", "Page1", "Page2");
+        when(this.query.execute()).thenReturn(names);
+
+        this.oldcore.getXWikiContext().setWikiId("otherwiki");
+
+        Pages pages = this.resource.getPages("xwiki", "Space", 5, 10, null, null, false);
+
+        // Nothing is loaded before the response is written
+        assertTrue(pages instanceof StreamingPages);
+        verify(this.query, never()).execute();
+
+        List<PageSummary> summaries = pages.getPageSummaries();
+
+        // The missing and not viewable pages are skipped
+        assertEquals(2, summaries.size());
+        assertEquals("Page1", summaries.get(0).getName());
+        assertEquals("Page2", summaries.get(1).getName());
+
+        verify(this.query).bindValue("space", "Space");
+        verify(this.query).setOffset(5);
+        verify(this.query).setLimit(10);
+        verify(this.query).addFilter(this.hiddenFilter);
+        // The context wiki is restored after each fetch
+        assertEquals("otherwiki", this.oldcore.getXWikiContext().getWikiId());
+    }
+
+    @Test
+    public void getPagesOrderedByDate() throws Exception
+    {
+        when(this.queryManager.createQuery(
+            "select doc.name from Document doc where doc.space=:space and language='' order by doc.date desc", "xwql"))
+                .thenReturn(this.query);
+        when(this.query.addFilter(any())).thenReturn(this.query);
+        when(this.query.bindValue(any(), any())).thenReturn(this.query);
+        when(this.query.setOffset(anyInt())).thenReturn(this.query);
+        when(this.query.setLimit(anyInt())).thenReturn(this.query);
+        List<Object> names = Arrays.asList("Page2", "Page1");
+        when(this.query.execute()).thenReturn(names);
+
+        Pages pages = this.resource.getPages("xwiki", "Space", 0, -1, null, "date", false);
+
+        assertEquals(2, pages.getPageSummaries().size());
+        assertEquals("Page2", pages.getPageSummaries().get(0).getName());
+    }
+}
@@ -108,6 +108,14 @@ public void commit() throws SolrServerException, IOException
         this.server.commit();
     }
 
+    @Override
+    public void softCommit() throws SolrServerException, IOException
+    {
+        this.logger.debug("Soft commit changes to Solr");
+
+        this.server.commit(true, true, true);
+    }
+
     @Override
     public void rollback() throws SolrServerException, IOException
     {
@@ -111,6 +111,34 @@ public class DefaultSolrConfiguration implements SolrConfiguration
      */
     public static final int SOLR_INDEXER_BATCH_MAXLENGH_DEFAULT = 10000;
 
+    /**
+     * The name of the configuration property containing the maximum time an entity can wait in the batch.
+     * 
+     * @since 12.0RC1
+     */
+    public static final String SOLR_INDEXER_BATCH_MAXDELAY_PROPERTY = "solr.indexer.batch.maxDelay";
+
+    /**
+     * The default maximum time in milliseconds an entity can wait in the batch before the batch is sent.
+     * 
+     * @since 12.0RC1
+     */
+    public static final long SOLR_INDEXER_BATCH_MAXDELAY_DEFAULT = 1000;
+
+    /**
+     * The name of the configuration property containing the minimum time between two hard commits.
+     * 
+     * @since 12.0RC1
+     */
+    public static final String SOLR_INDEXER_HARDCOMMIT_INTERVAL_PROPERTY = "solr.indexer.hardCommitInterval";
+
+    /**
+     * The default minimum time in milliseconds between two hard commits.
+     * 
+     * @since 12.0RC1
+     */
+    public static final long SOLR_INDEXER_HARDCOMMIT_INTERVAL_DEFAULT = 60000;
+
     /**
      * The name of the configuration property containing the batch size.
      */
@@ -177,6 +205,20 @@ public int getIndexerQueueCapacity()
             SOLR_INDEXER_QUEUE_CAPACITY_DEFAULT);
     }
 
+    @Override
+    public long getIndexerBatchMaxDelay()
+    {
+        return this.configuration.getProperty(SOLR_INDEXER_BATCH_MAXDELAY_PROPERTY,
+            SOLR_INDEXER_BATCH_MAXDELAY_DEFAULT);
+    }
+
+    @Override
+    public long getIndexerHardCommitInterval()
+    {
+        return this.configuration.getProperty(SOLR_INDEXER_HARDCOMMIT_INTERVAL_PROPERTY,
+            SOLR_INDEXER_HARDCOMMIT_INTERVAL_DEFAULT);
+    }
+
     @Override
     public boolean synchronizeAtStartup()
     {
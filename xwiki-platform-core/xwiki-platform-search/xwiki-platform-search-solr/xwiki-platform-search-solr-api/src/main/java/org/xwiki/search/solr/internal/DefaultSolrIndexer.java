@@ -19,9 +19,15 @@
  */
 package org.xwiki.search.solr.internal;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.concurrent.BlockingDeque;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingDeque;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
 
 import javax.inject.Inject;
 import javax.inject.Provider;
@@ -43,6 +49,8 @@
 import org.xwiki.context.ExecutionContextManager;
 import org.xwiki.job.JobException;
 import org.xwiki.job.JobExecutor;
+import org.xwiki.metrics.Histogram;
+import org.xwiki.metrics.MetricsRegistry;
 import org.xwiki.model.EntityType;
 import org.xwiki.model.reference.EntityReference;
 import org.xwiki.search.solr.internal.api.SolrConfiguration;
@@ -97,6 +105,16 @@ public class DefaultSolrIndexer implements SolrIndexer, Initializable, Disposabl
          */
         public IndexOperation operation;
 
+        /**
+         * The callback to call when the operation is {@link IndexOperation#CALLBACK}.
+         */
+        public Runnable callback;
+
+        /**
+         * Indicate if the operation was already put back in the queue after a rollback.
+         */
+        public boolean requeued;
+
         /**
          * @param indexReference the reference of the entity to index.
          * @param operation the indexing operation to perform.
@@ -117,6 +135,15 @@ public IndexQueueEntry(String deleteQuery, IndexOperation operation)
             this.operation = operation;
         }
 
+        /**
+         * @param callback the callback to call once the previous operations are committed
+         */
+        public IndexQueueEntry(Runnable callback)
+        {
+            this.callback = callback;
+            this.operation = IndexOperation.CALLBACK;
+        }
+
         @Override
         public String toString()
         {
@@ -132,6 +159,9 @@ public String toString()
                 case STOP:
                     str = "STOP";
                     break;
+                case CALLBACK:
+                    str = "CALLBACK";
+                    break;
                 default:
                     str = "";
                     break;
@@ -163,16 +193,24 @@ public String toString()
          */
         public IndexOperation operation;
 
+        /**
+         * Called once the operation is committed.
+         */
+        public Runnable callback;
+
         /**
          * @param reference the reference of the entity to index.
          * @param recurse also apply operation to reference children.
          * @param operation the indexing operation to perform.
+         * @param callback called once the operation is committed, can be {@code null}
          */
-        public ResolveQueueEntry(EntityReference reference, boolean recurse, IndexOperation operation)
+        public ResolveQueueEntry(EntityReference reference, boolean recurse, IndexOperation operation,
+            Runnable callback)
         {
             this.reference = reference;
             this.recurse = recurse;
             this.operation = operation;
+            this.callback = callback;
         }
     }
 
@@ -228,6 +266,17 @@ public void runInternal()
                     logger.warn("Failed to apply operation [{}] on root reference [{}]", queueEntry.operation,
                         queueEntry.reference, e);
                 }
+
+                // Queue the callback after the operations it's waiting for (even if they could not all be queued)
+                if (queueEntry.callback != null) {
+                    try {
+                        indexQueue.put(new IndexQueueEntry(queueEntry.callback));
+                    } catch (InterruptedException e) {
+                        logger.warn("The SOLR resolve thread has been interrupted", e);
+
+                        break;
+                    }
+                }
             }
 
             logger.debug("Stop SOLR resolver thread");
@@ -238,7 +287,7 @@ public void runInternal()
      * Stop resolver thread.
      */
     private static final ResolveQueueEntry RESOLVE_QUEUE_ENTRY_STOP =
-        new ResolveQueueEntry(null, false, IndexOperation.STOP);
+        new ResolveQueueEntry(null, false, IndexOperation.STOP, null);
 
     /**
      * Stop indexer thread.
@@ -285,10 +334,13 @@ public void runInternal()
     @Inject
     private JobExecutor jobs;
 
+    @Inject
+    private MetricsRegistry metrics;
+
     /**
      * The queue of index operation to perform.
      */
-    private BlockingQueue<IndexQueueEntry> indexQueue;
+    private BlockingDeque<IndexQueueEntry> indexQueue;
 
     /**
      * The queue of resolve references and add them to the index queue.
@@ -315,12 +367,42 @@ public void runInternal()
      */
     private volatile int batchSize;
 
+    /**
+     * The time at which the first operation of the not yet sent batch was processed.
+     */
+    private long batchStart;
+
+    /**
+     * The time of the last hard commit.
+     */
+    private long lastHardCommit = System.currentTimeMillis();
+
+    /**
+     * Indicate if some batches were only soft committed since the last hard commit.
+     */
+    private boolean softCommitted;
+
+    /**
+     * The operations sent since the last hard commit, which are lost if the changes are rolled back.
+     */
+    private final List<IndexQueueEntry> uncommittedEntries = new ArrayList<>();
+
+    /**
+     * The time it took to commit the batches, in milliseconds.
+     */
+    private final Histogram commitLatencies = new Histogram(10, 50, 100, 250, 500, 1000, 2500, 5000, 10000);
+
+    /**
+     * The number of operations in each committed batch.
+     */
+    private final Histogram batchSizes = new Histogram(1, 5, 10, 25, 50, 100, 250, 500, 1000);
+
     @Override
     public void initialize() throws InitializationException
     {
         // Initialize the queues before starting the threads.
         this.resolveQueue = new LinkedBlockingQueue<>();
-        this.indexQueue = new LinkedBlockingQueue<>(this.configuration.getIndexerQueueCapacity());
+        this.indexQueue = new LinkedBlockingDeque<>(this.configuration.getIndexerQueueCapacity());
 
         // Launch the resolve thread
         this.resolveThread = new Thread(new Resolver());
@@ -335,6 +417,11 @@ public void initialize() throws InitializationException
         this.indexThread.setDaemon(true);
         this.indexThread.start();
         this.indexThread.setPriority(Thread.NORM_PRIORITY - 1);
+
+        // Publish the indexer statistics
+        this.metrics.register("solr.indexer.commitLatency", this.commitLatencies);
+        this.metrics.register("solr.indexer.batchSize", this.batchSizes);
+        this.metrics.registerGauge("solr.indexer.queueSize", this::getQueueSize);
     }
 
     @Override
@@ -365,13 +452,20 @@ public void run()
             // Block until there is at least one entry in the queue
             IndexQueueEntry queueEntry = null;
             try {
-                queueEntry = this.indexQueue.take();
+                queueEntry = takeFirstEntry();
             } catch (InterruptedException e) {
                 this.logger.warn("The SOLR index thread has been interrupted", e);
 
                 queueEntry = INDEX_QUEUE_ENTRY_STOP;
             }
 
+            if (queueEntry == null) {
+                // Nothing happened before the soft committed changes had to be made durable
+                commit(true);
+
+                continue;
+            }
+
             // Add to the batch until either the batch size is achieved, the queue gets emptied or the
             // INDEX_QUEUE_ENTRY_STOP is retrieved from the queue.
             if (!processBatch(queueEntry)) {
@@ -379,9 +473,59 @@ public void run()
             }
         }
 
+        // Make durable the changes which were only soft committed
+        if (this.softCommitted) {
+            commit(true);
+        }
+
         this.logger.debug("Stop SOLR indexer thread");
     }
 
+    /**
+     * Block until there is at least one entry in the queue, or until a hard commit is due if some changes were only
+     * soft committed.
+     * 
+     * @return the first entry of the next batch or {@code null} if a hard commit is due
+     * @throws InterruptedException when the thread is interrupted while waiting
+     */
+    private IndexQueueEntry takeFirstEntry() throws InterruptedException
+    {
+        if (this.softCommitted) {
+            long wait = this.lastHardCommit + this.configuration.getIndexerHardCommitInterval()
+                - System.currentTimeMillis();
+
+            return wait > 0 ? this.indexQueue.poll(wait, TimeUnit.MILLISECONDS) : null;
+        }
+
+        return this.indexQueue.take();
+    }
+
+    /**
+     * Get the next entry of the current batch, waiting for it as long as the batch maximum delay allows it.
+     * 
+     * @return the next entry or {@code null} if the queue is empty and the batch should be sent
+     */
+    private IndexQueueEntry nextEntry()
+    {
+        IndexQueueEntry entry = this.indexQueue.poll();
+
+        if (entry == null && this.batchSize > 0) {
+            long wait = this.batchStart + this.configuration.getIndexerBatchMaxDelay() - System.currentTimeMillis();
+
+            if (wait > 0) {
+                try {
+                    entry = this.indexQueue.poll(wait, TimeUnit.MILLISECONDS);
+                } catch (InterruptedException e) {
+                    this.logger.warn("The SOLR index thread has been interrupted", e);
+
+                    entry = INDEX_QUEUE_ENTRY_STOP;
+                }
+            }
+        }
+
+        return entry;
+    }
+
     /**
      * Process a batch of operations that were just read from the index operations queue. This method also commits the
      * batch when it finishes to process it.
@@ -395,7 +539,7 @@ private boolean processBatch(IndexQueueEntry queueEntry)
 
         int length = 0;
 
-        for (IndexQueueEntry batchEntry = queueEntry; batchEntry != null; batchEntry = this.indexQueue.poll()) {
+        for (IndexQueueEntry batchEntry = queueEntry; batchEntry != null; batchEntry = nextEntry()) {
             if (batchEntry == INDEX_QUEUE_ENTRY_STOP) {
                 // Discard the current batch and stop the indexing thread.
                 return false;
@@ -403,6 +547,22 @@ private boolean processBatch(IndexQueueEntry queueEntry)
 
             IndexOperation operation = batchEntry.operation;
 
+            if (IndexOperation.CALLBACK.equals(operation)) {
+                // Make sure the operations queued before the callback are visible before calling it
+                if (this.batchSize > 0) {
+                    commit(false);
+                    length = 0;
+                }
+
+                callback(batchEntry.callback);
+
+                continue;
+            }
+
+            if (this.batchSize == 0) {
+                this.batchStart = System.currentTimeMillis();
+            }
+
             // For the current contiguous operations queue, group the changes
             try {
                 this.ecim.initialize(new ExecutionContext());
@@ -413,6 +573,7 @@ private boolean processBatch(IndexQueueEntry queueEntry)
                         solrInstance.add(solrDocument);
                         length += solrDocument.getLength();
                         ++this.batchSize;
+                        this.uncommittedEntries.add(batchEntry);
                     }
                 } else if (IndexOperation.DELETE.equals(operation)) {
                     if (batchEntry.reference == null) {
@@ -422,6 +583,7 @@ private boolean processBatch(IndexQueueEntry queueEntry)
                     }
 
                     ++this.batchSize;
+                    this.uncommittedEntries.add(batchEntry);
                 }
             } catch (Throwable e) {
                 this.logger.error("Failed to process entry [{}]", batchEntry, e);
@@ -432,42 +594,129 @@ private boolean processBatch(IndexQueueEntry queueEntry)
             // Commit the index changes so that they become available to queries. This is a costly operation and that is
             // the reason why we perform it at the end of the batch.
             if (shouldCommit(length, this.batchSize)) {
-                commit();
+                commit(false);
                 length = 0;
             }
         }
 
         // Commit what's left
         if (this.batchSize > 0) {
-            commit();
+            commit(false);
         }
 
         return true;
     }
 
+    private void callback(Runnable callback)
+    {
+        try {
+            callback.run();
+        } catch (Exception e) {
+            this.logger.error("Failed to execute the Solr indexer callback [{}]", callback, e);
+        }
+    }
+
     /**
-     * Commit.
+     * Commit the current batch. Only a soft commit is performed, unless asked or the configured hard commit interval
+     * elapsed since the last hard commit.
+     * 
+     * @param hard {@code true} to force a hard commit
      */
-    private void commit()
+    private void commit(boolean hard)
     {
         SolrInstance solrInstance = this.solrInstanceProvider.get();
 
-        try {
-            solrInstance.commit();
-        } catch (Exception e) {
-            this.logger.error("Failed to commit index changes to the Solr server. Rolling back.", e);
+        long start = System.currentTimeMillis();
+        boolean hardCommit =
+            hard || start - this.lastHardCommit >= this.configuration.getIndexerHardCommitInterval();
 
+        boolean committed = true;
+        if (hardCommit || !softCommit(solrInstance)) {
             try {
-                solrInstance.rollback();
-            } catch (Exception ex) {
-                // Just log the failure.
-                this.logger.error("Failed to rollback index changes.", ex);
+                solrInstance.commit();
+
+                this.lastHardCommit = start;
+                this.softCommitted = false;
+                this.uncommittedEntries.clear();
+            } catch (Exception e) {
+                committed = false;
+
+                this.logger.error("Failed to commit index changes to the Solr server. Rolling back.", e);
+
+                try {
+                    solrInstance.rollback();
+                } catch (Exception ex) {
+                    // Just log the failure.
+                    this.logger.error("Failed to rollback index changes.", ex);
+                }
+
+                // The rollback also discarded the changes which were only soft committed
+                this.softCommitted = false;
+                requeueUncommittedEntries();
+            }
+        }
+
+        // Only measure the commits which actually happened
+        if (committed) {
+            this.commitLatencies.update(System.currentTimeMillis() - start);
+            if (this.batchSize > 0) {
+                this.batchSizes.update(this.batchSize);
             }
         }
 
         this.batchSize = 0;
     }
 
+    /**
+     * Put back at the head of the queue the operations discarded by a rollback (including the ones which were only soft
+     * committed), in their original order so that they are not applied after more recent operations. Each operation is
+     * retried only once to not loop forever when the Solr server keeps failing.
+     */
+    private void requeueUncommittedEntries()
+    {
+        int requeued = 0;
+        int lost = 0;
+        for (ListIterator<IndexQueueEntry> it = this.uncommittedEntries.listIterator(this.uncommittedEntries.size());
+            it.hasPrevious();) {
+            IndexQueueEntry entry = it.previous();
+            if (!entry.requeued && this.indexQueue.offerFirst(entry)) {
+                entry.requeued = true;
+                ++requeued;
+            } else {
+                ++lost;
+            }
+        }
+        this.uncommittedEntries.clear();
+
+        if (requeued > 0) {
+            this.logger.warn("[{}] index operations discarded by the rollback were put back in the queue", requeued);
+        }
+        if (lost > 0) {
+            this.logger.error("[{}] index operations were lost because of the rollback", lost);
+        }
+    }
+
+    /**
+     * @param solrInstance the Solr instance
+     * @return {@code true} if the soft commit succeeded, {@code false} if a hard commit should be tried instead
+     */
+    private boolean softCommit(SolrInstance solrInstance)
+    {
+        try {
+            solrInstance.softCommit();
+
+            this.softCommitted = true;
+
+            return true;
+        } catch (Exception e) {
+            // Don't rollback right away since it would also discard the batches which were only soft committed since
+            // the last hard commit
+            this.logger.warn("Failed to soft commit index changes to the Solr server, trying a hard commit", e);
+
+            return false;
+        }
+    }
+
     /**
      * Check various constraints to know if the batch should be committed.
      * 
@@ -483,7 +732,13 @@ private boolean shouldCommit(int length, int size)
         }
 
         // If the size is above the configured maximum
-        return size >= this.configuration.getIndexerBatchSize();
+        if (size >= this.configuration.getIndexerBatchSize()) {
+            return true;
+        }
+
+        // If the oldest operation of the batch waited long enough
+        long maxDelay = this.configuration.getIndexerBatchMaxDelay();
+        return maxDelay > 0 && size > 0 && System.currentTimeMillis() - this.batchStart >= maxDelay;
     }
 
     /**
@@ -526,13 +781,19 @@ private SolrMetadataExtractor getMetadataExtractor(EntityType entityType)
     @Override
     public void index(EntityReference reference, boolean recurse)
     {
-        addToQueue(reference, recurse, IndexOperation.INDEX);
+        addToQueue(reference, recurse, IndexOperation.INDEX, null);
+    }
+
+    @Override
+    public void index(EntityReference reference, boolean recurse, Runnable callback)
+    {
+        addToQueue(reference, recurse, IndexOperation.INDEX, callback);
     }
 
     @Override
     public void delete(EntityReference reference, boolean recurse)
     {
-        addToQueue(reference, recurse, IndexOperation.DELETE);
+        addToQueue(reference, recurse, IndexOperation.DELETE, null);
     }
 
     /**
@@ -541,13 +802,15 @@ public void delete(EntityReference reference, boolean recurse)
      * @param reference the references to add
      * @param recurse also apply operation to children
      * @param operation the operation to assign to the given references
+     * @param callback called once the operation is committed, can be {@code null}
      */
-    private void addToQueue(EntityReference reference, boolean recurse, IndexOperation operation)
+    private void addToQueue(EntityReference reference, boolean recurse, IndexOperation operation,
+        Runnable callback)
     {
         if (!this.disposed) {
             // Don't block because the capacity of the resolver queue is not limited.
             try {
-                this.resolveQueue.put(new ResolveQueueEntry(reference, recurse, operation));
+                this.resolveQueue.put(new ResolveQueueEntry(reference, recurse, operation, callback));
             } catch (InterruptedException e) {
                 this.logger.error("Failed to add reference [{}] to Solr indexing queue", reference, e);
             }
@@ -560,6 +823,18 @@ public int getQueueSize()
         return this.indexQueue.size() + this.resolveQueue.size() + this.batchSize;
     }
 
+    @Override
+    public Histogram getCommitLatencies()
+    {
+        return this.commitLatencies;
+    }
+
+    @Override
+    public Histogram getBatchSizes()
+    {
+        return this.batchSizes;
+    }
+
     @Override
     public IndexerJob startIndex(IndexerRequest request) throws SolrIndexerException
     {
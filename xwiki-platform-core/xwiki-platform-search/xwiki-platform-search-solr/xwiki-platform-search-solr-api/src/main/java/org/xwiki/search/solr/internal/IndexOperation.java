@@ -42,5 +42,12 @@
     /**
      * Stop indexing thread.
      */
-    STOP
+    STOP,
+
+    /**
+     * Notify that the operations queued before were committed.
+     * 
+     * @since 12.0RC1
+     */
+    CALLBACK
 }
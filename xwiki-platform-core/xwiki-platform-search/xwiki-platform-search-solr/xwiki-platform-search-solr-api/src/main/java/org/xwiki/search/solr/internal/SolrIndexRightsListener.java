@@ -0,0 +1,149 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.search.solr.internal;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Provider;
+import javax.inject.Singleton;
+
+import org.apache.commons.lang3.StringUtils;
+import org.xwiki.bridge.event.DocumentCreatedEvent;
+import org.xwiki.bridge.event.DocumentUpdatedEvent;
+import org.xwiki.component.annotation.Component;
+import org.xwiki.model.EntityType;
+import org.xwiki.model.reference.DocumentReference;
+import org.xwiki.model.reference.EntityReference;
+import org.xwiki.model.reference.LocalDocumentReference;
+import org.xwiki.model.reference.WikiReference;
+import org.xwiki.observation.AbstractEventListener;
+import org.xwiki.observation.event.Event;
+import org.xwiki.security.authorization.event.RightUpdatedEvent;
+
+import com.xpn.xwiki.XWikiContext;
+import com.xpn.xwiki.doc.XWikiDocument;
+
+/**
+ * Update the view rights indexed with the entities located under a preferences document when its rights are modified,
+ * or with the entities of a wiki when its owner is modified. The rights set on a regular document are already updated
+ * when the document is indexed again by {@link SolrIndexEventListener}.
+ * 
+ * @version $Id$
+ * @since 12.0RC1
+ */
+@Component
+@Named(SolrIndexRightsListener.NAME)
+@Singleton
+public class SolrIndexRightsListener extends AbstractEventListener
+{
+    /**
+     * The name of this event listener.
+     */
+    public static final String NAME = "solr.rights";
+
+    private static final String XWIKI_SPACE = "XWiki";
+
+    private static final String SPACE_PREFERENCES = "WebPreferences";
+
+    private static final LocalDocumentReference WIKI_PREFERENCES =
+        new LocalDocumentReference(XWIKI_SPACE, "XWikiPreferences");
+
+    private static final String WIKI_DESCRIPTOR_PREFIX = "XWikiServer";
+
+    private static final LocalDocumentReference WIKI_DESCRIPTOR_CLASS =
+        new LocalDocumentReference(XWIKI_SPACE, "XWikiServerClass");
+
+    private static final String OWNER_FIELD = "owner";
+
+    @Inject
+    private ViewRightsReindexer reindexer;
+
+    @Inject
+    private Provider<XWikiContext> xcontextProvider;
+
+    /**
+     * Default constructor.
+     */
+    public SolrIndexRightsListener()
+    {
+        super(NAME,
+            Arrays.<Event>asList(new RightUpdatedEvent(), new DocumentCreatedEvent(), new DocumentUpdatedEvent()));
+    }
+
+    @Override
+    public void onEvent(Event event, Object source, Object data)
+    {
+        XWikiDocument document = (XWikiDocument) source;
+
+        if (event instanceof RightUpdatedEvent) {
+            onRightUpdated(document.getDocumentReference());
+        } else {
+            onDocumentModified(document);
+        }
+    }
+
+    private void onRightUpdated(DocumentReference documentReference)
+    {
+        if (WIKI_PREFERENCES.equals(documentReference.getLocalDocumentReference())) {
+            reindexWiki(documentReference.getWikiReference());
+        } else if (SPACE_PREFERENCES.equals(documentReference.getName())) {
+            this.reindexer.reindex(documentReference.extractReference(EntityType.SPACE));
+        }
+    }
+
+    private void onDocumentModified(XWikiDocument document)
+    {
+        DocumentReference documentReference = document.getDocumentReference();
+
+        // The owner of a wiki is stored in its descriptor document, located in the main wiki
+        if (documentReference.getName().startsWith(WIKI_DESCRIPTOR_PREFIX)
+            && XWIKI_SPACE.equals(documentReference.getLastSpaceReference().getName())
+            && documentReference.getLastSpaceReference().getParent().getType() == EntityType.WIKI
+            && this.xcontextProvider.get().isMainWiki(documentReference.getWikiReference().getName())) {
+            XWikiDocument originalDocument = document.getOriginalDocument();
+            String owner = document.getStringValue(WIKI_DESCRIPTOR_CLASS, OWNER_FIELD);
+            String previousOwner =
+                originalDocument != null ? originalDocument.getStringValue(WIKI_DESCRIPTOR_CLASS, OWNER_FIELD) : "";
+
+            if (!Objects.equals(owner, previousOwner)) {
+                // Same conversion as the wiki descriptor manager
+                String wikiId =
+                    StringUtils.removeStart(documentReference.getName(), WIKI_DESCRIPTOR_PREFIX).toLowerCase();
+                reindexWiki(new WikiReference(wikiId));
+            }
+        }
+    }
+
+    private void reindexWiki(WikiReference wikiReference)
+    {
+        EntityReference reference;
+        if (this.xcontextProvider.get().isMainWiki(wikiReference.getName())) {
+            // The rights of the main wiki apply to the whole farm
+            reference = null;
+        } else {
+            reference = wikiReference;
+        }
+
+        this.reindexer.reindex(reference);
+    }
+}
@@ -0,0 +1,70 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.search.solr.internal;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.inject.Inject;
+import javax.inject.Provider;
+import javax.inject.Singleton;
+
+import org.xwiki.component.annotation.Component;
+import org.xwiki.model.reference.EntityReference;
+import org.xwiki.search.solr.internal.api.SolrIndexer;
+
+/**
+ * Index again the view rights of the entities located under a reference and keep track of the ones not yet committed,
+ * during which the indexed view rights cannot be trusted.
+ * 
+ * @version $Id$
+ * @since 12.0RC1
+ */
+@Component(roles = ViewRightsReindexer.class)
+@Singleton
+public class ViewRightsReindexer
+{
+    /**
+     * Lazily initialize the {@link SolrIndexer} to not initialize it too early.
+     */
+    @Inject
+    private Provider<SolrIndexer> solrIndexer;
+
+    private final AtomicInteger pending = new AtomicInteger();
+
+    /**
+     * Index again the entities located under the passed reference.
+     * 
+     * @param reference the reference of the entity whose view rights changed, {@code null} for the whole farm
+     */
+    public void reindex(EntityReference reference)
+    {
+        this.pending.incrementAndGet();
+
+        this.solrIndexer.get().index(reference, true, this.pending::decrementAndGet);
+    }
+
+    /**
+     * @return {@code true} if some view rights changes are not yet indexed
+     */
+    public boolean isReindexPending()
+    {
+        return this.pending.get() > 0;
+    }
+}
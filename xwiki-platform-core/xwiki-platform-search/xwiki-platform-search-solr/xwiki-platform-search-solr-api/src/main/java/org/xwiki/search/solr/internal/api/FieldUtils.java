@@ -318,6 +318,29 @@
      */
     public static final String PROPERTY_VALUE = "propertyvalue";
 
+    /**
+     * The users and groups allowed to view the document (see {@code ViewRightsExtractor}), used to filter the results
+     * before they are scored and paged.
+     *
+     * @since 12.0RC1
+     */
+    public static final String VIEW_ALLOW = "viewallow_string";
+
+    /**
+     * The users and groups allowed to view the document because they administrate it, which means they can't be denied
+     * view right on it.
+     *
+     * @since 12.0RC1
+     */
+    public static final String VIEW_ADMIN = "viewadmin_string";
+
+    /**
+     * The users explicitly denied the view right on the document.
+     *
+     * @since 12.0RC1
+     */
+    public static final String VIEW_DENY = "viewdeny_string";
+
     /**
      * Underscore character, used to separate the field name from the suffix.
      */
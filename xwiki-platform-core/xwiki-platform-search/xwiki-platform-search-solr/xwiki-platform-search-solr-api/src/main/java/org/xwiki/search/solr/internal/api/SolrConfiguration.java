@@ -73,6 +73,25 @@
      */
     int getIndexerQueueCapacity();
 
+    /**
+     * @return the maximum time in milliseconds an indexed entity can wait in the current batch before the batch is sent
+     * @since 12.0RC1
+     */
+    default long getIndexerBatchMaxDelay()
+    {
+        return 0;
+    }
+
+    /**
+     * @return the minimum time in milliseconds between two hard commits, the batches sent in between are only soft
+     *         committed (i.e. visible to queries but not yet flushed to the disk); 0 or less to always hard commit
+     * @since 12.0RC1
+     */
+    default long getIndexerHardCommitInterval()
+    {
+        return 0;
+    }
+
     /**
      * @return true if a full synchronization job between the database and SOLR index should be run when XWiki starts
      * @since 6.1M2
@@ -20,6 +20,7 @@
 package org.xwiki.search.solr.internal.api;
 
 import org.xwiki.component.annotation.Role;
+import org.xwiki.metrics.Histogram;
 import org.xwiki.model.reference.EntityReference;
 import org.xwiki.search.solr.internal.job.IndexerJob;
 import org.xwiki.search.solr.internal.job.IndexerRequest;
@@ -45,6 +46,19 @@
      */
     void index(EntityReference reference, boolean recurse);
 
+    /**
+     * Add an entity to the queue of entities to index and call the passed callback once the resulting index changes
+     * are committed.
+     * <p>
+     * Null reference means the whole farm.
+     * 
+     * @param reference the entity's reference.
+     * @param recurse indicate if children entities should be indexed too
+     * @param callback called from the indexing thread once the entities are indexed
+     * @since 12.0RC1
+     */
+    void index(EntityReference reference, boolean recurse, Runnable callback);
+
     /**
      * Add an entity to the queue of entities to delete.
      * <p>
@@ -60,6 +74,24 @@
      */
     int getQueueSize();
 
+    /**
+     * @return the time it took to commit the batches of operations, in milliseconds
+     * @since 12.0RC1
+     */
+    default Histogram getCommitLatencies()
+    {
+        return new Histogram();
+    }
+
+    /**
+     * @return the number of operations in each committed batch
+     * @since 12.0RC1
+     */
+    default Histogram getBatchSizes()
+    {
+        return new Histogram();
+    }
+
     /**
      * Start an indexing with specific criteria.
      * 
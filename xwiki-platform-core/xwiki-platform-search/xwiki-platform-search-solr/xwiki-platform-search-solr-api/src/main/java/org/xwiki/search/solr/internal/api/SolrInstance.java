@@ -117,6 +117,19 @@ public interface SolrInstance extends Initializable
      */
     void commit() throws SolrServerException, IOException;
 
+    /**
+     * Make the recent (uncommitted) changes visible to queries without waiting for them to be flushed to the disk. A
+     * {@link #commit()} is still needed to make them durable.
+     * 
+     * @throws SolrServerException if problems occur.
+     * @throws IOException if problems occur.
+     * @since 12.0RC1
+     */
+    default void softCommit() throws SolrServerException, IOException
+    {
+        commit();
+    }
+
     /**
      * Cancel the local uncommitted changes that were not yet pushed to the Solr server.
      * 
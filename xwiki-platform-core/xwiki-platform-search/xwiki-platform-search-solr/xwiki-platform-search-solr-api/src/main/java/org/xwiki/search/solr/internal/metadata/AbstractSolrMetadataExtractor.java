@@ -32,6 +32,7 @@
 import javax.inject.Named;
 import javax.inject.Provider;
 
+import org.apache.commons.lang3.exception.ExceptionUtils;
 import org.apache.solr.common.SolrInputDocument;
 import org.apache.tika.metadata.Metadata;
 import org.apache.tika.metadata.TikaMetadataKeys;
@@ -108,6 +109,12 @@ public abstract class AbstractSolrMetadataExtractor implements SolrMetadataExtra
     @Inject
     protected Provider<XWikiContext> xcontextProvider;
 
+    /**
+     * Used to index the users and groups allowed to view the document.
+     */
+    @Inject
+    protected ViewRightsExtractor viewRightsExtractor;
+
     /**
      * Used to find the resolver.
      */
@@ -241,6 +248,15 @@ protected boolean setDocumentFields(DocumentReference documentReference, SolrInp
         // Set the fields that are used to query / filter the document hierarchy.
         setHierarchyFields(solrDocument, documentReference.getParent());
 
+        // Set the fields that are used to filter the results the current user is not allowed to view.
+        try {
+            this.viewRightsExtractor.setViewRightsFields(originalDocument, solrDocument);
+        } catch (Exception e) {
+            // The results are filtered again after the query so it's not critical
+            this.logger.warn("Failed to index the view rights of document [{}]: {}", documentReference,
+                ExceptionUtils.getRootCauseMessage(e));
+        }
+
         Locale locale = getLocale(documentReference);
         solrDocument.setField(FieldUtils.LOCALE, locale.toString());
         solrDocument.setField(FieldUtils.LANGUAGE, locale.getLanguage());
@@ -0,0 +1,314 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.search.solr.internal.metadata;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Provider;
+import javax.inject.Singleton;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.solr.common.SolrInputDocument;
+import org.xwiki.component.annotation.Component;
+import org.xwiki.model.EntityType;
+import org.xwiki.model.reference.DocumentReference;
+import org.xwiki.model.reference.DocumentReferenceResolver;
+import org.xwiki.model.reference.EntityReference;
+import org.xwiki.model.reference.EntityReferenceSerializer;
+import org.xwiki.model.reference.LocalDocumentReference;
+import org.xwiki.model.reference.WikiReference;
+import org.xwiki.search.solr.internal.api.FieldUtils;
+import org.xwiki.security.authorization.Right;
+
+import com.xpn.xwiki.XWikiContext;
+import com.xpn.xwiki.XWikiException;
+import com.xpn.xwiki.doc.XWikiDocument;
+import com.xpn.xwiki.objects.BaseObject;
+import com.xpn.xwiki.objects.classes.GroupsClass;
+import com.xpn.xwiki.objects.classes.LevelsClass;
+import com.xpn.xwiki.objects.classes.UsersClass;
+
+/**
+ * Extract from the rights objects the users and groups which may view a document and index them as tokens so that the
+ * search results can be filtered by Solr before they are scored and paged.
+ * <p>
+ * The indexed tokens are a superset of the users and groups actually allowed to view the document (the security
+ * module is a lot more subtle than that, for example with the tie resolution between users and groups), so the results
+ * still have to be checked against the authorization manager. The goal is only to exclude most of the unauthorized
+ * results early.
+ *
+ * @version $Id$
+ * @since 12.0RC1
+ */
+@Component(roles = ViewRightsExtractor.class)
+@Singleton
+public class ViewRightsExtractor
+{
+    /**
+     * The token matching everyone.
+     */
+    public static final String ALL_TOKEN = "*";
+
+    /**
+     * The token matching the guest user.
+     */
+    public static final String GUEST_TOKEN = "guest";
+
+    private static final String USER_PREFIX = "u:";
+
+    private static final String GROUP_PREFIX = "g:";
+
+    private static final String XWIKI_SPACE = "XWiki";
+
+    private static final String GUEST_USER = "XWikiGuest";
+
+    private static final LocalDocumentReference RIGHTS_CLASS = new LocalDocumentReference(XWIKI_SPACE, "XWikiRights");
+
+    private static final LocalDocumentReference GLOBAL_RIGHTS_CLASS =
+        new LocalDocumentReference(XWIKI_SPACE, "XWikiGlobalRights");
+
+    private static final LocalDocumentReference WIKI_PREFERENCES =
+        new LocalDocumentReference(XWIKI_SPACE, "XWikiPreferences");
+
+    private static final String SPACE_PREFERENCES = "WebPreferences";
+
+    private static final String ALLOW_FIELD = "allow";
+
+    private static final String LEVELS_FIELD = "levels";
+
+    private static final String USERS_FIELD = "users";
+
+    private static final String GROUPS_FIELD = "groups";
+
+    /**
+     * The tokens found in the rights objects of one level of the entity hierarchy.
+     */
+    private static final class Level
+    {
+        private final Set<String> viewAllow = new LinkedHashSet<>();
+
+        private final Set<String> adminAllow = new LinkedHashSet<>();
+
+        private final Set<String> viewDeny = new LinkedHashSet<>();
+
+        /**
+         * Indicate if an explicit view right is allowed at this level, which means it's denied to everyone else.
+         */
+        private boolean viewRestricted;
+
+        /**
+         * Indicate if groups are allowed to view at this level, in which case the denied users might be allowed
+         * through one of their groups.
+         */
+        private boolean groupAllowed;
+    }
+
+    @Inject
+    private Provider<XWikiContext> xcontextProvider;
+
+    @Inject
+    @Named("user")
+    private DocumentReferenceResolver<String> userResolver;
+
+    @Inject
+    private EntityReferenceSerializer<String> serializer;
+
+    /**
+     * @param user the user reference or {@code null} for the guest user
+     * @return the token associated to the passed user
+     */
+    public String getUserToken(DocumentReference user)
+    {
+        if (user == null || GUEST_USER.equals(user.getName())) {
+            return GUEST_TOKEN;
+        }
+
+        return USER_PREFIX + this.serializer.serialize(user);
+    }
+
+    /**
+     * @param group the group reference
+     * @return the token associated to the passed group
+     */
+    public String getGroupToken(DocumentReference group)
+    {
+        return GROUP_PREFIX + this.serializer.serialize(group);
+    }
+
+    /**
+     * Set the view right fields of the passed Solr document.
+     *
+     * @param document the document from which to extract the rights
+     * @param solrDocument the Solr document to update
+     * @throws XWikiException when failing to load the preferences documents
+     */
+    public void setViewRightsFields(XWikiDocument document, SolrInputDocument solrDocument) throws XWikiException
+    {
+        XWikiContext xcontext = this.xcontextProvider.get();
+
+        List<Level> levels = getLevels(document, xcontext);
+
+        Set<String> allow = new LinkedHashSet<>();
+        Set<String> admin = new LinkedHashSet<>();
+
+        boolean restricted = false;
+        for (Level level : levels) {
+            // Administrators can view everything, whatever the rights set at lower levels
+            admin.addAll(level.adminAllow);
+
+            if (!restricted) {
+                allow.addAll(level.viewAllow);
+                // The nearest level with an explicit view right decides for everyone else
+                restricted = level.viewRestricted;
+            }
+        }
+
+        if (!restricted) {
+            allow.add(ALL_TOKEN);
+        }
+        allow.addAll(admin);
+
+        // Only keep the denied users who can't be allowed at the document level through one of their groups
+        Level documentLevel = levels.get(0);
+        if (!documentLevel.groupAllowed) {
+            documentLevel.viewDeny.removeAll(documentLevel.viewAllow);
+            solrDocument.setField(FieldUtils.VIEW_DENY, documentLevel.viewDeny);
+        }
+
+        solrDocument.setField(FieldUtils.VIEW_ALLOW, allow);
+        solrDocument.setField(FieldUtils.VIEW_ADMIN, admin);
+    }
+
+    private List<Level> getLevels(XWikiDocument document, XWikiContext xcontext) throws XWikiException
+    {
+        List<Level> levels = new ArrayList<>();
+
+        DocumentReference documentReference = document.getDocumentReference();
+        WikiReference wikiReference = documentReference.getWikiReference();
+
+        // Document
+        levels.add(getLevel(document.getXObjects(RIGHTS_CLASS), wikiReference));
+
+        // Spaces, from the nearest to the farthest
+        for (EntityReference space = documentReference.getParent(); space != null
+            && space.getType() == EntityType.SPACE; space = space.getParent()) {
+            XWikiDocument preferences =
+                xcontext.getWiki().getDocument(new DocumentReference(SPACE_PREFERENCES, space), xcontext);
+            levels.add(getLevel(preferences.getXObjects(GLOBAL_RIGHTS_CLASS), wikiReference));
+        }
+
+        // Wiki
+        Level wikiLevel = getWikiLevel(wikiReference, xcontext);
+        levels.add(wikiLevel);
+
+        // Farm
+        if (!xcontext.isMainWiki(wikiReference.getName())) {
+            levels.add(getWikiLevel(new WikiReference(xcontext.getMainXWiki()), xcontext));
+        }
+
+        return levels;
+    }
+
+    private Level getWikiLevel(WikiReference wikiReference, XWikiContext xcontext) throws XWikiException
+    {
+        XWikiDocument preferences =
+            xcontext.getWiki().getDocument(new DocumentReference(WIKI_PREFERENCES, wikiReference), xcontext);
+        Level level = getLevel(preferences.getXObjects(GLOBAL_RIGHTS_CLASS), wikiReference);
+
+        // The owner of the wiki is always an administrator of it
+        String owner = xcontext.getWiki().getWikiOwner(wikiReference.getName(), xcontext);
+        if (StringUtils.isNotEmpty(owner)) {
+            level.adminAllow.add(getUserToken(this.userResolver.resolve(owner, wikiReference)));
+        }
+
+        return level;
+    }
+
+    private Level getLevel(Collection<BaseObject> rightObjects, WikiReference wikiReference)
+    {
+        Level level = new Level();
+
+        for (BaseObject rightObject : rightObjects) {
+            if (rightObject != null) {
+                addRightObject(rightObject, wikiReference, level);
+            }
+        }
+
+        return level;
+    }
+
+    private void addRightObject(BaseObject rightObject, WikiReference wikiReference, Level level)
+    {
+        boolean allow = rightObject.getIntValue(ALLOW_FIELD) == 1;
+
+        boolean view = false;
+        boolean admin = false;
+        for (String levelName : LevelsClass.getListFromString(rightObject.getStringValue(LEVELS_FIELD))) {
+            Right right = Right.toRight(levelName);
+            if (right == Right.VIEW) {
+                view = true;
+            } else if (right == Right.ADMIN || right == Right.PROGRAM) {
+                admin = true;
+            } else if (allow && right.getImpliedRights() != null && right.getImpliedRights().contains(Right.VIEW)) {
+                // A right implying view allow to view but does not restrict view to the listed users and groups
+                view = true;
+            }
+        }
+
+        if (!view && !admin) {
+            return;
+        }
+
+        Set<String> tokens = new LinkedHashSet<>();
+        for (String user : UsersClass.getListFromString(rightObject.getStringValue(USERS_FIELD))) {
+            tokens.add(getUserToken(this.userResolver.resolve(user, wikiReference)));
+        }
+        Set<String> userTokens = new LinkedHashSet<>(tokens);
+        List<String> groups = GroupsClass.getListFromString(rightObject.getStringValue(GROUPS_FIELD));
+        for (String group : groups) {
+            tokens.add(getGroupToken(this.userResolver.resolve(group, wikiReference)));
+        }
+
+        if (allow) {
+            level.viewAllow.addAll(tokens);
+            level.groupAllowed |= !groups.isEmpty();
+            if (admin) {
+                level.adminAllow.addAll(tokens);
+            }
+            if (isExplicitView(rightObject)) {
+                level.viewRestricted = true;
+            }
+        } else if (isExplicitView(rightObject)) {
+            level.viewDeny.addAll(userTokens);
+        }
+    }
+
+    private boolean isExplicitView(BaseObject rightObject)
+    {
+        return LevelsClass.getListFromString(rightObject.getStringValue(LEVELS_FIELD)).stream()
+            .anyMatch(levelName -> Right.toRight(levelName) == Right.VIEW);
+    }
+}
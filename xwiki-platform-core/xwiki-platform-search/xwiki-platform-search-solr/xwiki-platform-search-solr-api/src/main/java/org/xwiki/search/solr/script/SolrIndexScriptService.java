@@ -21,6 +21,7 @@
 
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import javax.inject.Inject;
@@ -41,6 +42,7 @@
 import org.xwiki.search.solr.internal.api.SolrIndexer;
 import org.xwiki.security.authorization.AuthorizationManager;
 import org.xwiki.security.authorization.Right;
+import org.xwiki.stability.Unstable;
 
 import com.xpn.xwiki.XWikiContext;
 
@@ -190,6 +192,26 @@ public int getQueueSize()
         return this.solrIndexer.getQueueSize();
     }
 
+    /**
+     * @return the number of batch commits for each latency bucket, indexed by the bucket upper bound in milliseconds
+     * @since 12.0RC1
+     */
+    @Unstable
+    public Map<Long, Long> getCommitLatencies()
+    {
+        return this.solrIndexer.getCommitLatencies().getBuckets();
+    }
+
+    /**
+     * @return the number of committed batches for each size bucket, indexed by the bucket upper bound
+     * @since 12.0RC1
+     */
+    @Unstable
+    public Map<Long, Long> getBatchSizes()
+    {
+        return this.solrIndexer.getBatchSizes().getBuckets();
+    }
+
     /**
      * Extract a {@link DocumentReference} from the given {@link SolrDocument} (e.g. search result).
      * 
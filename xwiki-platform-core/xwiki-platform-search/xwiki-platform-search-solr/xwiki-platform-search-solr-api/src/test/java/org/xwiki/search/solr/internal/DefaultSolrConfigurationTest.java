@@ -84,6 +84,24 @@ public void getIndexerQueueCapacity()
 
     }
 
+    @Test
+    public void getIndexerBatchMaxDelay()
+    {
+        when(this.source.getProperty(DefaultSolrConfiguration.SOLR_INDEXER_BATCH_MAXDELAY_PROPERTY,
+            DefaultSolrConfiguration.SOLR_INDEXER_BATCH_MAXDELAY_DEFAULT)).thenReturn(42L);
+
+        assertEquals(42L, this.configuration.getIndexerBatchMaxDelay());
+    }
+
+    @Test
+    public void getIndexerHardCommitInterval()
+    {
+        when(this.source.getProperty(DefaultSolrConfiguration.SOLR_INDEXER_HARDCOMMIT_INTERVAL_PROPERTY,
+            DefaultSolrConfiguration.SOLR_INDEXER_HARDCOMMIT_INTERVAL_DEFAULT)).thenReturn(42L);
+
+        assertEquals(42L, this.configuration.getIndexerHardCommitInterval());
+    }
+
     @Test
     public void synchronizeAtStartup()
     {
@@ -0,0 +1,242 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.search.solr.internal;
+
+import javax.inject.Named;
+import javax.inject.Provider;
+
+import org.apache.solr.client.solrj.SolrServerException;
+import org.apache.solr.common.SolrInputDocument;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.xwiki.context.Execution;
+import org.xwiki.context.ExecutionContextManager;
+import org.xwiki.model.reference.DocumentReference;
+import org.xwiki.search.solr.internal.api.SolrConfiguration;
+import org.xwiki.search.solr.internal.api.SolrInstance;
+import org.xwiki.search.solr.internal.metadata.LengthSolrInputDocument;
+import org.xwiki.search.solr.internal.metadata.SolrMetadataExtractor;
+import org.xwiki.search.solr.internal.reference.SolrReferenceResolver;
+import org.xwiki.test.annotation.BeforeComponent;
+import org.xwiki.test.junit5.mockito.ComponentTest;
+import org.xwiki.test.junit5.mockito.InjectMockComponents;
+import org.xwiki.test.junit5.mockito.MockComponent;
+import org.xwiki.test.mockito.MockitoComponentManager;
+
+import com.xpn.xwiki.web.Utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Validate {@link DefaultSolrIndexer}.
+ * 
+ * @version $Id$
+ */
+@ComponentTest
+public class DefaultSolrIndexerTest
+{
+    private static final DocumentReference DOCUMENT1 = new DocumentReference("wiki", "space", "page1");
+
+    private static final DocumentReference DOCUMENT2 = new DocumentReference("wiki", "space", "page2");
+
+    /**
+     * The maximum time to wait for the index thread, in milliseconds.
+     */
+    private static final int TIMEOUT = 10000;
+
+    @MockComponent
+    private SolrConfiguration configuration;
+
+    @MockComponent
+    private Provider<SolrInstance> solrInstanceProvider;
+
+    @MockComponent
+    private SolrReferenceResolver solrReferenceResolver;
+
+    @MockComponent
+    private Execution execution;
+
+    @MockComponent
+    private ExecutionContextManager ecim;
+
+    @MockComponent
+    @Named("document")
+    private SolrMetadataExtractor extractor;
+
+    @InjectMockComponents
+    private DefaultSolrIndexer indexer;
+
+    private SolrInstance solr = mock(SolrInstance.class);
+
+    @BeforeComponent
+    public void registerComponents(MockitoComponentManager componentManager) throws Exception
+    {
+        // Used by the resolver thread to initialize its execution context
+        Utils.setComponentManager(componentManager);
+
+        when(this.configuration.getIndexerQueueCapacity()).thenReturn(100);
+        when(this.configuration.getIndexerBatchSize()).thenReturn(100);
+        when(this.configuration.getIndexerBatchMaxLengh()).thenReturn(10000);
+        when(this.configuration.getIndexerHardCommitInterval()).thenReturn(3600000L);
+
+        when(this.solrInstanceProvider.get()).thenReturn(this.solr);
+
+        when(this.extractor.getSolrDocument(any())).thenAnswer(invocation -> new LengthSolrInputDocument());
+    }
+
+    @AfterEach
+    public void afterEach() throws Exception
+    {
+        this.indexer.dispose();
+    }
+
+    @Test
+    public void commitFullBatch() throws Exception
+    {
+        when(this.configuration.getIndexerBatchSize()).thenReturn(2);
+        // Make sure the batch is not sent because of its delay
+        when(this.configuration.getIndexerBatchMaxDelay()).thenReturn(60000L);
+
+        this.indexer.index(DOCUMENT1, false);
+        this.indexer.index(DOCUMENT2, false);
+
+        // The two operations are sent in the same batch, as soon as it's full
+        verify(this.solr, timeout(TIMEOUT)).softCommit();
+        verify(this.solr, times(2)).add(any(SolrInputDocument.class));
+        verify(this.solr, never()).commit();
+    }
+
+    @Test
+    public void commitBatchAfterMaxDelay() throws Exception
+    {
+        when(this.configuration.getIndexerBatchMaxDelay()).thenReturn(100L);
+
+        this.indexer.index(DOCUMENT1, false);
+
+        // The batch is not full but the operation waited long enough
+        verify(this.solr, timeout(TIMEOUT)).softCommit();
+        verify(this.solr).add(any(SolrInputDocument.class));
+        verify(this.solr, never()).commit();
+    }
+
+    @Test
+    public void hardCommitAfterInterval() throws Exception
+    {
+        when(this.configuration.getIndexerHardCommitInterval()).thenReturn(2000L);
+
+        this.indexer.index(DOCUMENT1, false);
+
+        // The batch is first only made visible, then made durable once the hard commit interval elapsed (even if
+        // nothing else is indexed in the meantime)
+        InOrder inOrder = inOrder(this.solr);
+        inOrder.verify(this.solr, timeout(TIMEOUT)).softCommit();
+        inOrder.verify(this.solr, timeout(TIMEOUT)).commit();
+    }
+
+    @Test
+    public void hardCommitOnStop() throws Exception
+    {
+        this.indexer.index(DOCUMENT1, false);
+
+        verify(this.solr, timeout(TIMEOUT)).softCommit();
+        verify(this.solr, never()).commit();
+
+        this.indexer.dispose();
+
+        // The changes which were only soft committed are made durable before the index thread is stopped
+        verify(this.solr, timeout(TIMEOUT)).commit();
+    }
+
+    @Test
+    public void callbackAfterCommit() throws Exception
+    {
+        Runnable callback = mock(Runnable.class);
+
+        this.indexer.index(DOCUMENT1, false, callback);
+
+        // The callback is called once the operation is visible
+        InOrder inOrder = inOrder(this.solr, callback);
+        inOrder.verify(this.solr, timeout(TIMEOUT)).softCommit();
+        inOrder.verify(callback, timeout(TIMEOUT)).run();
+    }
+
+    @Test
+    public void hardCommitWhenSoftCommitFails() throws Exception
+    {
+        doThrow(new SolrServerException("soft commit failed")).when(this.solr).softCommit();
+
+        this.indexer.index(DOCUMENT1, false);
+
+        // Rolling back would also discard the batches which were only soft committed
+        verify(this.solr, timeout(TIMEOUT)).commit();
+        verify(this.solr, never()).rollback();
+    }
+
+    @Test
+    public void rollbackWhenHardCommitFails() throws Exception
+    {
+        doThrow(new SolrServerException("soft commit failed")).when(this.solr).softCommit();
+        doThrow(new SolrServerException("commit failed")).when(this.solr).commit();
+
+        this.indexer.index(DOCUMENT1, false);
+
+        // The operation is retried once, then lost
+        verify(this.solr, timeout(TIMEOUT).times(2)).rollback();
+        verify(this.solr, times(2)).add(any(SolrInputDocument.class));
+
+        // Failed commits are not measured
+        assertEquals(0, this.indexer.getCommitLatencies().getCount());
+    }
+
+    @Test
+    public void requeueSoftCommittedOperationsOnRollback() throws Exception
+    {
+        when(this.configuration.getIndexerBatchSize()).thenReturn(1);
+        doThrow(new SolrServerException("commit failed")).doNothing().when(this.solr).commit();
+
+        this.indexer.index(DOCUMENT1, false);
+
+        verify(this.solr, timeout(TIMEOUT)).softCommit();
+
+        // The hard commit of the second batch fails and also discards the first one which was only soft committed
+        when(this.configuration.getIndexerHardCommitInterval()).thenReturn(0L);
+        this.indexer.index(DOCUMENT2, false);
+
+        verify(this.solr, timeout(TIMEOUT)).rollback();
+
+        // Both operations are sent again, in their original order, and committed (one hard commit each)
+        verify(this.solr, timeout(TIMEOUT).atLeast(3)).commit();
+        InOrder inOrder = inOrder(this.extractor);
+        inOrder.verify(this.extractor).getSolrDocument(DOCUMENT1);
+        inOrder.verify(this.extractor).getSolrDocument(DOCUMENT2);
+        inOrder.verify(this.extractor).getSolrDocument(DOCUMENT1);
+        inOrder.verify(this.extractor).getSolrDocument(DOCUMENT2);
+    }
+}
@@ -0,0 +1,138 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.search.solr.internal;
+
+import javax.inject.Provider;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.xwiki.bridge.event.DocumentUpdatedEvent;
+import org.xwiki.model.reference.DocumentReference;
+import org.xwiki.model.reference.LocalDocumentReference;
+import org.xwiki.model.reference.SpaceReference;
+import org.xwiki.model.reference.WikiReference;
+import org.xwiki.security.authorization.event.RightUpdatedEvent;
+import org.xwiki.test.junit5.mockito.ComponentTest;
+import org.xwiki.test.junit5.mockito.InjectMockComponents;
+import org.xwiki.test.junit5.mockito.MockComponent;
+
+import com.xpn.xwiki.XWikiContext;
+import com.xpn.xwiki.doc.XWikiDocument;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Validate {@link SolrIndexRightsListener}.
+ * 
+ * @version $Id$
+ */
+@ComponentTest
+public class SolrIndexRightsListenerTest
+{
+    private static final LocalDocumentReference SERVER_CLASS = new LocalDocumentReference("XWiki", "XWikiServerClass");
+
+    @InjectMockComponents
+    private SolrIndexRightsListener listener;
+
+    @MockComponent
+    private ViewRightsReindexer reindexer;
+
+    @MockComponent
+    private Provider<XWikiContext> xcontextProvider;
+
+    private XWikiContext xcontext = mock(XWikiContext.class);
+
+    @BeforeEach
+    public void configure()
+    {
+        when(this.xcontextProvider.get()).thenReturn(this.xcontext);
+        when(this.xcontext.isMainWiki("xwiki")).thenReturn(true);
+    }
+
+    private XWikiDocument mockDocument(DocumentReference reference)
+    {
+        XWikiDocument document = mock(XWikiDocument.class);
+        when(document.getDocumentReference()).thenReturn(reference);
+
+        return document;
+    }
+
+    private XWikiDocument mockDescriptor(String wiki, String owner, String previousOwner)
+    {
+        XWikiDocument document = mockDocument(new DocumentReference("xwiki", "XWiki", "XWikiServer" + wiki));
+        when(document.getStringValue(SERVER_CLASS, "owner")).thenReturn(owner);
+        XWikiDocument originalDocument = mock(XWikiDocument.class);
+        when(originalDocument.getStringValue(SERVER_CLASS, "owner")).thenReturn(previousOwner);
+        when(document.getOriginalDocument()).thenReturn(originalDocument);
+
+        return document;
+    }
+
+    @Test
+    public void onRightUpdated()
+    {
+        this.listener.onEvent(new RightUpdatedEvent(),
+            mockDocument(new DocumentReference("wiki", "Space", "WebPreferences")), null);
+
+        verify(this.reindexer).reindex(new SpaceReference("wiki", "Space"));
+
+        this.listener.onEvent(new RightUpdatedEvent(),
+            mockDocument(new DocumentReference("wiki", "XWiki", "XWikiPreferences")), null);
+
+        verify(this.reindexer).reindex(new WikiReference("wiki"));
+
+        // The rights of the main wiki apply to the whole farm
+        this.listener.onEvent(new RightUpdatedEvent(),
+            mockDocument(new DocumentReference("xwiki", "XWiki", "XWikiPreferences")), null);
+
+        verify(this.reindexer).reindex(null);
+    }
+
+    @Test
+    public void onWikiOwnerUpdated()
+    {
+        this.listener.onEvent(new DocumentUpdatedEvent(), mockDescriptor("Wiki", "XWiki.Alice", "XWiki.Bob"), null);
+
+        verify(this.reindexer).reindex(new WikiReference("wiki"));
+    }
+
+    @Test
+    public void onWikiDescriptorUpdatedWithSameOwner()
+    {
+        this.listener.onEvent(new DocumentUpdatedEvent(), mockDescriptor("Wiki", "XWiki.Alice", "XWiki.Alice"), null);
+
+        verify(this.reindexer, never()).reindex(any());
+    }
+
+    @Test
+    public void onDocumentUpdated()
+    {
+        this.listener.onEvent(new DocumentUpdatedEvent(),
+            mockDocument(new DocumentReference("wiki", "XWiki", "XWikiServerWiki")), null);
+        this.listener.onEvent(new DocumentUpdatedEvent(),
+            mockDocument(new DocumentReference("xwiki", "Space", "Page")), null);
+
+        verify(this.reindexer, never()).reindex(any());
+    }
+}
@@ -0,0 +1,168 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.search.solr.internal.metadata;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+
+import javax.inject.Named;
+import javax.inject.Provider;
+
+import org.apache.solr.common.SolrInputDocument;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.xwiki.model.reference.DocumentReference;
+import org.xwiki.model.reference.DocumentReferenceResolver;
+import org.xwiki.model.reference.EntityReference;
+import org.xwiki.model.reference.EntityReferenceSerializer;
+import org.xwiki.model.reference.WikiReference;
+import org.xwiki.search.solr.internal.api.FieldUtils;
+import org.xwiki.test.junit5.mockito.ComponentTest;
+import org.xwiki.test.junit5.mockito.InjectMockComponents;
+import org.xwiki.test.junit5.mockito.MockComponent;
+
+import com.xpn.xwiki.XWiki;
+import com.xpn.xwiki.XWikiContext;
+import com.xpn.xwiki.doc.XWikiDocument;
+import com.xpn.xwiki.objects.BaseObject;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Validate {@link ViewRightsExtractor}.
+ * 
+ * @version $Id$
+ */
+@ComponentTest
+public class ViewRightsExtractorTest
+{
+    @InjectMockComponents
+    private ViewRightsExtractor extractor;
+
+    @MockComponent
+    private Provider<XWikiContext> xcontextProvider;
+
+    @MockComponent
+    @Named("user")
+    private DocumentReferenceResolver<String> userResolver;
+
+    @MockComponent
+    private EntityReferenceSerializer<String> serializer;
+
+    private XWikiContext xcontext = mock(XWikiContext.class);
+
+    private XWiki xwiki = mock(XWiki.class);
+
+    private XWikiDocument document = mock(XWikiDocument.class);
+
+    private XWikiDocument spacePreferences = mock(XWikiDocument.class);
+
+    private XWikiDocument wikiPreferences = mock(XWikiDocument.class);
+
+    private XWikiDocument mainWikiPreferences = mock(XWikiDocument.class);
+
+    @BeforeEach
+    public void configure() throws Exception
+    {
+        when(this.xcontextProvider.get()).thenReturn(this.xcontext);
+        when(this.xcontext.getWiki()).thenReturn(this.xwiki);
+        when(this.xcontext.getMainXWiki()).thenReturn("xwiki");
+        when(this.xcontext.isMainWiki("xwiki")).thenReturn(true);
+
+        when(this.userResolver.resolve(any(String.class), any(WikiReference.class))).then(invocation -> {
+            String name = invocation.getArgument(0);
+            WikiReference wiki = invocation.getArgument(1);
+            return new DocumentReference(wiki.getName(), "XWiki", name.substring(name.indexOf('.') + 1));
+        });
+        when(this.serializer.serialize(any(EntityReference.class))).then(invocation -> invocation.getArgument(0)
+            .toString());
+
+        DocumentReference documentReference = new DocumentReference("wiki", "Space", "Page");
+        when(this.document.getDocumentReference()).thenReturn(documentReference);
+        when(this.xwiki.getDocument(new DocumentReference("wiki", "Space", "WebPreferences"), this.xcontext))
+            .thenReturn(this.spacePreferences);
+        when(this.xwiki.getDocument(new DocumentReference("wiki", "XWiki", "XWikiPreferences"), this.xcontext))
+            .thenReturn(this.wikiPreferences);
+        when(this.xwiki.getDocument(new DocumentReference("xwiki", "XWiki", "XWikiPreferences"), this.xcontext))
+            .thenReturn(this.mainWikiPreferences);
+        when(this.xwiki.getWikiOwner("wiki", this.xcontext)).thenReturn("XWiki.Owner");
+
+        when(this.wikiPreferences.getXObjects(any(EntityReference.class))).thenReturn(
+            Arrays.asList(createRightObject(true, "admin", "", "XWiki.XWikiAdminGroup")));
+    }
+
+    private BaseObject createRightObject(boolean allow, String levels, String users, String groups)
+    {
+        BaseObject rightObject = new BaseObject();
+        rightObject.setIntValue("allow", allow ? 1 : 0);
+        rightObject.setStringValue("levels", levels);
+        rightObject.setStringValue("users", users);
+        rightObject.setStringValue("groups", groups);
+
+        return rightObject;
+    }
+
+    @Test
+    public void setViewRightsFieldsWithoutViewRight() throws Exception
+    {
+        when(this.document.getXObjects(any(EntityReference.class))).thenReturn(
+            Arrays.asList(createRightObject(false, "view", "XWiki.XWikiGuest", "")));
+
+        SolrInputDocument solrDocument = new SolrInputDocument();
+        this.extractor.setViewRightsFields(this.document, solrDocument);
+
+        assertEquals(Arrays.asList("g:wiki:XWiki.XWikiAdminGroup", "u:wiki:XWiki.Owner"),
+            new ArrayList<>(solrDocument.getFieldValues(FieldUtils.VIEW_ADMIN)));
+        assertEquals(Arrays.asList("*", "g:wiki:XWiki.XWikiAdminGroup", "u:wiki:XWiki.Owner"),
+            new ArrayList<>(solrDocument.getFieldValues(FieldUtils.VIEW_ALLOW)));
+        assertEquals(Arrays.asList("guest"), new ArrayList<>(solrDocument.getFieldValues(FieldUtils.VIEW_DENY)));
+    }
+
+    @Test
+    public void setViewRightsFieldsWithViewRight() throws Exception
+    {
+        when(this.document.getXObjects(any(EntityReference.class))).thenReturn(
+            Arrays.asList(createRightObject(true, "edit", "XWiki.Editor", "")));
+        when(this.spacePreferences.getXObjects(any(EntityReference.class))).thenReturn(
+            Arrays.asList(createRightObject(true, "view", "XWiki.Viewer", "XWiki.Viewers"),
+                createRightObject(false, "view", "XWiki.Denied", "")));
+        // Only the administrators are taken into account after the first level restricting the view right
+        when(this.mainWikiPreferences.getXObjects(any(EntityReference.class))).thenReturn(
+            Arrays.asList(createRightObject(true, "view", "XWiki.MainViewer", ""),
+                createRightObject(true, "programming", "XWiki.Programmer", "")));
+
+        SolrInputDocument solrDocument = new SolrInputDocument();
+        this.extractor.setViewRightsFields(this.document, solrDocument);
+
+        assertEquals(Arrays.asList("g:wiki:XWiki.XWikiAdminGroup", "u:wiki:XWiki.Owner", "u:xwiki:XWiki.Programmer"),
+            new ArrayList<>(solrDocument.getFieldValues(FieldUtils.VIEW_ADMIN)));
+        assertEquals(Arrays.asList("u:wiki:XWiki.Editor", "u:wiki:XWiki.Viewer", "g:wiki:XWiki.Viewers",
+            "g:wiki:XWiki.XWikiAdminGroup", "u:wiki:XWiki.Owner", "u:xwiki:XWiki.Programmer"),
+            new ArrayList<>(solrDocument.getFieldValues(FieldUtils.VIEW_ALLOW)));
+        // Denied users are only taken into account at the document level
+        Collection<Object> denied = solrDocument.getFieldValues(FieldUtils.VIEW_DENY);
+        assertTrue(denied == null || denied.isEmpty());
+    }
+}
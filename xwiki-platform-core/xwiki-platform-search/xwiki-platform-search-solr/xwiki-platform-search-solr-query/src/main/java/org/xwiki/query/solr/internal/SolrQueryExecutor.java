@@ -22,8 +22,11 @@
 import java.lang.reflect.Array;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map.Entry;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 import javax.inject.Inject;
 import javax.inject.Named;
@@ -31,8 +34,10 @@
 import javax.inject.Singleton;
 
 import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.exception.ExceptionUtils;
 import org.apache.solr.client.solrj.SolrQuery;
 import org.apache.solr.client.solrj.response.QueryResponse;
+import org.apache.solr.client.solrj.util.ClientUtils;
 import org.apache.solr.common.SolrDocument;
 import org.apache.solr.common.SolrDocumentList;
 import org.slf4j.Logger;
@@ -44,9 +49,14 @@
 import org.xwiki.query.QueryException;
 import org.xwiki.query.QueryExecutor;
 import org.xwiki.query.SecureQuery;
+import org.xwiki.search.solr.internal.ViewRightsReindexer;
+import org.xwiki.search.solr.internal.api.FieldUtils;
 import org.xwiki.search.solr.internal.api.SolrInstance;
+import org.xwiki.search.solr.internal.metadata.ViewRightsExtractor;
 import org.xwiki.security.authorization.AuthorizationManager;
 import org.xwiki.security.authorization.Right;
+import org.xwiki.user.group.GroupManager;
+import org.xwiki.user.group.WikiTarget;
 
 import com.xpn.xwiki.XWikiContext;
 
@@ -75,6 +85,10 @@ public class SolrQueryExecutor implements QueryExecutor
      */
     private static final String PARAM_SUPPORTED_LOCALES = "xwiki.supportedLocales";
 
+    private static final String XWIKI_SPACE = "XWiki";
+
+    private static final String ALL_GROUP = "XWikiAllGroup";
+
     /**
      * Logging framework.
      */
@@ -105,6 +119,18 @@ public class SolrQueryExecutor implements QueryExecutor
     @Inject
     private JobProgressManager progress;
 
+    @Inject
+    private ViewRightsExtractor viewRightsExtractor;
+
+    @Inject
+    private ViewRightsReindexer viewRightsReindexer;
+
+    /**
+     * Lazily initialized since it's only needed when filtering on view rights.
+     */
+    @Inject
+    private Provider<GroupManager> groupManager;
+
     @Override
     public <T> List<T> execute(Query query) throws QueryException
     {
@@ -114,9 +140,20 @@ public <T> List<T> execute(Query query) throws QueryException
         try {
             this.progress.startStep(query, "query.solr.progress.execute.prepare", "Prepare");
 
+            List<DocumentReference> usersToCheck = getUsersToCheck(query);
+
             SolrInstance solrInstance = solrInstanceProvider.get();
             SolrQuery solrQuery = createSolrQuery(query);
 
+            // Exclude most of the results the users are not allowed to view before they are scored and paged. The
+            // indexed view rights are not trusted while some rights changes are being indexed (the filtering is then
+            // only done on the response).
+            if (!this.viewRightsReindexer.isReindexPending()) {
+                for (DocumentReference user : new LinkedHashSet<>(usersToCheck)) {
+                    addViewRightsFilter(solrQuery, user);
+                }
+            }
+
             this.progress.startStep(query, "query.solr.progress.execute.execute", "Execute");
 
             QueryResponse response = solrInstance.query(solrQuery);
@@ -124,24 +161,12 @@ public <T> List<T> execute(Query query) throws QueryException
             this.progress.startStep(query, "query.solr.progress.execute.filter", "Filter");
 
             // Check access rights need to be checked before returning the response.
-            // FIXME: this is not really the best way, mostly because at this point all grouping operations
-            // have already been performed and any change on the result will not ensure that the grouping
-            // information (facets, highlighting, maxScore, etc.) is still relevant.
-            // A better way would be using a PostFilter as described in this article:
-            // http://java.dzone.com/articles/custom-security-filtering-solr
-            // Basically, we would be asking
-            List<DocumentReference> usersToCheck = new ArrayList<>(2);
-            if (query instanceof SecureQuery) {
-                if (((SecureQuery) query).isCurrentUserChecked()) {
-                    usersToCheck.add(xcontextProvider.get().getUserReference());
-                }
-                if (((SecureQuery) query).isCurrentAuthorChecked()) {
-                    usersToCheck.add(xcontextProvider.get().getAuthorReference());
-                }
-            } else {
-                usersToCheck.add(xcontextProvider.get().getUserReference());
-                usersToCheck.add(xcontextProvider.get().getAuthorReference());
-            }
+            // The view rights indexed with each entity are only an approximation of what the authorization manager
+            // decides (they can also be outdated while the entities are being indexed again) so the results still
+            // have to be filtered. This is not really the best way, mostly because at this point all grouping
+            // operations have already been performed and any change on the result will not ensure that the grouping
+            // information (facets, highlighting, maxScore, etc.) is still relevant, but thanks to the filter query
+            // above it's rarely needed.
             if (!usersToCheck.isEmpty()) {
                 filterResponse(response, usersToCheck);
             }
@@ -155,6 +180,77 @@ public <T> List<T> execute(Query query) throws QueryException
         }
     }
 
+    private List<DocumentReference> getUsersToCheck(Query query)
+    {
+        List<DocumentReference> usersToCheck = new ArrayList<>(2);
+        if (query instanceof SecureQuery) {
+            if (((SecureQuery) query).isCurrentUserChecked()) {
+                usersToCheck.add(xcontextProvider.get().getUserReference());
+            }
+            if (((SecureQuery) query).isCurrentAuthorChecked()) {
+                usersToCheck.add(xcontextProvider.get().getAuthorReference());
+            }
+        } else {
+            usersToCheck.add(xcontextProvider.get().getUserReference());
+            usersToCheck.add(xcontextProvider.get().getAuthorReference());
+        }
+
+        return usersToCheck;
+    }
+
+    /**
+     * Add a filter query matching the entities which are not indexed with view rights, or whose indexed view rights
+     * allow the passed user or one of its groups and don't deny it explicitly (unless it's an administrator).
+     * 
+     * @param solrQuery the query to update
+     * @param user the user which should be allowed to view the results
+     */
+    private void addViewRightsFilter(SolrQuery solrQuery, DocumentReference user)
+    {
+        XWikiContext xcontext = this.xcontextProvider.get();
+
+        // Administrators are allowed to view everything (and superadmin does not appear in any rights object)
+        if (this.authorization.hasAccess(Right.ADMIN, user, xcontext.getWikiReference())) {
+            return;
+        }
+
+        Set<String> tokens = new LinkedHashSet<>();
+        tokens.add(ViewRightsExtractor.ALL_TOKEN);
+        String userToken = this.viewRightsExtractor.getUserToken(user);
+        tokens.add(userToken);
+        if (user != null) {
+            // Registered users are generally implicit members of the XWikiAllGroup
+            tokens.add(this.viewRightsExtractor
+                .getGroupToken(new DocumentReference(user.getWikiReference().getName(), XWIKI_SPACE, ALL_GROUP)));
+            tokens.add(this.viewRightsExtractor
+                .getGroupToken(new DocumentReference(xcontext.getWikiId(), XWIKI_SPACE, ALL_GROUP)));
+
+            try {
+                for (DocumentReference group : this.groupManager.get().getGroups(user, WikiTarget.ALL, true)) {
+                    tokens.add(this.viewRightsExtractor.getGroupToken(group));
+                }
+            } catch (Exception e) {
+                // Don't filter anything instead of filtering too much, the response is checked anyway
+                this.logger.warn("Failed to get the groups of user [{}], the search results won't be filtered by view"
+                    + " rights before paging: {}", user, ExceptionUtils.getRootCauseMessage(e));
+
+                return;
+            }
+        }
+
+        String tokensQuery =
+            tokens.stream().map(ClientUtils::escapeQueryChars).collect(Collectors.joining(" OR ", "(", ")"));
+
+        StringBuilder filter = new StringBuilder();
+        // Entities indexed before the view rights were
+        filter.append("(*:* -").append(FieldUtils.VIEW_ALLOW).append(":[* TO *])");
+        filter.append(" OR (+").append(FieldUtils.VIEW_ALLOW).append(':').append(tokensQuery);
+        filter.append(" -(+").append(FieldUtils.VIEW_DENY).append(':').append(ClientUtils.escapeQueryChars(userToken));
+        filter.append(" -").append(FieldUtils.VIEW_ADMIN).append(':').append(tokensQuery).append("))");
+
+        solrQuery.addFilterQuery(filter.toString());
+    }
+
     private SolrQuery createSolrQuery(Query query)
     {
         SolrQuery solrQuery = new SolrQuery(query.getStatement());
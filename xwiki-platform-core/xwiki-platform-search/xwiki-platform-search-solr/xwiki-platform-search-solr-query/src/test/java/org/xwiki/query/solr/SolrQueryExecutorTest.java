@@ -34,6 +34,7 @@
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.invocation.InvocationOnMock;
 import org.mockito.stubbing.Answer;
 import org.xwiki.component.internal.ContextComponentManagerProvider;
@@ -46,11 +47,15 @@
 import org.xwiki.query.internal.DefaultQueryExecutorManager;
 import org.xwiki.query.internal.DefaultQueryManager;
 import org.xwiki.query.solr.internal.SolrQueryExecutor;
+import org.xwiki.search.solr.internal.ViewRightsReindexer;
 import org.xwiki.search.solr.internal.api.SolrInstance;
+import org.xwiki.search.solr.internal.metadata.ViewRightsExtractor;
 import org.xwiki.security.authorization.AuthorizationManager;
 import org.xwiki.security.authorization.Right;
 import org.xwiki.test.annotation.ComponentList;
 import org.xwiki.test.mockito.MockitoComponentMockingRule;
+import org.xwiki.user.group.GroupManager;
+import org.xwiki.user.group.WikiTarget;
 
 import com.xpn.xwiki.XWikiContext;
 import com.xpn.xwiki.doc.XWikiDocument;
@@ -58,9 +63,13 @@
 import com.xpn.xwiki.test.reference.ReferenceComponentList;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 /**
@@ -104,12 +113,25 @@
 
     private SolrInstance solr = mock(SolrInstance.class);
 
+    private GroupManager groupManager = mock(GroupManager.class);
+
     @Before
     public void configure() throws Exception
     {
         ParameterizedType solrProviderType = new DefaultParameterizedType(null, Provider.class, SolrInstance.class);
         Provider<SolrInstance> provider = this.componentManager.registerMockComponent(solrProviderType);
         when(provider.get()).thenReturn(this.solr);
+
+        ParameterizedType groupManagerProviderType =
+            new DefaultParameterizedType(null, Provider.class, GroupManager.class);
+        Provider<GroupManager> groupManagerProvider =
+            this.componentManager.registerMockComponent(groupManagerProviderType);
+        when(groupManagerProvider.get()).thenReturn(this.groupManager);
+
+        ViewRightsExtractor viewRightsExtractor = this.componentManager.getInstance(ViewRightsExtractor.class);
+        when(viewRightsExtractor.getUserToken(any()))
+            .then(invocation -> invocation.getArgument(0) != null ? "u:" + invocation.getArgument(0) : "guest");
+        when(viewRightsExtractor.getGroupToken(any())).then(invocation -> "g:" + invocation.getArgument(0));
     }
 
     @Test
@@ -158,6 +180,66 @@ public Object answer(InvocationOnMock invocation) throws Throwable
         this.componentManager.getComponentUnderTest().execute(query);
     }
 
+    @Test
+    public void viewRightsFilter() throws Exception
+    {
+        QueryResponse response = mock(QueryResponse.class);
+        when(response.getResults()).thenReturn(new SolrDocumentList());
+        when(this.solr.query(any(SolrParams.class))).thenReturn(response);
+
+        DocumentReference userReference = new DocumentReference("xwiki", "XWiki", "user");
+        this.oldCore.getXWikiContext().setUserReference(userReference);
+        DocumentReference groupReference = new DocumentReference("wiki", "XWiki", "group");
+        when(this.groupManager.getGroups(userReference, WikiTarget.ALL, true))
+            .thenReturn(Arrays.asList(groupReference));
+
+        DefaultQuery query = new DefaultQuery("", null);
+        query.checkCurrentUser(true);
+
+        this.componentManager.getComponentUnderTest().execute(query);
+
+        ArgumentCaptor<SolrQuery> queryCaptor = ArgumentCaptor.forClass(SolrQuery.class);
+        verify(this.solr).query(queryCaptor.capture());
+        assertEquals(1, queryCaptor.getValue().getFilterQueries().length);
+        String filter = queryCaptor.getValue().getFilterQueries()[0];
+        assertTrue(filter.contains("viewallow_string:(\\* OR u\\:xwiki\\:XWiki.user OR "));
+        assertTrue(filter.contains(" OR g\\:wiki\\:XWiki.group)"));
+        assertTrue(filter.contains("viewdeny_string:u\\:xwiki\\:XWiki.user"));
+
+        // Administrators are not filtered
+        AuthorizationManager authorizationManager = this.componentManager.getInstance(AuthorizationManager.class);
+        when(authorizationManager.hasAccess(Right.ADMIN, userReference,
+            this.oldCore.getXWikiContext().getWikiReference())).thenReturn(true);
+
+        this.componentManager.getComponentUnderTest().execute(query);
+
+        verify(this.solr, times(2)).query(queryCaptor.capture());
+        assertNull(queryCaptor.getValue().getFilterQueries());
+    }
+
+    @Test
+    public void viewRightsFilterWhenReindexPending() throws Exception
+    {
+        QueryResponse response = mock(QueryResponse.class);
+        when(response.getResults()).thenReturn(new SolrDocumentList());
+        when(this.solr.query(any(SolrParams.class))).thenReturn(response);
+
+        this.oldCore.getXWikiContext().setUserReference(new DocumentReference("xwiki", "XWiki", "user"));
+
+        ViewRightsReindexer reindexer = this.componentManager.getInstance(ViewRightsReindexer.class);
+        when(reindexer.isReindexPending()).thenReturn(true);
+
+        DefaultQuery query = new DefaultQuery("", null);
+        query.checkCurrentUser(true);
+
+        this.componentManager.getComponentUnderTest().execute(query);
+
+        // The indexed view rights might be outdated
+        ArgumentCaptor<SolrQuery> queryCaptor = ArgumentCaptor.forClass(SolrQuery.class);
+        verify(this.solr).query(queryCaptor.capture());
+        assertNull(queryCaptor.getValue().getFilterQueries());
+    }
+
     @Test
     public void filterResponse() throws Exception
     {
@@ -43,6 +43,8 @@
 import org.xwiki.component.annotation.Component;
 import org.xwiki.component.phase.Initializable;
 import org.xwiki.component.phase.InitializationException;
+import org.xwiki.metrics.Counter;
+import org.xwiki.metrics.MetricsRegistry;
 import org.xwiki.model.reference.EntityReferenceSerializer;
 import org.xwiki.security.GroupSecurityReference;
 import org.xwiki.security.SecurityReference;
@@ -103,6 +105,18 @@ public class DefaultSecurityCache implements SecurityCache, Initializable
     /** The new entry being added */
     private SecurityCacheEntry newEntry;
 
+    /** Used to publish the cache hits and misses. */
+    @Inject
+    private MetricsRegistry metrics;
+
+    private Counter accessHits = Counter.NOOP;
+
+    private Counter accessMisses = Counter.NOOP;
+
+    private Counter ruleHits = Counter.NOOP;
+
+    private Counter ruleMisses = Counter.NOOP;
+
     /**
      * @return a new configured security cache
      * @throws InitializationException if a CacheException arise during creation
@@ -126,6 +140,13 @@ private Cache<SecurityCacheEntry> newCache() throws InitializationException
     public void initialize() throws InitializationException
     {
         cache = newCache();
+
+        if (this.metrics.isEnabled()) {
+            this.accessHits = this.metrics.getCounter("security.cache.access.hit");
+            this.accessMisses = this.metrics.getCounter("security.cache.access.miss");
+            this.ruleHits = this.metrics.getCounter("security.cache.rule.hit");
+            this.ruleMisses = this.metrics.getCounter("security.cache.rule.miss");
+        }
     }
 
     /**
@@ -771,11 +792,13 @@ public SecurityAccessEntry get(UserSecurityReference user, SecurityReference ent
     {
         SecurityCacheEntry entry = getEntry(user, entity);
         if (entry == null) {
+            this.accessMisses.increment();
             if (logger.isDebugEnabled()) {
                 logger.debug("Miss read access entry for [{}].", getEntryKey(user, entity));
             }
             return null;
         }
+        this.accessHits.increment();
         if (logger.isDebugEnabled()) {
             logger.debug("Success read access entry for [{}].", getEntryKey(user, entity));
         }
@@ -787,11 +810,13 @@ public SecurityRuleEntry get(SecurityReference entity)
     {
         SecurityCacheEntry entry = getEntry(entity);
         if (entry == null) {
+            this.ruleMisses.increment();
             if (logger.isDebugEnabled()) {
                 logger.debug("Miss read rule entry for [{}].", getEntryKey(entity));
             }
             return null;
         }
+        this.ruleHits.increment();
         if (logger.isDebugEnabled()) {
             logger.debug("Success read rule entry for [{}].", getEntryKey(entity));
         }
@@ -32,6 +32,7 @@
 import org.mockito.stubbing.Answer;
 import org.xwiki.cache.CacheManager;
 import org.xwiki.cache.config.CacheConfiguration;
+import org.xwiki.metrics.MetricsRegistry;
 import org.xwiki.model.internal.DefaultModelConfiguration;
 import org.xwiki.model.internal.reference.DefaultEntityReferenceProvider;
 import org.xwiki.model.internal.reference.DefaultStringEntityReferenceResolver;
@@ -133,6 +134,7 @@ public void initializeMocks() throws Exception
         userBridge = componentManager.registerMockComponent(UserBridge.class);
         securityEntryReader = componentManager.registerMockComponent(SecurityEntryReader.class);
         securityCacheRulesInvalidator = componentManager.registerMockComponent(SecurityCacheRulesInvalidator.class);
+        componentManager.registerMockComponent(MetricsRegistry.class);
 
         when(xWikiBridge.toCompatibleEntityReference(any(EntityReference.class)))
             .thenAnswer(new Answer<EntityReference>()
@@ -42,4 +42,11 @@
      * @since 11.4RC1
      */
     File getDirectory();
+
+    /**
+     * @return true if identical attachment contents (including the attachment versions and the deleted attachments)
+     *         should be stored only once
+     * @since 12.0RC1
+     */
+    boolean isDeduplicated();
 }
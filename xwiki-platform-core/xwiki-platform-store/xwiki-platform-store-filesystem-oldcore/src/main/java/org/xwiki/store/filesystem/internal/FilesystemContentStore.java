@@ -0,0 +1,365 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.store.filesystem.internal;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Iterator;
+import java.util.concurrent.locks.Lock;
+import java.util.stream.Stream;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.lang3.exception.ExceptionUtils;
+import org.slf4j.Logger;
+import org.xwiki.component.annotation.Component;
+import org.xwiki.component.phase.Initializable;
+import org.xwiki.component.phase.InitializationException;
+
+/**
+ * Store identical contents only once, indexed by their SHA-256 digest. Each file of the store having a deduplicated
+ * content is a hard link to the stored content so the number of links of the stored content is its reference count.
+ * <p>
+ * The store never modifies an existing file (it always writes a new temporary file and renames it) so it's safe to
+ * share the same data between several files.
+ * <p>
+ * The existing attachment files are deduplicated in the background on startup until a complete pass over the store
+ * succeeded, which is recorded by the {@value #DEDUPLICATED_MARKER_NAME} file.
+ *
+ * @version $Id$
+ * @since 12.0RC1
+ */
+@Component(roles = FilesystemContentStore.class)
+@Singleton
+public class FilesystemContentStore implements Initializable
+{
+    /**
+     * The directory at the root of the store where the deduplicated contents are stored.
+     */
+    public static final String CONTENT_DIR_NAME = "~content";
+
+    /**
+     * The file created in the content directory once all the existing attachment files have been deduplicated.
+     */
+    public static final String DEDUPLICATED_MARKER_NAME = "~deduplicated";
+
+    /**
+     * The number of deduplicated files between two progress logs.
+     */
+    private static final int PROGRESS_STEP = 1000;
+
+    /**
+     * The prefix of the name of the attachment content files (see {@link StoreFileUtils}).
+     */
+    private static final String CONTENT_FILE_PREFIX = "f";
+
+    /**
+     * The character used in the name of the temporary, backup and metadata files.
+     */
+    private static final char SPECIAL_FILE_CHARACTER = '~';
+
+    @Inject
+    private FilesystemAttachmentsConfiguration config;
+
+    @Inject
+    private FilesystemStoreTools fileTools;
+
+    @Inject
+    private Logger logger;
+
+    private boolean enabled;
+
+    @Override
+    public void initialize() throws InitializationException
+    {
+        this.enabled = this.config.isDeduplicated();
+
+        if (this.enabled) {
+            File rootDirectory = this.fileTools.getStoreRootDirectory();
+
+            // The reference count of a content is the number of links of its file
+            if (!rootDirectory.toPath().getFileSystem().supportedFileAttributeViews().contains("unix")) {
+                this.logger.warn("The attachment content deduplication is disabled because the file system of [{}]"
+                    + " does not provide the number of links of a file", rootDirectory);
+
+                this.enabled = false;
+
+                return;
+            }
+
+            Thread thread = new Thread(() -> {
+                // Deduplicate the files stored before the deduplication was enabled (or an interrupted previous pass)
+                if (!getDeduplicatedMarker().exists()) {
+                    deduplicateFiles(rootDirectory);
+                }
+
+                // Remove the contents of the files deleted since the last startup
+                cleanUnusedContents();
+            });
+            thread.setName("XWiki attachment content deduplication thread");
+            thread.setDaemon(true);
+            thread.start();
+        }
+    }
+
+    /**
+     * @return true if identical contents should be stored only once
+     */
+    public boolean isEnabled()
+    {
+        return this.enabled;
+    }
+
+    /**
+     * @return the directory where the deduplicated contents are stored
+     */
+    public File getContentDir()
+    {
+        return new File(this.fileTools.getStoreRootDirectory(), CONTENT_DIR_NAME);
+    }
+
+    private File getDeduplicatedMarker()
+    {
+        return new File(getContentDir(), DEDUPLICATED_MARKER_NAME);
+    }
+
+    /**
+     * Get the file where a deduplicated content is stored. The format is {@code ~content/<d0><d1>/<d2><d3>/<digest>}.
+     *
+     * @param digest the hexadecimal SHA-256 digest of the content
+     * @return the file where the content with the passed digest is stored
+     */
+    public File getContentFile(String digest)
+    {
+        File contentDir1 = new File(getContentDir(), digest.substring(0, 2));
+        File contentDir2 = new File(contentDir1, digest.substring(2, 4));
+
+        return new File(contentDir2, digest);
+    }
+
+    /**
+     * Make sure the passed file shares its data with all the other files having the same content: if a content with the
+     * same digest is already stored the file is replaced by a hard link to it, otherwise the file becomes the stored
+     * content for this digest.
+     *
+     * @param file the file to deduplicate
+     * @param digest the hexadecimal SHA-256 digest of the file content
+     * @return true if the file was deduplicated, false if it failed (e.g. the file system does not support hard links)
+     */
+    public boolean deduplicate(File file, String digest)
+    {
+        Path path = file.toPath();
+        Path contentPath = getContentFile(digest).toPath();
+
+        try {
+            if (Files.exists(contentPath)) {
+                if (Files.isSameFile(contentPath, path)) {
+                    return true;
+                }
+
+                // Replace the file with a link to the stored content (or the opposite if the stored content is
+                // not valid anymore)
+                if (Files.size(contentPath) == Files.size(path)) {
+                    replaceWithLink(path, contentPath);
+                } else {
+                    replaceWithLink(contentPath, path);
+                }
+            } else {
+                Files.createDirectories(contentPath.getParent());
+                try {
+                    Files.createLink(contentPath, path);
+                } catch (FileAlreadyExistsException e) {
+                    // The same content was stored in the meantime
+                    replaceWithLink(path, contentPath);
+                }
+            }
+
+            return true;
+        } catch (IOException | UnsupportedOperationException e) {
+            this.logger.warn("Failed to deduplicate file [{}]: {}", file, ExceptionUtils.getRootCauseMessage(e));
+
+            return false;
+        }
+    }
+
+    private void replaceWithLink(Path path, Path target) throws IOException
+    {
+        Path link = this.fileTools.getTempFile(path.toFile()).toPath();
+
+        Files.createLink(link, target);
+        try {
+            Files.move(link, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(link);
+        }
+    }
+
+    /**
+     * Deduplicate all the attachment content files (including the attachment versions and the deleted attachments)
+     * located in the passed directory. Each file is locked while it's deduplicated so this can run while the
+     * attachments are being modified.
+     *
+     * @param directory the directory containing the files to deduplicate
+     * @return the number of deduplicated files
+     */
+    public int deduplicateFiles(File directory)
+    {
+        this.logger.info("Deduplicating the attachment contents in [{}]", directory);
+
+        Path directoryPath = directory.toPath();
+
+        int count = 0;
+        try {
+            if (Files.exists(directoryPath)) {
+                try (Stream<Path> paths = Files.walk(directoryPath)) {
+                    for (Iterator<Path> it = paths.filter(path -> isAttachmentContentFile(directoryPath, path))
+                        .iterator(); it.hasNext();) {
+                        if (deduplicate(it.next())) {
+                            ++count;
+
+                            if (count % PROGRESS_STEP == 0) {
+                                this.logger.info("Deduplicated [{}] attachment content files in [{}] so far", count,
+                                    directory);
+                            }
+                        }
+                    }
+                }
+            }
+
+            // Remember that the existing files don't need to be deduplicated again, only once the whole store was
+            // walked
+            File marker = getDeduplicatedMarker();
+            Files.createDirectories(marker.getParentFile().toPath());
+            marker.createNewFile();
+        } catch (IOException e) {
+            this.logger.warn("Failed to deduplicate the attachment contents in [{}], it will be retried on next"
+                + " startup: {}", directory, ExceptionUtils.getRootCauseMessage(e));
+        }
+
+        this.logger.info("Deduplicated [{}] attachment content files in [{}]", count, directory);
+
+        return count;
+    }
+
+    private boolean deduplicate(Path path) throws IOException
+    {
+        // Make sure the file is not replaced or deleted between the moment its digest is computed and the moment it's
+        // linked to the stored content
+        Lock lock = this.fileTools.getLockForFile(path.toFile()).writeLock();
+        lock.lock();
+        try {
+            if (!Files.exists(path)) {
+                return false;
+            }
+
+            String digest;
+            try (InputStream stream = Files.newInputStream(path)) {
+                digest = DigestUtils.sha256Hex(stream);
+            }
+
+            return deduplicate(path.toFile(), digest);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private boolean isAttachmentContentFile(Path directory, Path path)
+    {
+        String name = path.getFileName().toString();
+
+        if (!name.startsWith(CONTENT_FILE_PREFIX) || name.indexOf(SPECIAL_FILE_CHARACTER) != -1
+            || !Files.isRegularFile(path)) {
+            return false;
+        }
+
+        // Only look at the directories located inside the walked directory
+        for (Path parentName : directory.relativize(path.getParent())) {
+            if (FilesystemStoreTools.ATTACHMENTS_DIR_NAME.equals(parentName.toString())
+                || FilesystemStoreTools.DELETED_ATTACHMENTS_DIR_NAME.equals(parentName.toString())) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * @param digest the hexadecimal SHA-256 digest of the content
+     * @return the number of files sharing the stored content with the passed digest
+     * @throws IOException when failing to access the stored content
+     * @throws UnsupportedOperationException when the file system does not provide the number of links of a file
+     */
+    public int getReferenceCount(String digest) throws IOException
+    {
+        Path contentPath = getContentFile(digest).toPath();
+
+        return Files.exists(contentPath) ? getLinkCount(contentPath) - 1 : 0;
+    }
+
+    private boolean isContentFile(Path path)
+    {
+        return Files.isRegularFile(path) && !path.getFileName().toString().equals(DEDUPLICATED_MARKER_NAME);
+    }
+
+    private int getLinkCount(Path path) throws IOException
+    {
+        return ((Number) Files.getAttribute(path, "unix:nlink")).intValue();
+    }
+
+    /**
+     * Remove the stored contents which are not shared with any file of the store anymore.
+     *
+     * @return the number of removed contents
+     */
+    public int cleanUnusedContents()
+    {
+        File contentDir = getContentDir();
+
+        int count = 0;
+        if (contentDir.exists()) {
+            try (Stream<Path> paths = Files.walk(contentDir.toPath())) {
+                for (Iterator<Path> it = paths.filter(this::isContentFile).iterator(); it.hasNext();) {
+                    Path path = it.next();
+
+                    // A file linked to this content in the meantime keeps its data even if the stored content is
+                    // removed, it's just not deduplicated anymore
+                    if (getLinkCount(path) <= 1) {
+                        Files.deleteIfExists(path);
+                        ++count;
+                    }
+                }
+            } catch (IOException | UnsupportedOperationException e) {
+                this.logger.warn("Failed to clean the unused contents in [{}]: {}", contentDir,
+                    ExceptionUtils.getRootCauseMessage(e));
+            }
+
+            this.logger.info("Removed [{}] unused contents from [{}]", count, contentDir);
+        }
+
+        return count;
+    }
+}
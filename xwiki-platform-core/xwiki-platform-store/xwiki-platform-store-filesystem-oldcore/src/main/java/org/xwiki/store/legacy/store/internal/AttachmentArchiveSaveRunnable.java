@@ -31,9 +31,12 @@
 
 import org.suigeneris.jrcs.rcs.Version;
 import org.xwiki.store.FileSaveTransactionRunnable;
+import org.xwiki.store.FileSerializer;
 import org.xwiki.store.StartableTransactionRunnable;
 import org.xwiki.store.StreamProvider;
+import org.xwiki.store.StreamProviderFileSerializer;
 import org.xwiki.store.filesystem.internal.AttachmentFileProvider;
+import org.xwiki.store.filesystem.internal.FilesystemContentStore;
 import org.xwiki.store.filesystem.internal.FilesystemStoreTools;
 import org.xwiki.store.serialization.SerializationStreamProvider;
 import org.xwiki.store.serialization.Serializer;
@@ -56,6 +59,7 @@ public class AttachmentArchiveSaveRunnable extends StartableTransactionRunnable
      * attachment content and the file for the meta data, as well as temporary
      * and backup files corrisponding to each. Also for getting locks.
      * @param provider the means to get the files to store each version of the attachment.
+     * @param contentStore the store of the deduplicated contents.
      * @param serializer an attachment list metadata serializer for serializing the metadata of each
      * version of the attachment.
      * @param context the XWikiContext used to get the revisions of the attachment.
@@ -64,6 +68,7 @@ public class AttachmentArchiveSaveRunnable extends StartableTransactionRunnable
     public AttachmentArchiveSaveRunnable(final XWikiAttachmentArchive archive,
         final FilesystemStoreTools fileTools,
         final AttachmentFileProvider provider,
+        final FilesystemContentStore contentStore,
         final Serializer<List<XWikiAttachment>,
             List<XWikiAttachment>> serializer,
         final XWikiContext context)
@@ -90,26 +95,26 @@ public AttachmentArchiveSaveRunnable(final XWikiAttachmentArchive archive,
             if (attachVer.isContentDirty()
                 || !provider.getAttachmentVersionContentFile(versionName).exists())
             {
-                final StreamProvider contentProvider =
-                    new AttachmentContentStreamProvider(attachVer, context);
-                addSaver(contentProvider, fileTools, provider.getAttachmentVersionContentFile(versionName));
+                final FileSerializer contentSerializer =
+                    new AttachmentContentFileSerializer(attachVer, contentStore, context);
+                addSaver(contentSerializer, fileTools, provider.getAttachmentVersionContentFile(versionName));
             }
         }
 
         // Then do the metadata.
         final StreamProvider metaProvider =
             new SerializationStreamProvider<List<XWikiAttachment>>(serializer, attachmentVersions);
-        addSaver(metaProvider, fileTools, provider.getAttachmentVersioningMetaFile());
+        addSaver(new StreamProviderFileSerializer(metaProvider), fileTools, provider.getAttachmentVersioningMetaFile());
     }
 
     /**
      * Save some content safely in this runnable.
      *
-     * @param provider the means to get the content to save.
+     * @param serializer the means to write the content to save.
      * @param fileTools the means to get the backup file, temporary file, and lock.
      * @param saveHere the location to save the data.
      */
-    private void addSaver(final StreamProvider provider,
+    private void addSaver(final FileSerializer serializer,
         final FilesystemStoreTools fileTools,
         final File saveHere)
     {
@@ -117,6 +122,6 @@ private void addSaver(final StreamProvider provider,
             fileTools.getTempFile(saveHere),
             fileTools.getBackupFile(saveHere),
             fileTools.getLockForFile(saveHere),
-            provider).runIn(this);
+            serializer).runIn(this);
     }
 }
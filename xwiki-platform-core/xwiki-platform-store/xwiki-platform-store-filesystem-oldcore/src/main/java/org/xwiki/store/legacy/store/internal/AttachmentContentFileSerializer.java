@@ -0,0 +1,126 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.store.legacy.store.internal;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+
+import org.apache.commons.codec.binary.Hex;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.io.IOUtils;
+import org.xwiki.store.FileSerializer;
+import org.xwiki.store.filesystem.internal.FilesystemContentStore;
+
+import com.xpn.xwiki.XWikiContext;
+import com.xpn.xwiki.doc.XWikiAttachment;
+import com.xpn.xwiki.doc.XWikiAttachmentContent;
+
+/**
+ * Save the content of an attachment to a file. When the content is already stored in a file on the same file system
+ * (e.g. an uploaded file) the target file is created as a hard link to it instead of copying the content.
+ * <p>
+ * Sharing the same data between several files is safe since the store never modifies an existing file: it always
+ * writes a new temporary file and renames it.
+ * <p>
+ * When the content deduplication is enabled the saved file is also linked to the content with the same digest in the
+ * {@link FilesystemContentStore}.
+ *
+ * @version $Id$
+ * @since 12.0RC1
+ */
+public class AttachmentContentFileSerializer implements FileSerializer
+{
+    private final XWikiAttachment attachment;
+
+    private final FilesystemContentStore contentStore;
+
+    private final XWikiContext context;
+
+    /**
+     * @param attachment the attachment whose content should be saved
+     * @param contentStore the store of the deduplicated contents, {@code null} if the contents are not deduplicated
+     * @param context the XWikiContext needed to get the content from the attachment
+     */
+    public AttachmentContentFileSerializer(XWikiAttachment attachment, FilesystemContentStore contentStore,
+        XWikiContext context)
+    {
+        this.attachment = attachment;
+        this.contentStore = contentStore != null && contentStore.isEnabled() ? contentStore : null;
+        this.context = context;
+    }
+
+    @Override
+    public void serialize(File file) throws Exception
+    {
+        XWikiAttachmentContent content = this.attachment.getAttachment_content();
+        File contentFile = content != null ? content.getContentFile() : null;
+
+        String digest;
+        if (contentFile != null && link(contentFile, file)) {
+            // The file shares its data with the content file so it only needs to be deduplicated if it's a new content
+            // (the digest of an uploaded content is known)
+            digest = content.getDigest();
+        } else {
+            digest = copy(file);
+        }
+
+        if (digest != null && this.contentStore != null) {
+            this.contentStore.deduplicate(file, digest);
+        }
+    }
+
+    private String copy(File file) throws Exception
+    {
+        try (InputStream in = this.attachment.getContentInputStream(this.context)) {
+            try (OutputStream out = new FileOutputStream(file)) {
+                if (this.contentStore != null) {
+                    // Compute the digest while copying the content
+                    MessageDigest messageDigest = DigestUtils.getSha256Digest();
+                    IOUtils.copy(new DigestInputStream(in, messageDigest), out);
+
+                    return Hex.encodeHexString(messageDigest.digest());
+                }
+
+                IOUtils.copy(in, out);
+
+                return null;
+            }
+        }
+    }
+
+    private boolean link(File contentFile, File file)
+    {
+        try {
+            Files.createLink(file.toPath(), contentFile.toPath());
+
+            return true;
+        } catch (IOException | UnsupportedOperationException | SecurityException e) {
+            // The file system does not support hard links or the content is located on a different file system: fall
+            // back on copying the content
+            return false;
+        }
+    }
+}
@@ -40,6 +40,7 @@
 import org.xwiki.store.FileDeleteTransactionRunnable;
 import org.xwiki.store.StartableTransactionRunnable;
 import org.xwiki.store.filesystem.internal.DeletedAttachmentFileProvider;
+import org.xwiki.store.filesystem.internal.FilesystemContentStore;
 import org.xwiki.store.filesystem.internal.FilesystemStoreTools;
 import org.xwiki.store.internal.FileSystemStoreUtils;
 import org.xwiki.store.legacy.doc.internal.FilesystemAttachmentContent;
@@ -70,6 +71,12 @@ public class FilesystemAttachmentRecycleBinContentStore implements AttachmentRec
     @Inject
     private FilesystemStoreTools fileTools;
 
+    /**
+     * The store of the deduplicated contents.
+     */
+    @Inject
+    private FilesystemContentStore contentStore;
+
     /**
      * A serializer for the archive metadata.
      */
@@ -242,7 +249,7 @@ private StartableTransactionRunnable getSaveTrashAttachmentRunnable(final XWikiA
         final DeletedAttachmentFileProvider provider =
             this.fileTools.getDeletedAttachmentFileProvider(deleted.getReference(), index);
 
-        return new SaveDeletedAttachmentContentRunnable(deleted, provider, this.fileTools, this.metaSerializer,
-            this.versionSerializer, context);
+        return new SaveDeletedAttachmentContentRunnable(deleted, provider, this.fileTools, this.contentStore,
+            this.metaSerializer, this.versionSerializer, context);
     }
 }
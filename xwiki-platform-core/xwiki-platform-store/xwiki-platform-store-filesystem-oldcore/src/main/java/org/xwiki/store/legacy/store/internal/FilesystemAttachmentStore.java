@@ -34,8 +34,9 @@
 import org.xwiki.component.manager.ComponentManager;
 import org.xwiki.store.FileDeleteTransactionRunnable;
 import org.xwiki.store.FileSaveTransactionRunnable;
-import org.xwiki.store.StreamProvider;
+import org.xwiki.store.FileSerializer;
 import org.xwiki.store.TransactionRunnable;
+import org.xwiki.store.filesystem.internal.FilesystemContentStore;
 import org.xwiki.store.filesystem.internal.FilesystemStoreTools;
 import org.xwiki.store.internal.FileSystemStoreUtils;
 import org.xwiki.store.legacy.doc.internal.FilesystemAttachmentContent;
@@ -69,6 +70,9 @@ public class FilesystemAttachmentStore implements XWikiAttachmentStoreInterface
     @Inject
     private FilesystemStoreTools fileTools;
 
+    @Inject
+    private FilesystemContentStore contentStore;
+
     @Inject
     @Named(XWikiHibernateBaseStore.HINT)
     private AttachmentVersioningStore hibernateAttachmentVersioningStore;
@@ -289,8 +293,8 @@ private class AttachmentSaveTransactionRunnable extends TransactionRunnable<XWik
             final XWikiContext context, final File attachFile, final File tempFile, final File backupFile,
             final ReadWriteLock lock) throws XWikiException
         {
-            final StreamProvider provider = new AttachmentContentStreamProvider(attachment, context);
-            new FileSaveTransactionRunnable(attachFile, tempFile, backupFile, lock, provider).runIn(this);
+            final FileSerializer serializer = new AttachmentContentFileSerializer(attachment, contentStore, context);
+            new FileSaveTransactionRunnable(attachFile, tempFile, backupFile, lock, serializer).runIn(this);
 
             // If the versioning store supports TransactionRunnable then use it, otherwise don't.
             AttachmentVersioningStore avs = resolveAttachmentVersioningStore(attachment, context);
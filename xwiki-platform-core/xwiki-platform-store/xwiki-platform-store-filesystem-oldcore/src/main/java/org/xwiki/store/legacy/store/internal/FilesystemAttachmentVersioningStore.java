@@ -33,6 +33,7 @@
 import org.xwiki.component.annotation.Component;
 import org.xwiki.store.StartableTransactionRunnable;
 import org.xwiki.store.filesystem.internal.AttachmentFileProvider;
+import org.xwiki.store.filesystem.internal.FilesystemContentStore;
 import org.xwiki.store.filesystem.internal.FilesystemStoreTools;
 import org.xwiki.store.internal.FileSystemStoreUtils;
 import org.xwiki.store.legacy.doc.internal.FilesystemAttachmentContent;
@@ -67,6 +68,12 @@ public class FilesystemAttachmentVersioningStore implements AttachmentVersioning
     @Inject
     private FilesystemStoreTools fileTools;
 
+    /**
+     * The store of the deduplicated contents.
+     */
+    @Inject
+    private FilesystemContentStore contentStore;
+
     /**
      * A serializer for the list of attachment metdata.
      */
@@ -187,8 +194,8 @@ public StartableTransactionRunnable getArchiveSaveRunnable(final XWikiAttachment
         final XWikiContext context) throws XWikiException
     {
         return new AttachmentArchiveSaveRunnable(archive, this.fileTools,
-            this.fileTools.getAttachmentFileProvider(archive.getAttachment().getReference()), this.metaSerializer,
-            context);
+            this.fileTools.getAttachmentFileProvider(archive.getAttachment().getReference()), this.contentStore,
+            this.metaSerializer, context);
     }
 
     /**
@@ -23,9 +23,12 @@
 import java.util.List;
 
 import org.xwiki.store.FileSaveTransactionRunnable;
+import org.xwiki.store.FileSerializer;
 import org.xwiki.store.StartableTransactionRunnable;
 import org.xwiki.store.StreamProvider;
+import org.xwiki.store.StreamProviderFileSerializer;
 import org.xwiki.store.filesystem.internal.DeletedAttachmentFileProvider;
+import org.xwiki.store.filesystem.internal.FilesystemContentStore;
 import org.xwiki.store.filesystem.internal.FilesystemStoreTools;
 import org.xwiki.store.serialization.SerializationStreamProvider;
 import org.xwiki.store.serialization.Serializer;
@@ -49,43 +52,46 @@ class SaveDeletedAttachmentContentRunnable extends StartableTransactionRunnable
      * @param deleted the deleted attachment.
      * @param provider a means of gettign the files used for storing the attachment.
      * @param fileTools tools for getting file locks and backup/temporary files.
+     * @param contentStore the store of the deduplicated contents.
      * @param deletedAttachmentSerializer a Serializer to serialize a DeletedAttachment.
      * @param versionSerializer a Serializer which will serialize a list of XWikiAttachment objects.
      * @param context the legacy XWikiContext which might be needed to get the attachment archive.
      * @throws XWikiException if loading the attachment content or archive fails.
      */
     SaveDeletedAttachmentContentRunnable(final XWikiAttachment attachment, final DeletedAttachmentFileProvider provider,
-        final FilesystemStoreTools fileTools, final Serializer<XWikiAttachment, XWikiAttachment> metaSerializer,
+        final FilesystemStoreTools fileTools, final FilesystemContentStore contentStore,
+        final Serializer<XWikiAttachment, XWikiAttachment> metaSerializer,
         final Serializer<List<XWikiAttachment>, List<XWikiAttachment>> versionSerializer, final XWikiContext context)
         throws XWikiException
     {
         // Save metadata about the deleted attachment.
         final StreamProvider metaProvider =
             new SerializationStreamProvider<XWikiAttachment>(metaSerializer, attachment);
-        addSaver(metaProvider, fileTools, provider.getDeletedAttachmentMetaFile());
+        addSaver(new StreamProviderFileSerializer(metaProvider), fileTools, provider.getDeletedAttachmentMetaFile());
 
         // Save the archive for the deleted attachment.
         final XWikiAttachmentArchive archive = attachment.loadArchive(context);
         if (archive == null) {
             throw new NullPointerException("Failed to load attachment archive, loadArchive() returned null");
         }
-        new AttachmentArchiveSaveRunnable(archive, fileTools, provider, versionSerializer, context).runIn(this);
+        new AttachmentArchiveSaveRunnable(archive, fileTools, provider, contentStore, versionSerializer, context)
+            .runIn(this);
 
         // Save the attachment's content.
-        final StreamProvider contentProvider = new AttachmentContentStreamProvider(attachment, context);
-        this.addSaver(contentProvider, fileTools, provider.getAttachmentContentFile());
+        final FileSerializer contentSerializer = new AttachmentContentFileSerializer(attachment, contentStore, context);
+        this.addSaver(contentSerializer, fileTools, provider.getAttachmentContentFile());
     }
 
     /**
      * Save some content safely in this runnable. TODO This duplicates AttachmentArchiveSaveRunnable, fix.
      *
-     * @param provider the means to get the content to save.
+     * @param serializer the means to write the content to save.
      * @param fileTools the means to get the backup file, temporary file, and lock.
      * @param saveHere the location to save the data.
      */
-    private void addSaver(final StreamProvider provider, final FilesystemStoreTools fileTools, final File saveHere)
+    private void addSaver(final FileSerializer serializer, final FilesystemStoreTools fileTools, final File saveHere)
     {
         new FileSaveTransactionRunnable(saveHere, fileTools.getTempFile(saveHere), fileTools.getBackupFile(saveHere),
-            fileTools.getLockForFile(saveHere), provider).runIn(this);
+            fileTools.getLockForFile(saveHere), serializer).runIn(this);
     }
 }
@@ -0,0 +1,179 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.store.filesystem.internal;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.io.FileUtils;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.xwiki.test.junit5.XWikiTempDir;
+import org.xwiki.test.junit5.mockito.ComponentTest;
+import org.xwiki.test.junit5.mockito.InjectMockComponents;
+import org.xwiki.test.junit5.mockito.MockComponent;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+/**
+ * Validate {@link FilesystemContentStore}.
+ *
+ * @version $Id$
+ */
+@ComponentTest
+public class FilesystemContentStoreTest
+{
+    private static final String DIGEST = "0123456789abcdef";
+
+    @XWikiTempDir
+    private File tmpDir;
+
+    @MockComponent
+    private FilesystemAttachmentsConfiguration config;
+
+    @MockComponent
+    private FilesystemStoreTools fileTools;
+
+    @InjectMockComponents
+    private FilesystemContentStore contentStore;
+
+    @BeforeEach
+    public void setUp()
+    {
+        when(this.fileTools.getStoreRootDirectory()).thenReturn(this.tmpDir);
+        when(this.fileTools.getLockForFile(any())).thenReturn(new ReentrantReadWriteLock());
+        when(this.fileTools.getTempFile(any())).then(invocation -> {
+            File file = invocation.getArgument(0);
+
+            return new File(file.getParentFile(), file.getName() + "~tmp");
+        });
+    }
+
+    private File createFile(String name, String content) throws Exception
+    {
+        File file = new File(this.tmpDir, name);
+        FileUtils.write(file, content, StandardCharsets.UTF_8);
+
+        return file;
+    }
+
+    @Test
+    public void getContentFile()
+    {
+        assertEquals(new File(this.tmpDir, "~content/01/23/" + DIGEST), this.contentStore.getContentFile(DIGEST));
+    }
+
+    @Test
+    public void deduplicate() throws Exception
+    {
+        File file1 = createFile("file1", "content");
+        File file2 = createFile("file2", "content");
+
+        assertTrue(this.contentStore.deduplicate(file1, DIGEST));
+        assertEquals(1, this.contentStore.getReferenceCount(DIGEST));
+        assertTrue(this.contentStore.deduplicate(file2, DIGEST));
+        assertEquals(2, this.contentStore.getReferenceCount(DIGEST));
+
+        assertTrue(Files.isSameFile(file1.toPath(), file2.toPath()));
+        assertTrue(Files.isSameFile(file1.toPath(), this.contentStore.getContentFile(DIGEST).toPath()));
+        assertEquals("content", FileUtils.readFileToString(file2, StandardCharsets.UTF_8));
+
+        // Deduplicating again an already deduplicated file should not change anything
+        assertTrue(this.contentStore.deduplicate(file2, DIGEST));
+        assertEquals(2, this.contentStore.getReferenceCount(DIGEST));
+
+        // Make sure no temporary file is left behind
+        assertFalse(new File(this.tmpDir, "file2~tmp").exists());
+    }
+
+    @Test
+    public void cleanUnusedContents() throws Exception
+    {
+        File file1 = createFile("file1", "content1");
+        File file2 = createFile("file2", "content2");
+
+        this.contentStore.deduplicate(file1, DIGEST);
+        this.contentStore.deduplicate(file2, "fedcba9876543210");
+
+        Files.delete(file1.toPath());
+        assertEquals(0, this.contentStore.getReferenceCount(DIGEST));
+
+        assertEquals(1, this.contentStore.cleanUnusedContents());
+
+        assertFalse(this.contentStore.getContentFile(DIGEST).exists());
+        assertEquals(1, this.contentStore.getReferenceCount("fedcba9876543210"));
+        assertEquals("content2", FileUtils.readFileToString(file2, StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void deduplicateFiles() throws Exception
+    {
+        File attachment1 = createFile("xwiki/a/b/attachments/c/f.txt", "content");
+        File attachment2 = createFile("xwiki/d/e/attachments/c/f.txt", "content");
+        File version = createFile("xwiki/a/b/attachments/c/fv1.1.txt", "content");
+        File deleted = createFile("xwiki/a/b/deleted-attachments/c/1/f.txt", "content");
+        File temporary = createFile("xwiki/a/b/attachments/c/f.txt~tmp", "content");
+        File document = createFile("xwiki/a/b/f.txt", "content");
+
+        assertEquals(4, this.contentStore.deduplicateFiles(this.tmpDir));
+
+        String digest = DigestUtils.sha256Hex("content");
+        assertEquals(4, this.contentStore.getReferenceCount(digest));
+        assertTrue(Files.isSameFile(attachment1.toPath(), attachment2.toPath()));
+        assertTrue(Files.isSameFile(attachment1.toPath(), version.toPath()));
+        assertTrue(Files.isSameFile(attachment1.toPath(), deleted.toPath()));
+
+        // Only the attachment content files are deduplicated
+        assertFalse(Files.isSameFile(attachment1.toPath(), temporary.toPath()));
+        assertFalse(Files.isSameFile(attachment1.toPath(), document.toPath()));
+
+        // The completed pass is remembered, and the marker is not taken for an unused content
+        File marker = new File(this.contentStore.getContentDir(), FilesystemContentStore.DEDUPLICATED_MARKER_NAME);
+        assertTrue(marker.exists());
+        assertEquals(0, this.contentStore.cleanUnusedContents());
+        assertTrue(marker.exists());
+    }
+
+    @Test
+    public void initializeDeduplicatesExistingFilesInBackground() throws Exception
+    {
+        File attachment1 = createFile("xwiki/a/b/attachments/c/f.txt", "content");
+        File attachment2 = createFile("xwiki/d/e/attachments/c/f.txt", "content");
+
+        when(this.config.isDeduplicated()).thenReturn(true);
+        this.contentStore.initialize();
+        assertTrue(this.contentStore.isEnabled());
+
+        File marker = new File(this.contentStore.getContentDir(), FilesystemContentStore.DEDUPLICATED_MARKER_NAME);
+        for (int i = 0; i < 100 && !marker.exists(); ++i) {
+            Thread.sleep(100);
+        }
+
+        assertTrue(marker.exists());
+        assertTrue(Files.isSameFile(attachment1.toPath(), attachment2.toPath()));
+    }
+}
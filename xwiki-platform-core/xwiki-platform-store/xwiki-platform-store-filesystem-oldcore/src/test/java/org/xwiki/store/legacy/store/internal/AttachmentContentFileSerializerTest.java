@@ -0,0 +1,119 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.store.legacy.store.internal;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.io.FileUtils;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.xwiki.store.filesystem.internal.FilesystemContentStore;
+import org.xwiki.test.junit5.XWikiTempDir;
+import org.xwiki.test.junit5.XWikiTempDirExtension;
+
+import com.xpn.xwiki.XWikiContext;
+import com.xpn.xwiki.doc.XWikiAttachment;
+import com.xpn.xwiki.doc.XWikiAttachmentContent;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Validate {@link AttachmentContentFileSerializer}.
+ *
+ * @version $Id$
+ */
+@ExtendWith(XWikiTempDirExtension.class)
+public class AttachmentContentFileSerializerTest
+{
+    private static final String CONTENT = "content";
+
+    @XWikiTempDir
+    private File tmpDir;
+
+    private XWikiAttachment attachment;
+
+    private XWikiAttachmentContent content;
+
+    private XWikiContext context;
+
+    @BeforeEach
+    public void setUp()
+    {
+        this.attachment = mock(XWikiAttachment.class);
+        this.content = mock(XWikiAttachmentContent.class);
+        this.context = mock(XWikiContext.class);
+
+        when(this.attachment.getAttachment_content()).thenReturn(this.content);
+    }
+
+    @Test
+    public void serializeFileContent() throws Exception
+    {
+        File contentFile = new File(this.tmpDir, "upload");
+        FileUtils.write(contentFile, CONTENT, StandardCharsets.UTF_8);
+        when(this.content.getContentFile()).thenReturn(contentFile);
+
+        File file = new File(this.tmpDir, "file");
+        new AttachmentContentFileSerializer(this.attachment, null, this.context).serialize(file);
+
+        assertEquals(CONTENT, FileUtils.readFileToString(file, StandardCharsets.UTF_8));
+        verify(this.attachment, never()).getContentInputStream(this.context);
+
+        // The saved file should not be impacted by the removal of the original file
+        Files.delete(contentFile.toPath());
+        assertEquals(CONTENT, FileUtils.readFileToString(file, StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void serializeMemoryContent() throws Exception
+    {
+        when(this.attachment.getContentInputStream(this.context))
+            .thenReturn(new ByteArrayInputStream(CONTENT.getBytes(StandardCharsets.UTF_8)));
+
+        File file = new File(this.tmpDir, "file");
+        new AttachmentContentFileSerializer(this.attachment, null, this.context).serialize(file);
+
+        assertEquals(CONTENT, FileUtils.readFileToString(file, StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void serializeDeduplicatedContent() throws Exception
+    {
+        FilesystemContentStore contentStore = mock(FilesystemContentStore.class);
+        when(contentStore.isEnabled()).thenReturn(true);
+        when(this.attachment.getContentInputStream(this.context))
+            .thenReturn(new ByteArrayInputStream(CONTENT.getBytes(StandardCharsets.UTF_8)));
+
+        File file = new File(this.tmpDir, "file");
+        new AttachmentContentFileSerializer(this.attachment, contentStore, this.context).serialize(file);
+
+        assertEquals(CONTENT, FileUtils.readFileToString(file, StandardCharsets.UTF_8));
+        verify(contentStore).deduplicate(file, DigestUtils.sha256Hex(CONTENT));
+    }
+}
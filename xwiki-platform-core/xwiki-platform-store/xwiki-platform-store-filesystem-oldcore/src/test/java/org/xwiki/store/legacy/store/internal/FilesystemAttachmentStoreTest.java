@@ -178,6 +178,8 @@ public void setUp() throws Exception
                 will(returnValue(true));
                 allowing(mockDirtyContent).isContentDirty();
                 will(returnValue(true));
+                allowing(mockDirtyContent).getContentFile();
+                will(returnValue(null));
                 allowing(mockAttach).setAttachmentContainer(with(any(AttachmentContainer.class)));
             }
         });
@@ -0,0 +1,245 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.vfs.internal.attach;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import org.xwiki.component.annotation.Component;
+import org.xwiki.environment.Environment;
+import org.xwiki.model.reference.AttachmentReference;
+import org.xwiki.model.reference.EntityReference;
+import org.xwiki.model.reference.EntityReferenceSerializer;
+
+import com.xpn.xwiki.XWikiContext;
+import com.xpn.xwiki.XWikiException;
+import com.xpn.xwiki.doc.XWikiAttachment;
+
+/**
+ * Keeps the content of the most recently used archive attachments memory-mapped so that the archive drivers, which
+ * need random access to read the central directory and the entries, don't copy the whole attachment each time an
+ * archive is mounted (e.g. for each image of a page displaying several images from the same ZIP attachment). The
+ * content is cached by attachment reference and version, and the least recently used archives are released when the
+ * total size of the cached archives exceeds the limit.
+ *
+ * @version $Id$
+ * @since 12.0RC1
+ */
+@Component(roles = AttachArchiveCache.class)
+@Singleton
+public class AttachArchiveCache
+{
+    /**
+     * The default maximum total size of the cached archives, in bytes.
+     */
+    private static final long DEFAULT_MAX_SIZE = 100L * 1024 * 1024;
+
+    @Inject
+    private Environment environment;
+
+    @Inject
+    private EntityReferenceSerializer<String> serializer;
+
+    private long maxSize = DEFAULT_MAX_SIZE;
+
+    /**
+     * The cached archives, from the least recently used to the most recently used.
+     */
+    private final Map<String, CachedArchive> archives = new LinkedHashMap<>(16, 0.75F, true);
+
+    private long size;
+
+    /**
+     * The temporary files of the released archives which could not be deleted yet because they were still mapped.
+     */
+    private final List<File> releasedFiles = new ArrayList<>();
+
+    private static final class CachedArchive
+    {
+        private final AttachmentReference reference;
+
+        private final ByteBuffer content;
+
+        /**
+         * The mapped file, or {@code null} if it was deleted right after being mapped.
+         */
+        private final File file;
+
+        CachedArchive(AttachmentReference reference, ByteBuffer content, File file)
+        {
+            this.reference = reference;
+            this.content = content;
+            this.file = file;
+        }
+    }
+
+    /**
+     * @param attachment the archive attachment
+     * @param xcontext the XWiki context
+     * @return a read only channel on the content of the attachment, or {@code null} if the attachment is too big to
+     *         be cached
+     * @throws IOException when failing to read the attachment content
+     */
+    public SeekableByteChannel getChannel(XWikiAttachment attachment, XWikiContext xcontext) throws IOException
+    {
+        String key = this.serializer.serialize(attachment.getReference()) + '@' + attachment.getVersion();
+
+        CachedArchive archive;
+        synchronized (this.archives) {
+            archive = this.archives.get(key);
+        }
+
+        if (archive == null) {
+            archive = map(attachment, xcontext);
+            if (archive == null) {
+                return null;
+            }
+
+            synchronized (this.archives) {
+                CachedArchive existingArchive = this.archives.putIfAbsent(key, archive);
+                if (existingArchive != null) {
+                    // Mapped by another thread in the meantime
+                    release(archive);
+                    archive = existingArchive;
+                } else {
+                    this.size += archive.content.capacity();
+                    evict(archive);
+                }
+            }
+        }
+
+        // The cached buffer is shared so each channel works on its own view of it
+        return new ByteBufferChannel(archive.content.duplicate());
+    }
+
+    /**
+     * Remove from the cache the archives located in the passed entity (e.g. when an attachment is updated or deleted).
+     *
+     * @param reference the reference of the attachment or of the document holding the attachments
+     */
+    public void invalidate(EntityReference reference)
+    {
+        synchronized (this.archives) {
+            Iterator<CachedArchive> iterator = this.archives.values().iterator();
+            while (iterator.hasNext()) {
+                CachedArchive archive = iterator.next();
+                if (archive.reference.equals(reference) || archive.reference.hasParent(reference)) {
+                    iterator.remove();
+                    this.size -= archive.content.capacity();
+                    release(archive);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the total size of the cached archives, in bytes
+     */
+    public long getSize()
+    {
+        synchronized (this.archives) {
+            return this.size;
+        }
+    }
+
+    private void evict(CachedArchive addedArchive)
+    {
+        Iterator<CachedArchive> iterator = this.archives.values().iterator();
+        while (this.size > this.maxSize && iterator.hasNext()) {
+            CachedArchive archive = iterator.next();
+            if (archive != addedArchive) {
+                iterator.remove();
+                this.size -= archive.content.capacity();
+                release(archive);
+            }
+        }
+    }
+
+    /**
+     * Forget the mapped content, which is unmapped once the channels still reading it are garbage collected, and delete
+     * its temporary file.
+     */
+    private void release(CachedArchive archive)
+    {
+        if (archive.file != null) {
+            this.releasedFiles.add(archive.file);
+        }
+
+        // Some systems don't allow deleting a file while it's mapped so the previous attempts are retried
+        this.releasedFiles.removeIf(file -> file.delete() || !file.exists());
+    }
+
+    private CachedArchive map(XWikiAttachment attachment, XWikiContext xcontext) throws IOException
+    {
+        try {
+            if (attachment.getContentLongSize(xcontext) > Math.min(Integer.MAX_VALUE, this.maxSize)) {
+                return null;
+            }
+        } catch (XWikiException e) {
+            throw new IOException(String.format("Failed to get the size of attachment [%s]",
+                attachment.getReference()), e);
+        }
+
+        // Copy the attachment content to a file we can map, whatever the store
+        File directory = new File(this.environment.getTemporaryDirectory(), "vfs");
+        directory.mkdirs();
+        File file = File.createTempFile("archive", ".tmp", directory);
+        ByteBuffer content = null;
+        try {
+            try (InputStream stream = attachment.getContentInputStream(xcontext)) {
+                Files.copy(stream, file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            } catch (XWikiException e) {
+                throw new IOException(String.format("Failed to get the content of attachment [%s]",
+                    attachment.getReference()), e);
+            }
+
+            try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+                // The mapping stays valid after the channel is closed
+                content = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            }
+        } finally {
+            // The mapped content is kept until the buffer is garbage collected, even if the file is deleted. Some
+            // systems don't allow deleting a mapped file though, in which case it's deleted when the archive is
+            // released.
+            if (file.delete()) {
+                file = null;
+            } else {
+                file.deleteOnExit();
+            }
+        }
+
+        return new CachedArchive(attachment.getReference(), content, file);
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.vfs.internal.attach;
+
+import java.net.URI;
+import java.util.Arrays;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import org.apache.commons.lang3.exception.ExceptionUtils;
+import org.slf4j.Logger;
+import org.xwiki.bridge.event.DocumentDeletedEvent;
+import org.xwiki.component.annotation.Component;
+import org.xwiki.model.reference.AttachmentReference;
+import org.xwiki.model.reference.EntityReferenceSerializer;
+import org.xwiki.observation.AbstractEventListener;
+import org.xwiki.observation.event.Event;
+
+import com.xpn.xwiki.doc.XWikiDocument;
+import com.xpn.xwiki.internal.event.AbstractAttachmentEvent;
+import com.xpn.xwiki.internal.event.AttachmentDeletedEvent;
+import com.xpn.xwiki.internal.event.AttachmentUpdatedEvent;
+
+import net.java.truevfs.access.TFile;
+import net.java.truevfs.access.TVFS;
+
+/**
+ * Invalidate the cached archives when their attachment is modified or deleted, and unmount the corresponding TrueVFS
+ * archive so that it's read again from the new attachment content.
+ *
+ * @version $Id$
+ * @since 12.0RC1
+ */
+@Component
+@Named(AttachArchiveCacheListener.NAME)
+@Singleton
+public class AttachArchiveCacheListener extends AbstractEventListener
+{
+    /**
+     * The name of the listener.
+     */
+    public static final String NAME = "vfsAttachArchiveCache";
+
+    @Inject
+    private AttachArchiveCache cache;
+
+    @Inject
+    private EntityReferenceSerializer<String> serializer;
+
+    @Inject
+    private Logger logger;
+
+    /**
+     * Default constructor.
+     */
+    public AttachArchiveCacheListener()
+    {
+        super(NAME, Arrays.asList(new AttachmentUpdatedEvent(), new AttachmentDeletedEvent(),
+            new DocumentDeletedEvent()));
+    }
+
+    @Override
+    public void onEvent(Event event, Object source, Object data)
+    {
+        XWikiDocument document = (XWikiDocument) source;
+
+        if (event instanceof AbstractAttachmentEvent) {
+            AttachmentReference reference =
+                new AttachmentReference(((AbstractAttachmentEvent) event).getName(), document.getDocumentReference());
+
+            this.cache.invalidate(reference);
+
+            umount(reference);
+        } else {
+            this.cache.invalidate(document.getDocumentReference());
+        }
+    }
+
+    private void umount(AttachmentReference reference)
+    {
+        URI uri = URI.create(String.format("attach://%s/%s",
+            this.serializer.serialize(reference.getDocumentReference()), reference.getName()));
+
+        try {
+            TFile archive = new TFile(uri);
+            if (archive.isArchive()) {
+                TVFS.umount(archive);
+            }
+        } catch (Exception e) {
+            this.logger.warn("Failed to unmount the archive [{}]: {}", uri, ExceptionUtils.getRootCauseMessage(e));
+        }
+    }
+}
@@ -65,6 +65,13 @@ public InputStream stream(final OutputSocket<? extends Entry> peer) throws IOExc
     @Override
     public SeekableByteChannel channel(final OutputSocket<? extends Entry> peer) throws IOException
     {
+        // Archive drivers need random access to the attachment, which is cached to avoid copying the whole attachment
+        // each time the archive is mounted.
+        SeekableByteChannel cachedChannel = entry.newChannel();
+        if (cachedChannel != null) {
+            return cachedChannel;
+        }
+
         final IoBuffer buffer = entry.getPool().allocate();
         try {
             IoSockets.copy(entry.input(), buffer.output());
@@ -23,6 +23,7 @@
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.net.URI;
+import java.nio.channels.SeekableByteChannel;
 import java.util.Set;
 
 import javax.annotation.concurrent.Immutable;
@@ -89,6 +90,24 @@ protected InputStream newInputStream() throws IOException
         }
     }
 
+    /**
+     * @return a read only channel on the attachment content shared between the requests, or {@code null} if the
+     *         attachment content can't be cached
+     * @throws IOException when failing to read the attachment content
+     * @since 12.0RC1
+     */
+    protected SeekableByteChannel newChannel() throws IOException
+    {
+        AttachArchiveCache cache;
+        try {
+            cache = this.controller.getComponentManager().getInstance(AttachArchiveCache.class);
+        } catch (Exception e) {
+            throw new IOException(String.format("Failed to get the archive cache for URI [%s]", this.uri), e);
+        }
+
+        return cache.getChannel(this.xwikiModelNode.getAttachment(), this.xwikiModelNode.getXWikiContext());
+    }
+
     protected OutputStream newOutputStream() throws IOException
     {
         throw new FsReadOnlyFileSystemException(this.controller.getMountPoint());
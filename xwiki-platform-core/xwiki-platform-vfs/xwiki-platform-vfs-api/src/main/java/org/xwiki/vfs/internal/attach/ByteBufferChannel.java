@@ -0,0 +1,129 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.vfs.internal.attach;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.NonWritableChannelException;
+import java.nio.channels.SeekableByteChannel;
+
+/**
+ * Read only {@link SeekableByteChannel} on top of a {@link ByteBuffer}, used to give the archive drivers random access
+ * to the archive content cached in memory.
+ *
+ * @version $Id$
+ * @since 12.0RC1
+ */
+public class ByteBufferChannel implements SeekableByteChannel
+{
+    private final ByteBuffer buffer;
+
+    private long position;
+
+    private boolean open = true;
+
+    /**
+     * @param buffer the content to read, from 0 to its limit; the channel doesn't modify its position and limit
+     */
+    public ByteBufferChannel(ByteBuffer buffer)
+    {
+        this.buffer = buffer;
+    }
+
+    @Override
+    public int read(ByteBuffer dst) throws IOException
+    {
+        checkOpen();
+
+        if (this.position >= this.buffer.limit()) {
+            return -1;
+        }
+
+        ByteBuffer source = this.buffer.duplicate();
+        source.position((int) this.position);
+        int length = Math.min(dst.remaining(), source.remaining());
+        source.limit((int) this.position + length);
+        dst.put(source);
+        this.position += length;
+
+        return length;
+    }
+
+    @Override
+    public int write(ByteBuffer src)
+    {
+        throw new NonWritableChannelException();
+    }
+
+    @Override
+    public long position() throws IOException
+    {
+        checkOpen();
+
+        return this.position;
+    }
+
+    @Override
+    public SeekableByteChannel position(long newPosition) throws IOException
+    {
+        checkOpen();
+
+        if (newPosition < 0) {
+            throw new IllegalArgumentException("Negative position: " + newPosition);
+        }
+        this.position = newPosition;
+
+        return this;
+    }
+
+    @Override
+    public long size() throws IOException
+    {
+        checkOpen();
+
+        return this.buffer.limit();
+    }
+
+    @Override
+    public SeekableByteChannel truncate(long size)
+    {
+        throw new NonWritableChannelException();
+    }
+
+    @Override
+    public boolean isOpen()
+    {
+        return this.open;
+    }
+
+    @Override
+    public void close()
+    {
+        this.open = false;
+    }
+
+    private void checkOpen() throws ClosedChannelException
+    {
+        if (!this.open) {
+            throw new ClosedChannelException();
+        }
+    }
+}
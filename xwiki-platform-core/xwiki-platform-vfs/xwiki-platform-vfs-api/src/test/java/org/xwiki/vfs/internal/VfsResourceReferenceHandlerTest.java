@@ -21,8 +21,8 @@
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
-import java.io.InputStream;
 import java.net.URI;
+import java.nio.ByteBuffer;
 import java.util.Arrays;
 import java.util.Date;
 import java.util.List;
@@ -48,7 +48,9 @@
 import org.xwiki.vfs.VfsException;
 import org.xwiki.vfs.VfsPermissionChecker;
 import org.xwiki.vfs.VfsResourceReference;
+import org.xwiki.vfs.internal.attach.AttachArchiveCache;
 import org.xwiki.vfs.internal.attach.AttachDriver;
+import org.xwiki.vfs.internal.attach.ByteBufferChannel;
 
 import com.xpn.xwiki.XWiki;
 import com.xpn.xwiki.XWikiContext;
@@ -122,8 +124,12 @@ private void setUp(String scheme, String wikiName, String spaceName, String page
         when(attachment.getDate()).thenReturn(new Date());
         when(attachment.getContentLongSize(xcontext)).thenReturn(1000L);
 
-        when(attachment.getContentInputStream(xcontext)).thenReturn(
-            createZipInputStream(StringUtils.join(path, '/'), "success!"));
+        byte[] zipContent = createZipContent(StringUtils.join(path, '/'), "success!");
+        when(attachment.getContentInputStream(xcontext)).thenReturn(new ByteArrayInputStream(zipContent));
+
+        AttachArchiveCache archiveCache = this.mocker.registerMockComponent(AttachArchiveCache.class);
+        when(archiveCache.getChannel(attachment, xcontext))
+            .thenAnswer(invocation -> new ByteBufferChannel(ByteBuffer.wrap(zipContent)));
 
         Container container = this.mocker.getInstance(Container.class);
         Response response = mock(Response.class);
@@ -169,7 +175,7 @@ public void handleWhenNoGenericPermissionForScheme() throws Exception
         }
     }
 
-    private InputStream createZipInputStream(String fileName, String content) throws Exception
+    private byte[] createZipContent(String fileName, String content) throws Exception
     {
         ByteArrayOutputStream baos = new ByteArrayOutputStream();
         try (ZipOutputStream zos = new ZipOutputStream(baos)) {
@@ -178,6 +184,6 @@ private InputStream createZipInputStream(String fileName, String content) throws
             zos.write(content.getBytes());
             zos.closeEntry();
         }
-        return new ByteArrayInputStream(baos.toByteArray());
+        return baos.toByteArray();
     }
 }
@@ -0,0 +1,188 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.vfs.internal.attach;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.channels.SeekableByteChannel;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.xwiki.component.util.ReflectionUtils;
+import org.xwiki.environment.Environment;
+import org.xwiki.model.reference.AttachmentReference;
+import org.xwiki.model.reference.DocumentReference;
+import org.xwiki.model.reference.EntityReferenceSerializer;
+import org.xwiki.test.junit5.XWikiTempDir;
+import org.xwiki.test.junit5.XWikiTempDirExtension;
+import org.xwiki.test.junit5.mockito.ComponentTest;
+import org.xwiki.test.junit5.mockito.InjectMockComponents;
+import org.xwiki.test.junit5.mockito.MockComponent;
+
+import com.xpn.xwiki.XWikiContext;
+import com.xpn.xwiki.doc.XWikiAttachment;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for {@link AttachArchiveCache}.
+ *
+ * @version $Id$
+ */
+@ComponentTest
+@ExtendWith(XWikiTempDirExtension.class)
+public class AttachArchiveCacheTest
+{
+    private static final DocumentReference DOCUMENT_REFERENCE = new DocumentReference("wiki", "Space", "Page");
+
+    private static final AttachmentReference ATTACHMENT_REFERENCE =
+        new AttachmentReference("archive.zip", DOCUMENT_REFERENCE);
+
+    @InjectMockComponents
+    private AttachArchiveCache cache;
+
+    @MockComponent
+    private Environment environment;
+
+    @MockComponent
+    private EntityReferenceSerializer<String> serializer;
+
+    @XWikiTempDir
+    private File temporaryDirectory;
+
+    private XWikiContext xcontext = mock(XWikiContext.class);
+
+    private XWikiAttachment attachment = mock(XWikiAttachment.class);
+
+    @BeforeEach
+    public void configure() throws Exception
+    {
+        when(this.environment.getTemporaryDirectory()).thenReturn(this.temporaryDirectory);
+        when(this.serializer.serialize(ATTACHMENT_REFERENCE)).thenReturn("wiki:Space.Page@archive.zip");
+
+        when(this.attachment.getReference()).thenReturn(ATTACHMENT_REFERENCE);
+        when(this.attachment.getVersion()).thenReturn("1.1");
+        when(this.attachment.getContentLongSize(this.xcontext)).thenReturn(7L);
+        when(this.attachment.getContentInputStream(this.xcontext))
+            .thenAnswer(invocation -> new ByteArrayInputStream("content".getBytes()));
+    }
+
+    private String read(SeekableByteChannel channel, long position, int length) throws Exception
+    {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        channel.position(position);
+        channel.read(buffer);
+
+        return new String(buffer.array(), 0, buffer.position());
+    }
+
+    @Test
+    public void getChannel() throws Exception
+    {
+        SeekableByteChannel channel = this.cache.getChannel(this.attachment, this.xcontext);
+        assertEquals(7, channel.size());
+        assertEquals("tent", read(channel, 3, 10));
+        assertEquals(-1, channel.read(ByteBuffer.allocate(1)));
+
+        // The content is read only once per version
+        SeekableByteChannel otherChannel = this.cache.getChannel(this.attachment, this.xcontext);
+        assertEquals("cont", read(otherChannel, 0, 4));
+        assertEquals("tent", read(channel, 3, 4));
+        verify(this.attachment).getContentInputStream(this.xcontext);
+
+        when(this.attachment.getVersion()).thenReturn("2.1");
+        this.cache.getChannel(this.attachment, this.xcontext);
+        verify(this.attachment, times(2)).getContentInputStream(this.xcontext);
+
+        // The temporary files are deleted once mapped
+        assertEquals(0, new File(this.temporaryDirectory, "vfs").list().length);
+    }
+
+    @Test
+    public void invalidate() throws Exception
+    {
+        this.cache.getChannel(this.attachment, this.xcontext);
+
+        this.cache.invalidate(ATTACHMENT_REFERENCE);
+        this.cache.getChannel(this.attachment, this.xcontext);
+        verify(this.attachment, times(2)).getContentInputStream(this.xcontext);
+
+        this.cache.invalidate(DOCUMENT_REFERENCE);
+        assertEquals(0, this.cache.getSize());
+        this.cache.getChannel(this.attachment, this.xcontext);
+        verify(this.attachment, times(3)).getContentInputStream(this.xcontext);
+        assertEquals(7, this.cache.getSize());
+    }
+
+    @Test
+    public void evictLeastRecentlyUsed() throws Exception
+    {
+        ReflectionUtils.setFieldValue(this.cache, "maxSize", 15L);
+
+        SeekableByteChannel channel = this.cache.getChannel(this.attachment, this.xcontext);
+        when(this.attachment.getVersion()).thenReturn("2.1");
+        this.cache.getChannel(this.attachment, this.xcontext);
+        assertEquals(14, this.cache.getSize());
+
+        // The total size would exceed the limit so the version 1.1, least recently used, is released
+        when(this.attachment.getVersion()).thenReturn("3.1");
+        this.cache.getChannel(this.attachment, this.xcontext);
+        assertEquals(14, this.cache.getSize());
+        verify(this.attachment, times(3)).getContentInputStream(this.xcontext);
+
+        when(this.attachment.getVersion()).thenReturn("2.1");
+        this.cache.getChannel(this.attachment, this.xcontext);
+        verify(this.attachment, times(3)).getContentInputStream(this.xcontext);
+
+        when(this.attachment.getVersion()).thenReturn("1.1");
+        this.cache.getChannel(this.attachment, this.xcontext);
+        verify(this.attachment, times(4)).getContentInputStream(this.xcontext);
+
+        // The channels opened before the release keep working
+        assertEquals("content", read(channel, 0, 7));
+
+        // No temporary file is left behind
+        assertEquals(0, new File(this.temporaryDirectory, "vfs").list().length);
+    }
+
+    @Test
+    public void getChannelWhenBiggerThanCache() throws Exception
+    {
+        ReflectionUtils.setFieldValue(this.cache, "maxSize", 5L);
+
+        assertNull(this.cache.getChannel(this.attachment, this.xcontext));
+        assertEquals(0, this.cache.getSize());
+    }
+
+    @Test
+    public void getChannelWhenTooBig() throws Exception
+    {
+        when(this.attachment.getContentLongSize(this.xcontext)).thenReturn(Integer.MAX_VALUE + 1L);
+
+        assertNull(this.cache.getChannel(this.attachment, this.xcontext));
+    }
+}
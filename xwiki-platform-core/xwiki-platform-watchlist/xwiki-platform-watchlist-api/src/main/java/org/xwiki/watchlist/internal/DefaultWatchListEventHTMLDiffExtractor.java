@@ -29,7 +29,14 @@
 import org.apache.ecs.html.Div;
 import org.apache.ecs.html.Span;
 import org.slf4j.Logger;
+import org.xwiki.cache.Cache;
+import org.xwiki.cache.CacheException;
+import org.xwiki.cache.CacheManager;
+import org.xwiki.cache.config.LRUCacheConfiguration;
 import org.xwiki.component.annotation.Component;
+import org.xwiki.component.phase.Initializable;
+import org.xwiki.component.phase.InitializationException;
+import org.xwiki.model.reference.EntityReferenceSerializer;
 import org.xwiki.watchlist.internal.api.WatchListEvent;
 import org.xwiki.watchlist.internal.api.WatchListEventType;
 import org.xwiki.watchlist.internal.api.WatchListException;
@@ -45,13 +52,17 @@
 /**
  * Default implementation for {@link WatchListEventHTMLDiffExtractor}.
  * <p>
+ * The HTML diffs are cached since the same change is usually notified to many subscribers, by several watchlist jobs.
+ * They don't depend on the subscriber: the events on documents a subscriber cannot view are filtered out before, and
+ * the hidden properties are obfuscated for everyone.
+ * <p>
  * TODO: Use the new diff module instead of the old diff plugin.
  * 
  * @version $Id$
  */
 @Component
 @Singleton
-public class DefaultWatchListEventHTMLDiffExtractor implements WatchListEventHTMLDiffExtractor
+public class DefaultWatchListEventHTMLDiffExtractor implements WatchListEventHTMLDiffExtractor, Initializable
 {
     /**
      * Prefix used in inline style we put in HTML diffs.
@@ -93,65 +104,110 @@ public class DefaultWatchListEventHTMLDiffExtractor implements WatchListEventHTM
      */
     private static final String INITIAL_DOCUMENT_VERSION = "1.1";
 
+    /**
+     * The maximum number of HTML diffs to keep in memory.
+     */
+    private static final int CACHE_CAPACITY = 500;
+
+    private static final char CACHE_KEY_SEPARATOR = '/';
+
     @Inject
     private Logger logger;
 
     @Inject
     private Provider<XWikiContext> contextProvider;
 
+    @Inject
+    private CacheManager cacheManager;
+
+    @Inject
+    private EntityReferenceSerializer<String> serializer;
+
+    private Cache<String> cache;
+
+    @Override
+    public void initialize() throws InitializationException
+    {
+        try {
+            this.cache =
+                this.cacheManager.createNewLocalCache(new LRUCacheConfiguration("watchlist.htmldiff", CACHE_CAPACITY));
+        } catch (CacheException e) {
+            throw new InitializationException("Failed to create the watchlist HTML diff cache", e);
+        }
+    }
+
     @Override
     public String getHTMLDiff(WatchListEvent event) throws WatchListException
     {
         XWikiContext context = contextProvider.get();
 
-        StringBuffer result = new StringBuffer();
-
         try {
-            DiffPluginApi diff = (DiffPluginApi) context.getWiki().getPluginApi("diff", context);
-
             XWikiDocument d2 = context.getWiki().getDocument(event.getDocumentReference(), context);
 
-            if (event.getType().equals(WatchListEventType.CREATE)) {
-                d2 = context.getWiki().getDocument(d2, INITIAL_DOCUMENT_VERSION, context);
-            }
-
-            XWikiDocument d1 = context.getWiki().getDocument(d2, event.getPreviousVersion(), context);
-            List<AttachmentDiff> attachDiffs = d2.getAttachmentDiff(d1, d2, context);
-            List<List<ObjectDiff>> objectDiffs = d2.getObjectDiff(d1, d2, context);
-            List<List<ObjectDiff>> classDiffs = d2.getClassDiff(d1, d2, context);
-            List<MetaDataDiff> metaDiffs = d2.getMetaDataDiff(d1, d2, context);
-
-            if (!d1.getContent().equals(d2.getContent())) {
-                Div contentDiv = createDiffDiv("contentDiff");
-                String contentDiff = diff.getDifferencesAsHTML(d1.getContent(), d2.getContent(), false);
-                contentDiv.addElement(contentDiff);
-                result.append(contentDiv);
-            }
-
-            for (AttachmentDiff aDiff : attachDiffs) {
-                Div attachmentDiv = createDiffDiv("attachmentDiff");
-                attachmentDiv.addElement(HTML_IMG_ATTACHMENT_PREFIX + HTML_IMG_PLACEHOLDER_SUFFIX);
-                attachmentDiv.addElement(aDiff.toString());
-                result.append(attachmentDiv);
-            }
+            // The date of the current version protects against the documents deleted and created again
+            String key = event.getType() + CACHE_KEY_SEPARATOR + event.getPreviousVersion() + CACHE_KEY_SEPARATOR
+                + d2.getVersion() + CACHE_KEY_SEPARATOR + d2.getDate().getTime() + CACHE_KEY_SEPARATOR
+                + this.serializer.serialize(d2.getDocumentReference());
 
-            result.append(getObjectsHTMLDiff(objectDiffs, false, event.getFullName(), diff));
-            result.append(getObjectsHTMLDiff(classDiffs, true, event.getFullName(), diff));
-
-            for (MetaDataDiff mDiff : metaDiffs) {
-                Div metaDiv = createDiffDiv("metaDiff");
-                metaDiv.addElement(HTML_IMG_METADATA_PREFIX + HTML_IMG_PLACEHOLDER_SUFFIX);
-                metaDiv.addElement(mDiff.toString());
-                result.append(metaDiv);
+            String htmlDiff = this.cache.get(key);
+            if (htmlDiff == null) {
+                htmlDiff = getHTMLDiff(event, d2, context);
+                this.cache.set(key, htmlDiff);
             }
 
-            return result.toString();
+            return htmlDiff;
         } catch (Exception e) {
             throw new WatchListException(String.format("Failed to compute HTML diff for event type [%s] on [%s]",
                 event.getType(), event.getPrefixedFullName()), e);
         }
     }
 
+    private String getHTMLDiff(WatchListEvent event, XWikiDocument currentDocument, XWikiContext context)
+        throws XWikiException
+    {
+        StringBuffer result = new StringBuffer();
+
+        DiffPluginApi diff = (DiffPluginApi) context.getWiki().getPluginApi("diff", context);
+
+        XWikiDocument d2 = currentDocument;
+
+        if (event.getType().equals(WatchListEventType.CREATE)) {
+            d2 = context.getWiki().getDocument(d2, INITIAL_DOCUMENT_VERSION, context);
+        }
+
+        XWikiDocument d1 = context.getWiki().getDocument(d2, event.getPreviousVersion(), context);
+        List<AttachmentDiff> attachDiffs = d2.getAttachmentDiff(d1, d2, context);
+        List<List<ObjectDiff>> objectDiffs = d2.getObjectDiff(d1, d2, context);
+        List<List<ObjectDiff>> classDiffs = d2.getClassDiff(d1, d2, context);
+        List<MetaDataDiff> metaDiffs = d2.getMetaDataDiff(d1, d2, context);
+
+        if (!d1.getContent().equals(d2.getContent())) {
+            Div contentDiv = createDiffDiv("contentDiff");
+            String contentDiff = diff.getDifferencesAsHTML(d1.getContent(), d2.getContent(), false);
+            contentDiv.addElement(contentDiff);
+            result.append(contentDiv);
+        }
+
+        for (AttachmentDiff aDiff : attachDiffs) {
+            Div attachmentDiv = createDiffDiv("attachmentDiff");
+            attachmentDiv.addElement(HTML_IMG_ATTACHMENT_PREFIX + HTML_IMG_PLACEHOLDER_SUFFIX);
+            attachmentDiv.addElement(aDiff.toString());
+            result.append(attachmentDiv);
+        }
+
+        result.append(getObjectsHTMLDiff(objectDiffs, false, event.getFullName(), diff));
+        result.append(getObjectsHTMLDiff(classDiffs, true, event.getFullName(), diff));
+
+        for (MetaDataDiff mDiff : metaDiffs) {
+            Div metaDiv = createDiffDiv("metaDiff");
+            metaDiv.addElement(HTML_IMG_METADATA_PREFIX + HTML_IMG_PLACEHOLDER_SUFFIX);
+            metaDiv.addElement(mDiff.toString());
+            result.append(metaDiv);
+        }
+
+        return result.toString();
+    }
+
     /**
      * @param classAttr The class of the div to create
      * @return a HTML div element
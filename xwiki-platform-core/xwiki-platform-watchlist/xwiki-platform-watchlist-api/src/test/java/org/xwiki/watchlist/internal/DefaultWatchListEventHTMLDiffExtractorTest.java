@@ -0,0 +1,134 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.watchlist.internal;
+
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.inject.Provider;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.xwiki.cache.Cache;
+import org.xwiki.cache.CacheManager;
+import org.xwiki.cache.config.CacheConfiguration;
+import org.xwiki.model.reference.DocumentReference;
+import org.xwiki.test.junit5.mockito.ComponentTest;
+import org.xwiki.test.junit5.mockito.InjectMockComponents;
+import org.xwiki.test.junit5.mockito.MockComponent;
+import org.xwiki.watchlist.internal.api.WatchListEvent;
+import org.xwiki.watchlist.internal.api.WatchListEventType;
+
+import com.xpn.xwiki.XWiki;
+import com.xpn.xwiki.XWikiContext;
+import com.xpn.xwiki.doc.XWikiDocument;
+import com.xpn.xwiki.plugin.diff.DiffPluginApi;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for {@link DefaultWatchListEventHTMLDiffExtractor}.
+ *
+ * @version $Id$
+ */
+@ComponentTest
+public class DefaultWatchListEventHTMLDiffExtractorTest
+{
+    @MockComponent
+    private CacheManager cacheManager;
+
+    @MockComponent
+    private Provider<XWikiContext> contextProvider;
+
+    @InjectMockComponents
+    private DefaultWatchListEventHTMLDiffExtractor extractor;
+
+    private DocumentReference documentReference = new DocumentReference("wiki", "Space", "Page");
+
+    private XWikiContext xcontext;
+
+    private DiffPluginApi diff;
+
+    private XWikiDocument currentDocument;
+
+    private WatchListEvent event;
+
+    @BeforeEach
+    public void configure() throws Exception
+    {
+        Map<String, String> cacheContent = new HashMap<>();
+        Cache<String> cache = mock(Cache.class);
+        when(cache.get(anyString())).then(invocation -> cacheContent.get(invocation.getArgument(0)));
+        doAnswer(invocation -> cacheContent.put(invocation.getArgument(0), invocation.getArgument(1))).when(cache)
+            .set(anyString(), anyString());
+        when(this.cacheManager.<String>createNewLocalCache(any(CacheConfiguration.class))).thenReturn(cache);
+
+        this.xcontext = mock(XWikiContext.class);
+        when(this.contextProvider.get()).thenReturn(this.xcontext);
+        XWiki xwiki = mock(XWiki.class);
+        when(this.xcontext.getWiki()).thenReturn(xwiki);
+
+        this.diff = mock(DiffPluginApi.class);
+        when(xwiki.getPluginApi("diff", this.xcontext)).thenReturn(this.diff);
+        when(this.diff.getDifferencesAsHTML("old", "new", false)).thenReturn("<del>old</del><ins>new</ins>");
+
+        this.currentDocument = mock(XWikiDocument.class, "current");
+        when(this.currentDocument.getDocumentReference()).thenReturn(this.documentReference);
+        when(this.currentDocument.getVersion()).thenReturn("1.2");
+        when(this.currentDocument.getDate()).thenReturn(new Date(1000));
+        when(this.currentDocument.getContent()).thenReturn("new");
+        when(xwiki.getDocument(this.documentReference, this.xcontext)).thenReturn(this.currentDocument);
+
+        XWikiDocument previousDocument = mock(XWikiDocument.class, "previous");
+        when(previousDocument.getContent()).thenReturn("old");
+        when(xwiki.getDocument(this.currentDocument, "1.1", this.xcontext)).thenReturn(previousDocument);
+
+        this.event = mock(WatchListEvent.class);
+        when(this.event.getDocumentReference()).thenReturn(this.documentReference);
+        when(this.event.getType()).thenReturn(WatchListEventType.UPDATE);
+        when(this.event.getPreviousVersion()).thenReturn("1.1");
+    }
+
+    @Test
+    public void getHTMLDiffIsComputedOncePerChange() throws Exception
+    {
+        String htmlDiff = this.extractor.getHTMLDiff(this.event);
+        assertTrue(htmlDiff.contains("<del>old</del><ins>new</ins>"));
+
+        // Notifying the same change to another subscriber reuses the diff
+        assertEquals(htmlDiff, this.extractor.getHTMLDiff(this.event));
+        verify(this.diff, times(1)).getDifferencesAsHTML("old", "new", false);
+
+        // The document has been modified again since the previous notification
+        when(this.currentDocument.getVersion()).thenReturn("1.3");
+
+        assertEquals(htmlDiff, this.extractor.getHTMLDiff(this.event));
+        verify(this.diff, times(2)).getDifferencesAsHTML("old", "new", false);
+    }
+}